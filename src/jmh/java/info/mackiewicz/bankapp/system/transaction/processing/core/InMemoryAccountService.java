@@ -0,0 +1,43 @@
+package info.mackiewicz.bankapp.system.transaction.processing.core;
+
+import info.mackiewicz.bankapp.core.account.model.Account;
+import info.mackiewicz.bankapp.core.account.service.AccountService;
+import info.mackiewicz.bankapp.core.transaction.exception.InsufficientFundsException;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Stand-in for the {@link AccountService} keeping the accounts in memory, so benchmarks measure
+ * the processing core instead of the database. Balances are changed on the account objects;
+ * callers serialize the changes of an account, as the account locks do in the application.
+ */
+class InMemoryAccountService extends AccountService {
+
+    private final Map<Integer, Account> accounts;
+
+    InMemoryAccountService(Map<Integer, Account> accounts) {
+        super(null, null, null, null);
+        this.accounts = accounts;
+    }
+
+    @Override
+    public Account getAccountById(int id) {
+        return accounts.get(id);
+    }
+
+    @Override
+    public Account deposit(Account account, BigDecimal amount) {
+        account.setBalance(account.getBalance().add(amount));
+        return account;
+    }
+
+    @Override
+    public Account withdraw(Account account, BigDecimal amount) {
+        if (account.getBalance().compareTo(amount) < 0) {
+            throw new InsufficientFundsException("Insufficient funds for withdrawal");
+        }
+        account.setBalance(account.getBalance().subtract(amount));
+        return account;
+    }
+}
@@ -0,0 +1,49 @@
+package info.mackiewicz.bankapp.system.transaction.processing.core;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Runs the processing benchmarks once per thread count and writes the results of every run
+ * as JSON to {@code jmh.result.dir}, e.g. {@code transaction-processor-t4.json}.
+ * <p>
+ * System properties:
+ * <ul>
+ *     <li>{@code jmh.threads} - comma separated thread counts, default {@code 1,2,4,8}</li>
+ *     <li>{@code jmh.include} - regular expression selecting the benchmarks, default all of them</li>
+ *     <li>{@code jmh.result.dir} - directory of the JSON results, default {@code target/jmh}</li>
+ * </ul>
+ */
+public final class TransactionBenchmarkRunner {
+
+    private TransactionBenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        int[] threadCounts = Arrays.stream(System.getProperty("jmh.threads", "1,2,4,8").split(","))
+                .map(String::trim)
+                .mapToInt(Integer::parseInt)
+                .toArray();
+        String include = System.getProperty("jmh.include", TransactionProcessorBenchmark.class.getSimpleName());
+        Path resultDir = Files.createDirectories(Path.of(System.getProperty("jmh.result.dir", "target/jmh")));
+
+        for (int threads : threadCounts) {
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .threads(threads)
+                    .jvmArgsAppend("-Dlogback.configurationFile=logback-jmh.xml")
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(resultDir.resolve("transaction-processor-t" + threads + ".json").toString())
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
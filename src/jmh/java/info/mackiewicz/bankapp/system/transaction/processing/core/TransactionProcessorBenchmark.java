@@ -0,0 +1,280 @@
+package info.mackiewicz.bankapp.system.transaction.processing.core;
+
+import info.mackiewicz.bankapp.core.account.model.Account;
+import info.mackiewicz.bankapp.core.transaction.model.Transaction;
+import info.mackiewicz.bankapp.core.transaction.model.TransactionStatus;
+import info.mackiewicz.bankapp.core.transaction.model.TransactionType;
+import info.mackiewicz.bankapp.core.transaction.validation.DefaultTransactionValidator;
+import info.mackiewicz.bankapp.core.user.model.User;
+import info.mackiewicz.bankapp.shared.util.LoggingService;
+import info.mackiewicz.bankapp.system.transaction.processing.core.execution.ExecutionConfig;
+import info.mackiewicz.bankapp.system.transaction.processing.core.execution.OptimisticExecutionRunner;
+import info.mackiewicz.bankapp.system.transaction.processing.core.execution.TransactionExecutorRegistry;
+import info.mackiewicz.bankapp.system.transaction.processing.core.execution.TransactionUnitOfWork;
+import info.mackiewicz.bankapp.system.transaction.processing.core.execution.impl.InternalTransferExecutor;
+import info.mackiewicz.bankapp.system.transaction.processing.core.sharding.AccountShardExecutor;
+import info.mackiewicz.bankapp.system.transaction.processing.error.ErrorNotificationConfig;
+import info.mackiewicz.bankapp.system.transaction.processing.error.TransactionErrorHandler;
+import info.mackiewicz.bankapp.system.transaction.processing.error.TransactionErrorNotifier;
+import info.mackiewicz.bankapp.system.transaction.processing.helpers.TransactionStatusManager;
+import info.mackiewicz.bankapp.system.transaction.processing.locking.AccountLockManager;
+import info.mackiewicz.bankapp.system.transaction.processing.locking.AccountLockingStrategy;
+import info.mackiewicz.bankapp.system.transaction.processing.locking.LockingConfig;
+import info.mackiewicz.bankapp.system.transaction.processing.locking.metrics.LockMetrics;
+import info.mackiewicz.bankapp.system.transaction.processing.metrics.PipelineMetricsConfig;
+import info.mackiewicz.bankapp.system.transaction.processing.metrics.TransactionPipelineMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Throughput of {@link TransactionProcessor#processTransaction} in locking mode, with the real
+ * account locks, executor registry and validator, against accounts kept in memory.
+ * <p>
+ * Accounts of a transfer are drawn from one of the {@link AccountDistribution}s. The thread count
+ * is set by {@link TransactionBenchmarkRunner}, which writes the results as JSON; run with:
+ * {@code mvn -Pjmh test-compile exec:exec}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionProcessorBenchmark {
+
+    private static final int ACCOUNTS = 1000;
+    private static final double ZIPF_EXPONENT = 1.0;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000000000000.00");
+    private static final BigDecimal AMOUNT = BigDecimal.ONE;
+    private static final String TITLE = "Benchmark transfer";
+
+    /**
+     * How the accounts of a transfer are drawn.
+     */
+    public enum AccountDistribution {
+        /** every account is equally likely */
+        UNIFORM,
+        /** a few hot accounts take most transfers, the k-th account with probability proportional to 1/k */
+        ZIPF,
+        /** every transfer involves the same account, e.g. the bank account */
+        SINGLE_HOT
+    }
+
+    @Param
+    public AccountDistribution distribution;
+
+    @Param({"true", "false"})
+    public boolean metrics;
+
+    private final AtomicInteger transactionIds = new AtomicInteger();
+
+    private Account[] accounts;
+    private double[] zipfCumulative;
+    private TransactionProcessor processor;
+    private DefaultTransactionValidator validator;
+    private AccountShardExecutor accountShards;
+
+    @Setup(Level.Trial)
+    public void setUp() throws ReflectiveOperationException {
+        accounts = new Account[ACCOUNTS];
+        Map<Integer, Account> accountsById = new HashMap<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accounts[i] = createAccount(i + 1);
+            accountsById.put(accounts[i].getId(), accounts[i]);
+        }
+        zipfCumulative = zipfCumulative(ACCOUNTS, ZIPF_EXPONENT);
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ExecutionConfig executionConfig = new ExecutionConfig(ExecutionConfig.Mode.LOCKING, 0, 0, 0, 1);
+        NoOpTransactionManager transactionManager = new NoOpTransactionManager();
+        LockMetrics lockMetrics = new LockMetrics(meterRegistry);
+        TransactionPipelineMetrics pipelineMetrics =
+                new TransactionPipelineMetrics(meterRegistry, new PipelineMetricsConfig(metrics));
+        InMemoryStatusManager statusManager = new InMemoryStatusManager();
+        accountShards = new AccountShardExecutor(executionConfig, meterRegistry);
+
+        processor = new TransactionProcessor(
+                new InMemoryAccountService(accountsById),
+                new AccountLockManager(new AccountLockingStrategy(
+                        new LockingConfig(1000, 10, 100, 1000, 30000), lockMetrics), lockMetrics),
+                new TransactionErrorHandler(statusManager, new TransactionErrorNotifier(
+                        new ErrorNotificationConfig(0, null, 0), meterRegistry), pipelineMetrics),
+                statusManager,
+                new LoggingService(),
+                new TransactionExecutorRegistry(List.of(new InternalTransferExecutor())),
+                Runnable::run,
+                Runnable::run,
+                executionConfig,
+                new OptimisticExecutionRunner(executionConfig, new TransactionTemplate(transactionManager), meterRegistry),
+                accountShards,
+                new TransactionUnitOfWork(transactionManager),
+                pipelineMetrics);
+        validator = new DefaultTransactionValidator();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        accountShards.shutdown();
+    }
+
+    @Benchmark
+    public void processTransaction() {
+        processor.processTransaction(nextTransaction()).join();
+    }
+
+    @Benchmark
+    public void validateAndProcessTransaction() {
+        Transaction transaction = nextTransaction();
+        validator.validate(transaction);
+        processor.processTransaction(transaction).join();
+    }
+
+    private Transaction nextTransaction() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int source;
+        int destination;
+        switch (distribution) {
+            case UNIFORM -> {
+                source = random.nextInt(ACCOUNTS);
+                destination = otherThan(source, random.nextInt(ACCOUNTS - 1));
+            }
+            case ZIPF -> {
+                source = zipf(random);
+                int drawn;
+                do {
+                    drawn = zipf(random);
+                } while (drawn == source);
+                destination = drawn;
+            }
+            case SINGLE_HOT -> {
+                int other = 1 + random.nextInt(ACCOUNTS - 1);
+                boolean hotPays = random.nextBoolean();
+                source = hotPays ? 0 : other;
+                destination = hotPays ? other : 0;
+            }
+            default -> throw new IllegalStateException("Unknown distribution " + distribution);
+        }
+
+        Transaction transaction = new Transaction();
+        transaction.setId(transactionIds.incrementAndGet());
+        transaction.setType(TransactionType.TRANSFER_INTERNAL);
+        transaction.setStatus(TransactionStatus.NEW);
+        transaction.setSourceAccount(accounts[source]);
+        transaction.setDestinationAccount(accounts[destination]);
+        transaction.setAmount(AMOUNT);
+        transaction.setTitle(TITLE);
+        return transaction;
+    }
+
+    private static int otherThan(int index, int drawn) {
+        return drawn >= index ? drawn + 1 : drawn;
+    }
+
+    private int zipf(ThreadLocalRandom random) {
+        int index = Arrays.binarySearch(zipfCumulative, random.nextDouble());
+        return Math.min(index >= 0 ? index : -index - 1, ACCOUNTS - 1);
+    }
+
+    private static double[] zipfCumulative(int size, double exponent) {
+        double[] cumulative = new double[size];
+        double sum = 0;
+        for (int k = 0; k < size; k++) {
+            sum += 1 / Math.pow(k + 1, exponent);
+            cumulative[k] = sum;
+        }
+        for (int k = 0; k < size; k++) {
+            cumulative[k] /= sum;
+        }
+        return cumulative;
+    }
+
+    private static Account createAccount(int id) throws ReflectiveOperationException {
+        User owner = new User();
+        owner.setId(id);
+        Account account = Account.factory().createAccount(owner);
+        account.setBalance(INITIAL_BALANCE);
+        // accounts are normally persisted by JPA, which assigns the ID
+        Field idField = Account.class.getDeclaredField("id");
+        idField.setAccessible(true);
+        idField.set(account, id);
+        return account;
+    }
+
+    /**
+     * Keeps the status on the transaction object only, instead of writing it to the database.
+     */
+    private static final class InMemoryStatusManager extends TransactionStatusManager {
+
+        InMemoryStatusManager() {
+            super(null, null);
+        }
+
+        @Override
+        public void setTransactionStatus(Transaction transaction, TransactionStatus status) {
+            if (!isStatusTransitionAllowed(transaction.getStatus(), status)) {
+                throw new IllegalStateException(
+                        "Cannot change transaction status from " + transaction.getStatus() + " to " + status);
+            }
+            transaction.setStatus(status);
+        }
+
+        @Override
+        public boolean claimForProcessing(Transaction transaction) {
+            if (transaction.getStatus() != TransactionStatus.NEW) {
+                return false;
+            }
+            transaction.setStatus(TransactionStatus.PENDING);
+            return true;
+        }
+    }
+
+    /**
+     * Transaction manager without a resource: units of work run through the real transaction
+     * templates, but begin and commit cost nothing.
+     */
+    private static final class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
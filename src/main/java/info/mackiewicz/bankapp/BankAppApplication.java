@@ -1,6 +1,16 @@
 package info.mackiewicz.bankapp;
 
+import info.mackiewicz.bankapp.system.banking.history.export.ExportConfig;
+import info.mackiewicz.bankapp.system.banking.ledger.BankLedgerConfig;
+import info.mackiewicz.bankapp.system.banking.operations.idempotency.IdempotencyConfig;
+import info.mackiewicz.bankapp.system.transaction.processing.admission.AdmissionConfig;
+import info.mackiewicz.bankapp.system.transaction.processing.batch.BatchConfig;
+import info.mackiewicz.bankapp.system.transaction.processing.dispatch.DispatchConfig;
+import info.mackiewicz.bankapp.system.transaction.processing.core.execution.ExecutionConfig;
+import info.mackiewicz.bankapp.system.transaction.processing.error.ErrorNotificationConfig;
+import info.mackiewicz.bankapp.system.transaction.processing.locking.DatabaseLockingConfig;
 import info.mackiewicz.bankapp.system.transaction.processing.locking.LockingConfig;
+import info.mackiewicz.bankapp.system.transaction.processing.metrics.PipelineMetricsConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -15,7 +25,9 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 @SpringBootApplication
 @EnableAsync
 @EnableScheduling
-@EnableConfigurationProperties(LockingConfig.class)
+@EnableConfigurationProperties({LockingConfig.class, DatabaseLockingConfig.class, ExecutionConfig.class, BatchConfig.class, DispatchConfig.class,
+        AdmissionConfig.class, IdempotencyConfig.class, BankLedgerConfig.class,
+        PipelineMetricsConfig.class, ErrorNotificationConfig.class, ExportConfig.class})
 public class BankAppApplication {
 
     private static final Logger logger = LoggerFactory.getLogger(BankAppApplication.class);
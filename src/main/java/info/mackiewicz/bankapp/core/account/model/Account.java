@@ -65,6 +65,27 @@ public class Account implements AccountInfo {
     @Getter
     private BigDecimal balance;
 
+    /**
+     * Amount held by the NEW and PENDING outgoing transactions of the account.
+     * It is changed only by the atomic updates of
+     * {@link info.mackiewicz.bankapp.core.account.repository.AccountRepository}, never by saving
+     * the entity, so holds placed concurrently are not overwritten; the value of a loaded entity
+     * may therefore be stale.
+     */
+    @JsonIgnore
+    @Column(name = "balance_on_hold", nullable = false, updatable = false)
+    private BigDecimal balanceOnHold = BigDecimal.ZERO;
+
+    /**
+     * Version used for optimistic locking; every balance change increments it,
+     * so an update based on a stale read fails instead of overwriting a newer balance.
+     */
+    @JsonIgnore
+    @Getter
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     /**
      * Default constructor for JPA.
      * This constructor is package-private to prevent direct instantiation.
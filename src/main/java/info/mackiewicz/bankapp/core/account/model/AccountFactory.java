@@ -34,4 +34,24 @@ public class AccountFactory {
         
         return new Account(owner, userAccountNumber, iban);
     }
-}
\ No newline at end of file
+
+    /**
+     * Creates an additional account of the bank itself, e.g. a sub-ledger bucket of the bank account.
+     * <p>
+     * The account number is taken from the owner's account counter, so the caller must hold the
+     * owner with a pessimistic lock, as for {@link #createAccount(User)}. The IBAN is derived from
+     * the given sequential number of the system account instead of the owner ID.
+     * </p>
+     *
+     * @param owner The bank user owning the account
+     * @param systemAccountNumber The sequential number of the system account, starting from 1
+     * @return A newly created Account instance
+     */
+    public Account createSystemAccount(User owner, int systemAccountNumber) {
+        Integer userAccountNumber = owner.getNextAccountNumber();
+        Iban iban = IbanGenerator.generateSystemIban(systemAccountNumber);
+        log.debug("Generated system IBAN: {} for system account number: {}", iban, systemAccountNumber);
+
+        return new Account(owner, userAccountNumber, iban);
+    }
+}
@@ -0,0 +1,21 @@
+package info.mackiewicz.bankapp.core.account.model.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Account whose maintained amount on hold differs from the amount of its NEW and PENDING
+ * outgoing transactions.
+ *
+ * @param accountId ID of the account
+ * @param recorded  amount on hold stored in the account
+ * @param expected  sum of the amounts of the NEW and PENDING outgoing transactions
+ */
+public record BalanceOnHoldDrift(Integer accountId, BigDecimal recorded, BigDecimal expected) {
+
+    /**
+     * @return amount by which the stored amount on hold exceeds the expected one
+     */
+    public BigDecimal drift() {
+        return recorded.subtract(expected);
+    }
+}
@@ -0,0 +1,10 @@
+package info.mackiewicz.bankapp.core.account.model.dto;
+
+/**
+ * Cluster-wide lease under which a node changes the balance of an account.
+ *
+ * @param owner identifier of the node holding the lease
+ * @param value fencing token of the lease, growing with every acquisition
+ */
+public record FencingToken(String owner, long value) {
+}
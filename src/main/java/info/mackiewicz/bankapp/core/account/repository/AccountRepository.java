@@ -1,10 +1,12 @@
 package info.mackiewicz.bankapp.core.account.repository;
 
 import info.mackiewicz.bankapp.core.account.model.Account;
+import info.mackiewicz.bankapp.core.account.model.dto.BalanceOnHoldDrift;
 import info.mackiewicz.bankapp.core.user.model.vo.EmailAddress;
 import info.mackiewicz.bankapp.core.user.model.vo.Pesel;
 import org.iban4j.Iban;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -38,4 +40,210 @@ public interface AccountRepository extends JpaRepository<Account, Integer> {
             """)
     Optional<BigDecimal> findBalanceById(@Param("accountId") Integer accountId);
 
+    /**
+     * Sums the balances of all accounts of a user.
+     *
+     * @param ownerId the unique identifier of the owner
+     *
+     * @return the total balance, zero if the user has no accounts
+     */
+    @Query("""
+            SELECT COALESCE(SUM(a.balance), 0)
+                FROM Account a
+                WHERE a.owner.id = :ownerId
+            """)
+    BigDecimal sumBalanceByOwnerId(@Param("ownerId") Integer ownerId);
+
+    /**
+     * Atomically adds the amount to the balance of an account.
+     * The balance is changed in the database instead of writing back an in-memory copy,
+     * so concurrent updates cannot overwrite each other. The version is incremented,
+     * so entities read before the update are recognized as stale.
+     *
+     * @param accountId the unique identifier of the account
+     * @param amount the amount to add
+     *
+     * @return the number of updated rows, 0 if the account does not exist
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("""
+            UPDATE Account a
+                SET a.balance = a.balance + :amount, a.version = a.version + 1
+                WHERE a.id = :accountId
+            """)
+    int addToBalance(@Param("accountId") Integer accountId, @Param("amount") BigDecimal amount);
+
+    /**
+     * Atomically subtracts the amount from the balance of an account, provided the balance covers it.
+     * The check and the update are a single statement, so funds cannot be spent twice
+     * even without account locks.
+     *
+     * @param accountId the unique identifier of the account
+     * @param amount the amount to subtract
+     *
+     * @return the number of updated rows, 0 if the account does not exist or has insufficient funds
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("""
+            UPDATE Account a
+                SET a.balance = a.balance - :amount, a.version = a.version + 1
+                WHERE a.id = :accountId
+                AND a.balance >= :amount
+            """)
+    int subtractFromBalance(@Param("accountId") Integer accountId, @Param("amount") BigDecimal amount);
+
+    /**
+     * Atomically adds the amount to the balance of an account, provided the given node still holds
+     * the cluster-wide lease on the account with the given fencing token.
+     * A node that lost its lease while it was paused cannot change the balance any more.
+     *
+     * @param accountId the unique identifier of the account
+     * @param amount the amount to add
+     * @param owner identifier of the node holding the lease
+     * @param fencingToken fencing token of the lease
+     *
+     * @return the number of updated rows, 0 if the account does not exist or the lease has been lost
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("""
+            UPDATE Account a
+                SET a.balance = a.balance + :amount, a.version = a.version + 1
+                WHERE a.id = :accountId
+                AND EXISTS (SELECT l FROM AccountLease l
+                                WHERE l.accountId = :accountId
+                                AND l.owner = :owner
+                                AND l.fencingToken = :fencingToken)
+            """)
+    int addToBalance(@Param("accountId") Integer accountId, @Param("amount") BigDecimal amount,
+                     @Param("owner") String owner, @Param("fencingToken") long fencingToken);
+
+    /**
+     * Atomically subtracts the amount from the balance of an account, provided the balance covers it
+     * and the given node still holds the cluster-wide lease on the account with the given fencing token.
+     *
+     * @param accountId the unique identifier of the account
+     * @param amount the amount to subtract
+     * @param owner identifier of the node holding the lease
+     * @param fencingToken fencing token of the lease
+     *
+     * @return the number of updated rows, 0 if the account does not exist, has insufficient funds
+     * or the lease has been lost
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("""
+            UPDATE Account a
+                SET a.balance = a.balance - :amount, a.version = a.version + 1
+                WHERE a.id = :accountId
+                AND a.balance >= :amount
+                AND EXISTS (SELECT l FROM AccountLease l
+                                WHERE l.accountId = :accountId
+                                AND l.owner = :owner
+                                AND l.fencingToken = :fencingToken)
+            """)
+    int subtractFromBalance(@Param("accountId") Integer accountId, @Param("amount") BigDecimal amount,
+                            @Param("owner") String owner, @Param("fencingToken") long fencingToken);
+
+    /**
+     * Checks if the given node still holds the cluster-wide lease on an account with the given fencing token.
+     *
+     * @param accountId the unique identifier of the account
+     * @param owner identifier of the node
+     * @param fencingToken fencing token of the lease
+     *
+     * @return true if the lease has neither been released nor taken over by another node
+     */
+    @Query("""
+            SELECT COUNT(l) > 0
+                FROM AccountLease l
+                WHERE l.accountId = :accountId
+                AND l.owner = :owner
+                AND l.fencingToken = :fencingToken
+            """)
+    boolean holdsLease(@Param("accountId") Integer accountId, @Param("owner") String owner,
+                       @Param("fencingToken") long fencingToken);
+
+    /**
+     * Retrieves the working balance of an account: its balance minus the amount held by its
+     * NEW and PENDING outgoing transactions.
+     *
+     * @param accountId the unique identifier of the account
+     *
+     * @return an Optional containing the working balance, or an empty Optional if the account is not found
+     */
+    @Query("""
+            SELECT a.balance - a.balanceOnHold
+                FROM Account a
+                WHERE a.id = :accountId
+            """)
+    Optional<BigDecimal> findWorkingBalanceById(@Param("accountId") Integer accountId);
+
+    /**
+     * Atomically puts the amount of a registered outgoing transaction on hold.
+     * The version is not incremented, so holds never conflict with balance changes.
+     *
+     * @param accountId the unique identifier of the account
+     * @param amount the amount to hold
+     *
+     * @return the number of updated rows, 0 if the account does not exist
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("""
+            UPDATE Account a
+                SET a.balanceOnHold = a.balanceOnHold + :amount
+                WHERE a.id = :accountId
+            """)
+    int addToBalanceOnHold(@Param("accountId") Integer accountId, @Param("amount") BigDecimal amount);
+
+    /**
+     * Atomically releases the amount of an outgoing transaction that was settled, failed or deleted.
+     *
+     * @param accountId the unique identifier of the account
+     * @param amount the amount to release
+     *
+     * @return the number of updated rows, 0 if the account does not exist
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("""
+            UPDATE Account a
+                SET a.balanceOnHold = a.balanceOnHold - :amount
+                WHERE a.id = :accountId
+            """)
+    int subtractFromBalanceOnHold(@Param("accountId") Integer accountId, @Param("amount") BigDecimal amount);
+
+    /**
+     * Recomputes the amount on hold of every account from its NEW and PENDING outgoing transactions.
+     *
+     * @return the accounts whose stored amount on hold differs from the recomputed one
+     */
+    @Query("""
+            SELECT new info.mackiewicz.bankapp.core.account.model.dto.BalanceOnHoldDrift(
+                        a.id, a.balanceOnHold, COALESCE(SUM(t.amount), 0))
+                FROM Account a
+                LEFT JOIN Transaction t
+                    ON t.sourceAccount = a
+                    AND t.status IN ('NEW', 'PENDING')
+                GROUP BY a.id, a.balanceOnHold
+                HAVING a.balanceOnHold <> COALESCE(SUM(t.amount), 0)
+            """)
+    List<BalanceOnHoldDrift> findBalanceOnHoldDrifts();
+
+    /**
+     * Sets the amount on hold of an account, provided it has not changed since it was read.
+     *
+     * @param accountId the unique identifier of the account
+     * @param recorded the amount on hold read before
+     * @param amount the new amount on hold
+     *
+     * @return the number of updated rows, 0 if the amount on hold changed in the meantime
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("""
+            UPDATE Account a
+                SET a.balanceOnHold = :amount
+                WHERE a.id = :accountId
+                AND a.balanceOnHold = :recorded
+            """)
+    int resetBalanceOnHold(@Param("accountId") Integer accountId,
+                           @Param("recorded") BigDecimal recorded,
+                           @Param("amount") BigDecimal amount);
 }
@@ -1,7 +1,12 @@
 package info.mackiewicz.bankapp.core.account.service;
 
+import info.mackiewicz.bankapp.core.account.exception.AccountLockException;
+import info.mackiewicz.bankapp.core.account.exception.AccountNotFoundByIdException;
 import info.mackiewicz.bankapp.core.account.model.Account;
+import info.mackiewicz.bankapp.core.account.model.dto.FencingToken;
 import info.mackiewicz.bankapp.core.account.repository.AccountRepository;
+import info.mackiewicz.bankapp.core.account.service.interfaces.AccountFencing;
+import info.mackiewicz.bankapp.core.transaction.exception.InsufficientFundsException;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
@@ -9,6 +14,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.Optional;
 
 /**
  * Service responsible for financial operations on accounts.
@@ -17,6 +23,11 @@ import java.math.BigDecimal;
  * validation
  * and transaction management.
  * </p>
+ * Balances are changed with single conditional UPDATE statements instead of saving
+ * a modified entity, so they stay correct without account locks and the funds check
+ * of a withdrawal cannot race with a concurrent withdrawal.
+ * While the node holds a cluster-wide lease on the account, the UPDATE also checks its fencing
+ * token, so a node whose lease has been taken over cannot change the balance any more.
  */
 @Slf4j
 @RequiredArgsConstructor
@@ -25,22 +36,70 @@ class AccountOperationsService {
 
     private final AccountRepository accountRepository;
     private final AccountValidationService validationService;
+    private final AccountFencing fencing;
 
     Account deposit(Account account,
             @NotNull @DecimalMin(value = "0.01", message = "Amount must be greater than zero") BigDecimal amount) {
         log.debug("Depositing {} to account {}", amount, account.getId());
         validationService.validateDeposit(amount);
-        account.setBalance(account.getBalance().add(amount));
+        Optional<FencingToken> fencingToken = fencing.fencingToken(account.getId());
+        int updatedRows = fencingToken
+                .map(token -> accountRepository.addToBalance(account.getId(), amount, token.owner(), token.value()))
+                .orElseGet(() -> accountRepository.addToBalance(account.getId(), amount));
+        if (updatedRows == 0) {
+            fencingToken.ifPresent(token -> checkLease(account, token));
+            throw accountNotFound(account);
+        }
+        account.setBalance(currentBalance(account));
         log.debug("Deposit successful. New balance: {}", account.getBalance());
-        return accountRepository.save(account);
+        return account;
     }
 
     Account withdraw(Account account,
             @NotNull @DecimalMin(value = "0.01", message = "Amount must be greater than zero") BigDecimal amount) {
         log.debug("Withdrawing {} from account {}", amount, account.getId());
-        validationService.validateWithdrawal(account.getBalance(), amount);
-        account.setBalance(account.getBalance().subtract(amount));
+        validationService.validateWithdrawal(amount);
+        Optional<FencingToken> fencingToken = fencing.fencingToken(account.getId());
+        int updatedRows = fencingToken
+                .map(token -> accountRepository.subtractFromBalance(account.getId(), amount, token.owner(), token.value()))
+                .orElseGet(() -> accountRepository.subtractFromBalance(account.getId(), amount));
+        if (updatedRows == 0) {
+            fencingToken.ifPresent(token -> checkLease(account, token));
+            // nothing was updated: either the account does not exist or its balance does not cover the amount
+            BigDecimal balance = currentBalance(account);
+            log.warn("Insufficient funds on account {}: balance={}, amount={}", account.getId(), balance, amount);
+            throw new InsufficientFundsException("Insufficient funds for withdrawal");
+        }
+        account.setBalance(currentBalance(account));
         log.debug("Withdrawal successful. New balance: {}", account.getBalance());
-        return accountRepository.save(account);
+        return account;
+    }
+
+    /**
+     * Reads the balance of the account within the running transaction.
+     * The given instance may have been loaded long before (e.g. together with a batch of
+     * transactions) and shared between transactions, so its balance cannot be trusted;
+     * it is only kept in sync with the new balance for the caller's convenience.
+     */
+    private BigDecimal currentBalance(Account account) {
+        return accountRepository.findBalanceById(account.getId())
+                .orElseThrow(() -> accountNotFound(account));
+    }
+
+    /**
+     * Rejects a balance write that was not applied because the lease on the account has been lost,
+     * e.g. taken over by another node after this node paused for longer than the lease duration.
+     */
+    private void checkLease(Account account, FencingToken token) {
+        if (!accountRepository.holdsLease(account.getId(), token.owner(), token.value())) {
+            log.error("Rejected balance change of account {}: lease with fencing token {} has been lost",
+                    account.getId(), token.value());
+            throw new AccountLockException("Lease on the account has been lost, balance change rejected",
+                    account.getId(), 1, 0, false);
+        }
+    }
+
+    private AccountNotFoundByIdException accountNotFound(Account account) {
+        return new AccountNotFoundByIdException("Account with ID " + account.getId() + " not found.");
     }
 }
@@ -72,10 +72,7 @@ class AccountValidationService {
      */
     void validateWithdrawal(BigDecimal balance, BigDecimal amount) {
         log.debug("Validating withdrawal: balance={}, amount={}", balance, amount);
-        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
-            log.warn("Validation fail. Amount is null or not positive: {}", amount);
-            throw new AccountValidationException("Amount must be positive");
-        }
+        validatePositiveAmount(amount);
         if (balance.compareTo(amount) < 0) {
             log.warn("Validation fail. Insufficient funds: balance={}, amount={}", balance, amount);
             throw new InsufficientFundsException("Insufficient funds for withdrawal");
@@ -83,6 +80,19 @@ class AccountValidationService {
         log.debug("Withdrawal validation successful");
     }
 
+    /**
+     * Validates withdrawal amount.
+     * Sufficient funds are checked by the balance update itself.
+     * 
+     * @param amount amount to withdraw
+     * @throws AccountValidationException if validation fails
+     */
+    void validateWithdrawal(BigDecimal amount) {
+        log.debug("Validating withdrawal amount: {}", amount);
+        validatePositiveAmount(amount);
+        log.debug("Withdrawal amount validation successful");
+    }
+
     /**
      * Validates deposit amount
      * 
@@ -91,10 +101,14 @@ class AccountValidationService {
      */
     void validateDeposit(BigDecimal amount) {
         log.debug("Validating deposit amount: {}", amount);
+        validatePositiveAmount(amount);
+        log.debug("Deposit validation successful");
+    }
+
+    private void validatePositiveAmount(BigDecimal amount) {
         if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
             log.warn("Validation fail. Amount is null or not positive: {}", amount);
             throw new AccountValidationException("Amount must be positive");
         }
-        log.debug("Deposit validation successful");
     }
 }
\ No newline at end of file
@@ -0,0 +1,59 @@
+package info.mackiewicz.bankapp.core.account.service;
+
+import info.mackiewicz.bankapp.core.account.model.dto.BalanceOnHoldDrift;
+import info.mackiewicz.bankapp.core.account.repository.AccountRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Checks the amounts on hold maintained on the accounts against their NEW and PENDING outgoing transactions.
+ * <p>
+ * The amount on hold is changed incrementally when a transaction is registered, deleted or leaves
+ * the processing statuses, so a missed or doubled change would skew the working balance for good.
+ * Every drifted account is reported and its amount on hold is reset to the recomputed one,
+ * unless the amount changed since the check, in which case the next check looks at it again.
+ * </p>
+ */
+@Slf4j
+@Service
+public class BalanceOnHoldReconciler {
+
+    private final AccountRepository accountRepository;
+    private final Counter driftedAccounts;
+
+    public BalanceOnHoldReconciler(AccountRepository accountRepository, MeterRegistry meterRegistry) {
+        this.accountRepository = accountRepository;
+        this.driftedAccounts = Counter.builder("bankapp.account.hold.drift")
+                .description("Accounts whose amount on hold differed from their NEW and PENDING outgoing transactions")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Recomputes the amounts on hold and repairs the drifted ones.
+     *
+     * @return the accounts found drifted
+     */
+    @Transactional
+    public List<BalanceOnHoldDrift> reconcile() {
+        List<BalanceOnHoldDrift> drifts = accountRepository.findBalanceOnHoldDrifts();
+        for (BalanceOnHoldDrift drift : drifts) {
+            log.warn("Amount on hold of account {} drifted by {}: recorded {}, expected {}",
+                    drift.accountId(), drift.drift(), drift.recorded(), drift.expected());
+            driftedAccounts.increment();
+            int updatedRows = accountRepository.resetBalanceOnHold(drift.accountId(), drift.recorded(), drift.expected());
+            if (updatedRows == 0) {
+                log.debug("Amount on hold of account {} changed during reconciliation, left for the next check",
+                        drift.accountId());
+            }
+        }
+        if (drifts.isEmpty()) {
+            log.debug("Amounts on hold of all accounts are consistent");
+        }
+        return drifts;
+    }
+}
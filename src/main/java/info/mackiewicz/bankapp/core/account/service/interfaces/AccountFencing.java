@@ -0,0 +1,19 @@
+package info.mackiewicz.bankapp.core.account.service.interfaces;
+
+import info.mackiewicz.bankapp.core.account.model.dto.FencingToken;
+
+import java.util.Optional;
+
+/**
+ * Source of the fencing tokens balance writes are checked against.
+ * A node whose lease on an account has been taken over by another node can no longer change
+ * the balance of the account, even if it still believes to hold the lock.
+ */
+public interface AccountFencing {
+
+    /**
+     * @param accountId ID of the account
+     * @return the lease this node holds on the account, empty if balance writes to it are not fenced
+     */
+    Optional<FencingToken> fencingToken(Integer accountId);
+}
@@ -28,6 +28,23 @@ public final class IbanGenerator {
                 .build();
                 }
 
+    /**
+     * Generates a Polish IBAN of an account owned by the bank itself.
+     * The bank's main account has account number zero, further system accounts are numbered from one.
+     *
+     * @param systemAccountNumber The sequential number of the system account, starting from 1
+     * @return The generated IBAN
+     */
+    public Iban generateSystemIban(int systemAccountNumber) {
+        return new Iban.Builder()
+                .countryCode(CountryCode.PL)
+                .bankCode("485")
+                .branchCode("1123")
+                .nationalCheckDigit("4")
+                .accountNumber(String.format("%016d", systemAccountNumber))
+                .build();
+    }
+
     /**
      * Formats an IBAN string into the standard presentation format with spaces.
      *
@@ -0,0 +1,14 @@
+package info.mackiewicz.bankapp.core.transaction.event;
+
+import info.mackiewicz.bankapp.core.transaction.model.TransactionType;
+
+/**
+ * Published when a transaction is registered, within the registering database transaction.
+ * Listeners that have to see the committed transaction, such as the dispatch to processing,
+ * should listen after commit.
+ *
+ * @param transactionId ID of the registered transaction
+ * @param type          type of the registered transaction
+ */
+public record TransactionRegisteredEvent(Integer transactionId, TransactionType type) {
+}
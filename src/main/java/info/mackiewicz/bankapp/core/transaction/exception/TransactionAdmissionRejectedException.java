@@ -0,0 +1,22 @@
+package info.mackiewicz.bankapp.core.transaction.exception;
+
+import info.mackiewicz.bankapp.system.error.handling.core.ErrorCode;
+import lombok.Getter;
+
+/**
+ * Thrown when a transaction is not admitted because too many transactions of its type
+ * are already waiting for or undergoing processing.
+ */
+@Getter
+public class TransactionAdmissionRejectedException extends TransactionBaseException {
+
+    /**
+     * Number of seconds after which the client may retry, sent as the {@code Retry-After} header.
+     */
+    private final long retryAfterSeconds;
+
+    public TransactionAdmissionRejectedException(String message, long retryAfterSeconds) {
+        super(message, ErrorCode.TRANSACTION_ADMISSION_REJECTED);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
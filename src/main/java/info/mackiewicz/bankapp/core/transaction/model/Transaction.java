@@ -49,6 +49,10 @@ public class Transaction {
 
     @Column(name = "date")
     private LocalDateTime date;
+
+    // Time the transaction was last claimed for processing, status changes from PENDING are conditional on it
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
     
     @PrePersist
     void prePersist() {
@@ -18,6 +18,11 @@ public enum TransactionStatus {
         TransactionStatusCategory.PROCESSING,
         "In Progress"
     ),
+    // Transfer whose source account has been debited, while the credit of its destination account is outstanding
+    DEBITED(
+        TransactionStatusCategory.PROCESSING,
+        "In Progress"
+    ),
 
     // Success status
     DONE(
@@ -85,4 +90,12 @@ public enum TransactionStatus {
     public boolean isProcessing() {
         return category == TransactionStatusCategory.PROCESSING;
     }
+
+    /**
+     * Indicates if the amount of a transaction in this status is held on its source account,
+     * i.e. the transaction is processing but its source account has not been debited yet
+     */
+    public boolean holdsAmount() {
+        return this == NEW || this == PENDING;
+    }
 }
@@ -0,0 +1,59 @@
+package info.mackiewicz.bankapp.core.transaction.model.dto;
+
+import info.mackiewicz.bankapp.core.transaction.model.TransactionStatus;
+import info.mackiewicz.bankapp.core.transaction.model.TransactionType;
+import lombok.Builder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Criteria of an account history query. Every criterion left {@code null} is not applied.
+ *
+ * @param accountId  ID of the account sending or receiving the transactions
+ * @param dateFrom   earliest transaction date (inclusive)
+ * @param dateTo     latest transaction date (inclusive)
+ * @param type       type of the transactions
+ * @param status     status of the transactions
+ * @param amountFrom minimum amount (inclusive)
+ * @param amountTo   maximum amount (inclusive)
+ * @param text       case-insensitive text searched in the title, the account IDs and the account owner names
+ * @param sortField  field the transactions are ordered by, ties are ordered by ID in the same direction
+ * @param ascending  whether the transactions are ordered in ascending order
+ * @param after      position of the last transaction of the previous page, {@code null} for the first page
+ */
+@Builder
+public record TransactionHistoryCriteria(int accountId,
+        LocalDateTime dateFrom,
+        LocalDateTime dateTo,
+        TransactionType type,
+        TransactionStatus status,
+        BigDecimal amountFrom,
+        BigDecimal amountTo,
+        String text,
+        SortField sortField,
+        boolean ascending,
+        Position after) {
+
+    public TransactionHistoryCriteria {
+        if (sortField == null)
+            sortField = SortField.DATE;
+    }
+
+    public enum SortField {
+        DATE,
+        AMOUNT,
+        TYPE
+    }
+
+    /**
+     * Position of a transaction in the history order.
+     *
+     * @param sortValue value of the sort field of the transaction: a {@link LocalDateTime} for {@link SortField#DATE},
+     *                  a {@link BigDecimal} for {@link SortField#AMOUNT} and a {@link TransactionType} for
+     *                  {@link SortField#TYPE}
+     * @param id        ID of the transaction
+     */
+    public record Position(Object sortValue, int id) {
+    }
+}
@@ -0,0 +1,29 @@
+package info.mackiewicz.bankapp.core.transaction.model.dto;
+
+import info.mackiewicz.bankapp.core.transaction.model.TransactionStatus;
+import info.mackiewicz.bankapp.core.transaction.model.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Columns of a transaction read for an export, without the accounts it refers to.
+ *
+ * @param id            ID of the transaction
+ * @param date          date of the transaction
+ * @param amount        amount of the transaction
+ * @param type          type of the transaction
+ * @param sourceId      ID of the source account, {@code null} for deposits
+ * @param destinationId ID of the destination account, {@code null} for withdrawals
+ * @param title         title of the transaction
+ * @param status        status of the transaction
+ */
+public record TransactionHistoryRow(int id,
+        LocalDateTime date,
+        BigDecimal amount,
+        TransactionType type,
+        Integer sourceId,
+        Integer destinationId,
+        String title,
+        TransactionStatus status) {
+}
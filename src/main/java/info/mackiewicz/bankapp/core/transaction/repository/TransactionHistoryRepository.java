@@ -0,0 +1,39 @@
+package info.mackiewicz.bankapp.core.transaction.repository;
+
+import info.mackiewicz.bankapp.core.transaction.model.Transaction;
+import info.mackiewicz.bankapp.core.transaction.model.dto.TransactionHistoryCriteria;
+import info.mackiewicz.bankapp.core.transaction.model.dto.TransactionHistoryRow;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Account history queries built from the criteria at runtime, mixed into {@link TransactionRepository}.
+ */
+public interface TransactionHistoryRepository {
+
+    /**
+     * Reads a page of the history of an account matching the criteria, in the order of the criteria.
+     * Pages are read with keyset pagination: the next page starts after the position of the last
+     * transaction of the previous one, so its cost does not depend on how many pages come before it.
+     *
+     * @param criteria The filters, the order and the position of the page
+     * @param limit    Maximum number of transactions in the page
+     * @return The transactions of the page
+     */
+    List<Transaction> findHistory(TransactionHistoryCriteria criteria, Limit limit);
+
+    /**
+     * Reads all transactions of the history of an account matching the criteria, in the order of the criteria,
+     * and passes them to the action one by one as they are read, without the accounts they refer to.
+     * The rows are read through a forward-only cursor fetching {@code fetchSize} rows at a time, so memory use
+     * does not depend on the number of transactions. PostgreSQL only fetches in chunks within a transaction,
+     * so this should be called in one.
+     *
+     * @param criteria  The filters and the order, the position is ignored
+     * @param fetchSize Number of rows fetched from the database at a time
+     * @param action    Action called for every transaction
+     */
+    void forEachHistoryRow(TransactionHistoryCriteria criteria, int fetchSize, Consumer<TransactionHistoryRow> action);
+}
@@ -0,0 +1,173 @@
+package info.mackiewicz.bankapp.core.transaction.repository;
+
+import info.mackiewicz.bankapp.core.transaction.model.Transaction;
+import info.mackiewicz.bankapp.core.transaction.model.TransactionStatus;
+import info.mackiewicz.bankapp.core.transaction.model.TransactionType;
+import info.mackiewicz.bankapp.core.transaction.model.dto.TransactionHistoryCriteria;
+import info.mackiewicz.bankapp.core.transaction.model.dto.TransactionHistoryCriteria.Position;
+import info.mackiewicz.bankapp.core.transaction.model.dto.TransactionHistoryRow;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import javax.sql.DataSource;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Builds the account history query from the criteria, with a condition for every criterion that is set.
+ * <p>
+ * Like {@link TransactionRepository#findByAccountId(int)}, the outgoing and incoming transactions are
+ * read by the two halves of a UNION ALL, each of them filtered, ordered and limited on its own, so
+ * ordered by date a page is two range scans of the {@code (source_id, date, id)} and
+ * {@code (destination_id, date, id)} indexes starting at the position of the previous page.
+ * Identifiers are quoted, as in the SQL generated with {@code globally_quoted_identifiers}.
+ * <p>
+ * Exports read the same query through plain JDBC into {@link TransactionHistoryRow}s, so no entity
+ * or account is loaded and nothing accumulates in the persistence context.
+ */
+class TransactionHistoryRepositoryImpl implements TransactionHistoryRepository {
+
+    private static final String OUTGOING = """
+            t."source_id" = :accountId""";
+    private static final String INCOMING = """
+            t."destination_id" = :accountId
+                AND (t."source_id" IS NULL OR t."source_id" <> :accountId)""";
+    // names are nullable in the schema; as in User.getFullName() a missing part is empty, not the whole name
+    private static final String TEXT_CONDITION = """
+            (LOWER(t."title") LIKE :text ESCAPE '\\'
+                OR EXISTS (SELECT 1 FROM "accounts" a JOIN "users" u ON u."id" = a."owner_id"
+                    WHERE a."id" IN (t."source_id", t."destination_id")
+                    AND (CAST(a."id" AS VARCHAR(11)) LIKE :text ESCAPE '\\'
+                        OR LOWER(COALESCE(TRIM(u."firstname"), '') || ' ' || COALESCE(TRIM(u."lastname"), '')) LIKE :text ESCAPE '\\')))""";
+
+    private static final String ROW_COLUMNS =
+            "h.\"id\", h.\"date\", h.\"amount\", h.\"type\", h.\"source_id\", h.\"destination_id\", h.\"title\", h.\"status\"";
+
+    private final DataSource dataSource;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    TransactionHistoryRepositoryImpl(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public List<Transaction> findHistory(TransactionHistoryCriteria criteria, Limit limit) {
+        Map<String, Object> parameters = new HashMap<>();
+        String sql = sql(criteria, "h.*", limit, criteria.after(), parameters);
+
+        Query query = entityManager.createNativeQuery(sql, Transaction.class);
+        parameters.forEach(query::setParameter);
+        @SuppressWarnings("unchecked")
+        List<Transaction> transactions = query.getResultList();
+        return transactions;
+    }
+
+    @Override
+    public void forEachHistoryRow(TransactionHistoryCriteria criteria, int fetchSize, Consumer<TransactionHistoryRow> action) {
+        Map<String, Object> parameters = new HashMap<>();
+        String sql = sql(criteria, ROW_COLUMNS, Limit.unlimited(), null, parameters);
+
+        // statements of JdbcTemplate are forward-only and read-only
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(fetchSize);
+        new NamedParameterJdbcTemplate(jdbcTemplate).query(sql, parameters, (RowCallbackHandler) resultSet ->
+                action.accept(new TransactionHistoryRow(
+                        resultSet.getInt(1),
+                        resultSet.getObject(2, LocalDateTime.class),
+                        resultSet.getBigDecimal(3),
+                        TransactionType.valueOf(resultSet.getString(4)),
+                        resultSet.getObject(5, Integer.class),
+                        resultSet.getObject(6, Integer.class),
+                        resultSet.getString(7),
+                        TransactionStatus.valueOf(resultSet.getString(8)))));
+    }
+
+    private String sql(TransactionHistoryCriteria criteria, String select, Limit limit, Position after,
+            Map<String, Object> parameters) {
+        parameters.put("accountId", criteria.accountId());
+        String conditions = conditions(criteria, after, parameters);
+        String column = column(criteria.sortField());
+        String direction = criteria.ascending() ? "ASC" : "DESC";
+        String limitClause = limit.isLimited() ? "\n    LIMIT :limit" : "";
+        if (limit.isLimited()) {
+            parameters.put("limit", limit.max());
+        }
+
+        return "SELECT " + select + " FROM (\n"
+                + half(OUTGOING, conditions, column, direction, limitClause)
+                + "\nUNION ALL\n"
+                + half(INCOMING, conditions, column, direction, limitClause)
+                + "\n) h\nORDER BY h." + column + " " + direction + ", h.\"id\" " + direction
+                + limitClause;
+    }
+
+    private String half(String account, String conditions, String column, String direction, String limitClause) {
+        return "(SELECT t.* FROM \"transactions\" t\n    WHERE " + account + conditions
+                + "\n    ORDER BY t." + column + " " + direction + ", t.\"id\" " + direction
+                + limitClause + ")";
+    }
+
+    private String conditions(TransactionHistoryCriteria criteria, Position after, Map<String, Object> parameters) {
+        StringBuilder conditions = new StringBuilder();
+        if (criteria.dateFrom() != null) {
+            conditions.append("\n    AND t.\"date\" >= :dateFrom");
+            parameters.put("dateFrom", criteria.dateFrom());
+        }
+        if (criteria.dateTo() != null) {
+            conditions.append("\n    AND t.\"date\" <= :dateTo");
+            parameters.put("dateTo", criteria.dateTo());
+        }
+        if (criteria.type() != null) {
+            conditions.append("\n    AND t.\"type\" = :type");
+            parameters.put("type", criteria.type().name());
+        }
+        if (criteria.status() != null) {
+            conditions.append("\n    AND t.\"status\" = :status");
+            parameters.put("status", criteria.status().name());
+        }
+        if (criteria.amountFrom() != null) {
+            conditions.append("\n    AND t.\"amount\" >= :amountFrom");
+            parameters.put("amountFrom", criteria.amountFrom());
+        }
+        if (criteria.amountTo() != null) {
+            conditions.append("\n    AND t.\"amount\" <= :amountTo");
+            parameters.put("amountTo", criteria.amountTo());
+        }
+        if (criteria.text() != null && !criteria.text().isBlank()) {
+            conditions.append("\n    AND ").append(TEXT_CONDITION);
+            parameters.put("text", "%" + escapeLike(criteria.text().toLowerCase(Locale.ROOT)) + "%");
+        }
+        if (after != null) {
+            // a row value comparison, which the database matches against the index in a single range
+            conditions.append("\n    AND (t.").append(column(criteria.sortField())).append(", t.\"id\") ")
+                    .append(criteria.ascending() ? ">" : "<").append(" (:afterValue, :afterId)");
+            parameters.put("afterValue", after.sortValue() instanceof TransactionType type ? type.name() : after.sortValue());
+            parameters.put("afterId", after.id());
+        }
+        return conditions.toString();
+    }
+
+    private static String column(TransactionHistoryCriteria.SortField sortField) {
+        return switch (sortField) {
+            case DATE -> "\"date\"";
+            case AMOUNT -> "\"amount\"";
+            case TYPE -> "\"type\"";
+        };
+    }
+
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
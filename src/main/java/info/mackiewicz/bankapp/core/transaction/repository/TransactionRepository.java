@@ -2,31 +2,94 @@ package info.mackiewicz.bankapp.core.transaction.repository;
 
 import info.mackiewicz.bankapp.core.transaction.model.Transaction;
 import info.mackiewicz.bankapp.core.transaction.model.TransactionStatus;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface TransactionRepository extends JpaRepository<Transaction, Integer> {
+public interface TransactionRepository extends JpaRepository<Transaction, Integer>, TransactionHistoryRepository {
 
-       @Query("""
-               SELECT t FROM Transaction t
-                                    WHERE t.sourceAccount.id = :accountId OR t.destinationAccount.id = :accountId
-                                    ORDER BY t.date DESC
+       /**
+        * Reads all transactions sent from or to an account, newest first.
+        * The outgoing and incoming transactions are read separately with UNION ALL, so each half
+        * uses its own index instead of the OR condition making the database scan the whole table.
+        * A transaction from an account to itself is only read as an outgoing one.
+        * Identifiers are quoted, as in the SQL generated with {@code globally_quoted_identifiers}.
+        *
+        * @param accountId The ID of the account
+        * @return The transactions ordered by date, newest first
+        */
+       @Query(nativeQuery = true, value = """
+               SELECT h.* FROM (
+                   SELECT t.* FROM "transactions" t
+                       WHERE t."source_id" = :accountId
+                   UNION ALL
+                   SELECT t.* FROM "transactions" t
+                       WHERE t."destination_id" = :accountId
+                       AND (t."source_id" IS NULL OR t."source_id" <> :accountId)
+               ) h
+               ORDER BY h."date" DESC, h."id" DESC
                """)
        Optional<List<Transaction>> findByAccountId(@Param("accountId") int accountId);
 
        List<Transaction> findByStatus(TransactionStatus status);
 
-       @Query("""
-               SELECT t FROM Transaction t
-                                    WHERE t.sourceAccount.id = :accountId OR t.destinationAccount.id = :accountId
-                                    ORDER BY t.date DESC
-                                    LIMIT :limit
+       /**
+        * Reads the next page of transactions with the given status using keyset pagination.
+        * Unlike offset paging, the cost of a page does not grow with the number of pages already read
+        * and transactions changing status in the meantime cannot shift the following pages.
+        *
+        * @param status The status of the transactions
+        * @param afterId ID of the last transaction of the previous page, 0 for the first page
+        * @param limit Maximum number of transactions in the page
+        * @return Transactions ordered by ID
+        */
+       List<Transaction> findByStatusAndIdGreaterThanOrderByIdAsc(TransactionStatus status, Integer afterId, Limit limit);
+
+       /**
+        * Reads the next page of transactions with the given status registered before the given time,
+        * using keyset pagination.
+        *
+        * @param status The status of the transactions
+        * @param date Only transactions registered before this time are returned
+        * @param afterId ID of the last transaction of the previous page, 0 for the first page
+        * @param limit Maximum number of transactions in the page
+        * @return Transactions ordered by ID
+        */
+       List<Transaction> findByStatusAndDateBeforeAndIdGreaterThanOrderByIdAsc(TransactionStatus status, LocalDateTime date,
+                                                                              Integer afterId, Limit limit);
+
+       /**
+        * Reads the most recent transactions sent from or to an account, newest first.
+        * Each half of the UNION ALL reads at most {@code limit} rows from its index, already in date order,
+        * so the cost does not depend on the length of the history.
+        *
+        * @param accountId The ID of the account
+        * @param limit Maximum number of transactions
+        * @return The transactions ordered by date, newest first
+        */
+       @Query(nativeQuery = true, value = """
+               SELECT h.* FROM (
+                   (SELECT t.* FROM "transactions" t
+                       WHERE t."source_id" = :accountId
+                       ORDER BY t."date" DESC, t."id" DESC
+                       LIMIT :limit)
+                   UNION ALL
+                   (SELECT t.* FROM "transactions" t
+                       WHERE t."destination_id" = :accountId
+                       AND (t."source_id" IS NULL OR t."source_id" <> :accountId)
+                       ORDER BY t."date" DESC, t."id" DESC
+                       LIMIT :limit)
+               ) h
+               ORDER BY h."date" DESC, h."id" DESC
+               LIMIT :limit
                """)
        Optional<List<Transaction>> findTopNByAccountIdOrderByCreatedDesc(
                      @Param("accountId") int accountId,
@@ -48,6 +111,100 @@ public interface TransactionRepository extends JpaRepository<Transaction, Intege
                """)
        int updateTransactionStatus(@Param("id") int id, @Param("status") TransactionStatus status);
 
+       /**
+        * Updates the status of a transaction, provided it still has the expected status.
+        * Of several concurrent updates from the same status only one succeeds.
+        *
+        * @param id The ID of the transaction to update
+        * @param expectedStatus The status the transaction must currently have
+        * @param status The new status to set
+        * @return The number of affected rows, 0 if the transaction does not exist or has another status
+        */
+       @Modifying
+       @Query("""
+                UPDATE Transaction t
+                    SET t.status = :status
+                    WHERE t.id = :id
+                    AND t.status = :expectedStatus
+               """)
+       int updateTransactionStatus(@Param("id") int id,
+                                   @Param("expectedStatus") TransactionStatus expectedStatus,
+                                   @Param("status") TransactionStatus status);
+
+       /**
+        * Claims a NEW transaction for processing by moving it to PENDING and recording the time of the claim.
+        * Of several concurrent claims only one succeeds.
+        *
+        * @param id The ID of the transaction to claim
+        * @param claimedAt The time of the claim
+        * @return The number of affected rows, 0 if the transaction does not exist or is no longer NEW
+        */
+       @Modifying
+       @Query("""
+                UPDATE Transaction t
+                    SET t.status = 'PENDING', t.claimedAt = :claimedAt
+                    WHERE t.id = :id
+                    AND t.status = 'NEW'
+               """)
+       int claimForProcessing(@Param("id") int id, @Param("claimedAt") LocalDateTime claimedAt);
+
+       /**
+        * Updates the status of a PENDING transaction, provided it is still held by the claim of the caller.
+        * A transaction released by the recovery sweep and claimed again can no longer be changed by its former owner.
+        *
+        * @param id The ID of the transaction to update
+        * @param claimedAt The time of the claim the caller holds
+        * @param status The new status to set
+        * @return The number of affected rows, 0 if the transaction is no longer PENDING under this claim
+        */
+       @Modifying
+       @Query("""
+                UPDATE Transaction t
+                    SET t.status = :status
+                    WHERE t.id = :id
+                    AND t.status = 'PENDING'
+                    AND t.claimedAt = :claimedAt
+               """)
+       int updateClaimedTransactionStatus(@Param("id") int id,
+                                          @Param("claimedAt") LocalDateTime claimedAt,
+                                          @Param("status") TransactionStatus status);
+
+       /**
+        * Moves the transactions claimed before the given time and still PENDING back to NEW, so they are processed again.
+        * Nothing of a PENDING transaction has been executed: its balance changes commit together with its next status.
+        * The amount stays on hold, as NEW transactions hold it as well.
+        *
+        * @param claimedBefore Only transactions claimed before this time, or at an unknown time, are released
+        * @return The number of affected rows
+        */
+       @Modifying
+       @Query("""
+                UPDATE Transaction t
+                    SET t.status = 'NEW', t.claimedAt = NULL
+                    WHERE t.status = 'PENDING'
+                    AND (t.claimedAt IS NULL OR t.claimedAt < :claimedBefore)
+               """)
+       int releaseStaleClaims(@Param("claimedBefore") LocalDateTime claimedBefore);
+
+       /**
+        * Updates the status of many transactions at once, provided they still have the expected status
+        *
+        * @param ids The IDs of the transactions to update
+        * @param expectedStatus The status the transactions must currently have
+        * @param status The new status to set
+        * @return The number of affected rows
+        */
+       @Modifying
+       @Query("""
+                UPDATE Transaction t
+                    SET t.status = :status
+                    WHERE t.id IN :ids
+                    AND t.status = :expectedStatus
+               """)
+       int updateTransactionStatuses(@Param("ids") Collection<Integer> ids,
+                                     @Param("expectedStatus") TransactionStatus expectedStatus,
+                                     @Param("status") TransactionStatus status);
+
        /**
         * Calculates the total balance that is on hold for a given source account ID.
         * This includes the sum of all pending or new transactions linked to the source account.
@@ -1,5 +1,7 @@
 package info.mackiewicz.bankapp.core.transaction.service;
 
+import info.mackiewicz.bankapp.core.account.repository.AccountRepository;
+import info.mackiewicz.bankapp.core.transaction.event.TransactionRegisteredEvent;
 import info.mackiewicz.bankapp.core.transaction.exception.TransactionDeletionForbiddenException;
 import info.mackiewicz.bankapp.core.transaction.exception.TransactionNotFoundException;
 import info.mackiewicz.bankapp.core.transaction.exception.TransactionValidationException;
@@ -9,6 +11,7 @@ import info.mackiewicz.bankapp.core.transaction.repository.TransactionRepository
 import info.mackiewicz.bankapp.core.transaction.validation.TransactionValidator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,10 +26,14 @@ class TransactionCommandService {
     private final TransactionRepository repository;
     private final TransactionValidator validator;
     private final TransactionQueryService queryService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AccountRepository accountRepository;
 
     /**
      * Creates a new transaction in the system.
-     * If the transaction is of type TRANSFER_OWN, it will be processed immediately.
+     * A {@link TransactionRegisteredEvent} is published within the registering database transaction,
+     * the transaction is dispatched to processing once it commits.
+     * The amount of the transaction is put on hold on its source account until it is settled or fails.
      *
      * @param transaction the transaction to create
      *
@@ -43,6 +50,11 @@ class TransactionCommandService {
         // Save to repository
         Transaction savedTransaction = repository.save(transaction);
         log.debug("Transaction saved with ID: {}", savedTransaction.getId());
+        if (holdsBalance(savedTransaction)) {
+            accountRepository.addToBalanceOnHold(savedTransaction.getSourceAccount().getId(), savedTransaction.getAmount());
+        }
+
+        eventPublisher.publishEvent(new TransactionRegisteredEvent(savedTransaction.getId(), savedTransaction.getType()));
 
         return savedTransaction;
     }
@@ -59,11 +71,15 @@ class TransactionCommandService {
      * @throws TransactionNotFoundException if no transaction is found with the specified ID
      * @throws TransactionDeletionForbiddenException if the transaction status does not allow deletion
      */
+    @Transactional
     public void deleteTransactionById(int id) throws TransactionNotFoundException, TransactionDeletionForbiddenException {
         log.info("Attempting to delete transaction: {}", id);
         Transaction transaction = queryService.getTransactionById(id);
         if (isTransactionDeletable(transaction)) {
             repository.delete(transaction);
+            if (holdsBalance(transaction)) {
+                accountRepository.subtractFromBalanceOnHold(transaction.getSourceAccount().getId(), transaction.getAmount());
+            }
             log.info("Transaction {} deleted successfully", id);
         } else {
             String message = String.format("Transaction not deletable. Only transactions with status NEW can be deleted. " +
@@ -76,4 +92,9 @@ class TransactionCommandService {
         //transactions without `status` are invalid so it can (and probably should) be deleted.
         return transaction.getStatus() == null || TransactionStatus.NEW.equals(transaction.getStatus());
     }
-}
\ No newline at end of file
+
+    private boolean holdsBalance(Transaction transaction) {
+        return transaction.getStatus() != null && transaction.getStatus().holdsAmount()
+                && transaction.getSourceAccount() != null;
+    }
+}
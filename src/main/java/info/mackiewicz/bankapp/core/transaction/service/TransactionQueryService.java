@@ -6,13 +6,18 @@ import info.mackiewicz.bankapp.core.transaction.exception.NoTransactionsForAccou
 import info.mackiewicz.bankapp.core.transaction.exception.TransactionNotFoundException;
 import info.mackiewicz.bankapp.core.transaction.model.Transaction;
 import info.mackiewicz.bankapp.core.transaction.model.TransactionStatus;
+import info.mackiewicz.bankapp.core.transaction.model.dto.TransactionHistoryCriteria;
+import info.mackiewicz.bankapp.core.transaction.model.dto.TransactionHistoryRow;
 import info.mackiewicz.bankapp.core.transaction.repository.TransactionRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Service responsible for querying transactions.
@@ -66,6 +71,32 @@ class TransactionQueryService {
         return transactions;
     }
 
+    /**
+     * Retrieves the next chunk of transactions with NEW status, ordered by ID.
+     *
+     * @param afterId ID of the last transaction of the previous chunk, 0 for the first chunk
+     * @param limit   maximum number of transactions to return
+     * @return a list of at most {@code limit} new transactions with IDs greater than {@code afterId}
+     */
+    public List<Transaction> getNewTransactionsAfter(int afterId, int limit) {
+        log.debug("Retrieving up to {} NEW status transactions after ID {}", limit, afterId);
+        return repository.findByStatusAndIdGreaterThanOrderByIdAsc(TransactionStatus.NEW, afterId, Limit.of(limit));
+    }
+
+    /**
+     * Retrieves the next chunk of transfers left with DEBITED status, ordered by ID.
+     *
+     * @param afterId       ID of the last transaction of the previous chunk, 0 for the first chunk
+     * @param createdBefore only transactions registered before this time are returned
+     * @param limit         maximum number of transactions to return
+     * @return a list of at most {@code limit} debited transactions with IDs greater than {@code afterId}
+     */
+    public List<Transaction> getDebitedTransactionsAfter(int afterId, LocalDateTime createdBefore, int limit) {
+        log.debug("Retrieving up to {} DEBITED status transactions after ID {}", limit, afterId);
+        return repository.findByStatusAndDateBeforeAndIdGreaterThanOrderByIdAsc(
+                TransactionStatus.DEBITED, createdBefore, afterId, Limit.of(limit));
+    }
+
     /**
      * Retrieves all transactions for a specific account.
      *
@@ -105,4 +136,28 @@ class TransactionQueryService {
                             "Account " + accountId + " did not make any transactions");
                 });
     }
-}
\ No newline at end of file
+
+    /**
+     * Retrieves a page of the history of an account matching the criteria.
+     *
+     * @param criteria the filters, the order and the position of the page
+     * @param limit the maximum number of transactions to retrieve
+     * @return a list of at most {@code limit} transactions in the order of the criteria
+     */
+    public List<Transaction> getTransactionHistory(TransactionHistoryCriteria criteria, Limit limit) {
+        log.debug("Retrieving history page of account {} after {}", criteria.accountId(), criteria.after());
+        return repository.findHistory(criteria, limit);
+    }
+
+    /**
+     * Reads all transactions of the history of an account matching the criteria, one by one as they are read.
+     *
+     * @param criteria the filters and the order
+     * @param fetchSize the number of rows fetched from the database at a time
+     * @param action the action called for every transaction
+     */
+    public void forEachHistoryRow(TransactionHistoryCriteria criteria, int fetchSize, Consumer<TransactionHistoryRow> action) {
+        log.debug("Reading history of account {} with fetch size {}", criteria.accountId(), fetchSize);
+        repository.forEachHistoryRow(criteria, fetchSize, action);
+    }
+}
@@ -4,12 +4,17 @@ import info.mackiewicz.bankapp.core.transaction.exception.NoTransactionsForAccou
 import info.mackiewicz.bankapp.core.transaction.exception.TransactionNotFoundException;
 import info.mackiewicz.bankapp.core.transaction.exception.TransactionValidationException;
 import info.mackiewicz.bankapp.core.transaction.model.Transaction;
+import info.mackiewicz.bankapp.core.transaction.model.dto.TransactionHistoryCriteria;
+import info.mackiewicz.bankapp.core.transaction.model.dto.TransactionHistoryRow;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Facade service for transaction operations.
@@ -76,6 +81,29 @@ public class TransactionService {
         return queryService.getAllNewTransactions();
     }
 
+    /**
+     * Retrieves the next chunk of transactions with NEW status, ordered by ID.
+     *
+     * @param afterId ID of the last transaction of the previous chunk, 0 for the first chunk
+     * @param limit   maximum number of transactions to return
+     * @return a list of at most {@code limit} new transactions with IDs greater than {@code afterId}
+     */
+    public List<Transaction> getNewTransactionsAfter(int afterId, int limit) {
+        return queryService.getNewTransactionsAfter(afterId, limit);
+    }
+
+    /**
+     * Retrieves the next chunk of transfers left with DEBITED status, ordered by ID.
+     *
+     * @param afterId       ID of the last transaction of the previous chunk, 0 for the first chunk
+     * @param createdBefore only transactions registered before this time are returned
+     * @param limit         maximum number of transactions to return
+     * @return a list of at most {@code limit} debited transactions with IDs greater than {@code afterId}
+     */
+    public List<Transaction> getDebitedTransactionsAfter(int afterId, LocalDateTime createdBefore, int limit) {
+        return queryService.getDebitedTransactionsAfter(afterId, createdBefore, limit);
+    }
+
     /**
      * Retrieves all transactions for a specific account.
      *
@@ -98,4 +126,28 @@ public class TransactionService {
     public List<Transaction> getRecentTransactions(int accountId, int count) {
         return queryService.getRecentTransactions(accountId, count);
     }
+
+    /**
+     * Retrieves a page of the history of an account matching the criteria.
+     *
+     * @param criteria the filters, the order and the position of the page
+     * @param limit the maximum number of transactions to retrieve
+     * @return a list of at most {@code limit} transactions in the order of the criteria
+     */
+    public List<Transaction> getTransactionHistory(TransactionHistoryCriteria criteria, Limit limit) {
+        return queryService.getTransactionHistory(criteria, limit);
+    }
+
+    /**
+     * Reads all transactions of the history of an account matching the criteria, one by one as they are read,
+     * in a read-only transaction so the database can return them through a cursor.
+     *
+     * @param criteria the filters and the order
+     * @param fetchSize the number of rows fetched from the database at a time
+     * @param action the action called for every transaction
+     */
+    @Transactional(readOnly = true)
+    public void forEachHistoryRow(TransactionHistoryCriteria criteria, int fetchSize, Consumer<TransactionHistoryRow> action) {
+        queryService.forEachHistoryRow(criteria, fetchSize, action);
+    }
 }
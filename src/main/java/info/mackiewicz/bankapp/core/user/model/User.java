@@ -135,7 +135,14 @@ public class User extends BaseUser implements PersonalInfo, AccountOwner {
                 .collect(Collectors.toSet());
     }
 
-    public synchronized Integer getNextAccountNumber() {
+    /**
+     * Increments the account counter and returns the new value.
+     * Not synchronized: concurrent account creations load separate instances of the user,
+     * they are serialized by the row lock taken in AccountCreationService instead.
+     *
+     * @return number of the next account of the user
+     */
+    public Integer getNextAccountNumber() {
         return ++accountCounter;
     }
 
@@ -4,8 +4,8 @@ import info.mackiewicz.bankapp.core.account.model.Account;
 import info.mackiewicz.bankapp.core.account.service.AccountService;
 import info.mackiewicz.bankapp.core.transaction.model.Transaction;
 import info.mackiewicz.bankapp.core.transaction.service.TransactionService;
-import info.mackiewicz.bankapp.shared.util.BankAccountProvider;
-import info.mackiewicz.bankapp.system.transaction.processing.TransactionProcessingService;
+import info.mackiewicz.bankapp.system.banking.ledger.BankLedger;
+import info.mackiewicz.bankapp.system.transaction.processing.dispatch.TransactionDispatcher;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -18,11 +18,12 @@ import java.math.BigDecimal;
  * Default implementation of the BonusGrantingService for managing welcome bonuses for newly registered users.
  * <p>
  * This service facilitates the transfer of funds from a default bank account to the recipient's account
- * as a welcome bonus. It handles the entire process from retrieving account information to processing
- * the transaction.
+ * as a welcome bonus. It handles the entire process from retrieving account information to registering
+ * the transaction, which is dispatched to processing once its registration commits.
  * <p>
- * The service uses a predefined bank account (identified by a static IBAN) as the source for all bonus
- * transfers, and applies a standard title to all welcome bonus transactions.
+ * The service uses the bank account (identified by a static IBAN), or one of its buckets selected by the
+ * recipient when the bank ledger is bucketed, as the source for all bonus transfers, and applies a standard
+ * title to all welcome bonus transactions.
  * <p>
  * Thread safety: This class is thread-safe as it maintains no mutable state and relies on thread-safe
  * services for all operations.
@@ -30,7 +31,8 @@ import java.math.BigDecimal;
  * @see BonusGrantingService
  * @see AccountService
  * @see TransactionService
- * @see TransactionProcessingService
+ * @see TransactionDispatcher
+ * @see BankLedger
  */
 @Slf4j
 @Service
@@ -39,10 +41,9 @@ public class DefaultBonusGrantingService implements BonusGrantingService {
 
     public static final String DEFAULT_TITLE = "Welcome bonus";
 
-    private final BankAccountProvider bankAccountProvider;
+    private final BankLedger bankLedger;
     private final AccountService accountService;
     private final TransactionService transactionService;
-    private final TransactionProcessingService transactionProcessingService;
 
 
     //TODO: Write down all exceptions that can be thrown.
@@ -51,17 +52,15 @@ public class DefaultBonusGrantingService implements BonusGrantingService {
 
         Transaction transaction = buildWelcomeBonusTransaction(recipientIban, amount);
         log.trace("Built welcome bonus transaction");
-        Transaction registeredTransaction = transactionService.registerTransaction(transaction);
-        log.trace("Registered welcome bonus transaction");
-        transactionProcessingService.processTransactionById(registeredTransaction.getId());
-        log.trace("Processed welcome bonus transaction");
+        transactionService.registerTransaction(transaction);
+        log.trace("Registered welcome bonus transaction, processing is dispatched after commit");
 
     }
 
     //Transactions are build from Ibans for future developement.
     // So we don't have to rework the public `grantWelcomeBonus` method.
     private Transaction buildWelcomeBonusTransaction(Iban recipientIban, BigDecimal amount) {
-        Account bank = bankAccountProvider.getBankAccount();
+        Account bank = bankLedger.getWithdrawalAccount(recipientIban, amount);
         log.trace("Gathered bank account");
         Account recipient = accountService.getAccountByIban(recipientIban);
         log.trace("Gathered recipient account");
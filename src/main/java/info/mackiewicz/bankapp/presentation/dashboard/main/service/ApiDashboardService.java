@@ -6,7 +6,6 @@ import info.mackiewicz.bankapp.core.account.model.adapter.DashboardAccountInfoAd
 import info.mackiewicz.bankapp.core.account.model.interfaces.DashboardAccountInfo;
 import info.mackiewicz.bankapp.core.account.repository.AccountRepository;
 import info.mackiewicz.bankapp.core.account.service.AccountService;
-import info.mackiewicz.bankapp.core.transaction.repository.TransactionRepository;
 import info.mackiewicz.bankapp.presentation.dashboard.main.controller.dto.UserAccountsInfoResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -23,7 +22,6 @@ public class ApiDashboardService {
 
     private final AccountService accountService;
     private final AccountRepository accountRepository;
-    private final TransactionRepository transactionRepository;
 
 
     /**
@@ -50,9 +48,8 @@ public class ApiDashboardService {
     }
     /**
      * Calculates the working balance of an account by subtracting the amount on hold
-     * from the available account balance. The operation retrieves the account's balance
-     * from the repository, checks for its existence, and deducts the total hold amount
-     * for pending or new transactions.
+     * from the account balance. The amount held by the pending or new transactions is
+     * maintained on the account row, so this is a single read by the primary key.
      *
      * @param accountId the unique identifier of the account for which the working balance is calculated
      *
@@ -62,19 +59,14 @@ public class ApiDashboardService {
     public BigDecimal getWorkingBalance(int accountId) {
         log.debug("Calculating working balance for account with ID: {}", accountId);
 
-        log.trace("Retrieving account balance for account with ID: {}", accountId);
-        BigDecimal balance = accountRepository.findBalanceById(accountId)
+        BigDecimal workingBalance = accountRepository.findWorkingBalanceById(accountId)
                 .orElseThrow(
                         () -> new AccountNotFoundByIdException("Account with ID " + accountId + " not found.")
                 );
 
-        log.trace("Retrieving amount on hold for account with ID: {}", accountId);
-        BigDecimal balanceOnHold = transactionRepository.findBalanceOnHoldBySourceAccount_Id(accountId);
-        BigDecimal workingBalance = balance.subtract(balanceOnHold);
-
         if (workingBalance.signum() < 0) {
             log.warn("Working balance get below 0.");
         }
         return workingBalance;
     }
-}
+}
\ No newline at end of file
@@ -4,4 +4,5 @@ public final class ApiConstants {
 
     private ApiConstants() {}
     public static final String BASIC_AUTH_SCHEME_NAME = "basicAuth";
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
 }
@@ -1,23 +1,76 @@
 package info.mackiewicz.bankapp.shared.config;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
 
+/**
+ * Executor shared by transaction processing and {@code @Async} tasks, and the executor of
+ * work holding account locks.
+ * <p>
+ * Work continuing once its account locks are granted runs on the separate lock holder executor,
+ * so it never waits in the queue behind transactions that are yet to request their locks.
+ * </p>
+ * <p>
+ * With {@code spring.threads.virtual.enabled=true} every task runs on its own virtual thread,
+ * so tasks blocked on JDBC, account locks or HTTP calls no longer occupy pool threads.
+ * The same property switches Tomcat request handling and {@code @Scheduled} jobs to virtual threads.
+ * </p>
+ */
 @Configuration
 public class AsyncConfiguration {
 
+    private static final String THREAD_NAME_PREFIX = "AsyncThread-";
+    private static final String LOCK_HOLDER_THREAD_NAME_PREFIX = "LockHolder-";
+    private static final int LOCK_HOLDER_POOL_SIZE = 8;
+    private static final int AWAIT_TERMINATION_SECONDS = 60;
+
     @Bean(name = "taskExecutor")
+    @ConditionalOnThreading(Threading.PLATFORM)
     public Executor taskExecutor() {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(4);
         executor.setMaxPoolSize(12);
         executor.setWaitForTasksToCompleteOnShutdown(true);
-        executor.setAwaitTerminationSeconds(60);
-        executor.setThreadNamePrefix("AsyncThread-");
+        executor.setAwaitTerminationSeconds(AWAIT_TERMINATION_SECONDS);
+        executor.setThreadNamePrefix(THREAD_NAME_PREFIX);
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "taskExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public Executor virtualThreadTaskExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(THREAD_NAME_PREFIX);
+        executor.setVirtualThreads(true);
+        executor.setTaskTerminationTimeout(AWAIT_TERMINATION_SECONDS * 1000L);
+        return executor;
+    }
+
+    @Bean(name = "lockHolderExecutor")
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public Executor lockHolderExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(LOCK_HOLDER_POOL_SIZE);
+        executor.setMaxPoolSize(LOCK_HOLDER_POOL_SIZE);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(AWAIT_TERMINATION_SECONDS);
+        executor.setThreadNamePrefix(LOCK_HOLDER_THREAD_NAME_PREFIX);
         executor.initialize();
         return executor;
     }
+
+    @Bean(name = "lockHolderExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public Executor virtualThreadLockHolderExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(LOCK_HOLDER_THREAD_NAME_PREFIX);
+        executor.setVirtualThreads(true);
+        executor.setTaskTerminationTimeout(AWAIT_TERMINATION_SECONDS * 1000L);
+        return executor;
+    }
 }
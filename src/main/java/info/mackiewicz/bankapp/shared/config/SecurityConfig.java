@@ -2,6 +2,8 @@ package info.mackiewicz.bankapp.shared.config;
 
 import info.mackiewicz.bankapp.shared.service.CustomUserDetailsService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpStatus;
@@ -21,6 +23,8 @@ import org.springframework.security.web.authentication.HttpStatusEntryPoint;
 @Slf4j
 public class SecurityConfig {
 
+    private static final String ADMIN_ROLE = "ADMIN";
+
     private final CustomUserDetailsService userDetailsService;
 
     public SecurityConfig(CustomUserDetailsService userDetailsService) {
@@ -56,4 +60,23 @@ public class SecurityConfig {
 
         return http.build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Actuator endpoints (except health) expose operational data and write operations,
+     * so only administrators from the {@code admins} table may use them.
+     */
+    @Bean
+    public SecurityFilterChain actuatorSecurityFilterChain(HttpSecurity http) throws Exception {
+        http
+                .securityMatcher(EndpointRequest.toAnyEndpoint())
+                .userDetailsService(userDetailsService::loadAdminByUsername)
+                .csrf(AbstractHttpConfigurer::disable)
+                .authorizeHttpRequests(authz -> authz
+                        .requestMatchers(EndpointRequest.to(HealthEndpoint.class)).permitAll()
+                        .anyRequest().hasRole(ADMIN_ROLE))
+                .httpBasic(basic -> basic
+                        .authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)));
+
+        return http.build();
+    }
+}
@@ -1,5 +1,6 @@
 package info.mackiewicz.bankapp.shared.service;
 
+import info.mackiewicz.bankapp.core.user.repository.AdminUserRepository;
 import info.mackiewicz.bankapp.core.user.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Primary;
@@ -15,10 +16,21 @@ import org.springframework.transaction.annotation.Transactional;
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserService userService;
+    private final AdminUserRepository adminUserRepository;
 
     @Override
     @Transactional
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         return userService.getUserByUsername(username);
     }
-}
\ No newline at end of file
+
+    /**
+     * Resolves an administrator from the {@code admins} table. Used by the actuator
+     * security chain, so that bank customers cannot authenticate against operational endpoints.
+     */
+    @Transactional(readOnly = true)
+    public UserDetails loadAdminByUsername(String username) throws UsernameNotFoundException {
+        return adminUserRepository.findByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("Admin not found with username: " + username));
+    }
+}
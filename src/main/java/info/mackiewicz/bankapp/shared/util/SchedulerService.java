@@ -1,8 +1,10 @@
 package info.mackiewicz.bankapp.shared.util;
 
-import info.mackiewicz.bankapp.core.transaction.service.TransactionService;
+import info.mackiewicz.bankapp.core.account.service.BalanceOnHoldReconciler;
 import info.mackiewicz.bankapp.presentation.auth.recovery.password.service.PasswordResetTokenService;
-import info.mackiewicz.bankapp.system.transaction.processing.TransactionProcessingService;
+import info.mackiewicz.bankapp.system.banking.ledger.BankLedger;
+import info.mackiewicz.bankapp.system.banking.operations.idempotency.IdempotencyService;
+import info.mackiewicz.bankapp.system.transaction.processing.dispatch.TransactionDispatcher;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -15,33 +17,46 @@ import java.util.concurrent.TimeUnit;
  * This service manages scheduled tasks such as transaction processing and cleanup operations.
  * 
  * @see org.springframework.scheduling.annotation.Scheduled
- * @see TransactionService
+ * @see TransactionDispatcher
  * @see PasswordResetTokenService
+ * @see IdempotencyService
+ * @see BankLedger
+ * @see BalanceOnHoldReconciler
  */
 @Slf4j
 @RequiredArgsConstructor
 @Service
 public class SchedulerService {
 
-    private final TransactionProcessingService transactionProcessingService;
+    private final TransactionDispatcher transactionDispatcher;
     private final PasswordResetTokenService passwordResetTokenService;
+    private final IdempotencyService idempotencyService;
+    private final BankLedger bankLedger;
+    private final BalanceOnHoldReconciler balanceOnHoldReconciler;
 
-    private final static int HOW_OFTEN_TO_PROCESS_NEW_TRANSACTIONS = 10; // in minutes
+    private final static int HOW_OFTEN_TO_SWEEP_ORPHANED_TRANSACTIONS = 10; // in minutes
     private final static int HOW_OFTEN_TO_CLEANUP_OLD_PASSWORD_RESET_TOKENS = 1; // in days
+    private final static int HOW_OFTEN_TO_CLEANUP_EXPIRED_IDEMPOTENCY_KEYS = 1; // in hours
+    private final static int HOW_OFTEN_TO_CONSOLIDATE_BANK_LEDGER = 1; // in minutes
+    private final static int HOW_OFTEN_TO_RECONCILE_BALANCES_ON_HOLD = 1; // in hours
 
     /**
-     * Schedules periodic processing of all new transactions.
-     * Executes every 10 minutes to handle any pending transactions in the system.
+     * Schedules the recovery sweep of orphaned transactions.
+     * Registered transactions are dispatched to processing as soon as they are committed;
+     * executes every 10 minutes and, when some were left over, e.g. by a crash, works off the
+     * backlog of new transactions in batches. Transfers left half-done between the debit and the
+     * credit are completed or refunded, transactions whose processing was abandoned after they
+     * were claimed are processed again.
      * This method is thread-safe and runs automatically based on the configured schedule.
      * 
-     * @throws RuntimeException if transaction processing fails
-     * @see TransactionProcessingService#processAllNewTransactions()
+     * @throws RuntimeException if the sweep fails
+     * @see TransactionDispatcher#redispatchOrphanedTransactions()
      */
-    @Scheduled(timeUnit = TimeUnit.MINUTES, fixedRate = HOW_OFTEN_TO_PROCESS_NEW_TRANSACTIONS)
-    public void scheduleProcessAllNewTransactions() {
-        log.debug("Scheduler: Processing all new transactions");
-        transactionProcessingService.processAllNewTransactions();
-        log.debug("Scheduler: All new transactions processed");
+    @Scheduled(timeUnit = TimeUnit.MINUTES, fixedRate = HOW_OFTEN_TO_SWEEP_ORPHANED_TRANSACTIONS)
+    public void scheduleRedispatchOrphanedTransactions() {
+        log.debug("Scheduler: Dispatching orphaned transactions");
+        transactionDispatcher.redispatchOrphanedTransactions();
+        log.debug("Scheduler: Orphaned transactions dispatched");
     }
 
     /**
@@ -58,4 +73,48 @@ public class SchedulerService {
         passwordResetTokenService.cleanupOldTokens();
         log.debug("Scheduler: Old password reset tokens cleaned up");
     }
-}
\ No newline at end of file
+
+    /**
+     * Schedules hourly cleanup of expired idempotency keys.
+     * Keys older than the configured TTL no longer deduplicate requests and are removed from the database.
+     *
+     * @throws RuntimeException if key cleanup operation fails
+     * @see IdempotencyService#cleanupExpiredKeys()
+     */
+    @Scheduled(timeUnit = TimeUnit.HOURS, fixedRate = HOW_OFTEN_TO_CLEANUP_EXPIRED_IDEMPOTENCY_KEYS)
+    public void scheduleCleanupExpiredIdempotencyKeys() {
+        log.debug("Scheduler: Cleaning up expired idempotency keys");
+        idempotencyService.cleanupExpiredKeys();
+        log.debug("Scheduler: Expired idempotency keys cleaned up");
+    }
+
+    /**
+     * Schedules the consolidation of the bank account buckets.
+     * Executes every minute to bring every bucket back to its float against the bank account;
+     * does nothing when the bank ledger is not bucketed.
+     *
+     * @throws RuntimeException if the consolidation fails
+     * @see BankLedger#consolidate()
+     */
+    @Scheduled(timeUnit = TimeUnit.MINUTES, fixedRate = HOW_OFTEN_TO_CONSOLIDATE_BANK_LEDGER)
+    public void scheduleConsolidateBankLedger() {
+        log.debug("Scheduler: Consolidating bank account buckets");
+        bankLedger.consolidate();
+        log.debug("Scheduler: Bank account buckets consolidated");
+    }
+
+    /**
+     * Schedules the reconciliation of the amounts on hold of the accounts.
+     * Executes every hour to recompute them from the NEW and PENDING transactions,
+     * reporting and repairing any drift.
+     *
+     * @throws RuntimeException if the reconciliation fails
+     * @see BalanceOnHoldReconciler#reconcile()
+     */
+    @Scheduled(timeUnit = TimeUnit.HOURS, fixedRate = HOW_OFTEN_TO_RECONCILE_BALANCES_ON_HOLD)
+    public void scheduleReconcileBalancesOnHold() {
+        log.debug("Scheduler: Reconciling amounts on hold");
+        balanceOnHoldReconciler.reconcile();
+        log.debug("Scheduler: Amounts on hold reconciled");
+    }
+}
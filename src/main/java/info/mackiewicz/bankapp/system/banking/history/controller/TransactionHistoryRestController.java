@@ -2,17 +2,20 @@ package info.mackiewicz.bankapp.system.banking.history.controller;
 
 import info.mackiewicz.bankapp.core.user.model.User;
 import info.mackiewicz.bankapp.system.banking.history.controller.dto.TransactionFilterRequest;
+import info.mackiewicz.bankapp.system.banking.history.controller.dto.TransactionHistoryPage;
+import info.mackiewicz.bankapp.system.banking.history.export.ExportConfig;
 import info.mackiewicz.bankapp.system.banking.history.service.TransactionHistoryService;
-import info.mackiewicz.bankapp.system.banking.shared.dto.TransactionResponse;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @Slf4j
 @Validated
@@ -24,11 +27,12 @@ public class TransactionHistoryRestController implements TransactionHistoryRestC
     private static final String DEFAULT_EXPORT_FORMAT = "csv";
 
     private final TransactionHistoryService transactionHistoryService;
+    private final ExportConfig exportConfig;
 
     @PreAuthorize("@idAccountAuthorizationService.validateAccountOwnership(#filter.accountId, authentication.principal)")
     @GetMapping
     @Override
-    public ResponseEntity<Page<TransactionResponse>> getTransactions(
+    public ResponseEntity<TransactionHistoryPage> getTransactions(
             @AuthenticationPrincipal User user,
             @ModelAttribute @Valid TransactionFilterRequest filter
     ) {
@@ -39,13 +43,17 @@ public class TransactionHistoryRestController implements TransactionHistoryRestC
     @PreAuthorize("@idAccountAuthorizationService.validateAccountOwnership(#filter.accountId, authentication.principal)")
     @GetMapping("/export")
     @Override
-    public ResponseEntity<byte[]> exportTransactions(
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
             @AuthenticationPrincipal User user,
             @ModelAttribute @Valid TransactionFilterRequest filter,
-            @RequestParam(defaultValue = DEFAULT_EXPORT_FORMAT) String format
+            @RequestParam(defaultValue = DEFAULT_EXPORT_FORMAT) String format,
+            HttpServletRequest httpRequest
     ) {
         log.debug("Exporting transactions for account {} (user: {}) in {} format",
                 filter.getAccountId(), user.getUsername(), format);
+        // the body is written asynchronously once this method returns; only exports get the long timeout,
+        // every other async request keeps the container default
+        WebAsyncUtils.getAsyncManager(httpRequest).getAsyncWebRequest().setTimeout(exportConfig.timeout());
         return transactionHistoryService.exportTransactions(filter, format);
     }
 }
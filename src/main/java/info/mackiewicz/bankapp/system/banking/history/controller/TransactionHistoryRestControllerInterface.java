@@ -3,7 +3,7 @@ package info.mackiewicz.bankapp.system.banking.history.controller;
 import info.mackiewicz.bankapp.core.user.model.User;
 import info.mackiewicz.bankapp.shared.config.ApiConstants;
 import info.mackiewicz.bankapp.system.banking.history.controller.dto.TransactionFilterRequest;
-import info.mackiewicz.bankapp.system.banking.shared.dto.TransactionResponse;
+import info.mackiewicz.bankapp.system.banking.history.controller.dto.TransactionHistoryPage;
 import info.mackiewicz.bankapp.system.error.handling.dto.BaseApiError;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -14,12 +14,13 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
-import org.springframework.data.domain.Page;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * Interface defining REST API endpoints for transaction history management.
@@ -41,7 +42,10 @@ public interface TransactionHistoryRestControllerInterface {
     @Operation(
             summary = "Get filtered transactions",
             description = """
-                    Retrieves a paginated list of transactions for a specific account with optional filtering criteria.
+                    Retrieves a page of transactions for a specific account with optional filtering criteria.
+                    
+                    The next page is requested by passing the nextCursor of the page as the cursor parameter,
+                    with the same filter, sort field and sort direction.
                     
                     User information is automatically extracted from the current session.
                     
@@ -51,7 +55,7 @@ public interface TransactionHistoryRestControllerInterface {
             @ApiResponse(
                     responseCode = "200",
                     description = "Transactions retrieved successfully",
-                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = PageTransactionResponse.class))
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = TransactionHistoryPage.class))
             ),
             @ApiResponse(
                     responseCode = "403",
@@ -60,7 +64,7 @@ public interface TransactionHistoryRestControllerInterface {
             )
     })
     @GetMapping
-    ResponseEntity<Page<TransactionResponse>> getTransactions(
+    ResponseEntity<TransactionHistoryPage> getTransactions(
             @Parameter(
                     hidden = true,
                     description = "Current authenticated user (automatically injected by Spring Security)"
@@ -72,12 +76,12 @@ public interface TransactionHistoryRestControllerInterface {
                             @ExampleObject(
                                     name = "Basic Filtering",
                                     summary = "Example of basic filtering",
-                                    value = "{\"accountId\":23, \"page\":0, \"size\":10}"
+                                    value = "{\"accountId\":23, \"size\":10}"
                             ),
                             @ExampleObject(
                                     name = "Advanced Filtering",
                                     summary = "Filtering with all available parameters",
-                                    value = "{\"accountId\":23, \"amountFrom\":100.00, \"amountTo\":500.00, \"dateFrom\":\"2025-01-01T00:00:00\", \"dateTo\":\"2025-03-30T23:59:59\", \"type\":\"TRANSFER_OWN\", \"sortDirection\":\"DESCENDING\", \"sortBy\":\"date\", \"page\":0, \"size\":10, \"query\":\"Store\"}"
+                                    value = "{\"accountId\":23, \"amountFrom\":100.00, \"amountTo\":500.00, \"dateFrom\":\"2025-01-01T00:00:00\", \"dateTo\":\"2025-03-30T23:59:59\", \"type\":\"TRANSFER_OWN\", \"sortDirection\":\"DESCENDING\", \"sortBy\":\"date\", \"size\":10, \"query\":\"Store\"}"
                             )
                     }
             ) @Valid TransactionFilterRequest filter);
@@ -86,7 +90,9 @@ public interface TransactionHistoryRestControllerInterface {
             summary = "Export filtered transactions",
             description = """
                     Exports transactions for a specific account in the requested format (default: CSV).<br>
-                    Supports the same filtering criteria as the GET /api/transactions endpoint.
+                    Supports the same filtering criteria as the GET /api/transactions endpoint and exports all
+                    matching transactions; the pagination parameters are ignored. The file is streamed while the
+                    transactions are read.
                     
                     User information is automatically extracted from the current session.
                     
@@ -115,7 +121,7 @@ public interface TransactionHistoryRestControllerInterface {
             )
     })
     @GetMapping("/export")
-    ResponseEntity<byte[]> exportTransactions(
+    ResponseEntity<StreamingResponseBody> exportTransactions(
             @Parameter(
                     hidden = true,
                     description = "Current authenticated user (automatically injected by Spring Security)"
@@ -127,12 +133,12 @@ public interface TransactionHistoryRestControllerInterface {
                             @ExampleObject(
                                     name = "Basic Export Filtering",
                                     summary = "Example of basic filtering for export",
-                                    value = "{\"accountId\":123, \"page\":0, \"size\":100}"
+                                    value = "{\"accountId\":123}"
                             ),
                             @ExampleObject(
                                     name = "Advanced Export Filtering",
                                     summary = "Filtering with all available parameters for export",
-                                    value = "{\"accountId\":123, \"amountFrom\":100.00, \"amountTo\":500.00, \"dateFrom\":\"2025-01-01T00:00:00\", \"dateTo\":\"2025-03-30T23:59:59\", \"type\":\"TRANSFER_OWN\", \"sortDirection\":\"DESCENDING\", \"sortBy\":\"date\", \"page\":0, \"size\":100, \"query\":\"Store\"}"
+                                    value = "{\"accountId\":123, \"amountFrom\":100.00, \"amountTo\":500.00, \"dateFrom\":\"2025-01-01T00:00:00\", \"dateTo\":\"2025-03-30T23:59:59\", \"type\":\"TRANSFER_OWN\", \"sortDirection\":\"DESCENDING\", \"sortBy\":\"date\", \"query\":\"Store\"}"
                             )
                     }
             ) @Valid TransactionFilterRequest filter,
@@ -142,5 +148,6 @@ public interface TransactionHistoryRestControllerInterface {
                             @ExampleObject(value = "csv"),
                             @ExampleObject(value = "pdf")
                     }
-            ) @RequestParam(name = "format", defaultValue = "csv") String format);
+            ) @RequestParam(name = "format", defaultValue = "csv") String format,
+            HttpServletRequest httpRequest);
 }
@@ -4,6 +4,7 @@ import info.mackiewicz.bankapp.core.transaction.model.TransactionStatus;
 import info.mackiewicz.bankapp.core.transaction.model.TransactionType;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.annotation.Nullable;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
@@ -17,7 +18,7 @@ import java.time.LocalDateTime;
 /**
  * Data Transfer Object for filtering transactions in history.
  * Allows specifying filtering criteria, sorting, and pagination parameters
- * when retrieving or exporting transactions.
+ * when retrieving or exporting transactions. Exports ignore the pagination parameters.
  */
 @Getter
 @Setter
@@ -30,6 +31,8 @@ import java.time.LocalDateTime;
 )
 public class TransactionFilterRequest {
 
+        public static final int MAX_PAGE_SIZE = 100;
+
         @Schema(
             description = "Account ID for which to filter transactions",
             example = "23",
@@ -39,13 +42,11 @@ public class TransactionFilterRequest {
         private Integer accountId;
 
         @Schema(
-            description = "Page number for pagination, starting from 0",
-            defaultValue = "0",
-            example = "0"
+            description = "Cursor of the page, taken from the nextCursor of the previous page; absent for the first page",
+            example = "REFURXxERVNDfDIwMjUtMDMtMjlUMTI6MzB8NDI"
         )
-        @Min(0)
-        @Builder.Default
-        private int page = 0;
+        @Nullable
+        private String cursor;
 
         @Schema(
             description = "Number of items per page",
@@ -53,6 +54,7 @@ public class TransactionFilterRequest {
             example = "20"
         )
         @Min(1)
+        @Max(MAX_PAGE_SIZE)
         @Builder.Default
         private int size = 20;
 
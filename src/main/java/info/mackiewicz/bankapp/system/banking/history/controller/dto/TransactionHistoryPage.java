@@ -0,0 +1,31 @@
+package info.mackiewicz.bankapp.system.banking.history.controller.dto;
+
+import info.mackiewicz.bankapp.system.banking.shared.dto.TransactionResponse;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * A page of the transaction history of an account.
+ * The next page is requested by passing {@code nextCursor} as the {@code cursor} parameter.
+ *
+ * @param content    transactions of the page
+ * @param size       requested number of transactions per page
+ * @param hasNext    whether more transactions match the filter
+ * @param nextCursor cursor of the next page, {@code null} on the last page
+ */
+@Schema(name = "PageOfTransactions", description = "Page of transaction records")
+public record TransactionHistoryPage(
+        @Schema(description = "Transactions of the page")
+        List<TransactionResponse> content,
+
+        @Schema(description = "Requested number of transactions per page", example = "20")
+        int size,
+
+        @Schema(description = "Whether more transactions match the filter", example = "true")
+        boolean hasNext,
+
+        @Schema(description = "Cursor of the next page, absent on the last page",
+                example = "REFURXxERVNDfDIwMjUtMDMtMjlUMTI6MzB8NDI")
+        String nextCursor) {
+}
@@ -0,0 +1,19 @@
+package info.mackiewicz.bankapp.system.banking.history.exception;
+
+import info.mackiewicz.bankapp.system.error.handling.core.ErrorCode;
+
+/**
+ * Exception thrown when a transaction history cursor is malformed or was issued for a different order
+ */
+public class InvalidHistoryCursorException extends TransactionHistoryBaseException {
+
+    private static final ErrorCode ERROR_CODE = ErrorCode.INVALID_HISTORY_CURSOR;
+
+    public InvalidHistoryCursorException(String message) {
+        super(message, ERROR_CODE);
+    }
+
+    public InvalidHistoryCursorException(String message, Throwable cause) {
+        super(message, cause, ERROR_CODE);
+    }
+}
@@ -2,31 +2,81 @@ package info.mackiewicz.bankapp.system.banking.history.export;
 
 import info.mackiewicz.bankapp.core.account.model.Account;
 import info.mackiewicz.bankapp.core.transaction.model.Transaction;
+import info.mackiewicz.bankapp.core.transaction.model.dto.TransactionHistoryRow;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
-import java.time.format.DateTimeFormatter;
 import java.util.List;
-import java.util.Optional;
 
 /**
  * A service implementation for exporting financial transactions in CSV format.
- * This class generates a CSV file from a list of transactions and prepares it
- * for download via an HTTP response.
+ * This class writes the transactions as CSV, either streamed to the response while they are read
+ * from the database, or into a file prepared for download via an HTTP response.
  */
 @Service
-public class CsvTransactionExporter implements TransactionExporter {
-    
-    private static final DateTimeFormatter CSV_DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+public class CsvTransactionExporter implements StreamingTransactionExporter {
+
+    private static final MediaType CSV_MEDIA_TYPE = MediaType.parseMediaType("text/csv");
+    private static final String FILE_NAME = "transactions.csv";
+
+    private final ExportConfig config;
+
+    public CsvTransactionExporter(ExportConfig config) {
+        this.config = config;
+    }
 
     @Override
     public String getFormat() {
         return "csv";
     }
 
+    @Override
+    public MediaType getMediaType() {
+        return CSV_MEDIA_TYPE;
+    }
+
+    @Override
+    public String getFileName() {
+        return FILE_NAME;
+    }
+
+    /**
+     * Writes the transactions of the source as CSV to the output through a buffered UTF-8 writer,
+     * one line per transaction as it is read, so only the buffer is held in memory.
+     *
+     * @param rows   source of the transactions, read once
+     * @param output stream the CSV is written to
+     * @throws IOException if writing to the output fails
+     */
+    @Override
+    public void writeTransactions(TransactionRowSource rows, OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), config.bufferSize());
+        CsvTransactionWriter csv = new CsvTransactionWriter(writer);
+        csv.writeHeader();
+        try {
+            rows.forEach(row -> {
+                try {
+                    csv.writeRow(row);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
     /**
      * Exports a list of financial transactions in CSV format and returns the resulting file
      * as an HTTP response entity.
@@ -36,38 +86,29 @@ public class CsvTransactionExporter implements TransactionExporter {
      */
     @Override
     public ResponseEntity<byte[]> exportTransactions(List<Transaction> transactions) {
-        StringBuilder csv = new StringBuilder();
-        csv.append("Date,Amount,Type,From Account,To Account,Title,Status\n");
-
-        for (Transaction t : transactions) {
-            csv.append(String.format("%s,%s,%s,%s,%s,\"%s\",%s\n",
-                    t.getDate().format(CSV_DATE_FORMATTER),
-                    t.getAmount(),
-                    t.getType(),
-                    getAccountId(t.getSourceAccount()),
-                    getAccountId(t.getDestinationAccount()),
-                    escapeCSV(t.getTitle()),
-                    t.getStatus()
-            ));
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        try {
+            writeTransactions(action -> transactions.forEach(t -> action.accept(toRow(t))), csv);
+        } catch (IOException e) {
+            // a ByteArrayOutputStream does not throw
+            throw new UncheckedIOException(e);
         }
 
         HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.parseMediaType("text/csv"));
-        headers.setContentDispositionFormData("attachment", "transactions.csv");
+        headers.setContentType(CSV_MEDIA_TYPE);
+        headers.setContentDispositionFormData("attachment", FILE_NAME);
 
         return ResponseEntity.ok()
                 .headers(headers)
-                .body(csv.toString().getBytes(StandardCharsets.UTF_8));
+                .body(csv.toByteArray());
     }
 
-    private String getAccountId(Account account) {
-        return Optional.ofNullable(account)
-                .map(Account::getId)
-                .map(String::valueOf)
-                .orElse("");
+    private TransactionHistoryRow toRow(Transaction t) {
+        return new TransactionHistoryRow(t.getId() == null ? 0 : t.getId(), t.getDate(), t.getAmount(), t.getType(),
+                getAccountId(t.getSourceAccount()), getAccountId(t.getDestinationAccount()), t.getTitle(), t.getStatus());
     }
 
-    private String escapeCSV(String text) {
-        return text.replace("\"", "\"\"");
+    private Integer getAccountId(Account account) {
+        return account == null ? null : account.getId();
     }
-}
\ No newline at end of file
+}
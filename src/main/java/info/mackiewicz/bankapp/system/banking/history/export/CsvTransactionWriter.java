@@ -0,0 +1,99 @@
+package info.mackiewicz.bankapp.system.banking.history.export;
+
+import info.mackiewicz.bankapp.core.transaction.model.dto.TransactionHistoryRow;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+
+/**
+ * Writes transactions as CSV lines of the form {@code date,amount,type,from,to,"title",status}.
+ * <p>
+ * Numbers and dates are written digit by digit through a reusable buffer and the title is copied in
+ * segments between the quotes it doubles, so apart from the amount no string is created per row.
+ * Not thread-safe, one writer serves one export.
+ */
+class CsvTransactionWriter {
+
+    static final String HEADER = "Date,Amount,Type,From Account,To Account,Title,Status\n";
+
+    // enough for the digits of any int
+    private final char[] digits = new char[10];
+    private final Writer out;
+
+    CsvTransactionWriter(Writer out) {
+        this.out = out;
+    }
+
+    void writeHeader() throws IOException {
+        out.write(HEADER);
+    }
+
+    void writeRow(TransactionHistoryRow row) throws IOException {
+        writeDate(row.date());
+        out.write(',');
+        out.write(row.amount().toPlainString());
+        out.write(',');
+        out.write(row.type().name());
+        out.write(',');
+        writeId(row.sourceId());
+        out.write(',');
+        writeId(row.destinationId());
+        out.write(',');
+        writeQuoted(row.title());
+        out.write(',');
+        out.write(row.status().name());
+        out.write('\n');
+    }
+
+    /**
+     * Writes the date as {@code yyyy-MM-dd HH:mm}.
+     */
+    private void writeDate(LocalDateTime date) throws IOException {
+        writePadded(date.getYear(), 4);
+        out.write('-');
+        writePadded(date.getMonthValue(), 2);
+        out.write('-');
+        writePadded(date.getDayOfMonth(), 2);
+        out.write(' ');
+        writePadded(date.getHour(), 2);
+        out.write(':');
+        writePadded(date.getMinute(), 2);
+    }
+
+    private void writeId(Integer id) throws IOException {
+        if (id != null) {
+            writePadded(id, 1);
+        }
+    }
+
+    /**
+     * Writes a non-negative number with at least {@code width} digits, padded with leading zeros.
+     */
+    private void writePadded(int value, int width) throws IOException {
+        int position = digits.length;
+        do {
+            digits[--position] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        while (digits.length - position < width) {
+            digits[--position] = '0';
+        }
+        out.write(digits, position, digits.length - position);
+    }
+
+    private void writeQuoted(String text) throws IOException {
+        out.write('"');
+        if (text != null) {
+            int start = 0;
+            for (int quote = text.indexOf('"'); quote >= 0; quote = text.indexOf('"', quote + 1)) {
+                // the quote is written twice: once with the segment before it and once on its own
+                out.write(text, start, quote + 1 - start);
+                out.write('"');
+                start = quote + 1;
+            }
+            out.write(text, start, text.length() - start);
+        }
+        out.write('"');
+    }
+}
@@ -0,0 +1,27 @@
+package info.mackiewicz.bankapp.system.banking.history.export;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration of the streaming transaction exports.
+ *
+ * @param fetchSize  number of transactions fetched from the database at a time
+ * @param bufferSize number of characters buffered before they are written to the response
+ * @param timeout    time in milliseconds an export may take before its response is aborted
+ */
+@ConfigurationProperties(prefix = "app.transaction.export")
+public record ExportConfig(int fetchSize,
+        int bufferSize,
+        long timeout) {
+
+    // Default values for the properties
+    // These values can be overridden in application.properties or application.yml
+    public ExportConfig {
+        if (fetchSize <= 0)
+            fetchSize = 1000;
+        if (bufferSize <= 0)
+            bufferSize = 65536;
+        if (timeout <= 0)
+            timeout = 1800000;
+    }
+}
@@ -1,10 +1,14 @@
 package info.mackiewicz.bankapp.system.banking.history.export;
 
+import com.itextpdf.commons.exceptions.ITextException;
+import com.itextpdf.io.font.constants.StandardFonts;
 import com.itextpdf.kernel.colors.ColorConstants;
 import com.itextpdf.kernel.colors.DeviceRgb;
+import com.itextpdf.kernel.font.PdfFontFactory;
 import com.itextpdf.kernel.pdf.PdfDocument;
 import com.itextpdf.kernel.pdf.PdfWriter;
 import com.itextpdf.layout.Document;
+import com.itextpdf.layout.Style;
 import com.itextpdf.layout.element.Cell;
 import com.itextpdf.layout.element.Paragraph;
 import com.itextpdf.layout.element.Table;
@@ -12,37 +16,92 @@ import com.itextpdf.layout.properties.TextAlignment;
 import com.itextpdf.layout.properties.UnitValue;
 import info.mackiewicz.bankapp.core.account.model.Account;
 import info.mackiewicz.bankapp.core.transaction.model.Transaction;
+import info.mackiewicz.bankapp.core.transaction.model.TransactionType;
+import info.mackiewicz.bankapp.core.transaction.model.dto.TransactionHistoryRow;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
-import java.util.Optional;
 
 /**
  * A service class responsible for exporting financial transactions into a PDF file.
- * Implements the {@link TransactionExporter} interface to provide PDF-specific
+ * Implements the {@link StreamingTransactionExporter} interface to provide PDF-specific
  * exporting functionality.
  *<p>
  * The resulting PDF contains a transaction history report, including columns
  * for date, amount, type, source account, destination account, title, and status.
- * The file is downloadable as a response entity containing a byte array.
+ * The table is built in iText's large table mode: every {@value #ROWS_PER_FLUSH} rows it is
+ * laid out and the finished pages are written to the output and released, so memory use
+ * does not depend on the number of exported transactions.
  */
 @Service
-public class PdfTransactionExporter implements TransactionExporter {
+public class PdfTransactionExporter implements StreamingTransactionExporter {
 
+    static final int ROWS_PER_FLUSH = 100;
+
+    private static final String FILE_NAME = "transactions.pdf";
     private static final DateTimeFormatter PDF_DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     private static final DeviceRgb HEADER_BACKGROUND = new DeviceRgb(140, 0, 50);
     private static final float[] COLUMN_WIDTHS = {150, 80, 80, 120, 120, 200, 80};
+    private static final String[] HEADERS = {"Date", "Amount", "Type", "From Account", "To Account", "Title", "Status"};
+    private static final Style HEADER_STYLE = new Style()
+            .setBackgroundColor(HEADER_BACKGROUND)
+            .setFontColor(ColorConstants.WHITE)
+            .setTextAlignment(TextAlignment.CENTER);
 
     @Override
     public String getFormat() {
         return "pdf";
     }
 
+    @Override
+    public MediaType getMediaType() {
+        return MediaType.APPLICATION_PDF;
+    }
+
+    @Override
+    public String getFileName() {
+        return FILE_NAME;
+    }
+
+    /**
+     * Writes the transactions of the source as a PDF report to the output while they are read.
+     * Only the rows since the last flush of the table and the objects of the current page are held in memory.
+     *
+     * @param rows   source of the transactions, read once
+     * @param output stream the PDF is written to
+     * @throws IOException if writing to the output fails
+     */
+    @Override
+    public void writeTransactions(TransactionRowSource rows, OutputStream output) throws IOException {
+        PdfWriter writer = new PdfWriter(output);
+        writer.setCloseStream(false);
+        try {
+            PdfDocument pdf = new PdfDocument(writer);
+            Document document = new Document(pdf);
+            // one font for the whole document, inherited by every cell
+            document.setFont(PdfFontFactory.createFont(StandardFonts.HELVETICA));
+
+            addTitle(document);
+            addTransactionsTable(document, rows);
+
+            document.close();
+        } catch (ITextException e) {
+            // iText reports failures to write to the output as unchecked exceptions
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        output.flush();
+    }
+
     /**
      * Exports a list of financial transactions to a PDF document and returns it as a downloadable byte array
      * wrapped in a {@link ResponseEntity}. The generated PDF includes a title and a table detailing transaction
@@ -55,25 +114,20 @@ public class PdfTransactionExporter implements TransactionExporter {
      */
     @Override
     public ResponseEntity<byte[]> exportTransactions(List<Transaction> transactions) {
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-            PdfDocument pdf = new PdfDocument(new PdfWriter(baos));
-            Document document = new Document(pdf);
-
-            addTitle(document);
-            addTransactionsTable(document, transactions);
-
-            document.close();
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
-            headers.setContentDispositionFormData("attachment", "transactions.pdf");
-
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(baos.toByteArray());
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try {
+            writeTransactions(action -> transactions.forEach(t -> action.accept(toRow(t))), baos);
         } catch (Exception e) {
             throw new RuntimeException("Failed to generate PDF", e);
         }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_PDF);
+        headers.setContentDispositionFormData("attachment", FILE_NAME);
+
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(baos.toByteArray());
     }
 
     private void addTitle(Document document) {
@@ -84,65 +138,61 @@ public class PdfTransactionExporter implements TransactionExporter {
         document.add(title);
     }
 
-    private void addTransactionsTable(Document document, List<Transaction> transactions) {
-        Table table = new Table(UnitValue.createPercentArray(COLUMN_WIDTHS));
+    private void addTransactionsTable(Document document, TransactionRowSource rows) {
+        Table table = new Table(UnitValue.createPercentArray(COLUMN_WIDTHS), true);
         table.setWidth(UnitValue.createPercentValue(100));
 
         addTableHeader(table);
-        addTableData(table, transactions);
-
+        // a large table is added before its rows, which are then laid out whenever it is flushed
         document.add(table);
+
+        int[] count = new int[1];
+        rows.forEach(row -> {
+            addRow(table, row);
+            if (++count[0] % ROWS_PER_FLUSH == 0) {
+                table.flush();
+            }
+        });
+        table.complete();
     }
 
     private void addTableHeader(Table table) {
-        String[] headers = {"Date", "Amount", "Type", "From Account", "To Account", "Title", "Status"};
-        for (String header : headers) {
-            Cell cell = new Cell()
-                    .add(new Paragraph(header))
-                    .setBackgroundColor(HEADER_BACKGROUND)
-                    .setFontColor(ColorConstants.WHITE)
-                    .setTextAlignment(TextAlignment.CENTER);
-            table.addHeaderCell(cell);
+        for (String header : HEADERS) {
+            table.addHeaderCell(cell(header).addStyle(HEADER_STYLE));
         }
     }
 
-    private void addTableData(Table table, List<Transaction> transactions) {
-        for (Transaction t : transactions) {
-            // Date
-            table.addCell(new Cell().add(new Paragraph(t.getDate().format(PDF_DATE_FORMATTER))));
-            
-            // Amount
-            boolean isPositive = t.getType().toString().equals("DEPOSIT") || t.getType().toString().equals("TRANSFER_IN");
-            String amount = (isPositive ? "+" : "-") + t.getAmount().toString();
-            Cell amountCell = new Cell()
-                    .add(new Paragraph(amount))
-                    .setFontColor(isPositive ? ColorConstants.GREEN : ColorConstants.RED);
-            table.addCell(amountCell);
-            
-            // Type
-            table.addCell(new Cell().add(new Paragraph(t.getType().toString())));
-            
-            // From Account
-            table.addCell(new Cell().add(new Paragraph(
-                    Optional.ofNullable(t.getSourceAccount())
-                            .map(Account::getId)
-                            .map(String::valueOf)
-                            .orElse("-")
-            )));
-            
-            // To Account
-            table.addCell(new Cell().add(new Paragraph(
-                    Optional.ofNullable(t.getDestinationAccount())
-                            .map(Account::getId)
-                            .map(String::valueOf)
-                            .orElse("-")
-            )));
-            
-            // Title
-            table.addCell(new Cell().add(new Paragraph(t.getTitle())));
-            
-            // Status
-            table.addCell(new Cell().add(new Paragraph(t.getStatus().toString())));
-        }
+    private void addRow(Table table, TransactionHistoryRow row) {
+        boolean isPositive = isPositive(row.type());
+        String amount = (isPositive ? "+" : "-") + row.amount().toString();
+
+        table.addCell(cell(row.date().format(PDF_DATE_FORMATTER)));
+        table.addCell(cell(amount).setFontColor(isPositive ? ColorConstants.GREEN : ColorConstants.RED));
+        table.addCell(cell(row.type().toString()));
+        table.addCell(cell(accountId(row.sourceId())));
+        table.addCell(cell(accountId(row.destinationId())));
+        table.addCell(cell(row.title()));
+        table.addCell(cell(row.status().toString()));
+    }
+
+    private Cell cell(String text) {
+        return new Cell().add(new Paragraph(text));
+    }
+
+    private boolean isPositive(TransactionType type) {
+        return type.toString().equals("DEPOSIT") || type.toString().equals("TRANSFER_IN");
+    }
+
+    private String accountId(Integer id) {
+        return id == null ? "-" : String.valueOf(id);
+    }
+
+    private TransactionHistoryRow toRow(Transaction t) {
+        return new TransactionHistoryRow(t.getId() == null ? 0 : t.getId(), t.getDate(), t.getAmount(), t.getType(),
+                getAccountId(t.getSourceAccount()), getAccountId(t.getDestinationAccount()), t.getTitle(), t.getStatus());
+    }
+
+    private Integer getAccountId(Account account) {
+        return account == null ? null : account.getId();
     }
-}
\ No newline at end of file
+}
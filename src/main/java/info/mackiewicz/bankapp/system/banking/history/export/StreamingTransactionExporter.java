@@ -0,0 +1,27 @@
+package info.mackiewicz.bankapp.system.banking.history.export;
+
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A {@link TransactionExporter} able to write the export straight to the response while the transactions
+ * are read, so that memory use does not depend on the number of exported transactions.
+ */
+public interface StreamingTransactionExporter extends TransactionExporter {
+
+    MediaType getMediaType();
+
+    String getFileName();
+
+    /**
+     * Writes the export of the transactions of the source to the output.
+     * The output is not closed.
+     *
+     * @param rows   source of the transactions, read once
+     * @param output stream the export is written to
+     * @throws IOException if writing to the output fails
+     */
+    void writeTransactions(TransactionRowSource rows, OutputStream output) throws IOException;
+}
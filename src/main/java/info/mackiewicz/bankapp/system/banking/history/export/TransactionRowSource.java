@@ -0,0 +1,19 @@
+package info.mackiewicz.bankapp.system.banking.history.export;
+
+import info.mackiewicz.bankapp.core.transaction.model.dto.TransactionHistoryRow;
+
+import java.util.function.Consumer;
+
+/**
+ * Source of the transactions of a streaming export, read while the export is written.
+ */
+@FunctionalInterface
+public interface TransactionRowSource {
+
+    /**
+     * Reads the transactions and passes them to the action one by one, in the order of the export.
+     *
+     * @param action action called for every transaction
+     */
+    void forEach(Consumer<TransactionHistoryRow> action);
+}
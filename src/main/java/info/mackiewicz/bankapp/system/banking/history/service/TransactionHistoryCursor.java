@@ -0,0 +1,76 @@
+package info.mackiewicz.bankapp.system.banking.history.service;
+
+import info.mackiewicz.bankapp.core.transaction.model.Transaction;
+import info.mackiewicz.bankapp.core.transaction.model.TransactionType;
+import info.mackiewicz.bankapp.core.transaction.model.dto.TransactionHistoryCriteria.Position;
+import info.mackiewicz.bankapp.core.transaction.model.dto.TransactionHistoryCriteria.SortField;
+import info.mackiewicz.bankapp.system.banking.history.exception.InvalidHistoryCursorException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Encodes the position of the last transaction of a history page into an opaque cursor for the next page.
+ * <p>
+ * The cursor holds the sort field and direction it was issued for, the value of the sort field of the
+ * transaction and its ID, so the next page continues after exactly this transaction even when transactions
+ * are added in the meantime. A cursor is only valid for the order it was issued for.
+ */
+final class TransactionHistoryCursor {
+
+    private static final String SEPARATOR = "|";
+    private static final int PARTS = 4;
+
+    private TransactionHistoryCursor() {
+    }
+
+    /**
+     * @return the cursor of the page following the given transaction
+     */
+    static String encode(SortField sortField, boolean ascending, Transaction last) {
+        String value = switch (sortField) {
+            case DATE -> last.getDate().toString();
+            case AMOUNT -> last.getAmount().toPlainString();
+            case TYPE -> last.getType().name();
+        };
+        String cursor = String.join(SEPARATOR, sortField.name(), direction(ascending), value, String.valueOf(last.getId()));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the position encoded in the cursor
+     * @throws InvalidHistoryCursorException if the cursor is malformed or was issued for a different order
+     */
+    static Position decode(String cursor, SortField sortField, boolean ascending) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                    .split("\\" + SEPARATOR, -1);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidHistoryCursorException("Malformed history cursor: " + cursor, e);
+        }
+        if (parts.length != PARTS) {
+            throw new InvalidHistoryCursorException("Malformed history cursor: " + cursor);
+        }
+        if (!parts[0].equals(sortField.name()) || !parts[1].equals(direction(ascending))) {
+            throw new InvalidHistoryCursorException(
+                    "History cursor issued for the order " + parts[0] + " " + parts[1] + " used with a different order");
+        }
+        try {
+            Object value = switch (sortField) {
+                case DATE -> LocalDateTime.parse(parts[2]);
+                case AMOUNT -> new BigDecimal(parts[2]);
+                case TYPE -> TransactionType.valueOf(parts[2]);
+            };
+            return new Position(value, Integer.parseInt(parts[3]));
+        } catch (RuntimeException e) {
+            throw new InvalidHistoryCursorException("Malformed history cursor: " + cursor, e);
+        }
+    }
+
+    private static String direction(boolean ascending) {
+        return ascending ? "ASC" : "DESC";
+    }
+}
@@ -1,116 +1,120 @@
 package info.mackiewicz.bankapp.system.banking.history.service;
 
-import info.mackiewicz.bankapp.core.transaction.exception.NoTransactionsForAccountException;
 import info.mackiewicz.bankapp.core.transaction.model.Transaction;
+import info.mackiewicz.bankapp.core.transaction.model.dto.TransactionHistoryCriteria;
+import info.mackiewicz.bankapp.core.transaction.model.dto.TransactionHistoryCriteria.SortField;
 import info.mackiewicz.bankapp.core.transaction.service.TransactionService;
 import info.mackiewicz.bankapp.system.banking.history.controller.dto.TransactionFilterRequest;
-import info.mackiewicz.bankapp.system.banking.history.exception.TransactionFilterException;
+import info.mackiewicz.bankapp.system.banking.history.controller.dto.TransactionHistoryPage;
+import info.mackiewicz.bankapp.system.banking.history.exception.InvalidHistoryCursorException;
 import info.mackiewicz.bankapp.system.banking.history.exception.UnsupportedExporterException;
+import info.mackiewicz.bankapp.system.banking.history.export.ExportConfig;
+import info.mackiewicz.bankapp.system.banking.history.export.StreamingTransactionExporter;
 import info.mackiewicz.bankapp.system.banking.history.export.TransactionExporter;
+import info.mackiewicz.bankapp.system.banking.history.export.TransactionRowSource;
 import info.mackiewicz.bankapp.system.banking.shared.dto.TransactionResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
+import org.hibernate.query.SortDirection;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Locale;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class TransactionHistoryService {
-    private static final int MAX_RECENT_TRANSACTIONS = 100;
-
     private final TransactionService transactionService;
-    private final TransactionFilterService filterService;
     private final List<TransactionExporter> exporters;
+    private final ExportConfig exportConfig;
 
     /**
-     * Retrieves a paginated list of transactions for a given user and account.
+     * Retrieves a page of the transactions of an account matching the filter.
+     * The filtering, ordering and paging is done by the database, with keyset pagination:
+     * a page starts after the transaction encoded in the cursor of the filter.
      *
      * @param filter the filter criteria for transactions
      *
-     * @return a paginated list of transactions
-     * @throws TransactionFilterException        if the filter criteria are invalid
-     * @throws NoTransactionsForAccountException if no transactions are found for the account
+     * @return a page of transactions with the cursor of the next page
+     * @throws InvalidHistoryCursorException if the cursor is malformed or was issued for a different order
      */
-    public Page<TransactionResponse> getTransactionHistory(TransactionFilterRequest filter) {
-        List<Transaction> transactions = getFilteredAndSortedTransactions(filter);
-
-        List<TransactionResponse> responses = transactions.stream()
+    public TransactionHistoryPage getTransactionHistory(TransactionFilterRequest filter) {
+        TransactionHistoryCriteria criteria = toCriteria(filter, filter.getCursor());
+        // one more transaction than requested tells whether there is a next page
+        List<Transaction> transactions = transactionService.getTransactionHistory(criteria, Limit.of(filter.getSize() + 1));
+
+        boolean hasNext = transactions.size() > filter.getSize();
+        List<Transaction> page = hasNext ? transactions.subList(0, filter.getSize()) : transactions;
+        String nextCursor = hasNext
+                ? TransactionHistoryCursor.encode(criteria.sortField(), criteria.ascending(), page.getLast())
+                : null;
+        log.debug("Returning {} transactions of account {}, next page: {}", page.size(), filter.getAccountId(), hasNext);
+
+        List<TransactionResponse> responses = page.stream()
                 .map(t -> new TransactionResponse(
                         t.getSourceAccount(),
                         t.getDestinationAccount(),
                         t))
                 .toList();
 
-        return createPaginatedResponse(responses, filter.getPage(), filter.getSize());
+        return new TransactionHistoryPage(responses, filter.getSize(), hasNext, nextCursor);
     }
 
     /**
      * Exports transactions for a given user and account in the specified format.
+     * All transactions matching the filter are exported, the pagination parameters are ignored.
+     * Exporters supporting it stream the transactions to the response while they are read from a
+     * database cursor, the others receive them all at once.
      *
      * @param filter the filter criteria for transactions
      * @param format the export format (e.g., CSV, PDF)
      *
-     * @return a ResponseEntity containing the exported transactions as a byte array
-     * @throws TransactionFilterException        if the filter criteria are invalid
-     * @throws NoTransactionsForAccountException if no transactions are found for the account
+     * @return a ResponseEntity whose body writes the exported transactions to the response
      * @throws UnsupportedExporterException      if the export format is not supported
      */
-    public ResponseEntity<byte[]> exportTransactions(TransactionFilterRequest filter, String format) {
-        List<Transaction> transactions = getFilteredAndSortedTransactions(filter);
-
-        return findExporter(format).exportTransactions(transactions);
-    }
-
-    /**
-     * Retrieves and filters transactions based on the provided filter criteria.
-     *
-     * @param filter the filter criteria for transactions
-     *
-     * @return a list of filtered and sorted transactions
-     * @throws TransactionFilterException        if the filter criteria are invalid
-     * @throws NoTransactionsForAccountException if no transactions are found for the account
-     */
-    private List<Transaction> getFilteredAndSortedTransactions(TransactionFilterRequest filter) {
-        List<Transaction> transactions = transactionService.getRecentTransactions(filter.getAccountId(), MAX_RECENT_TRANSACTIONS);
-
-        List<Transaction> filteredTransactions = filterService.filterTransactions(
-                transactions, filter.getDateFrom(), filter.getDateTo(),
-                filter.getType(), filter.getStatus(), filter.getAmountFrom(), filter.getAmountTo(),
-                filter.getQuery());
-
-        filterService.sortTransactions(filteredTransactions, filter.getSortBy(), filter.getSortDirection());
-
-        return filteredTransactions;
-    }
-
-    /**
-     * Creates a paginated response from the given list of transactions.
-     *
-     * @param transactions the list of transaction responses to paginate
-     * @param page the page number to retrieve (0-based index)
-     * @param size the number of items per page
-     * @return a Page containing the paginated transaction responses
-     */
-    private Page<TransactionResponse> createPaginatedResponse(List<TransactionResponse> transactions, int page, int size) {
-        int start = page * size;
-        int totalSize = transactions.size();
-
-        if (start >= totalSize) {
-            log.debug("Requested page {} is beyond available data", page);
-            return new PageImpl<>(List.of(), PageRequest.of(page, size), totalSize);
+    public ResponseEntity<StreamingResponseBody> exportTransactions(TransactionFilterRequest filter, String format) {
+        TransactionExporter exporter = findExporter(format);
+        TransactionHistoryCriteria criteria = toCriteria(filter, null);
+
+        if (exporter instanceof StreamingTransactionExporter streamingExporter) {
+            TransactionRowSource rows = action -> transactionService.forEachHistoryRow(criteria, exportConfig.fetchSize(), action);
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(streamingExporter.getMediaType());
+            headers.setContentDispositionFormData("attachment", streamingExporter.getFileName());
+            return ResponseEntity.ok()
+                    .headers(headers)
+                    .body(output -> streamingExporter.writeTransactions(rows, output));
         }
 
-        int end = Math.min(start + size, totalSize);
-        List<TransactionResponse> pageContent = transactions.subList(start, end);
-        log.debug("Returning page {} with {} transactions", page, pageContent.size());
+        List<Transaction> transactions = transactionService.getTransactionHistory(criteria, Limit.unlimited());
+        ResponseEntity<byte[]> exported = exporter.exportTransactions(transactions);
+        byte[] body = exported.getBody();
+        return ResponseEntity.status(exported.getStatusCode())
+                .headers(exported.getHeaders())
+                .body(output -> output.write(body));
+    }
 
-        return new PageImpl<>(pageContent, PageRequest.of(page, size), totalSize);
+    private TransactionHistoryCriteria toCriteria(TransactionFilterRequest filter, String cursor) {
+        SortField sortField = SortField.valueOf(filter.getSortBy().toUpperCase(Locale.ROOT));
+        boolean ascending = filter.getSortDirection() == SortDirection.ASCENDING;
+        return TransactionHistoryCriteria.builder()
+                .accountId(filter.getAccountId())
+                .dateFrom(filter.getDateFrom())
+                .dateTo(filter.getDateTo())
+                .type(filter.getType())
+                .status(filter.getStatus())
+                .amountFrom(filter.getAmountFrom())
+                .amountTo(filter.getAmountTo())
+                .text(filter.getQuery())
+                .sortField(sortField)
+                .ascending(ascending)
+                .after(cursor == null ? null : TransactionHistoryCursor.decode(cursor, sortField, ascending))
+                .build();
     }
 
     private TransactionExporter findExporter(String format) {
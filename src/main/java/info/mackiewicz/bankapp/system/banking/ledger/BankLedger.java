@@ -0,0 +1,225 @@
+package info.mackiewicz.bankapp.system.banking.ledger;
+
+import info.mackiewicz.bankapp.core.account.model.Account;
+import info.mackiewicz.bankapp.core.account.repository.AccountRepository;
+import info.mackiewicz.bankapp.core.transaction.model.Transaction;
+import info.mackiewicz.bankapp.core.transaction.model.TransactionStatus;
+import info.mackiewicz.bankapp.core.transaction.repository.TransactionRepository;
+import info.mackiewicz.bankapp.core.user.model.User;
+import info.mackiewicz.bankapp.core.user.service.UserService;
+import info.mackiewicz.bankapp.shared.util.BankAccountProvider;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Spreads the operations of the bank account over sub-ledger bucket accounts.
+ * <p>
+ * Welcome bonuses and fees all touch the bank account, which makes its row the most contended
+ * one: every such transaction waits for its lock or retries on its version. With bucketing enabled,
+ * the bank account is split into the configured number of bucket accounts owned by the bank user,
+ * and every operation is routed to one of them by hashing its routing key. Bonuses are paid from
+ * a bucket as long as its working balance covers them, otherwise from the bank account. The consolidation job
+ * brings every bucket back to the configured float against the bank account; every move is recorded
+ * as a completed transfer between the two accounts, so it appears in their transaction history.
+ * </p>
+ * The balance of the bank is the sum of all its accounts, see {@link #getTotalBalance()} and the
+ * {@code bank_ledger_balance} view, so it stays exact whatever the consolidation state of the buckets.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BankLedger {
+
+    /**
+     * ID of the bank account, used when bucketing is disabled or not provisioned.
+     */
+    public static final Integer BANK_ACCOUNT_ID = -1;
+
+    static final String CONSOLIDATION_TITLE = "Bank ledger consolidation";
+
+    private final BankLedgerConfig config;
+    private final BankAccountProvider bankAccountProvider;
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final UserService userService;
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile Ledger ledger = Ledger.DISABLED;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        if (config.buckets() == 0) {
+            return;
+        }
+        try {
+            provisionBuckets();
+        } catch (RuntimeException e) {
+            log.warn("Bank account buckets could not be provisioned, bank operations use the bank account: {}",
+                    e.getMessage());
+        }
+    }
+
+    /**
+     * Creates the missing bucket accounts and starts routing bank operations to them.
+     *
+     * @return IDs of the bucket accounts
+     */
+    public List<Integer> provisionBuckets() {
+        Ledger provisioned = transactionTemplate.execute(status -> {
+            Account bankAccount = bankAccountProvider.getBankAccount();
+            // the bank user is locked as on account creation, its account counter numbers the buckets
+            User bank = userService.getUserByIdWithPessimisticLock(bankAccount.getOwner().getId());
+            List<Account> buckets = new ArrayList<>(accountRepository.findAccountsByOwner_id(bank.getId()).stream()
+                    .filter(account -> !account.getId().equals(bankAccount.getId()))
+                    .sorted(Comparator.comparing(Account::getUserAccountNumber))
+                    .toList());
+            for (int number = buckets.size() + 1; number <= config.buckets(); number++) {
+                buckets.add(accountRepository.save(Account.factory().createSystemAccount(bank, number)));
+            }
+            return new Ledger(bankAccount.getId(), bank.getId(), buckets.stream()
+                    .limit(config.buckets())
+                    .map(Account::getId)
+                    .toList());
+        });
+        ledger = provisioned;
+        log.info("Bank operations are spread over {} buckets: {}", provisioned.bucketIds().size(), provisioned.bucketIds());
+        return provisioned.bucketIds();
+    }
+
+    /**
+     * Returns the account a bank withdrawal of the given amount is taken from.
+     *
+     * @param routingKey key selecting the bucket, e.g. the recipient
+     * @param amount     amount of the withdrawal
+     * @return the selected bucket if its working balance covers the amount, the bank account otherwise
+     */
+    public Account getWithdrawalAccount(Object routingKey, BigDecimal amount) {
+        Ledger current = ledger;
+        if (current.isDisabled()) {
+            return bankAccountProvider.getBankAccount();
+        }
+        Integer bucketId = current.bucketFor(routingKey);
+        // bonuses registered but not yet processed are on hold, they must not be promised twice
+        return accountRepository.findWorkingBalanceById(bucketId)
+                .filter(workingBalance -> workingBalance.compareTo(amount) >= 0)
+                .flatMap(workingBalance -> accountRepository.findById(bucketId))
+                .orElseGet(bankAccountProvider::getBankAccount);
+    }
+
+    /**
+     * Returns the ID of the account a bank deposit, e.g. a fee, is credited to.
+     *
+     * @param routingKey key selecting the bucket, e.g. the transaction ID
+     * @return ID of the selected bucket, or of the bank account when bucketing is disabled
+     */
+    public Integer getDepositAccountId(Object routingKey) {
+        Ledger current = ledger;
+        return current.isDisabled() ? BANK_ACCOUNT_ID : current.bucketFor(routingKey);
+    }
+
+    /**
+     * Returns the exact balance of the bank: the bank account and all its buckets.
+     *
+     * @return the total balance
+     */
+    public BigDecimal getTotalBalance() {
+        Ledger current = ledger;
+        Integer bankUserId = current.isDisabled()
+                ? bankAccountProvider.getBankAccount().getOwner().getId()
+                : current.bankUserId();
+        return accountRepository.sumBalanceByOwnerId(bankUserId);
+    }
+
+    /**
+     * Returns the IDs of the bucket accounts operations are routed to.
+     *
+     * @return bucket IDs, empty when bucketing is disabled
+     */
+    public List<Integer> getBucketIds() {
+        return ledger.bucketIds();
+    }
+
+    /**
+     * Brings every bucket back to the configured float by moving the difference from or to the
+     * bank account. Each bucket is consolidated in its own short database transaction with the
+     * atomic balance updates, so concurrent bank operations are neither blocked for long nor lost.
+     * The transfer recording the move is saved in the same database transaction.
+     *
+     * @return number of consolidated buckets
+     */
+    public int consolidate() {
+        Ledger current = ledger;
+        int consolidated = 0;
+        for (Integer bucketId : current.bucketIds()) {
+            try {
+                if (Boolean.TRUE.equals(transactionTemplate.execute(status -> consolidate(current, bucketId)))) {
+                    consolidated++;
+                }
+            } catch (RuntimeException e) {
+                log.warn("Consolidation of bucket {} failed: {}", bucketId, e.getMessage());
+            }
+        }
+        if (consolidated > 0) {
+            log.info("Consolidated {} bank account buckets", consolidated);
+        }
+        return consolidated;
+    }
+
+    private boolean consolidate(Ledger current, Integer bucketId) {
+        BigDecimal balance = accountRepository.findBalanceById(bucketId).orElse(config.bucketFloat());
+        BigDecimal surplus = balance.subtract(config.bucketFloat());
+        if (surplus.signum() > 0) {
+            return move(bucketId, current.bankAccountId(), surplus);
+        }
+        if (surplus.signum() < 0) {
+            return move(current.bankAccountId(), bucketId, surplus.negate());
+        }
+        return false;
+    }
+
+    private boolean move(Integer fromId, Integer toId, BigDecimal amount) {
+        if (accountRepository.subtractFromBalance(fromId, amount) == 0) {
+            // the balance has been spent in the meantime, the next run catches up
+            log.debug("Account {} no longer covers {}, skipping", fromId, amount);
+            return false;
+        }
+        accountRepository.addToBalance(toId, amount);
+        transactionRepository.save(consolidationTransfer(fromId, toId, amount));
+        return true;
+    }
+
+    private Transaction consolidationTransfer(Integer fromId, Integer toId, BigDecimal amount) {
+        Transaction transfer = Transaction.buildTransfer()
+                .from(accountRepository.findById(fromId).orElseThrow())
+                .to(accountRepository.findById(toId).orElseThrow())
+                .withAmount(amount)
+                .withTitle(CONSOLIDATION_TITLE)
+                .build();
+        // the balances have already been changed, the transfer only records the move
+        transfer.setStatus(TransactionStatus.DONE);
+        return transfer;
+    }
+
+    private record Ledger(Integer bankAccountId, Integer bankUserId, List<Integer> bucketIds) {
+
+        private static final Ledger DISABLED = new Ledger(BANK_ACCOUNT_ID, null, List.of());
+
+        boolean isDisabled() {
+            return bucketIds.isEmpty();
+        }
+
+        Integer bucketFor(Object routingKey) {
+            return bucketIds.get(Math.floorMod(Objects.hashCode(routingKey), bucketIds.size()));
+        }
+    }
+}
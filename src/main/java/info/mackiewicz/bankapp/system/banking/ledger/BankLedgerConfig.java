@@ -0,0 +1,27 @@
+package info.mackiewicz.bankapp.system.banking.ledger;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.math.BigDecimal;
+
+/**
+ * Configuration of the sub-ledger buckets of the bank account.
+ *
+ * @param buckets     number of bucket accounts the bank account is split into, 0 disables bucketing
+ *                    and routes every bank operation to the bank account itself
+ * @param bucketFloat balance every bucket is brought back to by the consolidation; withdrawals
+ *                    a bucket cannot cover are taken from the bank account
+ */
+@ConfigurationProperties(prefix = "app.bank.ledger")
+public record BankLedgerConfig(int buckets,
+        BigDecimal bucketFloat) {
+
+    // Default values for the properties
+    // These values can be overridden in application.properties or application.yml
+    public BankLedgerConfig {
+        if (buckets < 0)
+            buckets = 0;
+        if (bucketFloat == null || bucketFloat.signum() < 0)
+            bucketFloat = BigDecimal.valueOf(10000);
+    }
+}
@@ -1,8 +1,10 @@
 package info.mackiewicz.bankapp.system.banking.operations.controller;
 
 import info.mackiewicz.bankapp.core.user.model.interfaces.UserDetailsWithId;
+import info.mackiewicz.bankapp.shared.config.ApiConstants;
 import info.mackiewicz.bankapp.system.banking.operations.controller.dto.EmailTransferRequest;
 import info.mackiewicz.bankapp.system.banking.operations.controller.dto.IbanTransferRequest;
+import info.mackiewicz.bankapp.system.banking.operations.idempotency.IdempotencyService;
 import info.mackiewicz.bankapp.system.banking.operations.service.transfer.EmailTransferService;
 import info.mackiewicz.bankapp.system.banking.operations.service.transfer.IbanTransferService;
 import info.mackiewicz.bankapp.system.banking.shared.dto.TransactionResponse;
@@ -12,6 +14,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 
 @RequiredArgsConstructor
@@ -20,18 +23,25 @@ public class BankingOperationsController implements BankingOperationsControllerI
 
     private final EmailTransferService emailTransferService;
     private final IbanTransferService ibanTransferService;
+    private final IdempotencyService idempotencyService;
 
     @PreAuthorize("@ibanAccountAuthorizationService.validateAccountOwnership(#request.sourceIban, authentication.principal)")
     @Override
-    public ResponseEntity<TransactionResponse> ibanTransfer(@Valid @RequestBody IbanTransferRequest request, @AuthenticationPrincipal UserDetailsWithId authUser) {
-        TransactionResponse response = ibanTransferService.handleIbanTransfer(request);
+    public ResponseEntity<TransactionResponse> ibanTransfer(@Valid @RequestBody IbanTransferRequest request,
+                                                            @RequestHeader(name = ApiConstants.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+                                                            @AuthenticationPrincipal UserDetailsWithId authUser) {
+        TransactionResponse response = idempotencyService.execute(authUser.getId(), idempotencyKey,
+                request.getCanonicalForm(), () -> ibanTransferService.handleIbanTransfer(request));
         return ResponseEntity.ok(response);
     }
 
     @PreAuthorize("@ibanAccountAuthorizationService.validateAccountOwnership(#request.sourceIban, authentication.principal)")
     @Override
-    public ResponseEntity<TransactionResponse> emailTransfer(@Valid @RequestBody EmailTransferRequest request, @AuthenticationPrincipal UserDetailsWithId authUser) {
-        TransactionResponse response = emailTransferService.handleEmailTransfer(request);
+    public ResponseEntity<TransactionResponse> emailTransfer(@Valid @RequestBody EmailTransferRequest request,
+                                                             @RequestHeader(name = ApiConstants.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+                                                             @AuthenticationPrincipal UserDetailsWithId authUser) {
+        TransactionResponse response = idempotencyService.execute(authUser.getId(), idempotencyKey,
+                request.getCanonicalForm(), () -> emailTransferService.handleEmailTransfer(request));
         return ResponseEntity.ok(response);
     }
 }
@@ -21,6 +21,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 
 /**
@@ -32,10 +33,16 @@ import org.springframework.web.bind.annotation.RequestMapping;
 @RequestMapping("/api/transfers")
 public interface BankingOperationsControllerInterface {
 
+    String IDEMPOTENCY_KEY_DESCRIPTION = """
+            Optional client-generated key of at most 255 characters, e.g. a UUID. Retrying a request \
+            with the same key returns the response of the first request instead of making another transfer. \
+            Reusing a key for a different request is rejected with 422.""";
+
     /**
      * Transfers funds between accounts
      * 
      * @param request transfer details including source account IBAN, destination account IBAN and amount
+     * @param idempotencyKey optional key under which a retried request returns the response of the first one
      * @param authUser authenticated user details, who has access to the source account
      * @return response with transaction result
      */
@@ -141,6 +148,28 @@ public interface BankingOperationsControllerInterface {
                 }
             )
         ),
+        @ApiResponse(
+            responseCode = "422",
+            description = "Idempotency key already used for a different request",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = BaseApiError.class),
+                examples = {
+                    @ExampleObject(
+                        name = "Idempotency key reused error",
+                        summary = "Example of an idempotency key sent again with a different request",
+                        value = """
+                                {
+                                  "path": "/api/transfers/iban",
+                                  "status": "UNPROCESSABLE_ENTITY",
+                                  "title": "IDEMPOTENCY_KEY_REUSED",
+                                  "message": "This idempotency key has already been used for a different request.",
+                                  "timestamp": "04-04-2025 13:35:07"
+                                }"""
+                    )
+                }
+            )
+        ),
         @ApiResponse(
             responseCode = "500", 
             description = "Internal server error during transaction processing", 
@@ -153,6 +182,9 @@ public interface BankingOperationsControllerInterface {
                 required = true
             )
             @Valid @RequestBody IbanTransferRequest request, 
+
+            @Parameter(description = IDEMPOTENCY_KEY_DESCRIPTION)
+            @RequestHeader(name = ApiConstants.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             
             @Parameter(
                 description = "Authenticated user details", 
@@ -165,6 +197,7 @@ public interface BankingOperationsControllerInterface {
      * Transfers funds to an email address
      * 
      * @param request transfer details including source account, destination email (which will be resolved to IBAN) and amount
+     * @param idempotencyKey optional key under which a retried request returns the response of the first one
      * @param authUser authenticated user details, who has access to the source account
      * @return response with transaction result
      */
@@ -279,6 +312,28 @@ public interface BankingOperationsControllerInterface {
                 }
             )
         ),
+        @ApiResponse(
+            responseCode = "422",
+            description = "Idempotency key already used for a different request",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = BaseApiError.class),
+                examples = {
+                    @ExampleObject(
+                        name = "Idempotency key reused error",
+                        summary = "Example of an idempotency key sent again with a different request",
+                        value = """
+                                {
+                                  "path": "/api/transfers/email",
+                                  "status": "UNPROCESSABLE_ENTITY",
+                                  "title": "IDEMPOTENCY_KEY_REUSED",
+                                  "message": "This idempotency key has already been used for a different request.",
+                                  "timestamp": "04-04-2025 13:35:07"
+                                }"""
+                    )
+                }
+            )
+        ),
         @ApiResponse(
             responseCode = "500", 
             description = "Internal server error during transaction processing", 
@@ -301,6 +356,9 @@ public interface BankingOperationsControllerInterface {
                         )
                     })
             @Valid @RequestBody EmailTransferRequest request, 
+
+            @Parameter(description = IDEMPOTENCY_KEY_DESCRIPTION)
+            @RequestHeader(name = ApiConstants.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             
             @Parameter(description = "Authenticated user details", hidden = true)
             @AuthenticationPrincipal UserDetailsWithId authUser);
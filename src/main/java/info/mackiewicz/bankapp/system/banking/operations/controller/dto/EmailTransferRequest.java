@@ -30,4 +30,9 @@ public class EmailTransferRequest extends TransactionRequest {
     public void setDestinationEmail(EmailAddress email) {
         this.destinationEmail = email.getValue();
     }
+
+    @Override
+    protected String recipient() {
+        return destinationEmail;
+    }
 }
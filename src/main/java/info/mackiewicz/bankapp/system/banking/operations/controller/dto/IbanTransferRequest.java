@@ -30,4 +30,9 @@ public class IbanTransferRequest extends TransactionRequest {
     public void setRecipientIban(Iban iban) {
         this.recipientIban = iban.toString();
     }
+
+    @Override
+    protected String recipient() {
+        return recipientIban;
+    }
 }
@@ -69,6 +69,24 @@ public abstract class TransactionRequest {
         this.sourceIban = iban;
     }
 
+    /**
+     * Returns the fields that define the requested operation in a fixed order, so that a retried
+     * request can be told apart from a different one sent under the same idempotency key.
+     * Amounts are compared by value and the temporary ID is left out.
+     *
+     * @return canonical form of the request
+     */
+    @JsonIgnore
+    public String getCanonicalForm() {
+        String canonicalAmount = amount == null ? null : amount.stripTrailingZeros().toPlainString();
+        return String.join("\n", getClass().getSimpleName(), sourceIban, canonicalAmount, title, recipient());
+    }
+
+    /**
+     * Returns the recipient of the operation as sent by the client.
+     */
+    protected abstract String recipient();
+
     public TransactionRequest() {
         tempId = ChronoUnit.MILLIS.between(
             LocalDateTime.now().withDayOfMonth(1).truncatedTo(ChronoUnit.DAYS),
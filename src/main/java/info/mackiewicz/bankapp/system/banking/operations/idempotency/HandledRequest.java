@@ -0,0 +1,16 @@
+package info.mackiewicz.bankapp.system.banking.operations.idempotency;
+
+import info.mackiewicz.bankapp.system.banking.shared.dto.TransactionResponse;
+
+/**
+ * Response to a request handled under an idempotency key, with the hash of the request it answers.
+ *
+ * @param requestHash hash of the canonical form of the request, {@code null} for keys stored before hashes were
+ * @param response    response returned to the request
+ */
+record HandledRequest(String requestHash, TransactionResponse response) {
+
+    boolean answers(String otherRequestHash) {
+        return requestHash == null || requestHash.equals(otherRequestHash);
+    }
+}
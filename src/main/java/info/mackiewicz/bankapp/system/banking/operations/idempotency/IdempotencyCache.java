@@ -0,0 +1,73 @@
+package info.mackiewicz.bankapp.system.banking.operations.idempotency;
+
+import info.mackiewicz.bankapp.system.banking.operations.idempotency.model.IdempotencyKey;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded in-memory cache of responses to handled transfer requests.
+ * When full, the least recently used entry is evicted; entries expire after the TTL.
+ */
+class IdempotencyCache {
+
+    private final int maxEntries;
+    private final long ttl;
+    private final Clock clock;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<IdempotencyKey, Entry> entries;
+
+    IdempotencyCache(int maxEntries, long ttl, Clock clock) {
+        this.maxEntries = maxEntries;
+        this.ttl = ttl;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<IdempotencyKey, Entry> eldest) {
+                return size() > IdempotencyCache.this.maxEntries;
+            }
+        };
+    }
+
+    Optional<HandledRequest> get(IdempotencyKey key) {
+        lock.lock();
+        try {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return Optional.empty();
+            }
+            if (!entry.expiresAt().isAfter(clock.instant())) {
+                entries.remove(key);
+                return Optional.empty();
+            }
+            return Optional.of(entry.request());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void put(IdempotencyKey key, HandledRequest request) {
+        lock.lock();
+        try {
+            entries.put(key, new Entry(request, clock.instant().plusMillis(ttl)));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private record Entry(HandledRequest request, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,24 @@
+package info.mackiewicz.bankapp.system.banking.operations.idempotency;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration of the deduplication of transfer requests by idempotency key.
+ *
+ * @param maxEntries maximum number of responses kept in memory; the least recently
+ *                   used one is evicted first
+ * @param ttl        time in milliseconds for which a key is remembered, in memory and in the database
+ */
+@ConfigurationProperties(prefix = "app.transaction.idempotency")
+public record IdempotencyConfig(int maxEntries,
+        long ttl) {
+
+    // Default values for the properties
+    // These values can be overridden in application.properties or application.yml
+    public IdempotencyConfig {
+        if (maxEntries <= 0)
+            maxEntries = 10000;
+        if (ttl <= 0)
+            ttl = 86400000;
+    }
+}
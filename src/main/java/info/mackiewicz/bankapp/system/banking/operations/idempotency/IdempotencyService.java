@@ -0,0 +1,201 @@
+package info.mackiewicz.bankapp.system.banking.operations.idempotency;
+
+import info.mackiewicz.bankapp.core.transaction.model.Transaction;
+import info.mackiewicz.bankapp.core.transaction.service.TransactionService;
+import info.mackiewicz.bankapp.system.banking.operations.idempotency.exception.IdempotencyKeyReusedException;
+import info.mackiewicz.bankapp.system.banking.operations.idempotency.exception.InvalidIdempotencyKeyException;
+import info.mackiewicz.bankapp.system.banking.operations.idempotency.model.IdempotencyKey;
+import info.mackiewicz.bankapp.system.banking.operations.idempotency.repository.IdempotencyRecordRepository;
+import info.mackiewicz.bankapp.system.banking.shared.dto.TransactionResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicates transfer requests retried by clients under the same idempotency key.
+ * <p>
+ * The first request with a key is handled and its key is stored together with the registered
+ * transaction and the hash of the request, in the same database transaction. A repeated request
+ * with the same key, user and body gets the response of the first one without registering anything:
+ * from the bounded in-memory cache, or rebuilt from the stored transaction when the response is no
+ * longer cached. A request reusing the key with a different body is rejected.
+ * Concurrent duplicates wait for the first request and share its outcome. If another node
+ * stores the key first, the registration of this node is rolled back and the response of
+ * the other node is returned.
+ * </p>
+ * Keys are remembered for the configured TTL.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final String HASH_ALGORITHM = "SHA-256";
+
+    private final IdempotencyRecordRepository repository;
+    private final TransactionService transactionService;
+    private final TransactionTemplate transactionTemplate;
+    private final IdempotencyConfig config;
+    private final Clock clock;
+    private final IdempotencyCache cache;
+
+    private final ConcurrentMap<IdempotencyKey, CompletableFuture<HandledRequest>> inProgress = new ConcurrentHashMap<>();
+
+    @Autowired
+    public IdempotencyService(IdempotencyRecordRepository repository,
+                              TransactionService transactionService,
+                              TransactionTemplate transactionTemplate,
+                              IdempotencyConfig config) {
+        this(repository, transactionService, transactionTemplate, config, Clock.systemUTC());
+    }
+
+    IdempotencyService(IdempotencyRecordRepository repository,
+                       TransactionService transactionService,
+                       TransactionTemplate transactionTemplate,
+                       IdempotencyConfig config,
+                       Clock clock) {
+        this.repository = repository;
+        this.transactionService = transactionService;
+        this.transactionTemplate = transactionTemplate;
+        this.config = config;
+        this.clock = clock;
+        this.cache = new IdempotencyCache(config.maxEntries(), config.ttl(), clock);
+    }
+
+    /**
+     * Handles a transfer request at most once per idempotency key and user.
+     *
+     * @param userId           ID of the user sending the request
+     * @param idempotencyKey   key sent by the client, or {@code null} if the request should not be deduplicated
+     * @param canonicalRequest canonical form of the request body, compared with the one the key was first used for
+     * @param transfer         handles the request and registers its transaction
+     * @return response of the first request sent with the key
+     * @throws InvalidIdempotencyKeyException if the key is longer than 255 characters
+     * @throws IdempotencyKeyReusedException  if the key was first used for a different request
+     */
+    public TransactionResponse execute(Integer userId, String idempotencyKey, String canonicalRequest,
+                                       Supplier<TransactionResponse> transfer) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return transfer.get();
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new InvalidIdempotencyKeyException(
+                    "Idempotency key cannot be longer than " + MAX_KEY_LENGTH + " characters");
+        }
+        IdempotencyKey key = new IdempotencyKey(userId, idempotencyKey);
+        String requestHash = hash(canonicalRequest);
+
+        Optional<HandledRequest> cached = cache.get(key);
+        if (cached.isPresent()) {
+            log.info("Found cached response for {}", key);
+            return replay(key, cached.get(), requestHash);
+        }
+
+        CompletableFuture<HandledRequest> handling = new CompletableFuture<>();
+        CompletableFuture<HandledRequest> first = inProgress.putIfAbsent(key, handling);
+        if (first != null) {
+            log.info("Waiting for the concurrent request with {}", key);
+            return replay(key, await(first), requestHash);
+        }
+        try {
+            HandledRequest handled = findStoredRequest(key)
+                    .orElseGet(() -> handleFirstRequest(key, requestHash, transfer));
+            cache.put(key, handled);
+            handling.complete(handled);
+            return replay(key, handled, requestHash);
+        } catch (RuntimeException e) {
+            handling.completeExceptionally(e);
+            throw e;
+        } finally {
+            inProgress.remove(key, handling);
+        }
+    }
+
+    /**
+     * Removes the keys older than the TTL from the database.
+     *
+     * @return number of removed keys
+     */
+    public int cleanupExpiredKeys() {
+        int removed = repository.deleteAllCreatedBefore(expiryThreshold());
+        log.info("Removed {} expired idempotency keys", removed);
+        return removed;
+    }
+
+    private HandledRequest handleFirstRequest(IdempotencyKey key, String requestHash,
+                                              Supplier<TransactionResponse> transfer) {
+        try {
+            return transactionTemplate.execute(status -> {
+                repository.deleteRecordCreatedBefore(key.getUserId(), key.getIdempotencyKey(), expiryThreshold());
+                TransactionResponse response = transfer.get();
+                repository.insertRecord(key.getUserId(), key.getIdempotencyKey(),
+                        response.getTransactionInfo().getId(), requestHash, clock.instant());
+                return new HandledRequest(requestHash, response);
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.info("{} was stored concurrently, returning the stored response", key);
+            return findStoredRequest(key).orElseThrow(() -> e);
+        }
+    }
+
+    private Optional<HandledRequest> findStoredRequest(IdempotencyKey key) {
+        return repository.findByUserIdAndIdempotencyKeyAndCreatedAtAfter(
+                        key.getUserId(), key.getIdempotencyKey(), expiryThreshold())
+                .map(record -> {
+                    log.info("Found stored response for {}", key);
+                    Transaction transaction = transactionService.getTransactionById(record.getTransactionId());
+                    return new HandledRequest(record.getRequestHash(), new TransactionResponse(
+                            transaction.getSourceAccount(),
+                            transaction.getDestinationAccount(),
+                            transaction));
+                });
+    }
+
+    private TransactionResponse replay(IdempotencyKey key, HandledRequest handled, String requestHash) {
+        if (!handled.answers(requestHash)) {
+            log.warn("{} has been reused for a different request", key);
+            throw new IdempotencyKeyReusedException(
+                    "Idempotency key has already been used for a different request");
+        }
+        return handled.response();
+    }
+
+    private static String hash(String canonicalRequest) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
+            return Base64.getEncoder().encodeToString(digest.digest(canonicalRequest.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(HASH_ALGORITHM + " algorithm not available", e);
+        }
+    }
+
+    private Instant expiryThreshold() {
+        return clock.instant().minusMillis(config.ttl());
+    }
+
+    private HandledRequest await(CompletableFuture<HandledRequest> first) {
+        try {
+            return first.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package info.mackiewicz.bankapp.system.banking.operations.idempotency.exception;
+
+import info.mackiewicz.bankapp.shared.exception.BankAppBaseException;
+import info.mackiewicz.bankapp.system.error.handling.core.ErrorCode;
+
+/**
+ * Thrown when an idempotency key is sent again with a request different from the one it was first used for.
+ */
+public class IdempotencyKeyReusedException extends BankAppBaseException {
+
+    public IdempotencyKeyReusedException(String message) {
+        super(message, ErrorCode.IDEMPOTENCY_KEY_REUSED);
+    }
+}
@@ -0,0 +1,14 @@
+package info.mackiewicz.bankapp.system.banking.operations.idempotency.exception;
+
+import info.mackiewicz.bankapp.shared.exception.BankAppBaseException;
+import info.mackiewicz.bankapp.system.error.handling.core.ErrorCode;
+
+/**
+ * Thrown when a transfer request carries an idempotency key that cannot be stored.
+ */
+public class InvalidIdempotencyKeyException extends BankAppBaseException {
+
+    public InvalidIdempotencyKeyException(String message) {
+        super(message, ErrorCode.VALIDATION_ERROR);
+    }
+}
@@ -0,0 +1,24 @@
+package info.mackiewicz.bankapp.system.banking.operations.idempotency.model;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.io.Serializable;
+
+/**
+ * Idempotency key sent by a client, scoped to the user who sent it.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class IdempotencyKey implements Serializable {
+
+    private Integer userId;
+    private String idempotencyKey;
+}
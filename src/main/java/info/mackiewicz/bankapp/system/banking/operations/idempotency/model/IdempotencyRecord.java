@@ -0,0 +1,46 @@
+package info.mackiewicz.bankapp.system.banking.operations.idempotency.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Entity representing a transfer request already handled under an idempotency key.
+ *
+ * The record is written in the same database transaction as the registered transaction,
+ * so a key is never stored without its transaction and vice versa.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@IdClass(IdempotencyKey.class)
+@Table(name = "idempotency_keys")
+public class IdempotencyRecord {
+
+    @Id
+    @Column(name = "user_id")
+    private Integer userId;
+
+    @Id
+    @Column(name = "idempotency_key")
+    private String idempotencyKey;
+
+    @Column(name = "transaction_id", nullable = false)
+    private Integer transactionId;
+
+    /**
+     * Hash of the canonical form of the request the key was first used for.
+     */
+    @Column(name = "request_hash", length = 64)
+    private String requestHash;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
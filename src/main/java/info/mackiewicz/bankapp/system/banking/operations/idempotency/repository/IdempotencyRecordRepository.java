@@ -0,0 +1,73 @@
+package info.mackiewicz.bankapp.system.banking.operations.idempotency.repository;
+
+import info.mackiewicz.bankapp.system.banking.operations.idempotency.model.IdempotencyKey;
+import info.mackiewicz.bankapp.system.banking.operations.idempotency.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Repository for managing idempotency keys of handled transfer requests
+ */
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, IdempotencyKey> {
+
+    /**
+     * Finds the record of a key used by the user after the given time.
+     *
+     * @param userId         ID of the user who sent the key
+     * @param idempotencyKey the key sent by the user
+     * @param createdAt      only records created after this time are returned
+     * @return the matching record, if any
+     */
+    Optional<IdempotencyRecord> findByUserIdAndIdempotencyKeyAndCreatedAtAfter(
+            Integer userId, String idempotencyKey, Instant createdAt);
+
+    /**
+     * Stores the key of a handled request with the hash of the request.
+     * Fails with a constraint violation if the key has been stored concurrently, e.g. by another node.
+     */
+    @Modifying
+    @Query("""
+            INSERT INTO IdempotencyRecord (userId, idempotencyKey, transactionId, requestHash, createdAt)
+                VALUES (:userId, :idempotencyKey, :transactionId, :requestHash, :createdAt)
+            """)
+    int insertRecord(@Param("userId") Integer userId,
+                     @Param("idempotencyKey") String idempotencyKey,
+                     @Param("transactionId") Integer transactionId,
+                     @Param("requestHash") String requestHash,
+                     @Param("createdAt") Instant createdAt);
+
+    /**
+     * Removes the record of a key used by the user if it was created before the given time.
+     * Lets an expired key be stored again before the scheduled cleanup has removed it.
+     *
+     * @return The number of affected rows
+     */
+    @Modifying
+    @Query("""
+            DELETE FROM IdempotencyRecord r
+                WHERE r.userId = :userId
+                AND r.idempotencyKey = :idempotencyKey
+                AND r.createdAt < :createdAt
+            """)
+    int deleteRecordCreatedBefore(@Param("userId") Integer userId,
+                                  @Param("idempotencyKey") String idempotencyKey,
+                                  @Param("createdAt") Instant createdAt);
+
+    /**
+     * Removes the records created before the given time.
+     *
+     * @return The number of affected rows
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :createdAt")
+    int deleteAllCreatedBefore(@Param("createdAt") Instant createdAt);
+}
@@ -4,17 +4,17 @@ import info.mackiewicz.bankapp.core.account.exception.AccountNotFoundByIbanExcep
 import info.mackiewicz.bankapp.core.account.model.Account;
 import info.mackiewicz.bankapp.core.account.service.interfaces.AccountServiceInterface;
 import info.mackiewicz.bankapp.core.transaction.exception.InsufficientFundsException;
+import info.mackiewicz.bankapp.core.transaction.exception.TransactionAdmissionRejectedException;
 import info.mackiewicz.bankapp.core.transaction.exception.TransactionBuildingException;
 import info.mackiewicz.bankapp.core.transaction.exception.TransactionValidationException;
 import info.mackiewicz.bankapp.core.transaction.model.Transaction;
-import info.mackiewicz.bankapp.core.transaction.model.TransactionType;
 import info.mackiewicz.bankapp.core.transaction.model.builder.TransferBuilder;
 import info.mackiewicz.bankapp.core.transaction.service.TransactionService;
 import info.mackiewicz.bankapp.system.banking.operations.controller.dto.TransactionRequest;
 import info.mackiewicz.bankapp.system.banking.operations.service.helpers.TransactionBuildingService;
 import info.mackiewicz.bankapp.system.banking.operations.service.helpers.TransactionPreconditionValidator;
 import info.mackiewicz.bankapp.system.banking.shared.dto.TransactionResponse;
-import info.mackiewicz.bankapp.system.transaction.processing.TransactionProcessingService;
+import info.mackiewicz.bankapp.system.transaction.processing.admission.TransactionAdmissionControl;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.iban4j.Iban;
@@ -29,9 +29,9 @@ import java.util.function.Supplier;
 public class TransferOperationService {
 
     private final TransactionService transactionService;
-    private final TransactionProcessingService transactionProcessingService;
     private final AccountServiceInterface accountService;
     private final TransactionPreconditionValidator preconditionValidator;
+    private final TransactionAdmissionControl admissionControl;
 
     /**
      * Handles the transfer of funds between accounts.
@@ -46,6 +46,7 @@ public class TransferOperationService {
      * @throws TransactionBuildingException   if the transaction cannot be built
      * @throws TransactionValidationException if the transaction fails validation
      * @throws InsufficientFundsException    if the source account does not have enough funds to perform the transfer
+     * @throws TransactionAdmissionRejectedException if too many transfers of the same type are pending processing
      */
 
     public TransactionResponse handleTransfer(
@@ -67,12 +68,15 @@ public class TransferOperationService {
             log.debug("Creating transfer transaction");
             Transaction transfer = createTransferTransaction(request, sourceAccount, destinationAccount);
 
-            log.debug("Registering transfer transaction");
-            Transaction registeredTransaction = transactionService.registerTransaction(transfer);
+            admissionControl.admit(transfer.getType());
 
-            if (registeredTransaction.getType().equals(TransactionType.TRANSFER_OWN)) {
-                log.debug("Processing `OWN_TRANSFER` transactions");
-                transactionProcessingService.processTransactionById(registeredTransaction.getId());
+            log.debug("Registering transfer transaction");
+            Transaction registeredTransaction;
+            try {
+                // processing is dispatched with the admitted place once the registration commits, see TransactionDispatcher
+                registeredTransaction = transactionService.registerTransaction(transfer);
+            } finally {
+                admissionControl.cancelAdmission();
             }
 
             log.info("Transaction registered with ID: {}", registeredTransaction.getId());
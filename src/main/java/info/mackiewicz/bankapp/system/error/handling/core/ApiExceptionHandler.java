@@ -1,5 +1,6 @@
 package info.mackiewicz.bankapp.system.error.handling.core;
 
+import info.mackiewicz.bankapp.core.transaction.exception.TransactionAdmissionRejectedException;
 import info.mackiewicz.bankapp.system.error.handling.dto.BaseApiError;
 import info.mackiewicz.bankapp.system.error.handling.dto.ValidationApiError;
 import info.mackiewicz.bankapp.system.error.handling.dto.ValidationError;
@@ -9,6 +10,7 @@ import info.mackiewicz.bankapp.system.error.handling.service.ValidationErrorProc
 import info.mackiewicz.bankapp.system.error.handling.util.RequestUriHandler;
 import jakarta.validation.ConstraintViolationException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -65,6 +67,26 @@ public class ApiExceptionHandler {
         return new ResponseEntity<>(error, error.getStatus());
     }
 
+    /**
+     * Handles transactions rejected by the admission control.
+     *
+     * <p>Responds like {@link #handleException(Exception, WebRequest)} and adds
+     * the {@code Retry-After} header telling the client when to try again.</p>
+     *
+     * @param ex the rejection carrying the retry delay
+     * @param request the current web request
+     * @return ResponseEntity containing the error details, HTTP status 429 and the Retry-After header
+     */
+    @ExceptionHandler(TransactionAdmissionRejectedException.class)
+    public ResponseEntity<BaseApiError> handleTransactionAdmissionRejectedException(
+            TransactionAdmissionRejectedException ex, WebRequest request) {
+        ResponseEntity<BaseApiError> response = handleException(ex, request);
+
+        return ResponseEntity.status(response.getStatusCode())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(response.getBody());
+    }
+
     /**
      * Handles validation exceptions thrown by Spring's validation framework.
      *
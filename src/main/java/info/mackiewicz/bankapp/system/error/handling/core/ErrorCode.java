@@ -79,6 +79,9 @@ public enum ErrorCode {
     TRANSACTION_ACCOUNT_CONFLICT(HttpStatus.BAD_REQUEST, "Source and destination accounts cannot be the same."),
     INVALID_IBAN(HttpStatus.BAD_REQUEST, "Invalid IBAN. Please check your input and try again."),
     TRANSACTION_NOT_DELETABLE(HttpStatus.FORBIDDEN, "You cannot delete transaction that is already processed or in process."),
+    TRANSACTION_ADMISSION_REJECTED(HttpStatus.TOO_MANY_REQUESTS, "Too many transactions are being processed right now. Please try again later."),
+    IDEMPOTENCY_KEY_REUSED(HttpStatus.UNPROCESSABLE_ENTITY, "This idempotency key has already been used for a different request."),
+    INVALID_HISTORY_CURSOR(HttpStatus.BAD_REQUEST, "Invalid page cursor. Please load the transaction history from the first page."),
     // Other errors
     UNSUPPORTED_EXPORTER(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "Unsupported export format. Please choose a different one.");
 
@@ -7,14 +7,21 @@ import info.mackiewicz.bankapp.core.transaction.exception.TransactionValidationE
 import info.mackiewicz.bankapp.core.transaction.model.Transaction;
 import info.mackiewicz.bankapp.core.transaction.service.TransactionService;
 import info.mackiewicz.bankapp.core.transaction.validation.TransactionValidator;
+import info.mackiewicz.bankapp.system.transaction.processing.batch.TransactionBatchProcessor;
 import info.mackiewicz.bankapp.system.transaction.processing.core.TransactionProcessor;
+import info.mackiewicz.bankapp.system.transaction.processing.dispatch.TransactionDispatcher;
 import info.mackiewicz.bankapp.system.transaction.processing.error.TransactionErrorHandler;
 import info.mackiewicz.bankapp.system.transaction.processing.helpers.TransactionStatusChecker;
+import info.mackiewicz.bankapp.system.transaction.processing.helpers.TransactionStatusManager;
+import info.mackiewicz.bankapp.system.transaction.processing.metrics.TransactionPipelineMetrics;
+import info.mackiewicz.bankapp.system.transaction.processing.metrics.TransactionPipelineMetrics.Stage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Service responsible for processing transactions.
@@ -25,52 +32,121 @@ import java.util.List;
 @RequiredArgsConstructor
 @Service
 public class TransactionProcessingService {
+
+    private static final int RESUME_CHUNK_SIZE = 100;
+
     private final TransactionService transactionService;
     private final TransactionProcessor processor;
     private final TransactionValidator validator;
     private final TransactionStatusChecker statusChecker;
+    private final TransactionStatusManager statusManager;
     private final TransactionErrorHandler errorHandler;
+    private final TransactionBatchProcessor batchProcessor;
+    private final TransactionPipelineMetrics metrics;
 
     /**
      * Processes a transaction by its ID.
      * 
      * @param transactionId ID of the transaction to process
+     * @return future completed when processing finishes, already completed if the transaction was rejected
      * @throws TransactionNotFoundException if transaction is not found
      */
-    public void processTransactionById(int transactionId) {
+    public CompletableFuture<Void> processTransactionById(int transactionId) {
         log.info("Processing single transaction: {}", transactionId);
         Transaction transaction = transactionService.getTransactionById(transactionId);
-        processSafely(transaction);
+        return processSafely(transaction);
     }
 
     /**
      * Processes all transactions with NEW status.
+     * Registered transactions are dispatched right after they are committed, see
+     * {@link TransactionDispatcher}; this is meant for working off a backlog at once and is
+     * run by its recovery sweep when orphaned transactions are found.
+     * Transactions are read in chunks and processed in parallel with a bounded number
+     * of transactions in flight, see {@link TransactionBatchProcessor}.
      * Failed transactions will be logged but won't stop the processing of remaining transactions.
+     *
+     * @return number of processed transactions
      */
-    public void processAllNewTransactions() {
+    public int processAllNewTransactions() {
         log.info("Starting batch processing of new transactions");
-        List<Transaction> transactions = transactionService.getAllNewTransactions();
-        log.debug("Found {} new transactions to process", transactions.size());
-        
-        transactions.forEach(this::processSafely);
-        
-        log.info("Completed batch processing of {} transactions", transactions.size());
+        int processed = batchProcessor.processNewTransactions(this::processSafely);
+        log.info("Completed batch processing of {} transactions", processed);
+        return processed;
+    }
+
+    /**
+     * Completes or refunds the transfers left DEBITED, e.g. by a crash between the debit of their
+     * source account and the credit of their destination account, see {@link TransactionProcessor#resumeTransfer}.
+     * Transfers are read in chunks and every chunk is awaited before the next one is read.
+     *
+     * @param createdBefore only transfers registered before this time are resumed, younger ones are
+     *                      most likely still waiting for their credit
+     * @return number of resumed transfers
+     */
+    public int resumeDebitedTransfers(LocalDateTime createdBefore) {
+        int lastId = 0;
+        int resumed = 0;
+        List<Transaction> transfers;
+        while (!(transfers = transactionService.getDebitedTransactionsAfter(lastId, createdBefore, RESUME_CHUNK_SIZE)).isEmpty()) {
+            CompletableFuture.allOf(transfers.stream()
+                            .map(transfer -> processor.resumeTransfer(transfer).exceptionally(error -> null))
+                            .toArray(CompletableFuture[]::new))
+                    .join();
+            lastId = transfers.getLast().getId();
+            resumed += transfers.size();
+        }
+        if (resumed > 0) {
+            log.warn("Resumed {} transfers left with their source accounts debited", resumed);
+        }
+        return resumed;
+    }
+
+    /**
+     * Moves the transactions claimed for processing before the given time but still PENDING back to NEW,
+     * so they are processed again with the backlog of new transactions. A transaction stays PENDING after
+     * its claim only until its execution commits together with its next status, so nothing of it has been
+     * executed and processing it again cannot apply it twice.
+     *
+     * @param claimedBefore only transactions claimed before this time are released, younger claims
+     *                      are most likely still being processed
+     * @return number of released transactions
+     */
+    public int releaseStaleClaims(LocalDateTime claimedBefore) {
+        return statusManager.releaseStaleClaims(claimedBefore);
     }
 
     /**
      * Processes a transaction safely, catching and handling all types of exceptions.
      * Centralizes all error handling using TransactionErrorHandler.
+     * A transaction already being processed, e.g. by another node, is skipped without touching its status.
+     *
+     * @return future completed when processing finishes, already completed if the transaction was rejected
      */
-    private void processSafely(Transaction transaction) {
+    private CompletableFuture<Void> processSafely(Transaction transaction) {
+        if (statusChecker.isInProgress(transaction)) {
+            log.info("Transaction {} is already being processed, skipping it", transaction.getId());
+            return CompletableFuture.completedFuture(null);
+        }
         try {
             // Initial validation
-            validator.validate(transaction);
+            long validationStart = metrics.start();
+            try {
+                validator.validate(transaction);
+            } finally {
+                metrics.record(Stage.VALIDATION, transaction, validationStart);
+            }
 
             // Status validation
-            statusChecker.validateForProcessing(transaction);
+            long statusCheckStart = metrics.start();
+            try {
+                statusChecker.validateForProcessing(transaction);
+            } finally {
+                metrics.record(Stage.STATUS_CHECK, transaction, statusCheckStart);
+            }
 
             // Process the transaction
-            processor.processTransaction(transaction);
+            return processor.processTransaction(transaction);
         } catch (TransactionValidationException e) {
             errorHandler.handleValidationError(transaction, e);
         } catch (TransactionAccountConflictException e) {
@@ -80,5 +156,6 @@ public class TransactionProcessingService {
         } catch (Exception e) {
             errorHandler.handleUnexpectedError(transaction, e);
         }
+        return CompletableFuture.completedFuture(null);
     }
 }
\ No newline at end of file
@@ -0,0 +1,38 @@
+package info.mackiewicz.bankapp.system.transaction.processing.admission;
+
+import info.mackiewicz.bankapp.core.transaction.model.TransactionType;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.Map;
+
+/**
+ * Configuration of the admission of transactions to registration and processing.
+ *
+ * @param defaultLimit maximum number of transactions of one type that may be queued
+ *                     or in flight at the same time
+ * @param limits       limits overriding the default one for particular transaction types
+ * @param retryAfter   number of seconds a rejected client is asked to wait before retrying
+ */
+@ConfigurationProperties(prefix = "app.transaction.admission")
+public record AdmissionConfig(int defaultLimit,
+        Map<TransactionType, Integer> limits,
+        long retryAfter) {
+
+    // Default values for the properties
+    // These values can be overridden in application.properties or application.yml
+    public AdmissionConfig {
+        if (defaultLimit <= 0)
+            defaultLimit = 1000;
+        limits = limits == null ? Map.of() : Map.copyOf(limits);
+        if (retryAfter <= 0)
+            retryAfter = 1;
+    }
+
+    /**
+     * Returns the limit of queued and in-flight transactions of the given type.
+     */
+    public int limitFor(TransactionType type) {
+        Integer limit = limits.get(type);
+        return limit != null && limit > 0 ? limit : defaultLimit;
+    }
+}
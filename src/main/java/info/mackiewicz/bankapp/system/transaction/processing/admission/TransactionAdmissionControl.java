@@ -0,0 +1,199 @@
+package info.mackiewicz.bankapp.system.transaction.processing.admission;
+
+import info.mackiewicz.bankapp.core.transaction.exception.TransactionAdmissionRejectedException;
+import info.mackiewicz.bankapp.core.transaction.model.TransactionType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounds the number of transactions waiting for and undergoing processing, per transaction type.
+ * <p>
+ * A transaction is queued from its admission, or from its dispatch to the task executor for
+ * transactions registered without one, and in flight once its processing has started. A new
+ * transfer takes its place in the queue when it is admitted, before it is registered: it is
+ * rejected while the queue depth and the in-flight count of its type reach the configured
+ * limit, so every admitted transfer is dispatched right after its registration commits.
+ * The place is held by the registering thread until the dispatcher takes it over with the
+ * registered transaction, and freed if the registration does not commit. A dispatch without an
+ * admitted place that would exceed the limit is refused, leaving the transaction to the recovery
+ * sweep. This keeps the executor queue and the processing latency bounded during traffic spikes.
+ * </p>
+ * Queue depth, in-flight count and rejections are exposed as meters tagged with the type.
+ */
+@Slf4j
+@Component
+public class TransactionAdmissionControl {
+
+    private final AdmissionConfig config;
+    private final Map<TransactionType, Stage> stages = new EnumMap<>(TransactionType.class);
+    private final Map<TransactionType, Counter> rejections = new EnumMap<>(TransactionType.class);
+    private final ThreadLocal<Permit> admitted = new ThreadLocal<>();
+
+    public TransactionAdmissionControl(AdmissionConfig config, MeterRegistry registry) {
+        this.config = config;
+        for (TransactionType type : TransactionType.values()) {
+            Stage stage = new Stage();
+            stages.put(type, stage);
+            Gauge.builder("bankapp.transaction.queue.depth", stage.queued, AtomicInteger::get)
+                    .description("Number of dispatched transactions waiting for processing")
+                    .tag("type", type.name())
+                    .register(registry);
+            Gauge.builder("bankapp.transaction.in.flight", stage.inFlight, AtomicInteger::get)
+                    .description("Number of transactions being processed")
+                    .tag("type", type.name())
+                    .register(registry);
+            rejections.put(type, Counter.builder("bankapp.transaction.admission.rejected")
+                    .description("Number of transactions rejected because of a full processing queue")
+                    .tag("type", type.name())
+                    .register(registry));
+        }
+    }
+
+    /**
+     * Admits a new transaction of the given type by reserving its place in the processing queue.
+     * The place is held by the calling thread for the transaction it registers next, see
+     * {@link #takeAdmission}; it must be freed with {@link #cancelAdmission} once the registration
+     * has returned or failed, which only frees a place that has not been taken.
+     *
+     * @throws TransactionAdmissionRejectedException if the limit of queued and in-flight
+     *                                               transactions of the type is reached
+     */
+    public void admit(TransactionType type) {
+        cancelAdmission();
+        Permit permit = tryEnqueue(type).orElseThrow(() -> {
+            int limit = config.limitFor(type);
+            log.warn("Rejecting {} transaction, {} transactions are queued or in flight (limit {})",
+                    type, stages.get(type).pending(), limit);
+            return new TransactionAdmissionRejectedException(
+                    String.format("Limit of %d pending %s transactions reached", limit, type),
+                    config.retryAfter());
+        });
+        admitted.set(permit);
+    }
+
+    /**
+     * Takes over the place admitted on the calling thread for a transaction of the given type.
+     *
+     * @return permit of the admitted transaction, or empty if no transaction of the type was admitted
+     */
+    public Optional<Permit> takeAdmission(TransactionType type) {
+        Permit permit = admitted.get();
+        if (permit == null || permit.type != type) {
+            return Optional.empty();
+        }
+        admitted.remove();
+        return Optional.of(permit);
+    }
+
+    /**
+     * Frees the place admitted on the calling thread unless it has been taken over.
+     */
+    public void cancelAdmission() {
+        Permit permit = admitted.get();
+        if (permit != null) {
+            admitted.remove();
+            permit.release();
+        }
+    }
+
+    /**
+     * Reserves a place in the processing queue for a transaction of the given type.
+     * The reservation is a single compare-and-set, so concurrent reservations never exceed the limit.
+     *
+     * @return permit to pass to processing, or empty if the limit of the type is reached
+     */
+    public Optional<Permit> tryEnqueue(TransactionType type) {
+        if (type == null) {
+            return Optional.of(Permit.UNCOUNTED);
+        }
+        Stage stage = stages.get(type);
+        int limit = config.limitFor(type);
+        while (true) {
+            int queued = stage.queued.get();
+            if (queued + stage.inFlight.get() >= limit) {
+                rejections.get(type).increment();
+                return Optional.empty();
+            }
+            if (stage.queued.compareAndSet(queued, queued + 1)) {
+                return Optional.of(new Permit(stage, type));
+            }
+        }
+    }
+
+    public int getQueueDepth(TransactionType type) {
+        return stages.get(type).queued.get();
+    }
+
+    public int getInFlight(TransactionType type) {
+        return stages.get(type).inFlight.get();
+    }
+
+    private static final class Stage {
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        private int pending() {
+            return queued.get() + inFlight.get();
+        }
+    }
+
+    /**
+     * Place of a single transaction in the processing queue of its type.
+     * Moves to in flight when processing starts and is released when processing finishes.
+     */
+    public static final class Permit {
+
+        /**
+         * Permit of a transaction that is not counted, such as one dispatched by the recovery sweep.
+         */
+        public static final Permit UNCOUNTED = new Permit(null, null);
+
+        private static final int QUEUED = 0;
+        private static final int STARTED = 1;
+        private static final int RELEASED = 2;
+
+        private final Stage stage;
+        private final TransactionType type;
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+
+        private Permit(Stage stage, TransactionType type) {
+            this.stage = stage;
+            this.type = type;
+        }
+
+        /**
+         * Marks the transaction as taken off the queue and being processed.
+         */
+        public void start() {
+            if (stage != null && state.compareAndSet(QUEUED, STARTED)) {
+                // counted in flight before leaving the queue, so the pending count never drops early
+                stage.inFlight.incrementAndGet();
+                stage.queued.decrementAndGet();
+            }
+        }
+
+        /**
+         * Frees the place of the transaction, whether or not its processing has started.
+         */
+        public void release() {
+            if (stage == null) {
+                return;
+            }
+            switch (state.getAndSet(RELEASED)) {
+                case QUEUED -> stage.queued.decrementAndGet();
+                case STARTED -> stage.inFlight.decrementAndGet();
+                default -> {
+                    // already released
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package info.mackiewicz.bankapp.system.transaction.processing.batch;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration of batch processing of new transactions.
+ *
+ * @param chunkSize   number of transactions read from the database at once
+ * @param maxInFlight maximum number of transactions dispatched but not yet processed
+ * @param netting     whether each chunk is executed with one balance update per account
+ *                    instead of processing its transactions one by one
+ */
+@ConfigurationProperties(prefix = "app.transaction.batch")
+public record BatchConfig(int chunkSize,
+        int maxInFlight,
+        boolean netting) {
+
+    // Default values for the properties
+    // These values can be overridden in application.properties or application.yml
+    public BatchConfig {
+        if (chunkSize <= 0)
+            chunkSize = 500;
+        if (maxInFlight <= 0)
+            maxInFlight = 64;
+    }
+}
@@ -0,0 +1,216 @@
+package info.mackiewicz.bankapp.system.transaction.processing.batch;
+
+import info.mackiewicz.bankapp.core.account.model.Account;
+import info.mackiewicz.bankapp.core.account.repository.AccountRepository;
+import info.mackiewicz.bankapp.core.transaction.exception.InsufficientFundsException;
+import info.mackiewicz.bankapp.core.transaction.model.Transaction;
+import info.mackiewicz.bankapp.core.transaction.model.TransactionStatus;
+import info.mackiewicz.bankapp.core.transaction.model.TransactionTypeCategory;
+import info.mackiewicz.bankapp.core.transaction.repository.TransactionRepository;
+import info.mackiewicz.bankapp.core.transaction.validation.TransactionValidator;
+import info.mackiewicz.bankapp.shared.util.LoggingService;
+import info.mackiewicz.bankapp.system.banking.ledger.BankLedger;
+import info.mackiewicz.bankapp.system.transaction.processing.core.execution.ExecutionConfig;
+import info.mackiewicz.bankapp.system.transaction.processing.error.TransactionErrorNotifier;
+import info.mackiewicz.bankapp.system.transaction.processing.helpers.TransactionStatusChecker;
+import info.mackiewicz.bankapp.system.transaction.processing.locking.AccountLockManager;
+import info.mackiewicz.bankapp.system.transaction.processing.locking.LockHandle;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Executes a chunk of new transactions with one balance update per account.
+ * <p>
+ * The transactions are applied in ID order against in-memory running balances of the
+ * current account rows, so insufficient funds are detected exactly as if the transactions
+ * were executed one by one. Only the net result is written: one versioned UPDATE per touched
+ * account, one status UPDATE per resulting status and one release of the amount on hold per
+ * source account, all in a single database transaction.
+ * </p>
+ * In locking mode all touched accounts are locked for the duration of the database transaction.
+ * In the other modes a concurrent balance change is detected through the account version and
+ * rolls the chunk back. Transactions that fail validation, and the whole chunk if netting fails,
+ * are returned to the caller to be processed one by one, which reports their errors as usual.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NettingChunkExecutor {
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionValidator validator;
+    private final TransactionStatusChecker statusChecker;
+    private final AccountLockManager accountLockManager;
+    private final ExecutionConfig executionConfig;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionErrorNotifier errorNotifier;
+    private final LoggingService loggingService;
+    private final BankLedger bankLedger;
+
+    /**
+     * Nets the given transactions.
+     *
+     * @param chunk new transactions ordered by ID
+     * @return transactions that were not netted and have to be processed one by one, in ID order
+     */
+    public List<Transaction> execute(List<Transaction> chunk) {
+        List<Transaction> nettable = chunk.stream().filter(this::isNettable).toList();
+        if (nettable.isEmpty()) {
+            return chunk;
+        }
+
+        Set<Integer> accountIds = nettable.stream()
+                .flatMap(transaction -> Stream.of(debitedAccountId(transaction), creditedAccountId(transaction)))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        NettingResult result;
+        try (LockHandle ignored = lockAccounts(accountIds)) {
+            result = transactionTemplate.execute(status -> net(nettable, accountIds));
+        } catch (RuntimeException e) {
+            log.warn("Netting of {} transactions failed, processing them one by one: {}", nettable.size(), e.getMessage());
+            return chunk;
+        }
+
+        complete(result);
+        log.info("Netted {} transactions into updates of {} accounts", result.executed().size(), result.updatedAccounts());
+        Set<Integer> netted = Stream.concat(result.executed().stream(), result.rejected().stream())
+                .map(Transaction::getId)
+                .collect(Collectors.toSet());
+        return chunk.stream().filter(transaction -> !netted.contains(transaction.getId())).toList();
+    }
+
+    private boolean isNettable(Transaction transaction) {
+        try {
+            validator.validate(transaction);
+            statusChecker.validateForProcessing(transaction);
+        } catch (RuntimeException e) {
+            return false;
+        }
+        TransactionTypeCategory category = transaction.getType().getCategory();
+        return transaction.getAmount() != null && transaction.getAmount().signum() > 0
+                && (category == TransactionTypeCategory.DEPOSIT || debitedAccountId(transaction) != null)
+                && (category == TransactionTypeCategory.WITHDRAWAL || creditedAccountId(transaction) != null);
+    }
+
+    private LockHandle lockAccounts(Set<Integer> accountIds) {
+        if (executionConfig.mode() == ExecutionConfig.Mode.LOCKING) {
+            return accountLockManager.lockAll(accountIds);
+        }
+        return () -> {
+        };
+    }
+
+    private NettingResult net(List<Transaction> transactions, Set<Integer> accountIds) {
+        Map<Integer, Account> accounts = accountRepository.findAllById(accountIds).stream()
+                .collect(Collectors.toMap(Account::getId, Function.identity()));
+        Map<Integer, BigDecimal> initialBalances = accounts.values().stream()
+                .collect(Collectors.toMap(Account::getId, Account::getBalance));
+
+        List<Transaction> executed = new ArrayList<>();
+        List<Transaction> rejected = new ArrayList<>();
+        for (Transaction transaction : transactions) {
+            Integer debitedId = debitedAccountId(transaction);
+            Integer creditedId = creditedAccountId(transaction);
+            Account debited = debitedId == null ? null : accounts.get(debitedId);
+            Account credited = creditedId == null ? null : accounts.get(creditedId);
+            if ((debitedId != null && debited == null) || (creditedId != null && credited == null)) {
+                // unknown account, the error is reported when the transaction is processed on its own
+                continue;
+            }
+            BigDecimal amount = transaction.getAmount();
+            if (debited != null && debited.getBalance().compareTo(amount) < 0) {
+                rejected.add(transaction);
+                continue;
+            }
+            if (debited != null) {
+                debited.setBalance(debited.getBalance().subtract(amount));
+            }
+            if (credited != null) {
+                credited.setBalance(credited.getBalance().add(amount));
+            }
+            executed.add(transaction);
+        }
+
+        updateStatuses(executed, TransactionStatus.DONE);
+        updateStatuses(rejected, TransactionStatus.INSUFFICIENT_FUNDS);
+        long updatedAccounts = accounts.values().stream()
+                .filter(account -> account.getBalance().compareTo(initialBalances.get(account.getId())) != 0)
+                .count();
+        return new NettingResult(executed, rejected, updatedAccounts);
+    }
+
+    private void updateStatuses(List<Transaction> transactions, TransactionStatus status) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        List<Integer> ids = transactions.stream().map(Transaction::getId).toList();
+        int updatedRows = transactionRepository.updateTransactionStatuses(ids, TransactionStatus.NEW, status);
+        if (updatedRows != ids.size()) {
+            // some transactions were picked up by another processor in the meantime
+            throw new IllegalStateException(String.format(
+                    "Expected %d new transactions but updated %d", ids.size(), updatedRows));
+        }
+        releaseHolds(transactions);
+    }
+
+    /**
+     * Releases the amounts held by the settled or rejected transactions, one update per source account.
+     */
+    private void releaseHolds(List<Transaction> transactions) {
+        transactions.stream()
+                .filter(transaction -> transaction.getSourceAccount() != null)
+                .collect(Collectors.groupingBy(transaction -> transaction.getSourceAccount().getId(),
+                        Collectors.reducing(BigDecimal.ZERO, Transaction::getAmount, BigDecimal::add)))
+                .forEach(accountRepository::subtractFromBalanceOnHold);
+    }
+
+    private void complete(NettingResult result) {
+        result.executed().forEach(transaction -> {
+            transaction.setStatus(TransactionStatus.DONE);
+            loggingService.logSuccessfulTransaction(transaction);
+        });
+        result.rejected().forEach(transaction -> {
+            transaction.setStatus(TransactionStatus.INSUFFICIENT_FUNDS);
+            log.warn("Transaction {} failed: Insufficient funds", transaction.getId());
+            errorNotifier.notifyError(transaction, new InsufficientFundsException("Insufficient funds for withdrawal"));
+        });
+    }
+
+    private static Integer debitedAccountId(Transaction transaction) {
+        return switch (transaction.getType().getCategory()) {
+            case DEPOSIT -> null;
+            case WITHDRAWAL, TRANSFER, FEE -> accountId(transaction.getSourceAccount());
+        };
+    }
+
+    private Integer creditedAccountId(Transaction transaction) {
+        return switch (transaction.getType().getCategory()) {
+            case WITHDRAWAL -> null;
+            case DEPOSIT, TRANSFER -> accountId(transaction.getDestinationAccount());
+            // fees without an explicit destination go to the bank account, see FeeTransactionExecutor
+            case FEE -> transaction.getDestinationAccount() == null
+                    ? bankLedger.getDepositAccountId(transaction.getId())
+                    : transaction.getDestinationAccount().getId();
+        };
+    }
+
+    private static Integer accountId(Account account) {
+        return account == null ? null : account.getId();
+    }
+
+    private record NettingResult(List<Transaction> executed, List<Transaction> rejected, long updatedAccounts) {
+    }
+}
@@ -0,0 +1,118 @@
+package info.mackiewicz.bankapp.system.transaction.processing.batch;
+
+import info.mackiewicz.bankapp.core.transaction.model.Transaction;
+import info.mackiewicz.bankapp.core.transaction.service.TransactionService;
+import info.mackiewicz.bankapp.system.transaction.processing.batch.model.BatchCheckpoint;
+import info.mackiewicz.bankapp.system.transaction.processing.batch.repository.BatchCheckpointRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * Processes the backlog of new transactions in chunks.
+ * <p>
+ * Transactions are read with keyset pagination ordered by ID, so only one chunk is held
+ * in memory at a time. Every transaction is dispatched to the given handler, which processes
+ * it asynchronously; at most {@code maxInFlight} transactions are dispatched but not yet
+ * processed, reading further chunks is suspended until earlier transactions complete.
+ * </p>
+ * With netting enabled, each chunk is first executed by the {@link NettingChunkExecutor};
+ * only the transactions it leaves over are dispatched to the handler.
+ * <p>
+ * After each chunk the ID of the last transaction of the longest fully processed prefix
+ * of chunks is saved as a checkpoint. A run interrupted by a crash or shutdown continues
+ * after the checkpoint; the checkpoint is removed once the whole backlog has been processed.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TransactionBatchProcessor {
+
+    static final String NEW_TRANSACTIONS_BATCH = "new-transactions";
+
+    private final TransactionService transactionService;
+    private final BatchCheckpointRepository checkpointRepository;
+    private final BatchConfig batchConfig;
+    private final NettingChunkExecutor nettingExecutor;
+
+    /**
+     * Dispatches all transactions with NEW status to the handler and waits until they are processed.
+     *
+     * @param handler starts processing of a transaction and returns a future completed when it
+     *                finishes; processing errors are expected to be handled by the handler
+     * @return number of processed transactions
+     */
+    public int processNewTransactions(Function<Transaction, CompletableFuture<Void>> handler) {
+        int lastId = checkpointRepository.findById(NEW_TRANSACTIONS_BATCH)
+                .map(BatchCheckpoint::getLastTransactionId)
+                .orElse(0);
+        if (lastId > 0) {
+            log.info("Resuming batch processing after transaction {}", lastId);
+        }
+
+        Semaphore inFlight = new Semaphore(batchConfig.maxInFlight());
+        Deque<Chunk> unfinished = new ArrayDeque<>();
+        int dispatched = 0;
+        try {
+            List<Transaction> transactions;
+            while (!(transactions = transactionService.getNewTransactionsAfter(lastId, batchConfig.chunkSize())).isEmpty()) {
+                List<Transaction> individual = batchConfig.netting() ? nettingExecutor.execute(transactions) : transactions;
+                List<CompletableFuture<Void>> processing = new ArrayList<>(individual.size());
+                for (Transaction transaction : individual) {
+                    inFlight.acquire();
+                    processing.add(dispatch(handler, transaction).whenComplete((result, error) -> inFlight.release()));
+                }
+                lastId = transactions.getLast().getId();
+                dispatched += transactions.size();
+                log.debug("Dispatched chunk of {} transactions ending at {}", transactions.size(), lastId);
+
+                unfinished.addLast(new Chunk(lastId, CompletableFuture.allOf(processing.toArray(CompletableFuture[]::new))));
+                saveCheckpoint(unfinished);
+            }
+            unfinished.forEach(chunk -> chunk.processed().join());
+            checkpointRepository.deleteById(NEW_TRANSACTIONS_BATCH);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Batch processing interrupted after {} transactions, will resume from the last checkpoint", dispatched);
+        }
+        return dispatched;
+    }
+
+    private CompletableFuture<Void> dispatch(Function<Transaction, CompletableFuture<Void>> handler, Transaction transaction) {
+        try {
+            return handler.apply(transaction)
+                    .exceptionally(error -> {
+                        log.debug("Transaction {} completed with error: {}", transaction.getId(), error.getMessage());
+                        return null;
+                    });
+        } catch (RuntimeException e) {
+            log.error("Failed to dispatch transaction {}", transaction.getId(), e);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * Saves the last transaction of the processed prefix of chunks; chunks completed
+     * while an earlier one is still running are not covered until that one completes.
+     */
+    private void saveCheckpoint(Deque<Chunk> unfinished) {
+        Integer checkpoint = null;
+        while (!unfinished.isEmpty() && unfinished.peekFirst().processed().isDone()) {
+            checkpoint = unfinished.pollFirst().lastId();
+        }
+        if (checkpoint != null) {
+            checkpointRepository.save(new BatchCheckpoint(NEW_TRANSACTIONS_BATCH, checkpoint));
+        }
+    }
+
+    private record Chunk(int lastId, CompletableFuture<Void> processed) {
+    }
+}
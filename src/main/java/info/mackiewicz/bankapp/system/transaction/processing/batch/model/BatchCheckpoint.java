@@ -0,0 +1,41 @@
+package info.mackiewicz.bankapp.system.transaction.processing.batch.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Entity representing the progress of an interrupted batch run.
+ *
+ * All transactions up to and including {@code lastTransactionId} have been processed,
+ * so a run started after a crash continues right after it.
+ * The checkpoint is removed once the batch completes.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(name = "batch_checkpoints")
+public class BatchCheckpoint {
+
+    @Id
+    @Column(name = "batch_name")
+    private String batchName;
+
+    @Column(name = "last_transaction_id", nullable = false)
+    private Integer lastTransactionId;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    public BatchCheckpoint(String batchName, Integer lastTransactionId) {
+        this.batchName = batchName;
+        this.lastTransactionId = lastTransactionId;
+        this.updatedAt = Instant.now();
+    }
+}
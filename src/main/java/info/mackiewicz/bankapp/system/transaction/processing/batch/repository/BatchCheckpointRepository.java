@@ -0,0 +1,12 @@
+package info.mackiewicz.bankapp.system.transaction.processing.batch.repository;
+
+import info.mackiewicz.bankapp.system.transaction.processing.batch.model.BatchCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for managing checkpoints of batch runs
+ */
+@Repository
+public interface BatchCheckpointRepository extends JpaRepository<BatchCheckpoint, String> {
+}
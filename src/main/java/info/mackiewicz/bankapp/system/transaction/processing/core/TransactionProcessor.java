@@ -3,6 +3,7 @@ package info.mackiewicz.bankapp.system.transaction.processing.core;
 import info.mackiewicz.bankapp.core.account.exception.AccountLockException;
 import info.mackiewicz.bankapp.core.account.exception.AccountUnlockException;
 import info.mackiewicz.bankapp.core.account.exception.AccountValidationException;
+import info.mackiewicz.bankapp.core.account.model.Account;
 import info.mackiewicz.bankapp.core.account.service.AccountService;
 import info.mackiewicz.bankapp.core.transaction.exception.InsufficientFundsException;
 import info.mackiewicz.bankapp.core.transaction.exception.TransactionBaseException;
@@ -11,19 +12,35 @@ import info.mackiewicz.bankapp.core.transaction.exception.TransactionValidationE
 import info.mackiewicz.bankapp.core.transaction.model.Transaction;
 import info.mackiewicz.bankapp.core.transaction.model.TransactionStatus;
 import info.mackiewicz.bankapp.shared.util.LoggingService;
+import info.mackiewicz.bankapp.system.transaction.processing.core.execution.ExecutionConfig;
+import info.mackiewicz.bankapp.system.transaction.processing.core.execution.OptimisticExecutionRunner;
 import info.mackiewicz.bankapp.system.transaction.processing.core.execution.TransactionExecutor;
 import info.mackiewicz.bankapp.system.transaction.processing.core.execution.TransactionExecutorRegistry;
+import info.mackiewicz.bankapp.system.transaction.processing.core.execution.TransactionUnitOfWork;
+import info.mackiewicz.bankapp.system.transaction.processing.core.execution.TransferExecutor;
+import info.mackiewicz.bankapp.system.transaction.processing.core.sharding.AccountShardExecutor;
 import info.mackiewicz.bankapp.system.transaction.processing.error.TransactionErrorHandler;
 import info.mackiewicz.bankapp.system.transaction.processing.helpers.TransactionStatusManager;
 import info.mackiewicz.bankapp.system.transaction.processing.locking.AccountLockManager;
+import info.mackiewicz.bankapp.system.transaction.processing.locking.LockHandle;
+import info.mackiewicz.bankapp.system.transaction.processing.metrics.TransactionPipelineMetrics;
+import info.mackiewicz.bankapp.system.transaction.processing.metrics.TransactionPipelineMetrics.Stage;
 import lombok.RequiredArgsConstructor;
-import org.springframework.scheduling.annotation.Async;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
 /**
  * Service responsible for processing financial transactions with proper
  * locking and validation mechanisms.
  */
+@Slf4j
 @RequiredArgsConstructor
 @Service
 public class TransactionProcessor {
@@ -34,85 +51,305 @@ public class TransactionProcessor {
     private final TransactionStatusManager statusManager;
     private final LoggingService loggingService;
     private final TransactionExecutorRegistry commandRegistry;
+    private final Executor taskExecutor;
+    private final Executor lockHolderExecutor;
+    private final ExecutionConfig executionConfig;
+    private final OptimisticExecutionRunner optimisticRunner;
+    private final AccountShardExecutor accountShards;
+    private final TransactionUnitOfWork unitOfWork;
+    private final TransactionPipelineMetrics metrics;
 
     /**
      * Asynchronously processes a financial transaction with proper account locking
      * and error handling.
+     * The transaction is first claimed by moving it from NEW to PENDING in the database; a
+     * transaction already claimed by another thread or node is skipped.
+     * Account locks are requested without blocking the calling thread; processing continues
+     * on the lock holder executor once all locks are granted, so no pool thread is parked while
+     * the accounts are contended and the lock holder does not queue behind transactions
+     * still waiting for their locks.
+     * In optimistic mode no locks are taken at all; conflicting updates are detected
+     * and retried by the OptimisticExecutionRunner. In sharded mode no locks are needed
+     * either, as every account is only ever changed by the thread of its shard.
+     * The balance changes and the final status change are committed in a single database
+     * transaction (in sharded mode: per shard involved, with the hand-over recorded as DEBITED).
      * Assumes the transaction has already passed validation.
      * Errors are handled by the TransactionErrorHandler.
+     * The time spent in every stage is recorded by the TransactionPipelineMetrics.
      * 
      * @param transaction transaction to process
+     * @return future completed when processing finishes, completed exceptionally
+     * with the processing error
      */
-    @Async
-    public void processTransaction(Transaction transaction) {
+    public CompletableFuture<Void> processTransaction(Transaction transaction) {
         loggingService.logTransactionAttempt(transaction);
         try {
-            acquireAccountLocks(transaction);
-            try {
-                executeWithStatusUpdates(transaction);
-            } catch (TransactionBaseException e) {
-                throw e;
-            } catch (Exception e) {
-                errorHandler.handleUnexpectedError(transaction, e);
-                throw new TransactionExecutionException(
-                    String.format("Unexpected error during transaction %d processing", transaction.getId()), e);
+            if (!claimForProcessing(transaction)) {
+                log.info("Transaction {} is already being processed, skipping it", transaction.getId());
+                return CompletableFuture.completedFuture(null);
             }
-        } catch (AccountLockException e) {
-            errorHandler.handleLockError(transaction, e);
+        } catch (TransactionExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return switch (executionConfig.mode()) {
+            case LOCKING -> processWithLocks(transaction);
+            case OPTIMISTIC -> CompletableFuture.runAsync(() -> process(transaction), taskExecutor);
+            case SHARDED -> processOnShards(transaction);
+        };
+    }
+
+    private CompletableFuture<Void> processWithLocks(Transaction transaction) {
+        long lockStart = metrics.start();
+        return accountLockManager.lockAccountsAsync(transaction.getSourceAccount(), transaction.getDestinationAccount())
+                .whenComplete((locks, lockError) -> metrics.record(Stage.LOCK_ACQUISITION, transaction, lockStart))
+                .handleAsync((locks, lockError) -> {
+                    if (lockError != null) {
+                        handleLockFailure(transaction, unwrap(lockError));
+                    } else {
+                        processWithLocks(transaction, locks);
+                    }
+                    return null;
+                }, lockHolderExecutor);
+    }
+
+    private void processWithLocks(Transaction transaction, LockHandle locks) {
+        try {
+            loggingService.logLockingAccounts(transaction);
+            process(transaction);
+        } finally {
+            releaseAccountLocks(transaction, locks);
+        }
+    }
+
+    private void process(Transaction transaction) {
+        handleProcessingErrors(transaction, () -> {
+            executeWithStatusUpdates(transaction);
+            return null;
+        });
+    }
+
+    private <T> T handleProcessingErrors(Transaction transaction, Supplier<T> processing) {
+        try {
+            return processing.get();
+        } catch (TransactionBaseException e) {
+            throw e;
         } catch (Exception e) {
-            if (e instanceof TransactionBaseException) {
-                throw e;
+            errorHandler.handleUnexpectedError(transaction, e);
+            throw new TransactionExecutionException(
+                String.format("Unexpected error during transaction %d processing", transaction.getId()), e);
+        }
+    }
+
+    /**
+     * Processes the transaction on the shard owning its source account (the destination
+     * account for deposits). A transfer to an account of another shard is handed over:
+     * the source shard debits the source account and marks the transaction DEBITED in one
+     * database transaction, then the destination shard credits the destination account and
+     * completes the transaction in another. Should the credit fail, the source shard refunds
+     * the debit and marks the transaction failed in one database transaction. A transfer left
+     * DEBITED, e.g. by a crash, is completed or refunded by {@link #resumeTransfer}.
+     */
+    private CompletableFuture<Void> processOnShards(Transaction transaction) {
+        Account homeAccount = transaction.getSourceAccount() != null
+                ? transaction.getSourceAccount()
+                : transaction.getDestinationAccount();
+        return accountShards.submit(homeAccount.getId(), () -> processOnHomeShard(transaction))
+                .thenCompose(debited -> debited
+                        ? creditOnShard(transaction)
+                        : CompletableFuture.completedFuture(null));
+    }
+
+    /**
+     * Completes a transfer whose source account has been debited but whose credit has not been
+     * committed: the destination account is credited, or if that fails the debit is refunded.
+     * Safe to run while the original credit is still pending, as only one of the credit and the
+     * refund can commit its change from DEBITED.
+     *
+     * @param transaction transfer in DEBITED status
+     * @return future completed when the transfer is DONE or refunded, completed exceptionally
+     * with the credit error if it has been refunded
+     */
+    public CompletableFuture<Void> resumeTransfer(Transaction transaction) {
+        log.warn("Resuming transfer {} left with its source account debited", transaction.getId());
+        return creditOnShard(transaction);
+    }
+
+    /**
+     * @return true if only the debit of a transfer has been executed and the credit
+     * has to be handed over to the destination shard
+     */
+    private boolean processOnHomeShard(Transaction transaction) {
+        return handleProcessingErrors(transaction, () -> {
+            boolean debited = executeTransaction(transaction, command -> {
+                if (command instanceof TransferExecutor transfer && !ownsDestination(transaction)) {
+                    // the hand-over is recorded with the debit, so it survives a crash before the credit
+                    executeAndComplete(transaction, () -> transfer.debit(transaction, accountService),
+                            () -> statusManager.setTransactionStatus(transaction, TransactionStatus.DEBITED));
+                    return true;
+                }
+                executeAndComplete(transaction, () -> command.execute(transaction, accountService));
+                return false;
+            });
+            if (!debited) {
+                loggingService.logSuccessfulTransaction(transaction);
             }
-            errorHandler.handleUnexpectedLockError(transaction, e);
-            throw new TransactionExecutionException("Unexpected lock error for transaction %d" + transaction.getId(), e);
-        } finally {
-            releaseAccountLocks(transaction);
+            return debited;
+        });
+    }
+
+    private CompletableFuture<Void> creditOnShard(Transaction transaction) {
+        // a fee to the bank account has its destination resolved by the executor, and a fee resumed
+        // after a restart has none yet: its credit still runs on the shard of the bank account
+        Integer creditedAccountId = transaction.getDestinationAccount() != null
+                ? transaction.getDestinationAccount().getId()
+                : ((TransferExecutor) commandRegistry.getCommand(transaction.getType())).getCreditedAccountId(transaction);
+        return accountShards.submit(creditedAccountId, () -> creditOnDestinationShard(transaction))
+                .thenCompose(Function.identity());
+    }
+
+    private CompletableFuture<Void> creditOnDestinationShard(Transaction transaction) {
+        try {
+            TransferExecutor transfer = (TransferExecutor) commandRegistry.getCommand(transaction.getType());
+            executeAndComplete(transaction, () -> transfer.credit(transaction, accountService));
+        } catch (RuntimeException e) {
+            log.error("Failed to credit transaction {}, refunding its debit", transaction.getId(), e);
+            // not awaited by the shard: shard tasks never wait for each other, so shards cannot deadlock
+            return accountShards.submit(transaction.getSourceAccount().getId(), () -> refund(transaction, e));
+        }
+        loggingService.logSuccessfulTransaction(transaction);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Refunds the debit of a transfer whose credit failed and marks the transaction failed, both in
+     * one database transaction. Should the refund fail, the transaction stays DEBITED and is
+     * refunded or completed later by {@link #resumeTransfer}.
+     */
+    private Void refund(Transaction transaction, RuntimeException creditError) {
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        try {
+            unitOfWork.execute(() -> {
+                accountService.deposit(transaction.getSourceAccount(), transaction.getAmount());
+                failure.set(handleExecutionError(transaction, creditError));
+            });
+        } catch (RuntimeException e) {
+            // nothing has been refunded, unless the transaction was completed or refunded concurrently it stays DEBITED
+            transaction.setStatus(TransactionStatus.DEBITED);
+            log.error("Failed to refund debited amount of transaction {} to account {}",
+                    transaction.getId(), transaction.getSourceAccount().getId(), e);
+            throw new TransactionExecutionException(
+                    "Failed to refund transaction " + transaction.getId() + " after its credit failed", e);
+        }
+        throw failure.get();
+    }
+
+    private boolean ownsDestination(Transaction transaction) {
+        Account destinationAccount = transaction.getDestinationAccount();
+        // an unknown destination (e.g. the bank account of a fee) is resolved by the debit
+        return destinationAccount != null
+                && accountShards.sameShard(transaction.getSourceAccount().getId(), destinationAccount.getId());
+    }
+
+    private void handleLockFailure(Transaction transaction, Throwable error) {
+        if (error instanceof AccountLockException e) {
+            errorHandler.handleLockError(transaction, e);
+            return;
         }
+        Exception cause = error instanceof Exception e ? e : new IllegalStateException(error);
+        errorHandler.handleUnexpectedLockError(transaction, cause);
+        throw new TransactionExecutionException("Unexpected lock error for transaction " + transaction.getId(), cause);
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
     }
 
     private void executeWithStatusUpdates(Transaction transaction) {
-        updateTransactionStatus(transaction, TransactionStatus.PENDING);
-        executeTransaction(transaction);
-        updateTransactionStatus(transaction, TransactionStatus.DONE);
+        executeTransaction(transaction, command -> {
+            executeAndComplete(transaction, () -> command.execute(transaction, accountService));
+            return null;
+        });
         loggingService.logSuccessfulTransaction(transaction);
     }
 
-    private void updateTransactionStatus(Transaction transaction, TransactionStatus status) {
+    /**
+     * Executes the transaction and marks it as DONE in a single database transaction, so that
+     * all balance changes and the status change are committed or rolled back together.
+     * In optimistic mode the database transaction is run by the OptimisticExecutionRunner.
+     * Errors are reported by the caller once the database transaction has been rolled back.
+     */
+    private void executeAndComplete(Transaction transaction, Runnable execution) {
+        executeAndComplete(transaction, execution,
+                () -> statusManager.setTransactionStatus(transaction, TransactionStatus.DONE));
+    }
+
+    private void executeAndComplete(Transaction transaction, Runnable execution, Runnable completion) {
+        if (executionConfig.mode() == ExecutionConfig.Mode.OPTIMISTIC) {
+            // retried as a whole on conflicts, the runner restores the status of rolled back attempts
+            optimisticRunner.execute(transaction, () -> {
+                timed(Stage.EXECUTION, transaction, execution);
+                timed(Stage.STATUS_DONE, transaction, completion);
+            });
+            return;
+        }
+        TransactionStatus status = transaction.getStatus();
         try {
-            statusManager.setTransactionStatus(transaction, status);
+            unitOfWork.execute(() -> {
+                timed(Stage.EXECUTION, transaction, execution);
+                timed(Stage.STATUS_DONE, transaction, completion);
+            });
+        } catch (RuntimeException e) {
+            // the status change has been rolled back together with the balances
+            transaction.setStatus(status);
+            throw e;
+        }
+    }
+
+    private boolean claimForProcessing(Transaction transaction) {
+        long start = metrics.start();
+        try {
+            return statusManager.claimForProcessing(transaction);
         } catch (Exception e) {
             errorHandler.handleTransactionStatusChangeError(transaction, e);
             throw new TransactionExecutionException("Error while changing transaction status", e);
+        } finally {
+            metrics.record(Stage.STATUS_PENDING, transaction, start);
         }
     }
 
-    private void executeTransaction(Transaction transaction) {
+    private <T> T executeTransaction(Transaction transaction, Function<TransactionExecutor, T> execution) {
         try {
             // Get command based on transaction type
             TransactionExecutor command = commandRegistry.getCommand(transaction.getType());
 
             // Execute the transaction using the appropriate command
-            command.execute(transaction, accountService);
-        } catch (AccountValidationException e) {
-            errorHandler.handleValidationError(transaction, e);
-            throw new TransactionValidationException("Validation error for transaction " + transaction.getId(), e);
-        } catch (InsufficientFundsException e) {
-            errorHandler.handleInsufficientFundsError(transaction, e);
-            throw e;
-        } catch (Exception e) {
-            errorHandler.handleUnexpectedError(transaction, e);
-            throw new TransactionExecutionException("Unexpected error during transaction processing", e);
+            return execution.apply(command);
+        } catch (RuntimeException e) {
+            throw handleExecutionError(transaction, e);
         }
     }
 
-    private void acquireAccountLocks(Transaction transaction) {
-        accountLockManager.lockAccounts(transaction.getSourceAccount(), transaction.getDestinationAccount());
-        loggingService.logLockingAccounts(transaction);
+    /**
+     * Reports the execution error, which sets the failed status of the transaction.
+     *
+     * @return the exception to complete processing with
+     */
+    private RuntimeException handleExecutionError(Transaction transaction, RuntimeException error) {
+        if (error instanceof AccountValidationException e) {
+            errorHandler.handleValidationError(transaction, e);
+            return new TransactionValidationException("Validation error for transaction " + transaction.getId(), e);
+        }
+        if (error instanceof InsufficientFundsException e) {
+            errorHandler.handleInsufficientFundsError(transaction, e);
+            return e;
+        }
+        errorHandler.handleUnexpectedError(transaction, error);
+        return new TransactionExecutionException("Unexpected error during transaction processing", error);
     }
 
-    private void releaseAccountLocks(Transaction transaction) {
+    private void releaseAccountLocks(Transaction transaction, LockHandle locks) {
         try {
-            accountLockManager.unlockAccounts(transaction.getSourceAccount(), transaction.getDestinationAccount());
+            timed(Stage.UNLOCK, transaction, locks::release);
             loggingService.logUnlockingAccounts(transaction);
         } catch (AccountUnlockException e) {
             errorHandler.handleUnlockError(transaction, e);
@@ -124,4 +361,13 @@ public class TransactionProcessor {
 
         }
     }
+
+    private void timed(Stage stage, Transaction transaction, Runnable step) {
+        long start = metrics.start();
+        try {
+            step.run();
+        } finally {
+            metrics.record(stage, transaction, start);
+        }
+    }
 }
@@ -0,0 +1,54 @@
+package info.mackiewicz.bankapp.system.transaction.processing.core.execution;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration of transaction execution.
+ *
+ * @param mode       how concurrent transactions on the same accounts are isolated
+ * @param maxRetries how many times an optimistic execution is retried after a conflict
+ * @param baseDelay  base backoff between optimistic retries in milliseconds
+ * @param maxDelay   maximum backoff between optimistic retries in milliseconds
+ * @param shards     number of single-threaded account shards in sharded mode
+ */
+@ConfigurationProperties(prefix = "app.transaction.execution")
+public record ExecutionConfig(Mode mode,
+        int maxRetries,
+        long baseDelay,
+        long maxDelay,
+        int shards) {
+
+    // Default values for the properties
+    // These values can be overridden in application.properties or application.yml
+    public ExecutionConfig {
+        if (mode == null)
+            mode = Mode.LOCKING;
+        if (maxRetries <= 0)
+            maxRetries = 5;
+        if (baseDelay <= 0)
+            baseDelay = 10;
+        if (maxDelay <= 0)
+            maxDelay = 200;
+        if (maxDelay < baseDelay)
+            maxDelay = baseDelay;
+        if (shards <= 0)
+            shards = Runtime.getRuntime().availableProcessors();
+    }
+
+    public enum Mode {
+        /**
+         * Accounts are locked by the AccountLockManager for the whole execution.
+         */
+        LOCKING,
+        /**
+         * No account locks are taken; balances are changed with atomic conditional updates
+         * and executions failing on a database conflict are retried.
+         */
+        OPTIMISTIC,
+        /**
+         * Every account is owned by one single-threaded shard which performs all its
+         * balance changes, so no account locks are needed.
+         */
+        SHARDED
+    }
+}
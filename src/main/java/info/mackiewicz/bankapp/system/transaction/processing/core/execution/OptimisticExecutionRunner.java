@@ -0,0 +1,88 @@
+package info.mackiewicz.bankapp.system.transaction.processing.core.execution;
+
+import info.mackiewicz.bankapp.core.transaction.model.Transaction;
+import info.mackiewicz.bankapp.core.transaction.model.TransactionStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.OptimisticLockException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Runs transaction executors without account locks ({@code app.transaction.execution.mode=optimistic}).
+ * <p>
+ * Each attempt runs the executor and the final status change in a single database transaction,
+ * so all changes of a transaction are committed or rolled back together. Balances are changed with atomic
+ * conditional updates, so concurrent transactions cannot overwrite each other. When the
+ * attempt fails on a concurrency conflict, such as a deadlock between transfers in opposite
+ * directions or a stale account version, it is rolled back and run again,
+ * up to {@code max-retries} times with a randomized exponential backoff.
+ * </p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OptimisticExecutionRunner {
+
+    private final ExecutionConfig config;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Runs all database changes of a transaction, e.g. its execution together with its final
+     * status change, in a single database transaction, retrying on optimistic locking conflicts.
+     * The status of the transaction entity is restored whenever an attempt is rolled back.
+     *
+     * @param transaction transaction to execute
+     * @param changes     changes to commit together
+     * @throws ConcurrencyFailureException if the retry budget is exhausted
+     */
+    public void execute(Transaction transaction, Runnable changes) {
+        TransactionStatus status = transaction.getStatus();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(txStatus -> changes.run());
+                return;
+            } catch (ConcurrencyFailureException | OptimisticLockException e) {
+                transaction.setStatus(status);
+                if (attempt > config.maxRetries()) {
+                    log.warn("Transaction {} still conflicting after {} attempts, giving up",
+                            transaction.getId(), attempt);
+                    recordConflict("exhausted");
+                    throw e;
+                }
+                log.debug("Concurrency conflict in transaction {} (attempt {}), retrying: {}",
+                        transaction.getId(), attempt, e.getMessage());
+                recordConflict("retried");
+                backOff(attempt, e);
+            } catch (RuntimeException e) {
+                transaction.setStatus(status);
+                throw e;
+            }
+        }
+    }
+
+    private void backOff(int attempt, RuntimeException conflict) {
+        long delay = Math.min(config.maxDelay(), config.baseDelay() << Math.min(attempt - 1, 16));
+        try {
+            // full jitter spreads out executors that conflicted with each other
+            Thread.sleep(ThreadLocalRandom.current().nextLong(delay + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+
+    private void recordConflict(String outcome) {
+        Counter.builder("bankapp.transaction.optimistic.conflicts")
+                .description("Concurrency conflicts during optimistic transaction execution")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -0,0 +1,35 @@
+package info.mackiewicz.bankapp.system.transaction.processing.core.execution;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs all database changes of a financial transaction in a single database transaction.
+ * <p>
+ * Both legs of a transfer and the final status change are committed together, so a failure
+ * between them can never leave funds withdrawn but not deposited. READ COMMITTED is sufficient:
+ * balances are changed with atomic conditional updates, which lock the updated rows until commit.
+ * </p>
+ */
+@Component
+public class TransactionUnitOfWork {
+
+    private final TransactionTemplate transactionTemplate;
+
+    public TransactionUnitOfWork(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+    }
+
+    /**
+     * Runs the work in a new database transaction, or in the current one if there is any.
+     * Any exception thrown by the work rolls back all of its changes.
+     *
+     * @param work database changes to run
+     */
+    public void execute(Runnable work) {
+        transactionTemplate.executeWithoutResult(status -> work.run());
+    }
+}
@@ -0,0 +1,46 @@
+package info.mackiewicz.bankapp.system.transaction.processing.core.execution;
+
+import info.mackiewicz.bankapp.core.account.service.AccountService;
+import info.mackiewicz.bankapp.core.transaction.model.Transaction;
+
+/**
+ * Execution command for transactions moving funds between two accounts.
+ * The transfer is split into a debit and a credit phase, so that each phase can run
+ * on the thread owning its account (see {@code AccountShardExecutor}).
+ */
+public interface TransferExecutor extends TransactionExecutor {
+
+    /**
+     * Withdraws the amount from the source account.
+     * Once the debit has completed, the destination account of the transaction is known.
+     *
+     * @param transaction transaction to execute
+     * @param accountService service for account operations
+     */
+    void debit(Transaction transaction, AccountService accountService);
+
+    /**
+     * Deposits the amount to the destination account of an already debited transaction.
+     *
+     * @param transaction transaction to execute
+     * @param accountService service for account operations
+     */
+    void credit(Transaction transaction, AccountService accountService);
+
+    /**
+     * Returns the ID of the account the credit deposits to, so that the credit runs on the
+     * thread owning that account even before the destination of the transaction is resolved.
+     *
+     * @param transaction transaction to credit
+     * @return ID of the credited account
+     */
+    default Integer getCreditedAccountId(Transaction transaction) {
+        return transaction.getDestinationAccount().getId();
+    }
+
+    @Override
+    default void execute(Transaction transaction, AccountService accountService) {
+        debit(transaction, accountService);
+        credit(transaction, accountService);
+    }
+}
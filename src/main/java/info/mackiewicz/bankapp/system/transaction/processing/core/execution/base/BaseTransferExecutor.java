@@ -2,16 +2,20 @@ package info.mackiewicz.bankapp.system.transaction.processing.core.execution.bas
 
 import info.mackiewicz.bankapp.core.account.service.AccountService;
 import info.mackiewicz.bankapp.core.transaction.model.Transaction;
-import info.mackiewicz.bankapp.system.transaction.processing.core.execution.TransactionExecutor;
+import info.mackiewicz.bankapp.system.transaction.processing.core.execution.TransferExecutor;
 
 /**
  * Base implementation for transfer commands.
  * Implements standard transfer from source to destination account.
  */
-public abstract class BaseTransferExecutor implements TransactionExecutor {
+public abstract class BaseTransferExecutor implements TransferExecutor {
     @Override
-    public void execute(Transaction transaction, AccountService accountService) {
+    public void debit(Transaction transaction, AccountService accountService) {
         accountService.withdraw(transaction.getSourceAccount(), transaction.getAmount());
+    }
+
+    @Override
+    public void credit(Transaction transaction, AccountService accountService) {
         accountService.deposit(transaction.getDestinationAccount(), transaction.getAmount());
     }
 }
@@ -4,18 +4,23 @@ import info.mackiewicz.bankapp.core.account.model.Account;
 import info.mackiewicz.bankapp.core.account.service.AccountService;
 import info.mackiewicz.bankapp.core.transaction.model.Transaction;
 import info.mackiewicz.bankapp.core.transaction.model.TransactionType;
-import info.mackiewicz.bankapp.system.transaction.processing.core.execution.TransactionExecutor;
+import info.mackiewicz.bankapp.system.banking.ledger.BankLedger;
+import info.mackiewicz.bankapp.system.transaction.processing.core.execution.TransferExecutor;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 
 /**
  * Service for executing FEE transactions.
- * Withdraws a fee from the source account and transfers it to the bank account.
+ * Withdraws a fee from the source account and transfers it to the bank account,
+ * or to one of its buckets when the bank ledger is bucketed.
  */
 @Service
-public class FeeTransactionExecutor implements TransactionExecutor {
-    private static final Integer BANK_ACCOUNT_ID = -1;
+@RequiredArgsConstructor
+public class FeeTransactionExecutor implements TransferExecutor {
+
+    private final BankLedger bankLedger;
 
     @Override
     public void execute(Transaction transaction, AccountService accountService) {
@@ -23,18 +28,45 @@ public class FeeTransactionExecutor implements TransactionExecutor {
         BigDecimal amount = transaction.getAmount();
 
         // First ensure we have the destination account
+        Account destinationAccount = resolveDestination(transaction, accountService);
+
+        // Now proceed with the transfer operations
+        accountService.withdraw(sourceAccount, amount);
+        accountService.deposit(destinationAccount, amount);
+    }
+
+    @Override
+    public void debit(Transaction transaction, AccountService accountService) {
+        // the destination must be known before the credit is handed over
+        resolveDestination(transaction, accountService);
+        accountService.withdraw(transaction.getSourceAccount(), transaction.getAmount());
+    }
+
+    @Override
+    public void credit(Transaction transaction, AccountService accountService) {
+        // resolved again when a debited fee is resumed after a restart
+        accountService.deposit(resolveDestination(transaction, accountService), transaction.getAmount());
+    }
+
+    @Override
+    public Integer getCreditedAccountId(Transaction transaction) {
+        Account destinationAccount = transaction.getDestinationAccount();
+        // the bank account or bucket is selected by the transaction ID, so it is the same after a restart
+        return destinationAccount != null
+                ? destinationAccount.getId()
+                : bankLedger.getDepositAccountId(transaction.getId());
+    }
+
+    private Account resolveDestination(Transaction transaction, AccountService accountService) {
         Account destinationAccount = transaction.getDestinationAccount();
         if (destinationAccount == null) {
             // Get and set bank account first before any operations
-            destinationAccount = accountService.getAccountById(BANK_ACCOUNT_ID);
+            destinationAccount = accountService.getAccountById(getCreditedAccountId(transaction));
             transaction.setDestinationAccount(destinationAccount);
         }
-
-        // Now proceed with the transfer operations
-        accountService.withdraw(sourceAccount, amount);
-        accountService.deposit(destinationAccount, amount);
+        return destinationAccount;
     }
-    
+
     @Override
     public TransactionType getTransactionType() {
         return TransactionType.FEE;
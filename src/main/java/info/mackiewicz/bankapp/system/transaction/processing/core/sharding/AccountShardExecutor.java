@@ -0,0 +1,140 @@
+package info.mackiewicz.bankapp.system.transaction.processing.core.sharding;
+
+import info.mackiewicz.bankapp.system.transaction.processing.core.execution.ExecutionConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Single-writer executor partitioning accounts between {@code app.transaction.execution.shards}
+ * single-threaded shards ({@code app.transaction.execution.mode=sharded}).
+ * <p>
+ * Every account is owned by exactly one shard, and all work on an account runs on the
+ * owner's thread, one task at a time and in submission order. Tasks touching a single account
+ * therefore need no locks. Work touching accounts of two shards has to be split into tasks
+ * handed over from one shard to the other.
+ * </p>
+ * Shard threads are started on first use, so the executor costs nothing in other modes.
+ */
+@Slf4j
+@Component
+public class AccountShardExecutor {
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 60;
+
+    private final List<ThreadPoolExecutor> shards;
+
+    public AccountShardExecutor(ExecutionConfig config, MeterRegistry meterRegistry) {
+        this.shards = new ArrayList<>(config.shards());
+        for (int i = 0; i < config.shards(); i++) {
+            ThreadPoolExecutor shard = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(), shardThreadFactory(i));
+            shards.add(shard);
+            Gauge.builder("bankapp.transaction.shard.queue", shard, executor -> executor.getQueue().size())
+                    .description("Tasks waiting for an account shard")
+                    .tag("shard", String.valueOf(i))
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Returns the shard owning the account.
+     *
+     * @param accountId ID of the account
+     * @return index of the owning shard
+     */
+    public int shardOf(Integer accountId) {
+        return Math.floorMod(accountId, shards.size());
+    }
+
+    /**
+     * Checks whether both accounts are owned by the same shard.
+     *
+     * @param accountId      ID of the first account
+     * @param otherAccountId ID of the second account
+     * @return true if a single task may touch both accounts
+     */
+    public boolean sameShard(Integer accountId, Integer otherAccountId) {
+        return shardOf(accountId) == shardOf(otherAccountId);
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    /**
+     * Runs the task on the shard owning the account.
+     *
+     * @param accountId ID of the account the task works on
+     * @param task      task to run
+     * @return future completed with the result of the task
+     */
+    public <T> CompletableFuture<T> submit(Integer accountId, Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, shards.get(shardOf(accountId)));
+    }
+
+    /**
+     * Runs the task on the shard owning the account.
+     *
+     * @param accountId ID of the account the task works on
+     * @param task      task to run
+     * @return future completed when the task has finished
+     */
+    public CompletableFuture<Void> submit(Integer accountId, Runnable task) {
+        return CompletableFuture.runAsync(task, shards.get(shardOf(accountId)));
+    }
+
+    /**
+     * Waits for all shards to become idle and stops them, so that no transfer is left
+     * debited but not credited.
+     * Credits are handed over by tasks of other shards, so no shard may stop accepting tasks
+     * before all of them are idle.
+     */
+    @PreDestroy
+    public void shutdown() {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SHUTDOWN_TIMEOUT_SECONDS);
+        try {
+            while (!isIdle()) {
+                if (System.nanoTime() > deadline) {
+                    log.warn("Account shards did not become idle in time, pending hand-overs may be lost");
+                    break;
+                }
+                Thread.sleep(10);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        shards.forEach(ThreadPoolExecutor::shutdown);
+    }
+
+    private boolean isIdle() {
+        long submitted = submittedTasks();
+        boolean idle = shards.stream().allMatch(shard -> shard.getActiveCount() == 0 && shard.getQueue().isEmpty());
+        // a task may have handed work over to an already inspected shard in the meantime
+        return idle && submitted == submittedTasks();
+    }
+
+    private long submittedTasks() {
+        return shards.stream().mapToLong(ThreadPoolExecutor::getTaskCount).sum();
+    }
+
+    private static ThreadFactory shardThreadFactory(int index) {
+        AtomicInteger created = new AtomicInteger();
+        return runnable -> {
+            // a shard keeps a single thread; the suffix tells apart a replacement of a thread that died
+            return new Thread(runnable, "AccountShard-" + index + "-" + created.incrementAndGet());
+        };
+    }
+}
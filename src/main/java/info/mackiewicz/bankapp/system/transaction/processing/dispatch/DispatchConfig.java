@@ -0,0 +1,30 @@
+package info.mackiewicz.bankapp.system.transaction.processing.dispatch;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration of the dispatch of registered transactions to processing.
+ *
+ * @param enabled           whether transactions are dispatched right after they are registered;
+ *                          if disabled, they are only picked up by the recovery sweep
+ * @param sweepGracePeriod  age in milliseconds of an outbox entry after which the recovery
+ *                          sweep considers it orphaned and dispatches it again
+ * @param claimTimeout      time in milliseconds after which the recovery sweep considers a transaction
+ *                          claimed for processing but still PENDING abandoned and processes it again
+ */
+@ConfigurationProperties(prefix = "app.transaction.dispatch")
+public record DispatchConfig(Boolean enabled,
+        long sweepGracePeriod,
+        long claimTimeout) {
+
+    // Default values for the properties
+    // These values can be overridden in application.properties or application.yml
+    public DispatchConfig {
+        if (enabled == null)
+            enabled = true;
+        if (sweepGracePeriod <= 0)
+            sweepGracePeriod = 60000;
+        if (claimTimeout <= 0)
+            claimTimeout = 600000;
+    }
+}
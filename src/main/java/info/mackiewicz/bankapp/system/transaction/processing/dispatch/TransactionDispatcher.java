@@ -0,0 +1,208 @@
+package info.mackiewicz.bankapp.system.transaction.processing.dispatch;
+
+import info.mackiewicz.bankapp.core.transaction.event.TransactionRegisteredEvent;
+import info.mackiewicz.bankapp.core.transaction.model.TransactionStatus;
+import info.mackiewicz.bankapp.system.transaction.processing.TransactionProcessingService;
+import info.mackiewicz.bankapp.system.transaction.processing.admission.TransactionAdmissionControl;
+import info.mackiewicz.bankapp.system.transaction.processing.admission.TransactionAdmissionControl.Permit;
+import info.mackiewicz.bankapp.system.transaction.processing.dispatch.model.TransactionOutboxEntry;
+import info.mackiewicz.bankapp.system.transaction.processing.dispatch.repository.TransactionOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Dispatches registered transactions to processing as soon as they are committed.
+ * <p>
+ * Registering a transaction writes an outbox entry in the registering database transaction.
+ * After commit the transaction is queued on the task executor and processed by the
+ * {@link TransactionProcessingService}; the entry is removed once the transaction has reached
+ * a final status. Entries left over by a crash, a full executor or a failed processing attempt
+ * are picked up by the recovery sweep once they are older than the grace period; the sweep
+ * works off the backlog of NEW transactions through the batch processing. Transactions claimed
+ * for processing by a node that crashed before completing them stay PENDING until the sweep
+ * moves them back to NEW once the claim timeout has passed.
+ * </p>
+ * <p>
+ * A transaction admitted by the {@link TransactionAdmissionControl} before its registration is
+ * dispatched with the place it was admitted with; the place is freed if the registering database
+ * transaction rolls back. Any other registered transaction takes a place in the processing queue
+ * of its type when it is dispatched; when the queue is full it is left to the recovery sweep.
+ * The sweep itself is bounded by the batch limits and is not counted.
+ * </p>
+ * A transaction is never dispatched twice at the same time by this dispatcher; across nodes
+ * the {@link info.mackiewicz.bankapp.system.transaction.processing.core.TransactionProcessor}
+ * claims every transaction atomically before processing it.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TransactionDispatcher {
+
+    // statuses of transactions whose outbox entries are kept, as they may still need the recovery sweep
+    private static final Set<TransactionStatus> UNFINISHED_STATUSES = Arrays.stream(TransactionStatus.values())
+            .filter(status -> !status.isFinal())
+            .collect(Collectors.toUnmodifiableSet());
+
+    private final TransactionOutboxRepository outboxRepository;
+    private final TransactionProcessingService processingService;
+    private final DispatchConfig dispatchConfig;
+    private final TransactionAdmissionControl admissionControl;
+    private final Executor taskExecutor;
+
+    private final Set<Integer> inFlight = ConcurrentHashMap.newKeySet();
+    private final Map<Integer, Permit> admitted = new ConcurrentHashMap<>();
+
+    /**
+     * Writes the outbox entry of a registered transaction and takes over the place it was admitted with.
+     * Runs synchronously, so the entry is committed or rolled back together with the transaction.
+     */
+    @EventListener
+    public void recordRegisteredTransaction(TransactionRegisteredEvent event) {
+        outboxRepository.save(new TransactionOutboxEntry(event.transactionId()));
+        admissionControl.takeAdmission(event.type())
+                .ifPresent(permit -> holdUntilCompletion(event.transactionId(), permit));
+    }
+
+    /**
+     * Keeps the admitted place of a transaction for its dispatch after commit, and frees it
+     * when the registering database transaction completes without the dispatch taking it.
+     */
+    private void holdUntilCompletion(Integer transactionId, Permit permit) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            // without a database transaction there is no commit to dispatch after
+            permit.release();
+            return;
+        }
+        admitted.put(transactionId, permit);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                // runs after the dispatch of a committed transaction, which has taken the place
+                Permit unused = admitted.remove(transactionId);
+                if (unused != null) {
+                    unused.release();
+                }
+            }
+        });
+    }
+
+    /**
+     * Dispatches a registered transaction once the registering database transaction has committed.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void dispatchRegisteredTransaction(TransactionRegisteredEvent event) {
+        if (!dispatchConfig.enabled()) {
+            return;
+        }
+        Permit admittedPermit = admitted.remove(event.transactionId());
+        Optional<Permit> place = admittedPermit != null
+                ? Optional.of(admittedPermit)
+                : admissionControl.tryEnqueue(event.type());
+        place.ifPresentOrElse(
+                permit -> dispatch(event.transactionId(), permit),
+                () -> log.warn("Processing queue of {} transactions is full, leaving transaction {} to the recovery sweep",
+                        event.type(), event.transactionId()));
+    }
+
+    /**
+     * Processes the orphaned transactions: those whose outbox entries are older than the grace period
+     * and which are still NEW. When any are found, the whole backlog of NEW transactions is worked off
+     * in chunks by {@link TransactionProcessingService#processAllNewTransactions()}, netted when enabled;
+     * a transaction claimed for processing in the meantime is left to its owner.
+     * Entries of transactions that have reached a final status are removed before and after.
+     * Transfers left DEBITED for longer than the grace period, with the source account debited
+     * but the destination account not yet credited, are completed or refunded first.
+     * Transactions claimed for processing longer than the claim timeout ago but still PENDING
+     * are moved back to NEW first, so they are processed with the backlog.
+     *
+     * @return number of resumed transfers and transactions in the processed backlog, 0 if there were no orphans
+     */
+    public int redispatchOrphanedTransactions() {
+        removeEntriesOfFinishedTransactions();
+
+        Instant createdBefore = Instant.now().minusMillis(dispatchConfig.sweepGracePeriod());
+        int resumed = processingService.resumeDebitedTransfers(LocalDateTime.ofInstant(createdBefore, ZoneId.systemDefault()));
+        processingService.releaseStaleClaims(LocalDateTime.now().minus(Duration.ofMillis(dispatchConfig.claimTimeout())));
+        if (outboxRepository.findInStatusCreatedBefore(0, createdBefore, TransactionStatus.NEW, Limit.of(1)).isEmpty()) {
+            return resumed;
+        }
+        int processed = processingService.processAllNewTransactions();
+        log.warn("Found orphaned transactions, processed the backlog of {} new transactions", processed);
+        removeEntriesOfFinishedTransactions();
+        return resumed + processed;
+    }
+
+    private void removeEntriesOfFinishedTransactions() {
+        int removed = outboxRepository.deleteAllNotInStatus(UNFINISHED_STATUSES);
+        if (removed > 0) {
+            log.info("Removed {} outbox entries of finished transactions", removed);
+        }
+    }
+
+    /**
+     * Queues the transaction for processing unless it is already being processed.
+     *
+     * @param permit place of the transaction in the processing queue, released when processing finishes
+     * @return future completed when processing finishes and the outbox entry is handled
+     */
+    CompletableFuture<Void> dispatch(Integer transactionId, Permit permit) {
+        if (!inFlight.add(transactionId)) {
+            permit.release();
+            log.debug("Transaction {} is already being dispatched", transactionId);
+            return CompletableFuture.completedFuture(null);
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                        permit.start();
+                        return processingService.processTransactionById(transactionId);
+                    }, taskExecutor)
+                    .thenCompose(Function.identity())
+                    .handle((result, error) -> {
+                        if (error != null) {
+                            log.debug("Transaction {} completed with error: {}", transactionId, error.getMessage());
+                        }
+                        permit.release();
+                        complete(transactionId);
+                        return null;
+                    });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(transactionId);
+            permit.release();
+            log.warn("Transaction {} could not be queued, leaving it to the recovery sweep", transactionId);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    private void complete(Integer transactionId) {
+        try {
+            // an unfinished transaction keeps its entry, e.g. one still PENDING after its processing failed
+            outboxRepository.deleteUnlessInStatus(transactionId, UNFINISHED_STATUSES);
+        } catch (RuntimeException e) {
+            log.error("Failed to remove outbox entry of transaction {}", transactionId, e);
+        } finally {
+            inFlight.remove(transactionId);
+        }
+    }
+}
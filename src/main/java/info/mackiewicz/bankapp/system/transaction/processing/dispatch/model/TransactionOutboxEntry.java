@@ -0,0 +1,37 @@
+package info.mackiewicz.bankapp.system.transaction.processing.dispatch.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Entity representing a registered transaction that still has to be dispatched to processing.
+ *
+ * The entry is written in the same database transaction as the transaction itself,
+ * so a transaction committed before a crash is never lost for processing.
+ * It is removed once the transaction has reached a final status.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(name = "transaction_outbox")
+public class TransactionOutboxEntry {
+
+    @Id
+    @Column(name = "transaction_id")
+    private Integer transactionId;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public TransactionOutboxEntry(Integer transactionId) {
+        this.transactionId = transactionId;
+        this.createdAt = Instant.now();
+    }
+}
@@ -0,0 +1,77 @@
+package info.mackiewicz.bankapp.system.transaction.processing.dispatch.repository;
+
+import info.mackiewicz.bankapp.core.transaction.model.TransactionStatus;
+import info.mackiewicz.bankapp.system.transaction.processing.dispatch.model.TransactionOutboxEntry;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for managing the outbox of transactions waiting for dispatch
+ */
+@Repository
+public interface TransactionOutboxRepository extends JpaRepository<TransactionOutboxEntry, Integer> {
+
+    /**
+     * Finds entries created before the given time whose transactions still have the given status,
+     * ordered by transaction ID.
+     *
+     * @param transactionId only entries with a greater transaction ID are returned
+     * @param createdAt     only entries created before this time are returned
+     * @param status        status of transactions waiting for processing
+     * @param limit         maximum number of entries to return
+     * @return the matching entries
+     */
+    @Query("""
+             SELECT e FROM TransactionOutboxEntry e
+                 WHERE e.transactionId > :transactionId
+                 AND e.createdAt < :createdAt
+                 AND EXISTS (SELECT t FROM Transaction t WHERE t.id = e.transactionId AND t.status = :status)
+                 ORDER BY e.transactionId ASC
+            """)
+    List<TransactionOutboxEntry> findInStatusCreatedBefore(@Param("transactionId") Integer transactionId,
+                                                           @Param("createdAt") Instant createdAt,
+                                                           @Param("status") TransactionStatus status,
+                                                           Limit limit);
+
+    /**
+     * Removes the entry of a transaction unless the transaction still has one of the given statuses.
+     * An entry of a deleted transaction is removed as well.
+     *
+     * @param transactionId ID of the transaction
+     * @param statuses      statuses of transactions not yet finished
+     * @return The number of affected rows
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+             DELETE FROM TransactionOutboxEntry e
+                 WHERE e.transactionId = :transactionId
+                 AND NOT EXISTS (SELECT t FROM Transaction t WHERE t.id = e.transactionId AND t.status IN :statuses)
+            """)
+    int deleteUnlessInStatus(@Param("transactionId") Integer transactionId,
+                             @Param("statuses") Collection<TransactionStatus> statuses);
+
+    /**
+     * Removes the entries of all transactions that no longer have one of the given statuses.
+     * Entries of deleted transactions are removed as well.
+     *
+     * @param statuses statuses of transactions not yet finished
+     * @return The number of affected rows
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+             DELETE FROM TransactionOutboxEntry e
+                 WHERE NOT EXISTS (SELECT t FROM Transaction t WHERE t.id = e.transactionId AND t.status IN :statuses)
+            """)
+    int deleteAllNotInStatus(@Param("statuses") Collection<TransactionStatus> statuses);
+}
@@ -0,0 +1,100 @@
+package info.mackiewicz.bankapp.system.transaction.processing.error;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free ring buffer for any number of producers and consumers.
+ * <p>
+ * Every slot carries a sequence number telling whether it is free for the producer of a given
+ * position or holds an element for the consumer of that position. Producers and consumers claim
+ * positions with a compare-and-set on their cursor and never wait for each other: offering to a
+ * full buffer and polling an empty one fail immediately.
+ * </p>
+ * The capacity is rounded up to a power of two, and is at least two.
+ *
+ * @param <E> type of the elements
+ */
+class ErrorEventRingBuffer<E> {
+
+    private final int mask;
+    private final AtomicReferenceArray<E> slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong producerCursor = new AtomicLong();
+    private final AtomicLong consumerCursor = new AtomicLong();
+
+    ErrorEventRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        // a single slot could not tell a published element from a freed slot of the next lap
+        int size = Math.max(2, Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1);
+        this.mask = size - 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Adds the element if the buffer is not full.
+     *
+     * @return true if the element was added
+     */
+    boolean offer(E element) {
+        while (true) {
+            long position = producerCursor.get();
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (producerCursor.compareAndSet(position, position + 1)) {
+                    slots.set(index, element);
+                    // publishes the element to the consumer of this position
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                // the slot still holds the element of the previous lap
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Removes the oldest element.
+     *
+     * @return the element, or {@code null} if the buffer is empty
+     */
+    E poll() {
+        while (true) {
+            long position = consumerCursor.get();
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (consumerCursor.compareAndSet(position, position + 1)) {
+                    E element = slots.get(index);
+                    slots.lazySet(index, null);
+                    // frees the slot for the producer of the next lap
+                    sequences.lazySet(index, position + mask + 1);
+                    return element;
+                }
+            } else if (difference < 0) {
+                // the element of this position has not been published yet
+                return null;
+            }
+        }
+    }
+
+    /**
+     * @return number of elements offered but not polled yet
+     */
+    int size() {
+        return (int) Math.max(0, producerCursor.get() - consumerCursor.get());
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+}
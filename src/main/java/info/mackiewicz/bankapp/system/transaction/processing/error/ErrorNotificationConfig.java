@@ -0,0 +1,45 @@
+package info.mackiewicz.bankapp.system.transaction.processing.error;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration of the delivery of transaction errors to the {@link TransactionErrorObserver}s.
+ *
+ * @param capacity       number of errors buffered per observer, rounded up to a power of two of at least two
+ * @param overflowPolicy what happens to an error when the buffer of an observer cannot take it
+ * @param sampleRate     with the {@link OverflowPolicy#SAMPLE} policy, one of this many errors is
+ *                       delivered while the buffer is at least half full
+ */
+@ConfigurationProperties(prefix = "app.transaction.error-notification")
+public record ErrorNotificationConfig(int capacity,
+        OverflowPolicy overflowPolicy,
+        int sampleRate) {
+
+    // Default values for the properties
+    // These values can be overridden in application.properties or application.yml
+    public ErrorNotificationConfig {
+        if (capacity <= 0)
+            capacity = 1024;
+        if (overflowPolicy == null)
+            overflowPolicy = OverflowPolicy.DROP;
+        if (sampleRate <= 0)
+            sampleRate = 10;
+    }
+
+    public enum OverflowPolicy {
+        /**
+         * Errors not fitting into the buffer are dropped.
+         */
+        DROP,
+        /**
+         * The processing thread waits until the observer frees space in the buffer,
+         * so no error is lost but a slow observer slows down processing.
+         */
+        BLOCK,
+        /**
+         * Once the buffer is half full only a sample of the errors is buffered and the rest
+         * is dropped, so a burst of errors keeps being reported before the buffer overflows.
+         */
+        SAMPLE
+    }
+}
@@ -6,12 +6,15 @@ import info.mackiewicz.bankapp.core.transaction.exception.InsufficientFundsExcep
 import info.mackiewicz.bankapp.core.transaction.model.Transaction;
 import info.mackiewicz.bankapp.core.transaction.model.TransactionStatus;
 import info.mackiewicz.bankapp.system.transaction.processing.helpers.TransactionStatusManager;
+import info.mackiewicz.bankapp.system.transaction.processing.metrics.TransactionPipelineMetrics;
+import info.mackiewicz.bankapp.system.transaction.processing.metrics.TransactionPipelineMetrics.ErrorOutcome;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 /**
- * Centralizes error handling logic for transactions
+ * Centralizes error handling logic for transactions.
+ * Every handled error is counted by its outcome in the TransactionPipelineMetrics.
  */
 @Slf4j
 @RequiredArgsConstructor
@@ -19,12 +22,14 @@ import org.springframework.stereotype.Component;
 public class TransactionErrorHandler {
     private final TransactionStatusManager statusManager;
     private final TransactionErrorNotifier errorNotifier;
+    private final TransactionPipelineMetrics metrics;
 
     /**
      * Handles insufficient funds errors.
      * This is a business validation error, logged as WARN.
      */
     public void handleInsufficientFundsError(Transaction transaction, InsufficientFundsException e) {
+        metrics.recordError(ErrorOutcome.INSUFFICIENT_FUNDS);
         log.warn("Transaction {} failed: Insufficient funds - {}", transaction.getId(), e.getMessage());
         statusManager.setTransactionStatus(transaction, TransactionStatus.INSUFFICIENT_FUNDS);
         errorNotifier.notifyError(transaction, e);
@@ -35,6 +40,7 @@ public class TransactionErrorHandler {
      * These are business validation errors, logged as WARN.
      */
     public void handleValidationError(Transaction transaction, Exception e) {
+        metrics.recordError(ErrorOutcome.VALIDATION);
         log.warn("Transaction {} validation failed: {}", transaction.getId(), e.getMessage());
         statusManager.setTransactionStatus(transaction, TransactionStatus.VALIDATION_ERROR);
         errorNotifier.notifyError(transaction, e);
@@ -45,6 +51,7 @@ public class TransactionErrorHandler {
      * These are system errors, logged as ERROR.
      */
     public void handleUnexpectedError(Transaction transaction, Exception e) {
+        metrics.recordError(ErrorOutcome.UNEXPECTED);
         log.error("Transaction {} failed with unexpected error: {}", transaction.getId(), e.getMessage(), e);
         statusManager.setTransactionStatus(transaction, TransactionStatus.SYSTEM_ERROR);
         errorNotifier.notifyError(transaction, e);
@@ -55,6 +62,7 @@ public class TransactionErrorHandler {
      * These are concurrency-related errors, logged as WARN.
      */
     public void handleLockError(Transaction transaction, AccountLockException e) {
+        metrics.recordError(ErrorOutcome.LOCK);
         log.warn("Failed to acquire lock for account {} in transaction {}: {}",
                 e.getAccountId(), transaction.getId(), e.getMessage());
         statusManager.setTransactionStatus(transaction, TransactionStatus.EXECUTION_ERROR);
@@ -66,6 +74,7 @@ public class TransactionErrorHandler {
      * These are system errors, logged as ERROR.
      */
     public void handleUnexpectedLockError(Transaction transaction, Exception e) {
+        metrics.recordError(ErrorOutcome.UNEXPECTED_LOCK);
         log.error("Unexpected error while acquiring locks for transaction {}: {}",
                 transaction.getId(), e.getMessage(), e);
         statusManager.setTransactionStatus(transaction, TransactionStatus.SYSTEM_ERROR);
@@ -77,6 +86,7 @@ public class TransactionErrorHandler {
      * These are concurrency-related errors, logged as WARN.
      */
     public void handleUnlockError(Transaction transaction, AccountUnlockException e) {
+        metrics.recordError(ErrorOutcome.UNLOCK);
         log.warn("Failed to release lock for account {} in transaction {}: {}",
                 e.getAccountId(), transaction.getId(), e.getMessage());
         statusManager.setTransactionStatus(transaction, TransactionStatus.EXECUTION_ERROR);
@@ -88,6 +98,7 @@ public class TransactionErrorHandler {
      * These are system errors, logged as ERROR.
      */
     public void handleUnexpectedUnlockError(Transaction transaction, Exception e) {
+        metrics.recordError(ErrorOutcome.UNEXPECTED_UNLOCK);
         log.error("Unexpected error while releasing locks for transaction {}: {}",
                 transaction.getId(), e.getMessage(), e);
         statusManager.setTransactionStatus(transaction, TransactionStatus.SYSTEM_ERROR);
@@ -99,6 +110,7 @@ public class TransactionErrorHandler {
      * These are execution errors, logged as WARN.
      */
     public void handleTransactionStatusChangeError(Transaction transaction, Exception e) {
+        metrics.recordError(ErrorOutcome.STATUS_CHANGE);
         log.warn("Failed to update status for transaction {}: {}", transaction.getId(), e.getMessage());
         statusManager.setTransactionStatus(transaction, TransactionStatus.EXECUTION_ERROR);
         errorNotifier.notifyError(transaction, e);
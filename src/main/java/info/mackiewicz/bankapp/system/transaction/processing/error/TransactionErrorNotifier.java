@@ -1,46 +1,246 @@
 package info.mackiewicz.bankapp.system.transaction.processing.error;
 
 import info.mackiewicz.bankapp.core.transaction.model.Transaction;
+import info.mackiewicz.bankapp.system.transaction.processing.error.ErrorNotificationConfig.OverflowPolicy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Manages transaction error observers and notifies them about errors.
- * Not implemented yet.
+ * <p>
+ * Every observer gets its own {@link ErrorEventRingBuffer} and a dedicated thread calling it, so
+ * publishing an error costs the processing thread one buffer insert per observer, and a slow
+ * observer only delays its own notifications. When the buffer of an observer is full, the
+ * configured {@link OverflowPolicy} decides whether the error is dropped or the processing
+ * thread waits. Observers may be added and removed concurrently with publishing.
+ * </p>
+ * Observers receive the transaction object itself, after the processing thread moved on.
  */
+@Slf4j
 @Component
 public class TransactionErrorNotifier {
-    private final List<TransactionErrorObserver> observers = new ArrayList<>();
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+
+    private final ErrorNotificationConfig config;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<TransactionErrorObserver, Subscription> subscriptions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicInteger> observerInstances = new ConcurrentHashMap<>();
+
+    public TransactionErrorNotifier(ErrorNotificationConfig config, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+    }
 
     /**
-     * Adds an observer to be notified of transaction errors
+     * Adds an observer to be notified of transaction errors.
+     * Adding an observer which is already registered has no effect.
      *
      * @param observer The observer to add
      */
     public void addObserver(TransactionErrorObserver observer) {
-        observers.add(observer);
+        subscriptions.computeIfAbsent(observer, key -> {
+            Subscription subscription = new Subscription(key);
+            subscription.start();
+            return subscription;
+        });
     }
 
     /**
-     * Removes an observer from being notified of transaction errors
+     * Removes an observer from being notified of transaction errors.
+     * Errors still buffered for the observer are not delivered.
      *
      * @param observer The observer to remove
      */
     public void removeObserver(TransactionErrorObserver observer) {
-        observers.remove(observer);
+        Subscription subscription = subscriptions.remove(observer);
+        if (subscription != null) {
+            subscription.stop(false);
+        }
     }
 
     /**
-     * Notifies all registered observers about a transaction error
+     * Publishes a transaction error to all registered observers.
      *
      * @param transaction The transaction that encountered an error
      * @param error The exception that was thrown
      */
     public void notifyError(Transaction transaction, Exception error) {
-        for (TransactionErrorObserver observer : observers) {
-            observer.onTransactionError(transaction, error);
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        ErrorEvent event = new ErrorEvent(transaction, error, System.nanoTime());
+        for (Subscription subscription : subscriptions.values()) {
+            subscription.publish(event);
+        }
+    }
+
+    /**
+     * Delivers the buffered errors and stops the observer threads.
+     */
+    @PreDestroy
+    public void shutdown() {
+        subscriptions.keySet().forEach(observer -> {
+            Subscription subscription = subscriptions.remove(observer);
+            if (subscription != null) {
+                subscription.stop(true);
+            }
+        });
+    }
+
+    /**
+     * Names an observer after its class, numbering further observers of the same class so that
+     * every observer has its own meters.
+     */
+    private String observerName(TransactionErrorObserver observer) {
+        String className = observer.getClass().getSimpleName();
+        int instance = observerInstances.computeIfAbsent(className, key -> new AtomicInteger()).incrementAndGet();
+        return instance == 1 ? className : className + "-" + instance;
+    }
+
+    private record ErrorEvent(Transaction transaction, Exception error, long publishedAt) {
+    }
+
+    /**
+     * Buffer and thread of one observer.
+     */
+    private final class Subscription implements Runnable {
+
+        private final TransactionErrorObserver observer;
+        private final String name;
+        private final ErrorEventRingBuffer<ErrorEvent> buffer;
+        private final Thread thread;
+        private final AtomicLong sampled = new AtomicLong();
+        private final Gauge lag;
+        private final Counter dropped;
+        private final Timer delay;
+
+        private volatile boolean sleeping;
+        private volatile boolean draining;
+        private volatile boolean stopped;
+
+        Subscription(TransactionErrorObserver observer) {
+            this.observer = observer;
+            this.name = observerName(observer);
+            this.buffer = new ErrorEventRingBuffer<>(config.capacity());
+            this.thread = new Thread(this, "ErrorObserver-" + name);
+            this.thread.setDaemon(true);
+            this.lag = Gauge.builder("bankapp.transaction.error.observer.lag", buffer, ErrorEventRingBuffer::size)
+                    .description("Transaction errors published but not yet delivered to the observer")
+                    .tag("observer", name)
+                    .register(meterRegistry);
+            this.dropped = Counter.builder("bankapp.transaction.error.observer.dropped")
+                    .description("Transaction errors not delivered to the observer because its buffer was full")
+                    .tag("observer", name)
+                    .register(meterRegistry);
+            this.delay = Timer.builder("bankapp.transaction.error.observer.delay")
+                    .description("Time from publishing a transaction error to its delivery to the observer")
+                    .tag("observer", name)
+                    .register(meterRegistry);
+        }
+
+        void start() {
+            thread.start();
+        }
+
+        void publish(ErrorEvent event) {
+            boolean buffered = switch (config.overflowPolicy()) {
+                case DROP -> buffer.offer(event);
+                case BLOCK -> offerBlocking(event);
+                case SAMPLE -> offerSampled(event);
+            };
+            if (!buffered) {
+                dropped.increment();
+            } else if (sleeping) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        private boolean offerBlocking(ErrorEvent event) {
+            while (!buffer.offer(event)) {
+                if (draining || stopped) {
+                    return false;
+                }
+                LockSupport.parkNanos(BLOCK_PARK_NANOS);
+            }
+            return true;
+        }
+
+        private boolean offerSampled(ErrorEvent event) {
+            if (buffer.size() >= buffer.capacity() / 2
+                    && sampled.getAndIncrement() % config.sampleRate() != 0) {
+                return false;
+            }
+            return buffer.offer(event);
+        }
+
+        @Override
+        public void run() {
+            while (!stopped) {
+                ErrorEvent event = buffer.poll();
+                if (event != null) {
+                    deliver(event);
+                } else if (draining) {
+                    break;
+                } else {
+                    sleeping = true;
+                    // checked after announcing the sleep, so a publisher either sees it or its error is seen here
+                    if (buffer.size() == 0 && !draining && !stopped) {
+                        LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    }
+                    sleeping = false;
+                }
+            }
+        }
+
+        private void deliver(ErrorEvent event) {
+            delay.record(System.nanoTime() - event.publishedAt(), TimeUnit.NANOSECONDS);
+            try {
+                observer.onTransactionError(event.transaction(), event.error());
+            } catch (RuntimeException e) {
+                log.error("Observer {} failed to handle the error of transaction {}",
+                        name, event.transaction().getId(), e);
+            }
+        }
+
+        /**
+         * @param drain whether the buffered errors are delivered before the thread stops
+         */
+        void stop(boolean drain) {
+            if (drain) {
+                draining = true;
+            } else {
+                stopped = true;
+            }
+            LockSupport.unpark(thread);
+            if (drain) {
+                try {
+                    thread.join(SHUTDOWN_TIMEOUT_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (thread.isAlive()) {
+                    log.warn("Observer {} did not handle its buffered errors in time", name);
+                    stopped = true;
+                }
+            }
+            meterRegistry.remove(lag);
+            meterRegistry.remove(dropped);
+            meterRegistry.remove(delay);
         }
     }
-}
\ No newline at end of file
+}
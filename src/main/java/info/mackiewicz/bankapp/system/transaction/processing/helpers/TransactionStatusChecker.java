@@ -29,13 +29,14 @@ public class TransactionStatusChecker {
     }
     
     /**
-     * Checks if the transaction is currently in progress (being processed).
+     * Checks if the transaction is currently in progress (being processed), including a transfer
+     * whose source account has been debited but whose credit is outstanding.
      * 
      * @param transaction The transaction to check
      * @return true if the transaction is in progress
      */
     public boolean isInProgress(Transaction transaction) {
-        return transaction.getStatus() == TransactionStatus.PENDING;
+        return transaction.getStatus() == TransactionStatus.PENDING || transaction.getStatus() == TransactionStatus.DEBITED;
     }
     
     /**
@@ -64,7 +65,7 @@ public class TransactionStatusChecker {
      * @param transaction The transaction to validate
      * @throws TransactionAlreadyProcessedException if transaction is already processed
      * @throws TransactionCannotBeProcessedException if transaction is faulty
-     * @throws UnsupportedOperationException if transaction is in PENDING status
+     * @throws UnsupportedOperationException if transaction is in PENDING or DEBITED status
      */
     public void validateForProcessing(Transaction transaction) {
         if (isCompleted(transaction)) {
@@ -72,8 +73,9 @@ public class TransactionStatusChecker {
             throw new TransactionAlreadyProcessedException(
                 "Transaction " + transaction.getId() + " has already been processed");
         } else if (isInProgress(transaction)) {
-            log.warn("Attempted to process PENDING transaction: {}", transaction.getId());
-            throw new UnsupportedOperationException("Cannot process transaction in PENDING status: " + transaction.getId());
+            log.warn("Attempted to process {} transaction: {}", transaction.getStatus(), transaction.getId());
+            throw new UnsupportedOperationException(
+                "Cannot process transaction in " + transaction.getStatus() + " status: " + transaction.getId());
         } else if (hasFailed(transaction)) {
             log.error("Attempted to process faulty transaction: {}", transaction.getId());
             throw new TransactionCannotBeProcessedException(
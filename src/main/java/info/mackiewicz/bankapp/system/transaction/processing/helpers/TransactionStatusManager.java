@@ -1,5 +1,6 @@
 package info.mackiewicz.bankapp.system.transaction.processing.helpers;
 
+import info.mackiewicz.bankapp.core.account.repository.AccountRepository;
 import info.mackiewicz.bankapp.core.transaction.exception.TransactionNotFoundException;
 import info.mackiewicz.bankapp.core.transaction.model.Transaction;
 import info.mackiewicz.bankapp.core.transaction.model.TransactionStatus;
@@ -9,9 +10,17 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
 /**
  * Component responsible for managing transaction statuses in the database.
  * This class centralizes status update logic according to Single Responsibility Principle.
+ * A transaction leaving the NEW and PENDING statuses releases the amount it held on its source account,
+ * including a transfer becoming DEBITED, whose amount has then been withdrawn.
+ * Status changes are conditional on the status the caller last saw, so a concurrent change is detected
+ * rather than overwritten and the amount on hold is released only once. Changes from PENDING are also
+ * conditional on the claim of the caller, as a stale claim may have been released and claimed again.
  */
 @Slf4j
 @RequiredArgsConstructor
@@ -19,6 +28,7 @@ import org.springframework.transaction.annotation.Transactional;
 public class TransactionStatusManager {
     
     private final TransactionRepository repository;
+    private final AccountRepository accountRepository;
     
     /**
      * Checks if a status transition is allowed based on the state machine rules.
@@ -39,46 +49,118 @@ public class TransactionStatusManager {
      * @param status the new status to set
      * @throws TransactionNotFoundException if no transaction is found with the given ID
      * @throws IllegalArgumentException if transaction or status is null
-     * @throws IllegalStateException if the status transition is not allowed
+     * @throws IllegalStateException if the status transition is not allowed or the status has been changed concurrently
      */
     @Transactional
     public void setTransactionStatus(Transaction transaction, TransactionStatus status) {
-        if (transaction.getStatus() == null || status == null) {
-            throw new IllegalArgumentException("Transaction and status must not be null");
-        }
-        
-        TransactionStatus currentStatus = transaction.getStatus();
-        
-        if (!isStatusTransitionAllowed(currentStatus, status)) {
-            throw new IllegalStateException(
-                "Cannot change transaction status from " + currentStatus + " to " + status);
-        }
-        
+        validateTransition(transaction, status);
         log.debug("Setting transaction {} status to {}", transaction.getId(), status);
         updateTransactionStatus(transaction, status);
     }
 
+    /**
+     * Claims a NEW transaction for processing by moving it to PENDING.
+     * The status is only changed if the transaction is still NEW in the database, so of several
+     * threads or nodes trying to process the same transaction exactly one succeeds.
+     * The time of the claim is recorded, so a claim abandoned e.g. by a crash can be released.
+     *
+     * @param transaction the transaction to claim
+     * @return true if the transaction has been claimed, false if it is no longer NEW
+     */
+    @Transactional
+    public boolean claimForProcessing(Transaction transaction) {
+        int id = transaction.getId();
+        // truncated to a precision every database keeps, as later updates compare it
+        LocalDateTime claimedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        if (repository.claimForProcessing(id, claimedAt) == 0) {
+            log.debug("Transaction {} is no longer NEW, not claiming it", id);
+            return false;
+        }
+        transaction.setStatus(TransactionStatus.PENDING);
+        transaction.setClaimedAt(claimedAt);
+        log.debug("Transaction {} claimed for processing", id);
+        return true;
+    }
+
+    /**
+     * Moves the transactions claimed before the given time and still PENDING back to NEW.
+     * Their claims are considered abandoned, e.g. by a crash of the node processing them;
+     * should the owner of such a claim still be alive, it can no longer change the transaction.
+     *
+     * @param claimedBefore only transactions claimed before this time are released
+     * @return number of released transactions
+     */
+    @Transactional
+    public int releaseStaleClaims(LocalDateTime claimedBefore) {
+        int released = repository.releaseStaleClaims(claimedBefore);
+        if (released > 0) {
+            log.warn("Released {} transactions claimed for processing before {} but still PENDING", released, claimedBefore);
+        }
+        return released;
+    }
+
+    /**
+     * Releases the amount held by a transaction on its source account.
+     *
+     * @param transaction the debited, settled or failed transaction
+     */
+    private void releaseHold(Transaction transaction) {
+        if (transaction.getSourceAccount() == null) {
+            return;
+        }
+        accountRepository.subtractFromBalanceOnHold(transaction.getSourceAccount().getId(), transaction.getAmount());
+    }
+
     /**
      * Updates only the status of a transaction in the database.
      * This method performs a direct database update without loading the entire entity.
+     * The update only succeeds if the transaction still has the status of the given entity, so of
+     * several concurrent status changes exactly one takes effect and releases the amount on hold.
      *
      * @param transaction the transaction whose status needs to be updated
      * @param status the new status to set
      * @throws TransactionNotFoundException if no transaction is found with the given ID
+     * @throws IllegalStateException if the status of the transaction has been changed concurrently
      */
-    @Transactional
     private void updateTransactionStatus(Transaction transaction, TransactionStatus status) {
         int id = transaction.getId();
-        log.debug("Updating status of transaction {} to {}", id, status);
-        
-        int updatedRows = repository.updateTransactionStatus(id, status);
+        TransactionStatus currentStatus = transaction.getStatus();
+        log.debug("Updating status of transaction {} from {} to {}", id, currentStatus, status);
+
+        int updatedRows = currentStatus == TransactionStatus.PENDING && transaction.getClaimedAt() != null
+                ? repository.updateClaimedTransactionStatus(id, transaction.getClaimedAt(), status)
+                : repository.updateTransactionStatus(id, currentStatus, status);
         if (updatedRows == 0) {
-            log.error("Failed to update status for transaction {}: transaction not found", id);
-            throw new TransactionNotFoundException("Transaction with id " + id + " not found");
+            if (!repository.existsById(id)) {
+                log.error("Failed to update status for transaction {}: transaction not found", id);
+                throw new TransactionNotFoundException("Transaction with id " + id + " not found");
+            }
+            log.warn("Failed to update status for transaction {}: it is no longer {}", id, currentStatus);
+            throw new IllegalStateException(
+                "Cannot change transaction status from " + currentStatus + " to " + status
+                    + ": transaction " + id + " has been changed concurrently");
         }
-        
+
+        // only the status change that took effect releases the amount, in the same database transaction
+        if (currentStatus.holdsAmount() && !status.holdsAmount()) {
+            releaseHold(transaction);
+        }
+
         // Update the entity's status in memory (important for code that continues to use this entity)
         transaction.setStatus(status);
         log.debug("Transaction {} status updated to {}", id, status);
     }
-}
\ No newline at end of file
+
+    private void validateTransition(Transaction transaction, TransactionStatus status) {
+        if (transaction.getStatus() == null || status == null) {
+            throw new IllegalArgumentException("Transaction and status must not be null");
+        }
+
+        TransactionStatus currentStatus = transaction.getStatus();
+
+        if (!isStatusTransitionAllowed(currentStatus, status)) {
+            throw new IllegalStateException(
+                "Cannot change transaction status from " + currentStatus + " to " + status);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package info.mackiewicz.bankapp.system.transaction.processing.locking;
+
+import info.mackiewicz.bankapp.system.transaction.processing.locking.model.AccountLease;
+import info.mackiewicz.bankapp.system.transaction.processing.locking.repository.AccountLeaseRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+/**
+ * Service performing database operations on account leases.
+ * Every operation commits in its own transaction, so a lease becomes visible
+ * to other nodes immediately, independent of any surrounding business transaction.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class AccountLeaseService {
+
+    private static final long FIRST_FENCING_TOKEN = 1L;
+
+    private final AccountLeaseRepository leaseRepository;
+
+    /**
+     * Tries to acquire the lease for an account in a single attempt.
+     *
+     * @param accountId ID of the account
+     * @param owner     identifier of the acquiring node
+     * @param now       current moment
+     * @param expiresAt moment the new lease expires at
+     * @return fencing token of the acquired lease, or empty if the lease is held by someone else
+     * @throws org.springframework.dao.DataIntegrityViolationException if another node created the lease concurrently
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public OptionalLong tryAcquire(Integer accountId, String owner, Instant now, Instant expiresAt) {
+        now = truncate(now);
+        expiresAt = truncate(expiresAt);
+        Optional<AccountLease> current = leaseRepository.findById(accountId);
+        if (current.isEmpty()) {
+            leaseRepository.insertLease(accountId, owner, expiresAt, FIRST_FENCING_TOKEN);
+            return OptionalLong.of(FIRST_FENCING_TOKEN);
+        }
+
+        AccountLease lease = current.get();
+        if (lease.isActiveAt(now)) {
+            log.debug("Lease for account {} is held by {} until {}", accountId, lease.getOwner(), lease.getExpiresAt());
+            return OptionalLong.empty();
+        }
+
+        long nextToken = lease.getFencingToken() + 1;
+        int updated = leaseRepository.takeOverLease(accountId, owner, now, expiresAt, lease.getFencingToken(), nextToken);
+        return updated == 1 ? OptionalLong.of(nextToken) : OptionalLong.empty();
+    }
+
+    /**
+     * Releases the lease for an account.
+     *
+     * @return true if the lease was released, false if it had already been lost
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean release(Integer accountId, String owner, long fencingToken, Instant now) {
+        return leaseRepository.releaseLease(accountId, owner, fencingToken, truncate(now)) == 1;
+    }
+
+    /**
+     * Extends all active leases of the given node.
+     *
+     * @return number of renewed leases
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int renew(String owner, Instant now, Instant expiresAt) {
+        return leaseRepository.renewLeases(owner, truncate(now), truncate(expiresAt));
+    }
+
+    // databases round timestamps to their own precision, comparisons must not depend on it
+    private Instant truncate(Instant instant) {
+        return instant.truncatedTo(ChronoUnit.MILLIS);
+    }
+}
@@ -0,0 +1,197 @@
+package info.mackiewicz.bankapp.system.transaction.processing.locking;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fair (FIFO) lock guarding a single account.
+ * <p>
+ * Unlike {@link java.util.concurrent.locks.ReentrantLock} the lock is not bound to threads:
+ * the owner is an arbitrary object - the calling thread for blocking acquisitions
+ * and a {@link LockHandle} for asynchronous ones - so both kinds of callers exclude each other.
+ * Acquisition never blocks; it returns a future completed once ownership is granted.
+ * Acquisitions by the current owner are reentrant.
+ * </p>
+ * When the lock is released, ownership is handed over directly to the oldest waiter,
+ * so new callers can never overtake queued ones.
+ * <p>
+ * The internal state is guarded by a {@link ReentrantLock} rather than the object monitor:
+ * a virtual thread waiting for a monitor blocks its carrier thread, whereas one waiting
+ * for a {@code ReentrantLock} unmounts.
+ */
+public class AccountLock {
+
+    private static final CompletableFuture<Void> GRANTED = CompletableFuture.completedFuture(null);
+
+    private final ReentrantLock state = new ReentrantLock();
+    private final Deque<Waiter> waiters = new ArrayDeque<>();
+    private Object owner;
+    private int holdCount;
+    private long ownedSince;
+
+    /**
+     * Requests ownership of the lock.
+     * <p>
+     * The returned future is completed by the thread releasing the lock once ownership
+     * has been handed over. A caller giving up waiting must cancel the future and then
+     * call {@link #removeWaiter(CompletableFuture)}; if cancelling fails, ownership has
+     * already been granted and must be released.
+     * </p>
+     *
+     * @param candidate object requesting ownership
+     * @return future completed when the candidate owns the lock
+     */
+    public CompletableFuture<Void> acquire(Object candidate) {
+        state.lock();
+        try {
+            if (owner == candidate) {
+                holdCount++;
+                return GRANTED;
+            }
+            if (owner == null) {
+                owner = candidate;
+                holdCount = 1;
+                ownedSince = System.nanoTime();
+                return GRANTED;
+            }
+            CompletableFuture<Void> granted = new CompletableFuture<>();
+            waiters.addLast(new Waiter(candidate, granted));
+            return granted;
+        } finally {
+            state.unlock();
+        }
+    }
+
+    /**
+     * Removes an abandoned acquisition request from the queue.
+     *
+     * @param granted future returned by {@link #acquire(Object)}
+     * @return true if the request was still queued
+     */
+    public boolean removeWaiter(CompletableFuture<Void> granted) {
+        state.lock();
+        try {
+            return waiters.removeIf(waiter -> waiter.granted == granted);
+        } finally {
+            state.unlock();
+        }
+    }
+
+    /**
+     * Releases one hold of the lock, handing ownership over to the oldest waiter
+     * when the last hold is released.
+     *
+     * @param holder current owner of the lock
+     * @throws IllegalMonitorStateException if the lock is not owned by the holder
+     */
+    public void release(Object holder) {
+        Waiter next;
+        state.lock();
+        try {
+            if (owner != holder) {
+                throw new IllegalMonitorStateException("Lock is not owned by " + holder);
+            }
+            if (--holdCount > 0) {
+                return;
+            }
+            next = handOver();
+        } finally {
+            state.unlock();
+        }
+        // waiters' continuations are run outside the state lock; a waiter that gave up
+        // in the meantime refuses the completion, so ownership moves on to the next one
+        while (next != null && !next.granted.complete(null)) {
+            state.lock();
+            try {
+                next = handOver();
+            } finally {
+                state.unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of holds the given owner has on the lock.
+     *
+     * @param candidate possible owner
+     * @return number of holds, or 0 if the lock is not owned by the candidate
+     */
+    public int getHoldCount(Object candidate) {
+        state.lock();
+        try {
+            return owner == candidate ? holdCount : 0;
+        } finally {
+            state.unlock();
+        }
+    }
+
+    /**
+     * Checks whether the lock is owned by the given object.
+     *
+     * @param candidate possible owner
+     * @return true if the candidate owns the lock
+     */
+    public boolean isHeldBy(Object candidate) {
+        state.lock();
+        try {
+            return owner == candidate;
+        } finally {
+            state.unlock();
+        }
+    }
+
+    /**
+     * Checks whether the lock is owned by anyone.
+     *
+     * @return true if the lock is owned
+     */
+    public boolean isLocked() {
+        state.lock();
+        try {
+            return owner != null;
+        } finally {
+            state.unlock();
+        }
+    }
+
+    /**
+     * Returns for how long the current owner has owned the lock.
+     *
+     * @return ownership time in nanoseconds, 0 if the lock is free
+     */
+    public long getOwnedNanos() {
+        state.lock();
+        try {
+            return owner == null ? 0 : System.nanoTime() - ownedSince;
+        } finally {
+            state.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of callers waiting for the lock.
+     *
+     * @return queue length
+     */
+    public int getQueueLength() {
+        state.lock();
+        try {
+            return waiters.size();
+        } finally {
+            state.unlock();
+        }
+    }
+
+    private Waiter handOver() {
+        Waiter next = waiters.pollFirst();
+        owner = next == null ? null : next.owner;
+        holdCount = next == null ? 0 : 1;
+        ownedSince = System.nanoTime();
+        return next;
+    }
+
+    private record Waiter(Object owner, CompletableFuture<Void> granted) {
+    }
+}
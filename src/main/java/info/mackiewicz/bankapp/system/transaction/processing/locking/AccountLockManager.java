@@ -1,10 +1,21 @@
 package info.mackiewicz.bankapp.system.transaction.processing.locking;
 
+import info.mackiewicz.bankapp.core.account.exception.AccountLockException;
 import info.mackiewicz.bankapp.core.account.model.Account;
+import info.mackiewicz.bankapp.system.transaction.processing.locking.metrics.LockMetrics;
+import info.mackiewicz.bankapp.system.transaction.processing.locking.metrics.LockMetrics.Outcome;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 /**
  * Component responsible for managing account locks during operations to prevent
  * race conditions.
@@ -18,71 +29,199 @@ import org.springframework.stereotype.Component;
 public class AccountLockManager {
 
     private final LockingStrategy lockingStrategy;
+    private final LockMetrics lockMetrics;
 
     /**
      * Acquires locks for the specified accounts in a deadlock-free manner.
-     * If both accounts are provided, locks are acquired in order of account IDs.
-     * If only one account is provided, only that account is locked.
+     * Locks are acquired in order of account IDs; null accounts are skipped.
      *
      * @param from Source account to lock, may be null if not applicable
      * @param to   Destination account to lock, may be null if not applicable
      */
     public void lockAccounts(Account from, Account to) {
-        if (from != null && to != null) {
-            lockTwoAccounts(from, to);
-        } else if (from != null) {
-            lock(from);
-        } else if (to != null) {
-            lock(to);
-        }
+        lockAll(accountIds(from, to));
     }
 
     /**
      * Releases locks for the specified accounts in reverse order of acquisition.
-     * If both accounts are provided, unlocks are performed in reverse order of
-     * account IDs.
-     * If only one account is provided, only that account is unlocked.
+     * Null accounts are skipped.
      *
      * @param from Source account to unlock, may be null if not applicable
      * @param to   Destination account to unlock, may be null if not applicable
      */
     public void unlockAccounts(Account from, Account to) {
-        if (from != null && to != null) {
-            unlockTwoAccounts(from, to);
-        } else if (from != null) {
-            unlock(from);
-        } else if (to != null) {
-            unlock(to);
+        unlockAll(accountIds(from, to));
+    }
+
+    /**
+     * Acquires locks for any number of accounts in a deadlock-free manner.
+     * IDs are deduplicated and locked in ascending order. Locking is all-or-nothing:
+     * if any lock cannot be acquired, the locks acquired so far are released and
+     * the exception is rethrown.
+     * <p>
+     * Locks are owned by the calling thread, so the returned handle must be closed
+     * by the same thread, preferably with try-with-resources.
+     * </p>
+     *
+     * @param accountIds IDs of the accounts to lock, null elements are skipped
+     * @return handle releasing all the locks in reverse order
+     * @throws AccountLockException if any of the locks cannot be acquired
+     */
+    public LockHandle lockAll(Collection<Integer> accountIds) {
+        List<Integer> orderedIds = ordered(accountIds);
+        final long startNanos = System.nanoTime();
+        List<Integer> acquired = new ArrayList<>(orderedIds.size());
+        try {
+            for (Integer accountId : orderedIds) {
+                log.debug("Acquiring lock for account ID: {}", accountId);
+                lockingStrategy.lock(accountId);
+                acquired.add(accountId);
+            }
+        } catch (RuntimeException e) {
+            log.debug("Rolling back {} of {} acquired account locks", acquired.size(), orderedIds.size());
+            unlockInReverse(acquired);
+            lockMetrics.recordAccountsWait(outcomeOf(e), System.nanoTime() - startNanos);
+            throw e;
+        }
+        lockMetrics.recordAccountsWait(Outcome.ACQUIRED, System.nanoTime() - startNanos);
+        return new AccountsLockHandle(() -> unlockInReverse(orderedIds), lockMetrics);
+    }
+
+    /**
+     * Releases locks of the specified accounts in reverse order of acquisition.
+     * All locks are released even if some of them fail; the first failure is rethrown
+     * with the others suppressed.
+     *
+     * @param accountIds IDs of the accounts to unlock, null elements are skipped
+     */
+    public void unlockAll(Collection<Integer> accountIds) {
+        unlockInReverse(ordered(accountIds));
+    }
+
+    /**
+     * Acquires locks for the specified accounts without blocking the calling thread.
+     *
+     * @param from Source account to lock, may be null if not applicable
+     * @param to   Destination account to lock, may be null if not applicable
+     * @return future completed with a handle releasing all the locks in reverse order
+     * @see #lockAllAsync(Collection)
+     */
+    public CompletableFuture<LockHandle> lockAccountsAsync(Account from, Account to) {
+        return lockAllAsync(accountIds(from, to));
+    }
+
+    /**
+     * Acquires locks for any number of accounts without blocking the calling thread.
+     * Locks are requested one after another in ascending order of the deduplicated IDs,
+     * so asynchronous and blocking callers share the same deadlock-free ordering.
+     * If any lock cannot be acquired, the locks acquired so far are released.
+     *
+     * @param accountIds IDs of the accounts to lock, null elements are skipped
+     * @return future completed with a handle releasing all the locks in reverse order,
+     * which may be released from any thread
+     */
+    public CompletableFuture<LockHandle> lockAllAsync(Collection<Integer> accountIds) {
+        List<Integer> orderedIds = ordered(accountIds);
+        final long startNanos = System.nanoTime();
+        return lockInOrder(orderedIds, 0, new ArrayList<>(orderedIds.size()))
+                .whenComplete((handle, error) ->
+                        lockMetrics.recordAccountsWait(outcomeOf(error), System.nanoTime() - startNanos));
+    }
+
+    private CompletableFuture<LockHandle> lockInOrder(List<Integer> accountIds, int index, List<LockHandle> acquired) {
+        if (index == accountIds.size()) {
+            return CompletableFuture.completedFuture(
+                    new AccountsLockHandle(() -> releaseInReverse(acquired), lockMetrics));
         }
+        Integer accountId = accountIds.get(index);
+        log.debug("Requesting lock for account ID: {}", accountId);
+        return lockingStrategy.lockAsync(accountId)
+                .whenComplete((handle, error) -> {
+                    if (error != null) {
+                        releaseInReverse(acquired);
+                    }
+                })
+                .thenCompose(handle -> {
+                    acquired.add(handle);
+                    return lockInOrder(accountIds, index + 1, acquired);
+                });
     }
 
-    private void lockTwoAccounts(Account acc1, Account acc2) {
-        if (acc1.getId() < acc2.getId()) {
-            lock(acc1);
-            lock(acc2);
-        } else {
-            lock(acc2);
-            lock(acc1);
+    private void unlockInReverse(List<Integer> orderedIds) {
+        RuntimeException failure = null;
+        for (int i = orderedIds.size() - 1; i >= 0; i--) {
+            Integer accountId = orderedIds.get(i);
+            log.debug("Releasing lock for account ID: {}", accountId);
+            try {
+                lockingStrategy.unlock(accountId);
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
         }
     }
 
-    private void unlockTwoAccounts(Account acc1, Account acc2) {
-        if (acc1.getId() < acc2.getId()) {
-            unlock(acc2);
-            unlock(acc1);
-        } else {
-            unlock(acc1);
-            unlock(acc2);
+    private static void releaseInReverse(List<LockHandle> handles) {
+        for (int i = handles.size() - 1; i >= 0; i--) {
+            handles.get(i).release();
+        }
+    }
+
+    private static List<Integer> accountIds(Account from, Account to) {
+        List<Integer> accountIds = new ArrayList<>(2);
+        if (from != null) {
+            accountIds.add(from.getId());
+        }
+        if (to != null) {
+            accountIds.add(to.getId());
         }
+        return accountIds;
     }
 
-    private void lock(Account account) {
-        log.debug("Acquiring lock for account ID: {}", account.getId());
-        lockingStrategy.lock(account.getId());
+    private static List<Integer> ordered(Collection<Integer> accountIds) {
+        return accountIds.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .sorted()
+                .toList();
     }
 
-    private void unlock(Account account) {
-        log.debug("Releasing lock for account ID: {}", account.getId());
-        lockingStrategy.unlock(account.getId());
+    private static Outcome outcomeOf(Throwable error) {
+        if (error == null) {
+            return Outcome.ACQUIRED;
+        }
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof AccountLockException e && e.wasInterrupted() ? Outcome.INTERRUPTED : Outcome.TIMEOUT;
+    }
+
+    /**
+     * Handle releasing the locks of a group of accounts; only the first release has any effect.
+     */
+    private static final class AccountsLockHandle implements LockHandle {
+
+        private final Runnable releaser;
+        private final LockMetrics lockMetrics;
+        private final long acquiredAt = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private AccountsLockHandle(Runnable releaser, LockMetrics lockMetrics) {
+            this.releaser = releaser;
+            this.lockMetrics = lockMetrics;
+        }
+
+        @Override
+        public void release() {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            lockMetrics.recordAccountsHold(System.nanoTime() - acquiredAt);
+            releaser.run();
+        }
     }
-}
\ No newline at end of file
+}
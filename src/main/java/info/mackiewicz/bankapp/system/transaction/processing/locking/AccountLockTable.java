@@ -0,0 +1,70 @@
+package info.mackiewicz.bankapp.system.transaction.processing.locking;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reference-counted table of per-account locks.
+ * <p>
+ * Every caller interested in an account lock (holder or waiter) retains the entry first
+ * and releases it when done. The entry is removed as soon as the last reference is released,
+ * so the table only ever contains accounts that are currently locked or contended,
+ * no matter how many distinct accounts have been locked over the application's lifetime.
+ * </p>
+ * Because every account still gets its own lock, the ordering by account ID used
+ * by {@link AccountLockManager} remains deadlock-free.
+ */
+public class AccountLockTable {
+
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the lock for the given account and registers a reference to it.
+     * Every call must be paired with exactly one {@link #release(Integer)}.
+     *
+     * @param accountId ID of the account
+     * @return lock guarding the account
+     */
+    public AccountLock retain(Integer accountId) {
+        // reference count is only mutated inside compute, which is atomic per key
+        return entries.compute(accountId, (id, entry) -> {
+            Entry result = entry == null ? new Entry() : entry;
+            result.references++;
+            return result;
+        }).lock;
+    }
+
+    /**
+     * Drops one reference to the given account lock, removing the entry once it is unused.
+     *
+     * @param accountId ID of the account
+     */
+    public void release(Integer accountId) {
+        entries.computeIfPresent(accountId, (id, entry) -> --entry.references == 0 ? null : entry);
+    }
+
+    /**
+     * Returns the lock for the given account without registering a reference.
+     *
+     * @param accountId ID of the account
+     * @return lock guarding the account, or null if nobody holds or waits for it
+     */
+    public AccountLock get(Integer accountId) {
+        Entry entry = entries.get(accountId);
+        return entry == null ? null : entry.lock;
+    }
+
+    /**
+     * Returns the number of accounts currently present in the table.
+     *
+     * @return number of locked or contended accounts
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private static final class Entry {
+        private final AccountLock lock = new AccountLock();
+        private int references;
+    }
+}
@@ -1,27 +1,42 @@
 package info.mackiewicz.bankapp.system.transaction.processing.locking;
 
 import info.mackiewicz.bankapp.core.account.exception.AccountLockException;
+import info.mackiewicz.bankapp.system.transaction.processing.locking.metrics.LockMetrics;
+import info.mackiewicz.bankapp.system.transaction.processing.locking.metrics.LockMetrics.Mode;
+import info.mackiewicz.bankapp.system.transaction.processing.locking.metrics.LockMetrics.Outcome;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.MDC;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Implementation of resource locking strategy using exponential backoff.
  * Class responsible for low-level implementation of locking mechanism,
  * timeout handling and retry attempts.
+ * Locks are kept in a reference-counted {@link AccountLockTable}, so memory usage
+ * is bounded by the number of concurrently locked accounts.
+ * Blocking callers own locks by thread, while {@link #lockAsync(Integer)} hands out
+ * {@link LockHandle}s that wait in the same FIFO queue without occupying a thread.
+ * Wait and hold times, attempts and contended accounts are reported to {@link LockMetrics}.
  */
 @Slf4j
 @Component
-@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.locking.mode", havingValue = "local", matchIfMissing = true)
 public class AccountLockingStrategy implements LockingStrategy {
 
     private final LockingConfig lockingConfig;
+    private final LockMetrics lockMetrics;
+
+    @Getter
+    private final AccountLockTable lockTable = new AccountLockTable();
 
     @Getter
     private final AtomicInteger lockCounter = new AtomicInteger(0);
@@ -29,6 +44,12 @@ public class AccountLockingStrategy implements LockingStrategy {
     @Getter
     private final AtomicInteger unlockCounter = new AtomicInteger(0);
 
+    public AccountLockingStrategy(LockingConfig lockingConfig, LockMetrics lockMetrics) {
+        this.lockingConfig = lockingConfig;
+        this.lockMetrics = lockMetrics;
+        lockMetrics.bindLockTable(lockTable);
+    }
+
     /**
      * Attempts to lock a resource with the given ID.
      * Uses exponential backoff with jitter in case of failure.
@@ -41,8 +62,12 @@ public class AccountLockingStrategy implements LockingStrategy {
         MDC.put("accountId", accountId.toString());
         try {
             log.debug("Attempting to acquire lock");
-            ReentrantLock lock = LockingUtils.getOrCreateLock(accountId);
+            AccountLock lock = lockTable.retain(accountId);
             final long startTime = System.currentTimeMillis();
+            final long startNanos = System.nanoTime();
+            if (lock.isLocked() && !lock.isHeldBy(Thread.currentThread())) {
+                lockMetrics.recordContention(accountId);
+            }
 
             int attempts = 0;
             try {
@@ -51,6 +76,7 @@ public class AccountLockingStrategy implements LockingStrategy {
                         log.debug("Successfully acquired lock after {} attempts",
                                 attempts + 1);
                         lockCounter.incrementAndGet();
+                        recordAcquisition(Outcome.ACQUIRED, attempts + 1, startNanos);
                         return;
                     }
                     attempts++;
@@ -61,11 +87,15 @@ public class AccountLockingStrategy implements LockingStrategy {
 
                 log.error("Failed to acquire lock after {} attempts",
                         lockingConfig.maxAttempts());
+                lockTable.release(accountId);
+                recordAcquisition(Outcome.TIMEOUT, lockingConfig.maxAttempts(), startNanos);
                 handleMaxAttemptsExceeded(accountId, startTime);
             } catch (InterruptedException e) {
                 long totalTime = System.currentTimeMillis() - startTime;
                 log.error("Thread interrupted while acquiring lock after {} attempts and {}ms",
                         attempts + 1, totalTime);
+                lockTable.release(accountId);
+                recordAcquisition(Outcome.INTERRUPTED, attempts + 1, startNanos);
                 handleInterruptedException(accountId, attempts, startTime);
             }
         } finally {
@@ -73,8 +103,44 @@ public class AccountLockingStrategy implements LockingStrategy {
         }
     }
 
-    private boolean tryAcquireLock(ReentrantLock lock) throws InterruptedException {
-        return lock.tryLock(lockingConfig.timeout(), TimeUnit.MILLISECONDS);
+    private void recordAcquisition(Outcome outcome, int attempts, long startNanos) {
+        lockMetrics.recordWait(Mode.SYNC, outcome, System.nanoTime() - startNanos);
+        lockMetrics.recordAttempts(outcome, attempts);
+    }
+
+    private boolean tryAcquireLock(AccountLock lock) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        Thread owner = Thread.currentThread();
+        CompletableFuture<Void> granted = lock.acquire(owner);
+        try {
+            granted.get(lockingConfig.timeout(), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            // the lock may have been handed over right after the timeout
+            return !abandon(lock, granted);
+        } catch (InterruptedException e) {
+            if (!abandon(lock, granted)) {
+                lock.release(owner);
+            }
+            throw e;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Lock acquisition failed unexpectedly", e.getCause());
+        }
+    }
+
+    /**
+     * Gives up a pending acquisition.
+     *
+     * @return true if the request was abandoned, false if the lock had already been granted
+     */
+    private boolean abandon(AccountLock lock, CompletableFuture<Void> granted) {
+        if (granted.cancel(false)) {
+            lock.removeWaiter(granted);
+            return true;
+        }
+        return false;
     }
 
     private void handleBackoff(int attempts) throws InterruptedException {
@@ -84,14 +150,8 @@ public class AccountLockingStrategy implements LockingStrategy {
 
     private void handleInterruptedException(Integer resourceId, int attempts, long startTime) {
         Thread.currentThread().interrupt();
-        // release the lock if it was acquired before the interruption
-        // this is a best effort approach, as the lock may not be held by this thread
-        // anymore
-        ReentrantLock lock = LockingUtils.getOrCreateLock(resourceId);
-        if (lock.isHeldByCurrentThread()) {
-            lock.unlock();
-            unlockCounter.incrementAndGet();
-        }
+        // the interrupted attempt never acquired the lock, so there is nothing to unlock here;
+        // locks held from earlier (reentrant) acquisitions stay with their owner
         throw new AccountLockException(
                 "Thread was interrupted while trying to acquire lock",
                 resourceId,
@@ -109,6 +169,64 @@ public class AccountLockingStrategy implements LockingStrategy {
                 false);
     }
 
+    /**
+     * Requests the lock on an account without blocking the calling thread.
+     * The request waits in the account's FIFO queue for at most {@link LockingConfig#asyncTimeout()}.
+     * No thread is parked while waiting, and ordered acquisition already rules out deadlocks,
+     * so the timeout only guards against holders that never release.
+     * Continuations attached to the returned future run on the thread releasing the lock
+     * unless an executor is given, so they should be dispatched with the {@code *Async} variants.
+     *
+     * @param accountId ID of the account to lock
+     * @return future completed with the lock handle, or exceptionally with {@link AccountLockException}
+     */
+    @Override
+    public CompletableFuture<LockHandle> lockAsync(Integer accountId) {
+        AccountLock lock = lockTable.retain(accountId);
+        AccountLockHandle handle = new AccountLockHandle(accountId, lock);
+        final long startTime = System.currentTimeMillis();
+        final long startNanos = System.nanoTime();
+
+        CompletableFuture<Void> granted = lock.acquire(handle);
+        if (granted.isDone()) {
+            log.debug("Acquired lock for account {} asynchronously without waiting", accountId);
+            lockCounter.incrementAndGet();
+            lockMetrics.recordWait(Mode.ASYNC, Outcome.ACQUIRED, System.nanoTime() - startNanos);
+            return CompletableFuture.completedFuture(handle);
+        }
+        lockMetrics.recordContention(accountId);
+        return granted.orTimeout(lockingConfig.asyncTimeout(), TimeUnit.MILLISECONDS)
+                .handle((ignored, error) -> {
+                    if (error == null) {
+                        lockCounter.incrementAndGet();
+                        lockMetrics.recordWait(Mode.ASYNC, Outcome.ACQUIRED, System.nanoTime() - startNanos);
+                        return handle;
+                    }
+                    lock.removeWaiter(granted);
+                    lockTable.release(accountId);
+                    lockMetrics.recordWait(Mode.ASYNC, Outcome.TIMEOUT, System.nanoTime() - startNanos);
+                    log.error("Failed to acquire lock for account {} asynchronously within {}ms",
+                            accountId, lockingConfig.asyncTimeout());
+                    throw new AccountLockException(
+                            "Failed to acquire lock within the asynchronous timeout",
+                            accountId,
+                            1,
+                            System.currentTimeMillis() - startTime,
+                            false);
+                });
+    }
+
+    /**
+     * Returns how many times the current thread holds the lock on a resource.
+     *
+     * @param resourceId ID of the resource
+     * @return hold count of the current thread, 0 if it does not hold the lock
+     */
+    public int getHoldCount(Integer resourceId) {
+        AccountLock lock = lockTable.get(resourceId);
+        return lock == null ? 0 : lock.getHoldCount(Thread.currentThread());
+    }
+
     /**
      * Releases the lock on a resource.
      *
@@ -119,17 +237,24 @@ public class AccountLockingStrategy implements LockingStrategy {
         MDC.put("accountId", resourceId.toString());
         try {
             log.debug("Releasing lock");
-            ReentrantLock lock = LockingUtils.getOrCreateLock(resourceId);
-            tryUnlock(resourceId, lock);
+            tryUnlock(resourceId, lockTable.get(resourceId));
             log.debug("Successfully released lock");
         } finally {
             MDC.clear();
         }
     }
 
-    private void tryUnlock(Integer resourceId, ReentrantLock lock) {
+    private void tryUnlock(Integer resourceId, AccountLock lock) {
         try {
-            lock.unlock();
+            if (lock == null) {
+                throw new IllegalMonitorStateException("No lock registered for resource");
+            }
+            Thread owner = Thread.currentThread();
+            if (lock.getHoldCount(owner) == 1) {
+                lockMetrics.recordHold(Mode.SYNC, lock.getOwnedNanos());
+            }
+            lock.release(owner);
+            lockTable.release(resourceId);
             unlockCounter.incrementAndGet();
         } catch (IllegalMonitorStateException e) {
             handleUnlockException(resourceId, e);
@@ -140,4 +265,36 @@ public class AccountLockingStrategy implements LockingStrategy {
         String message = String.format("Cannot release lock that is not held for resource ID: %d", resourceId);
         throw new IllegalStateException(message, e);
     }
-}
\ No newline at end of file
+
+    /**
+     * Handle of an account lock acquired with {@link #lockAsync(Integer)}; the handle itself is the lock owner.
+     */
+    private final class AccountLockHandle implements LockHandle {
+
+        private final Integer accountId;
+        private final AccountLock lock;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private AccountLockHandle(Integer accountId, AccountLock lock) {
+            this.accountId = accountId;
+            this.lock = lock;
+        }
+
+        @Override
+        public void release() {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            log.debug("Releasing asynchronously acquired lock for account {}", accountId);
+            lockMetrics.recordHold(Mode.ASYNC, lock.getOwnedNanos());
+            lock.release(this);
+            lockTable.release(accountId);
+            unlockCounter.incrementAndGet();
+        }
+
+        @Override
+        public String toString() {
+            return "LockHandle[account=" + accountId + "]";
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package info.mackiewicz.bankapp.system.transaction.processing.locking;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.UUID;
+
+@ConfigurationProperties(prefix = "app.locking.database")
+public record DatabaseLockingConfig(long leaseDuration,
+        long heartbeatInterval,
+        String nodeId) {
+
+    // Default values for the properties
+    // The heartbeat has to fire several times per lease, otherwise live nodes would lose their leases
+    public DatabaseLockingConfig {
+        if (leaseDuration <= 0)
+            leaseDuration = 10000;
+        if (heartbeatInterval <= 0)
+            heartbeatInterval = 3000;
+        if (heartbeatInterval >= leaseDuration)
+            heartbeatInterval = leaseDuration / 3;
+        if (nodeId == null || nodeId.isBlank())
+            nodeId = UUID.randomUUID().toString();
+    }
+}
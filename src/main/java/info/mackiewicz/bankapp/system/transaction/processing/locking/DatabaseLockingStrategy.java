@@ -0,0 +1,329 @@
+package info.mackiewicz.bankapp.system.transaction.processing.locking;
+
+import info.mackiewicz.bankapp.core.account.exception.AccountLockException;
+import info.mackiewicz.bankapp.core.account.model.dto.FencingToken;
+import info.mackiewicz.bankapp.system.transaction.processing.locking.metrics.LockMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cluster-wide locking strategy coordinating application nodes through the database.
+ * <p>
+ * Threads of a single node are serialized by an in-memory {@link AccountLockingStrategy} first,
+ * then the first holder on the node acquires a lease in the {@code account_locks} table.
+ * Leases are renewed by a heartbeat, so leases of a crashed node expire after
+ * {@code app.locking.database.lease-duration} instead of blocking the account.
+ * </p>
+ * Enabled with {@code app.locking.mode=database}. Node clocks are expected to be synchronized.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.locking.mode", havingValue = "database")
+public class DatabaseLockingStrategy implements LockingStrategy {
+
+    private final LockingConfig lockingConfig;
+    private final DatabaseLockingConfig databaseLockingConfig;
+    private final AccountLeaseService leaseService;
+    private final TaskScheduler taskScheduler;
+    private final Executor leaseExecutor;
+    private final AccountLockingStrategy localStrategy;
+
+    // fencing tokens of leases currently held by this node
+    private final Map<Integer, Long> heldLeases = new ConcurrentHashMap<>();
+
+    private ScheduledFuture<?> heartbeat;
+
+    @Getter
+    private final AtomicInteger lockCounter = new AtomicInteger(0);
+
+    @Getter
+    private final AtomicInteger unlockCounter = new AtomicInteger(0);
+
+    public DatabaseLockingStrategy(LockingConfig lockingConfig,
+                                   DatabaseLockingConfig databaseLockingConfig,
+                                   AccountLeaseService leaseService,
+                                   TaskScheduler taskScheduler,
+                                   @Qualifier("lockHolderExecutor") Executor leaseExecutor,
+                                   LockMetrics lockMetrics) {
+        this.lockingConfig = lockingConfig;
+        this.databaseLockingConfig = databaseLockingConfig;
+        this.leaseService = leaseService;
+        this.taskScheduler = taskScheduler;
+        this.leaseExecutor = leaseExecutor;
+        this.localStrategy = new AccountLockingStrategy(lockingConfig, lockMetrics);
+    }
+
+    @PostConstruct
+    void startHeartbeat() {
+        log.info("Database locking enabled for node {} (lease {}ms, heartbeat {}ms)",
+                databaseLockingConfig.nodeId(),
+                databaseLockingConfig.leaseDuration(),
+                databaseLockingConfig.heartbeatInterval());
+        heartbeat = taskScheduler.scheduleWithFixedDelay(this::renewLeases,
+                Duration.ofMillis(databaseLockingConfig.heartbeatInterval()));
+    }
+
+    @PreDestroy
+    void stopHeartbeat() {
+        if (heartbeat != null) {
+            heartbeat.cancel(false);
+        }
+    }
+
+    /**
+     * Locks the account within this node and acquires its cluster-wide lease.
+     * Reentrant acquisitions reuse the lease already held by the node.
+     *
+     * @param accountId ID of the account to lock
+     * @throws AccountLockException if the local lock or the lease cannot be acquired
+     */
+    @Override
+    public void lock(Integer accountId) {
+        localStrategy.lock(accountId);
+        if (localStrategy.getHoldCount(accountId) == 1) {
+            try {
+                acquireLease(accountId);
+            } catch (RuntimeException e) {
+                localStrategy.unlock(accountId);
+                throw e;
+            }
+        }
+        lockCounter.incrementAndGet();
+    }
+
+    /**
+     * Releases the account lock, giving the lease back once the last local hold is released.
+     *
+     * @param accountId ID of the account to unlock
+     */
+    @Override
+    public void unlock(Integer accountId) {
+        if (localStrategy.getHoldCount(accountId) == 1) {
+            releaseLease(accountId);
+        }
+        localStrategy.unlock(accountId);
+        unlockCounter.incrementAndGet();
+    }
+
+    /**
+     * Requests the account lock without blocking the calling thread.
+     * The local lock is awaited asynchronously; the lease is then requested on the lock holder
+     * executor, as lease acquisition talks to the database. A lease held by another node is
+     * retried after a backoff scheduled on the task scheduler, so no thread sleeps while
+     * holding the local lock.
+     *
+     * @param accountId ID of the account to lock
+     * @return future completed with the lock handle, or exceptionally with {@link AccountLockException}
+     */
+    @Override
+    public CompletableFuture<LockHandle> lockAsync(Integer accountId) {
+        return localStrategy.lockAsync(accountId).thenCompose(localHandle -> {
+            CompletableFuture<LockHandle> leased = new CompletableFuture<>();
+            submitLeaseAttempt(new LeaseRequest(accountId, localHandle, leased, System.currentTimeMillis()), 1);
+            return leased;
+        });
+    }
+
+    /**
+     * Returns the lease this node holds on the account. Threads of the node are serialized by the
+     * local lock, so the lease is the one taken for the current holder of the account lock.
+     *
+     * @param accountId ID of the account
+     * @return the lease held on the account, empty if this node does not hold it
+     */
+    @Override
+    public Optional<FencingToken> fencingToken(Integer accountId) {
+        return Optional.ofNullable(heldLeases.get(accountId))
+                .map(token -> new FencingToken(databaseLockingConfig.nodeId(), token));
+    }
+
+    /**
+     * Extends all leases held by this node. Invoked periodically by the heartbeat.
+     */
+    void renewLeases() {
+        if (heldLeases.isEmpty()) {
+            return;
+        }
+        try {
+            Instant now = Instant.now();
+            int renewed = leaseService.renew(databaseLockingConfig.nodeId(), now, leaseExpiry(now));
+            log.debug("Renewed {} of {} held leases", renewed, heldLeases.size());
+        } catch (DataAccessException e) {
+            log.error("Failed to renew account leases: {}", e.getMessage());
+        }
+    }
+
+    private void acquireLease(Integer accountId) {
+        MDC.put("accountId", accountId.toString());
+        final long startTime = System.currentTimeMillis();
+        int attempts = 0;
+        try {
+            while (attempts < lockingConfig.maxAttempts()) {
+                OptionalLong fencingToken = tryAcquireLease(accountId);
+                if (fencingToken.isPresent()) {
+                    heldLeases.put(accountId, fencingToken.getAsLong());
+                    log.debug("Acquired lease with fencing token {} after {} attempts",
+                            fencingToken.getAsLong(), attempts + 1);
+                    return;
+                }
+                attempts++;
+                if (attempts < lockingConfig.maxAttempts()) {
+                    Thread.sleep(LockingUtils.calculateBackoffDelay(attempts,
+                            lockingConfig.maxDelay(), lockingConfig.baseDelay()));
+                }
+            }
+            log.error("Failed to acquire lease after {} attempts", lockingConfig.maxAttempts());
+            throw new AccountLockException(
+                    "Failed to acquire database lease after maximum attempts",
+                    accountId,
+                    lockingConfig.maxAttempts(),
+                    System.currentTimeMillis() - startTime,
+                    false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountLockException(
+                    "Thread was interrupted while trying to acquire database lease",
+                    accountId,
+                    attempts + 1,
+                    System.currentTimeMillis() - startTime,
+                    true);
+        } finally {
+            MDC.clear();
+        }
+    }
+
+    private void submitLeaseAttempt(LeaseRequest request, int attempt) {
+        try {
+            leaseExecutor.execute(() -> attemptLease(request, attempt));
+        } catch (RejectedExecutionException e) {
+            request.fail(e);
+        }
+    }
+
+    private void attemptLease(LeaseRequest request, int attempt) {
+        Integer accountId = request.accountId();
+        OptionalLong fencingToken;
+        try {
+            fencingToken = tryAcquireLease(accountId);
+        } catch (RuntimeException e) {
+            request.fail(e);
+            return;
+        }
+        if (fencingToken.isPresent()) {
+            heldLeases.put(accountId, fencingToken.getAsLong());
+            lockCounter.incrementAndGet();
+            log.debug("Acquired lease for account {} with fencing token {} after {} attempts",
+                    accountId, fencingToken.getAsLong(), attempt);
+            request.leased().complete(new LeaseHandle(accountId, request.localHandle()));
+            return;
+        }
+        if (attempt >= lockingConfig.maxAttempts()) {
+            log.error("Failed to acquire lease for account {} after {} attempts", accountId, attempt);
+            request.fail(new AccountLockException(
+                    "Failed to acquire database lease after maximum attempts",
+                    accountId,
+                    attempt,
+                    System.currentTimeMillis() - request.startTime(),
+                    false));
+            return;
+        }
+        long delay = LockingUtils.calculateBackoffDelay(attempt, lockingConfig.maxDelay(), lockingConfig.baseDelay());
+        try {
+            taskScheduler.schedule(() -> submitLeaseAttempt(request, attempt + 1), Instant.now().plusMillis(delay));
+        } catch (RejectedExecutionException e) {
+            request.fail(e);
+        }
+    }
+
+    private OptionalLong tryAcquireLease(Integer accountId) {
+        Instant now = Instant.now();
+        try {
+            return leaseService.tryAcquire(accountId, databaseLockingConfig.nodeId(), now, leaseExpiry(now));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Lease was created concurrently by another node");
+            return OptionalLong.empty();
+        }
+    }
+
+    private void releaseLease(Integer accountId) {
+        Long fencingToken = heldLeases.remove(accountId);
+        if (fencingToken == null) {
+            return;
+        }
+        try {
+            if (!leaseService.release(accountId, databaseLockingConfig.nodeId(), fencingToken, Instant.now())) {
+                log.warn("Lease for account {} with fencing token {} was lost before release",
+                        accountId, fencingToken);
+            }
+        } catch (DataAccessException e) {
+            log.error("Failed to release lease for account {}, it will expire within {}ms: {}",
+                    accountId, databaseLockingConfig.leaseDuration(), e.getMessage());
+        }
+    }
+
+    private Instant leaseExpiry(Instant now) {
+        return now.plusMillis(databaseLockingConfig.leaseDuration());
+    }
+
+    /**
+     * Lease requested asynchronously for a local lock already held.
+     */
+    private record LeaseRequest(Integer accountId, LockHandle localHandle,
+                                CompletableFuture<LockHandle> leased, long startTime) {
+
+        /**
+         * Gives the local lock back and completes the request exceptionally.
+         */
+        void fail(Throwable error) {
+            localHandle.release();
+            leased.completeExceptionally(error);
+        }
+    }
+
+    /**
+     * Handle of an asynchronously acquired lock: owns the local lock and the node's lease.
+     */
+    private final class LeaseHandle implements LockHandle {
+
+        private final Integer accountId;
+        private final LockHandle localHandle;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private LeaseHandle(Integer accountId, LockHandle localHandle) {
+            this.accountId = accountId;
+            this.localHandle = localHandle;
+        }
+
+        @Override
+        public void release() {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            releaseLease(accountId);
+            localHandle.release();
+            unlockCounter.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package info.mackiewicz.bankapp.system.transaction.processing.locking;
+
+/**
+ * Ownership of one or more locks acquired asynchronously.
+ * <p>
+ * Handles are not bound to the thread that acquired them and can be released from any thread.
+ * Releasing a handle more than once has no effect.
+ * </p>
+ */
+public interface LockHandle extends AutoCloseable {
+
+    /**
+     * Releases the locks held by this handle.
+     */
+    void release();
+
+    @Override
+    default void close() {
+        release();
+    }
+}
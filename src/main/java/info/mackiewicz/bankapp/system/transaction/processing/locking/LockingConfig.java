@@ -6,7 +6,8 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 public record LockingConfig(int maxAttempts,
         long baseDelay,
         long maxDelay,
-        long timeout) {
+        long timeout,
+        long asyncTimeout) {
 
     // Default values for the properties
     // These values can be overridden in application.properties or application.yml
@@ -22,5 +23,10 @@ public record LockingConfig(int maxAttempts,
             maxDelay = baseDelay;
         if (timeout <= 0)
             timeout = 200;
+        // Asynchronous waiters occupy no thread and wait in FIFO order, so they only
+        // need a safety net against holders that never release
+        if (asyncTimeout <= 0)
+            asyncTimeout = 30000;
     }
+
 }
@@ -1,10 +1,14 @@
 package info.mackiewicz.bankapp.system.transaction.processing.locking;
 
 import info.mackiewicz.bankapp.core.account.exception.AccountLockException;
+import info.mackiewicz.bankapp.core.account.model.dto.FencingToken;
+import info.mackiewicz.bankapp.core.account.service.interfaces.AccountFencing;
 
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicInteger;
 
-public interface LockingStrategy {
+public interface LockingStrategy extends AccountFencing {
 
     AtomicInteger getLockCounter();
 
@@ -27,4 +31,24 @@ public interface LockingStrategy {
      */
     void unlock(Integer resourceId);
 
-}
\ No newline at end of file
+    /**
+     * Requests the lock on the resource with the given ID without blocking the calling thread.
+     * The returned handle is not bound to any thread and must be released exactly once.
+     *
+     * @param resourceId ID of the resource to lock
+     * @return future completed with the lock handle once the lock is granted, or completed
+     * exceptionally with {@link AccountLockException} if it is not granted in time
+     */
+    CompletableFuture<LockHandle> lockAsync(Integer resourceId);
+
+    /**
+     * Locks held only within this node cannot be lost, so by default balance writes are not fenced.
+     *
+     * @param resourceId ID of the account
+     * @return the lease this node holds on the account, empty if balance writes to it are not fenced
+     */
+    @Override
+    default Optional<FencingToken> fencingToken(Integer resourceId) {
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,94 @@
+package info.mackiewicz.bankapp.system.transaction.processing.locking.metrics;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tracks the most contended accounts with the Space-Saving algorithm.
+ * <p>
+ * At most {@code capacity} accounts are tracked. When an untracked account is recorded and the
+ * tracker is full, it replaces the account with the lowest count and inherits that count,
+ * which is remembered as the possible overestimation. Any account contended more often than
+ * {@code total / capacity} times is guaranteed to be tracked, so memory stays constant
+ * no matter how many accounts exist.
+ * </p>
+ */
+public class HotAccountTracker {
+
+    private final int capacity;
+    private final Map<Integer, Slot> slots;
+
+    public HotAccountTracker(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.slots = new HashMap<>(capacity * 2);
+    }
+
+    /**
+     * Records one contention event for the given account.
+     *
+     * @param accountId ID of the contended account
+     */
+    public synchronized void record(Integer accountId) {
+        Slot slot = slots.get(accountId);
+        if (slot != null) {
+            slot.count++;
+            return;
+        }
+        if (slots.size() < capacity) {
+            slots.put(accountId, new Slot(1, 0));
+            return;
+        }
+        Map.Entry<Integer, Slot> minimum = slots.entrySet().stream()
+                .min(Comparator.comparingLong(entry -> entry.getValue().count))
+                .orElseThrow();
+        long evictedCount = minimum.getValue().count;
+        slots.remove(minimum.getKey());
+        slots.put(accountId, new Slot(evictedCount + 1, evictedCount));
+    }
+
+    /**
+     * Returns the most contended accounts, most contended first.
+     *
+     * @param limit maximum number of accounts to return
+     * @return tracked accounts with their estimated contention counts
+     */
+    public synchronized List<HotAccount> top(int limit) {
+        return slots.entrySet().stream()
+                .map(entry -> new HotAccount(entry.getKey(), entry.getValue().count, entry.getValue().error))
+                .sorted(Comparator.comparingLong(HotAccount::contentions).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Forgets all tracked accounts.
+     */
+    public synchronized void reset() {
+        slots.clear();
+    }
+
+    /**
+     * Contended account as estimated by the tracker.
+     *
+     * @param accountId   ID of the account
+     * @param contentions estimated number of contended acquisitions
+     * @param error       maximum overestimation of {@code contentions}
+     */
+    public record HotAccount(Integer accountId, long contentions, long error) {
+    }
+
+    private static final class Slot {
+        private long count;
+        private final long error;
+
+        private Slot(long count, long error) {
+            this.count = count;
+            this.error = error;
+        }
+    }
+}
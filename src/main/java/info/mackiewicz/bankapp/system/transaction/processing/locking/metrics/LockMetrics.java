@@ -0,0 +1,145 @@
+package info.mackiewicz.bankapp.system.transaction.processing.locking.metrics;
+
+import info.mackiewicz.bankapp.system.transaction.processing.locking.AccountLockTable;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer instrumentation of account locking.
+ * <p>
+ * Meters:
+ * <ul>
+ *     <li>{@code bankapp.lock.wait} - time to acquire a single account lock, by mode and outcome</li>
+ *     <li>{@code bankapp.lock.hold} - time a single account lock was held, by mode</li>
+ *     <li>{@code bankapp.lock.attempts} - attempts needed by blocking acquisitions, by outcome</li>
+ *     <li>{@code bankapp.lock.failures} - failed acquisitions, by mode and outcome</li>
+ *     <li>{@code bankapp.lock.accounts.wait} / {@code bankapp.lock.accounts.hold} - the same
+ *     for all accounts of a transaction, as locked by the AccountLockManager</li>
+ *     <li>{@code bankapp.lock.accounts.locked} - accounts currently locked or contended</li>
+ * </ul>
+ * Contended acquisitions are also fed to a {@link HotAccountTracker}.
+ */
+@Component
+public class LockMetrics {
+
+    static final int HOT_ACCOUNT_CAPACITY = 64;
+
+    private final MeterRegistry registry;
+
+    @Getter
+    private final HotAccountTracker hotAccounts = new HotAccountTracker(HOT_ACCOUNT_CAPACITY);
+
+    private volatile AccountLockTable lockTable;
+
+    public LockMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * How the lock was requested.
+     */
+    public enum Mode {
+        SYNC, ASYNC;
+
+        private String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * Result of a lock request.
+     */
+    public enum Outcome {
+        ACQUIRED, TIMEOUT, INTERRUPTED;
+
+        private String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * Publishes the number of entries in the lock table as a gauge.
+     *
+     * @param lockTable table of the active locking strategy
+     */
+    public void bindLockTable(AccountLockTable lockTable) {
+        this.lockTable = lockTable;
+        Gauge.builder("bankapp.lock.accounts.locked", lockTable, AccountLockTable::size)
+                .description("Accounts currently locked or waited for")
+                .register(registry);
+    }
+
+    /**
+     * Returns the number of accounts currently locked or contended.
+     *
+     * @return size of the bound lock table, 0 if none is bound
+     */
+    public int lockedAccounts() {
+        AccountLockTable table = lockTable;
+        return table == null ? 0 : table.size();
+    }
+
+    public void recordContention(Integer accountId) {
+        hotAccounts.record(accountId);
+    }
+
+    public void recordWait(Mode mode, Outcome outcome, long nanos) {
+        Timer.builder("bankapp.lock.wait")
+                .description("Time to acquire an account lock")
+                .tag("mode", mode.tag())
+                .tag("outcome", outcome.tag())
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        if (outcome != Outcome.ACQUIRED) {
+            Counter.builder("bankapp.lock.failures")
+                    .description("Account lock requests that were not granted")
+                    .tag("mode", mode.tag())
+                    .tag("outcome", outcome.tag())
+                    .register(registry)
+                    .increment();
+        }
+    }
+
+    public void recordHold(Mode mode, long nanos) {
+        Timer.builder("bankapp.lock.hold")
+                .description("Time an account lock was held")
+                .tag("mode", mode.tag())
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordAttempts(Outcome outcome, int attempts) {
+        DistributionSummary.builder("bankapp.lock.attempts")
+                .description("Attempts made by blocking lock acquisitions")
+                .tag("outcome", outcome.tag())
+                .register(registry)
+                .record(attempts);
+    }
+
+    public void recordAccountsWait(Outcome outcome, long nanos) {
+        Timer.builder("bankapp.lock.accounts.wait")
+                .description("Time to acquire the locks of all accounts of a transaction")
+                .tag("outcome", outcome.tag())
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordAccountsHold(long nanos) {
+        Timer.builder("bankapp.lock.accounts.hold")
+                .description("Time the locks of all accounts of a transaction were held")
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
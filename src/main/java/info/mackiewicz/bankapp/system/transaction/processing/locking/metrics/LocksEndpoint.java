@@ -0,0 +1,63 @@
+package info.mackiewicz.bankapp.system.transaction.processing.locking.metrics;
+
+import info.mackiewicz.bankapp.system.transaction.processing.locking.LockingStrategy;
+import info.mackiewicz.bankapp.system.transaction.processing.locking.metrics.HotAccountTracker.HotAccount;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Actuator endpoint ({@code /actuator/locks}) reporting the state of account locking
+ * and the most contended accounts.
+ * Timers and histograms are published through Micrometer, see {@link LockMetrics}.
+ */
+@Component
+@Endpoint(id = "locks")
+@RequiredArgsConstructor
+public class LocksEndpoint {
+
+    private static final int DEFAULT_LIMIT = 10;
+
+    private final LockingStrategy lockingStrategy;
+    private final LockMetrics lockMetrics;
+
+    /**
+     * Returns the current locking state.
+     *
+     * @param limit maximum number of hot accounts to report, 10 by default
+     * @return locking report
+     */
+    @ReadOperation
+    public LocksReport locks(@Nullable Integer limit) {
+        int hotAccountLimit = limit == null || limit <= 0 ? DEFAULT_LIMIT : limit;
+        return new LocksReport(
+                lockMetrics.lockedAccounts(),
+                lockingStrategy.getLockCounter().get(),
+                lockingStrategy.getUnlockCounter().get(),
+                lockMetrics.getHotAccounts().top(hotAccountLimit));
+    }
+
+    /**
+     * Clears the hot account statistics, e.g. after a load test.
+     */
+    @WriteOperation
+    public void resetHotAccounts() {
+        lockMetrics.getHotAccounts().reset();
+    }
+
+    /**
+     * Locking state.
+     *
+     * @param lockedAccounts accounts currently locked or waited for
+     * @param acquired       locks acquired since startup
+     * @param released       locks released since startup
+     * @param hotAccounts    most contended accounts, most contended first
+     */
+    public record LocksReport(int lockedAccounts, int acquired, int released, List<HotAccount> hotAccounts) {
+    }
+}
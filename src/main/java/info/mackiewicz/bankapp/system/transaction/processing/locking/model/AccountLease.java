@@ -0,0 +1,53 @@
+package info.mackiewicz.bankapp.system.transaction.processing.locking.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Entity representing a cluster-wide lease on an account.
+ *
+ * A lease is held by a single application node until it expires or is released.
+ * The fencing token grows with every acquisition, so a node that lost its lease
+ * can never release or overwrite the lease of its successor.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(name = "account_locks")
+public class AccountLease {
+
+    @Id
+    @Column(name = "account_id")
+    private Integer accountId;
+
+    /**
+     * Identifier of the node holding the lease, null once released.
+     */
+    @Column(name = "owner")
+    private String owner;
+
+    /**
+     * Moment after which the lease may be taken over by another node.
+     */
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    @Column(name = "fencing_token", nullable = false)
+    private long fencingToken;
+
+    /**
+     * Checks if the lease still blocks other nodes at the given moment
+     * @param now the moment to check against
+     * @return true if the lease has not expired yet
+     */
+    public boolean isActiveAt(Instant now) {
+        return expiresAt.isAfter(now);
+    }
+}
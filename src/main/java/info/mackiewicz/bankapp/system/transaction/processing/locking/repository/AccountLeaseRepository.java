@@ -0,0 +1,81 @@
+package info.mackiewicz.bankapp.system.transaction.processing.locking.repository;
+
+import info.mackiewicz.bankapp.system.transaction.processing.locking.model.AccountLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+
+/**
+ * Repository for managing cluster-wide account leases
+ */
+@Repository
+public interface AccountLeaseRepository extends JpaRepository<AccountLease, Integer> {
+
+    /**
+     * Creates the first lease for an account.
+     * Fails with a constraint violation if another node created it concurrently.
+     */
+    @Modifying
+    @Query("""
+            INSERT INTO AccountLease (accountId, owner, expiresAt, fencingToken)
+                VALUES (:accountId, :owner, :expiresAt, :fencingToken)
+            """)
+    int insertLease(@Param("accountId") Integer accountId,
+                    @Param("owner") String owner,
+                    @Param("expiresAt") Instant expiresAt,
+                    @Param("fencingToken") long fencingToken);
+
+    /**
+     * Takes over an expired or released lease.
+     * Compares the fencing token, so only one of the competing nodes succeeds.
+     */
+    @Modifying
+    @Query("""
+            UPDATE AccountLease l
+                SET l.owner = :owner, l.expiresAt = :expiresAt, l.fencingToken = :nextToken
+                WHERE l.accountId = :accountId
+                AND l.fencingToken = :currentToken
+                AND l.expiresAt <= :now
+            """)
+    int takeOverLease(@Param("accountId") Integer accountId,
+                      @Param("owner") String owner,
+                      @Param("now") Instant now,
+                      @Param("expiresAt") Instant expiresAt,
+                      @Param("currentToken") long currentToken,
+                      @Param("nextToken") long nextToken);
+
+    /**
+     * Releases a lease if it is still held with the given fencing token.
+     */
+    @Modifying
+    @Query("""
+            UPDATE AccountLease l
+                SET l.owner = NULL, l.expiresAt = :now
+                WHERE l.accountId = :accountId
+                AND l.owner = :owner
+                AND l.fencingToken = :fencingToken
+            """)
+    int releaseLease(@Param("accountId") Integer accountId,
+                     @Param("owner") String owner,
+                     @Param("fencingToken") long fencingToken,
+                     @Param("now") Instant now);
+
+    /**
+     * Extends all leases still held by the given node.
+     * Used by the heartbeat, leases that already expired are not revived.
+     */
+    @Modifying
+    @Query("""
+            UPDATE AccountLease l
+                SET l.expiresAt = :expiresAt
+                WHERE l.owner = :owner
+                AND l.expiresAt > :now
+            """)
+    int renewLeases(@Param("owner") String owner,
+                    @Param("now") Instant now,
+                    @Param("expiresAt") Instant expiresAt);
+}
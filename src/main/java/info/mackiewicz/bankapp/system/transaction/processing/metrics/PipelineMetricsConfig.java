@@ -0,0 +1,20 @@
+package info.mackiewicz.bankapp.system.transaction.processing.metrics;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration of the instrumentation of the transaction processing pipeline.
+ *
+ * @param enabled whether the stages of processed transactions are timed and their errors counted;
+ *                if disabled, the pipeline reads no clock and touches no meter
+ */
+@ConfigurationProperties(prefix = "app.transaction.metrics")
+public record PipelineMetricsConfig(Boolean enabled) {
+
+    // Default values for the properties
+    // These values can be overridden in application.properties or application.yml
+    public PipelineMetricsConfig {
+        if (enabled == null)
+            enabled = true;
+    }
+}
@@ -0,0 +1,128 @@
+package info.mackiewicz.bankapp.system.transaction.processing.metrics;
+
+import info.mackiewicz.bankapp.core.transaction.model.Transaction;
+import info.mackiewicz.bankapp.core.transaction.model.TransactionType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer instrumentation of the stages a transaction passes through while processed.
+ * <p>
+ * Meters:
+ * <ul>
+ *     <li>{@code bankapp.transaction.stage} - time spent in a stage, by stage and transaction type</li>
+ *     <li>{@code bankapp.transaction.errors} - errors reported by the TransactionErrorHandler, by outcome</li>
+ * </ul>
+ * Timers are created on first use and cached, so recording a stage costs one clock read and a map
+ * lookup. With {@code app.transaction.metrics.enabled=false} nothing is read or recorded.
+ * </p>
+ */
+@Component
+public class TransactionPipelineMetrics {
+
+    private static final String UNKNOWN_TYPE = "unknown";
+
+    private final MeterRegistry registry;
+    private final boolean enabled;
+
+    private final Map<Stage, ConcurrentMap<TransactionType, Timer>> timers = new EnumMap<>(Stage.class);
+    private final Map<Stage, Timer> untypedTimers = new EnumMap<>(Stage.class);
+    private final Map<ErrorOutcome, Counter> errors = new EnumMap<>(ErrorOutcome.class);
+
+    public TransactionPipelineMetrics(MeterRegistry registry, PipelineMetricsConfig config) {
+        this.registry = registry;
+        this.enabled = config.enabled();
+        if (!enabled) {
+            return;
+        }
+        for (Stage stage : Stage.values()) {
+            timers.put(stage, new ConcurrentHashMap<>());
+            untypedTimers.put(stage, timer(stage, UNKNOWN_TYPE));
+        }
+        for (ErrorOutcome outcome : ErrorOutcome.values()) {
+            errors.put(outcome, Counter.builder("bankapp.transaction.errors")
+                    .description("Errors of processed transactions")
+                    .tag("outcome", outcome.tag())
+                    .register(registry));
+        }
+    }
+
+    /**
+     * Stage of the processing pipeline.
+     */
+    public enum Stage {
+        VALIDATION, STATUS_CHECK, LOCK_ACQUISITION, STATUS_PENDING, EXECUTION, STATUS_DONE, UNLOCK;
+
+        private String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * Error reported by the TransactionErrorHandler.
+     */
+    public enum ErrorOutcome {
+        INSUFFICIENT_FUNDS, VALIDATION, UNEXPECTED, LOCK, UNEXPECTED_LOCK, UNLOCK, UNEXPECTED_UNLOCK, STATUS_CHANGE;
+
+        private String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * Marks the start of a stage.
+     *
+     * @return start time to pass to {@link #record}, 0 if metrics are disabled
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Records the time elapsed since the start of a stage.
+     *
+     * @param stage       the finished stage
+     * @param transaction the processed transaction, its type is the tag of the timer
+     * @param startNanos  value returned by {@link #start()}
+     */
+    public void record(Stage stage, Transaction transaction, long startNanos) {
+        if (!enabled) {
+            return;
+        }
+        long elapsed = System.nanoTime() - startNanos;
+        TransactionType type = transaction.getType();
+        Timer timer = type == null
+                ? untypedTimers.get(stage)
+                : timers.get(stage).computeIfAbsent(type, key -> timer(stage, key.name()));
+        timer.record(elapsed, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Counts an error reported for a processed transaction.
+     *
+     * @param outcome kind of the error
+     */
+    public void recordError(ErrorOutcome outcome) {
+        if (enabled) {
+            errors.get(outcome).increment();
+        }
+    }
+
+    private Timer timer(Stage stage, String type) {
+        return Timer.builder("bankapp.transaction.stage")
+                .description("Time a processed transaction spent in a pipeline stage")
+                .tag("stage", stage.tag())
+                .tag("type", type)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
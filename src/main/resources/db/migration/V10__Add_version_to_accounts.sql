@@ -0,0 +1,3 @@
+-- Optimistic locking of account balances (app.transaction.execution.mode=optimistic).
+-- Hibernate increments the version on every update and rejects updates based on a stale version.
+ALTER TABLE accounts ADD COLUMN IF NOT EXISTS version bigint NOT NULL DEFAULT 0;
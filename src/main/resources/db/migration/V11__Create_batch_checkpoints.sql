@@ -0,0 +1,8 @@
+-- Progress of batch processing of new transactions (TransactionBatchProcessor).
+-- A row only exists while a run is in progress or after it was interrupted,
+-- so the next run resumes after the last transaction of the checkpoint.
+CREATE TABLE IF NOT EXISTS batch_checkpoints (
+    batch_name          varchar(64)                 PRIMARY KEY,
+    last_transaction_id integer                     NOT NULL,
+    updated_at          timestamp(6) with time zone NOT NULL
+);
@@ -0,0 +1,12 @@
+-- Outbox of registered transactions waiting for dispatch to processing (TransactionDispatcher).
+-- An entry is written together with its transaction and removed once the transaction is processed,
+-- entries left over by a crash are dispatched again by the recovery sweep.
+CREATE TABLE IF NOT EXISTS transaction_outbox (
+    transaction_id integer                     PRIMARY KEY REFERENCES transactions (id) ON DELETE CASCADE,
+    created_at     timestamp(6) with time zone NOT NULL
+);
+
+-- Transactions registered before the outbox existed are picked up by the first sweep.
+INSERT INTO transaction_outbox (transaction_id, created_at)
+SELECT id, now() FROM transactions WHERE status = 'NEW'
+ON CONFLICT DO NOTHING;
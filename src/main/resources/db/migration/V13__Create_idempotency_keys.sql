@@ -0,0 +1,12 @@
+-- Idempotency keys of handled transfer requests (IdempotencyService).
+-- A row is written together with the registered transaction, a retried request with the same
+-- key and user returns that transaction instead of registering a new one.
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    user_id         integer                     NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    idempotency_key varchar(255)                NOT NULL,
+    transaction_id  integer                     NOT NULL REFERENCES transactions (id) ON DELETE CASCADE,
+    created_at      timestamp(6) with time zone NOT NULL,
+    PRIMARY KEY (user_id, idempotency_key)
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_created_at ON idempotency_keys (created_at);
@@ -0,0 +1,10 @@
+-- Exact balance of the bank (BankLedger).
+-- The bank account can be split into bucket accounts of the bank user, the balance of the bank
+-- is the sum of all of them, whatever the consolidation state of the buckets.
+CREATE OR REPLACE VIEW bank_ledger_balance AS
+SELECT a.owner_id                 AS owner_id,
+       COUNT(*)                   AS accounts,
+       COALESCE(SUM(a.balance), 0) AS balance
+FROM accounts a
+WHERE a.owner_id = -1
+GROUP BY a.owner_id;
@@ -0,0 +1,14 @@
+-- Amount held by the NEW and PENDING outgoing transactions of an account, maintained on
+-- registration and on status transitions, so the working balance (balance - balance_on_hold)
+-- is a single-row read. Replaces the never used available_balance column: an available balance
+-- would have to follow every balance change, the amount on hold only changes with the holds.
+ALTER TABLE accounts RENAME COLUMN available_balance TO balance_on_hold;
+
+UPDATE accounts a
+SET balance_on_hold = COALESCE((SELECT SUM(t.amount)
+                                FROM transactions t
+                                WHERE t.source_id = a.id
+                                  AND t.status IN ('NEW', 'PENDING')), 0);
+
+ALTER TABLE accounts ALTER COLUMN balance_on_hold SET DEFAULT 0;
+ALTER TABLE accounts ALTER COLUMN balance_on_hold SET NOT NULL;
@@ -0,0 +1,10 @@
+-- Indexes of the transactions table, which had none besides its primary key.
+-- The account history reads the outgoing and the incoming transactions of an account separately
+-- (UNION ALL), each newest first, so each half is a range read of one of these indexes.
+CREATE INDEX IF NOT EXISTS idx_transactions_source_date ON transactions (source_id, date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_transactions_destination_date ON transactions (destination_id, date DESC, id DESC);
+
+-- Only the few NEW and PENDING transactions are indexed: they are read by status and paged by ID
+-- by the dispatcher sweep and the batch processor, and summed up by the amount on hold reconciliation.
+CREATE INDEX IF NOT EXISTS idx_transactions_processing ON transactions (status, id)
+    WHERE status IN ('NEW', 'PENDING');
@@ -0,0 +1,5 @@
+-- Transfers handed over between shards are DEBITED until their credit or refund is committed.
+-- The recovery sweep reads them by status and pages them by ID, like the NEW and PENDING transactions.
+DROP INDEX IF EXISTS idx_transactions_processing;
+CREATE INDEX IF NOT EXISTS idx_transactions_processing ON transactions (status, id)
+    WHERE status IN ('NEW', 'PENDING', 'DEBITED');
@@ -0,0 +1,10 @@
+-- Time a transaction was claimed for processing (NEW -> PENDING). The recovery sweep moves transactions
+-- still PENDING long after their claim, e.g. left over by a crash, back to NEW; status changes from
+-- PENDING are conditional on the claim, so a former owner cannot complete a released transaction.
+ALTER TABLE transactions ADD COLUMN IF NOT EXISTS claimed_at timestamp(6) NULL;
+
+-- Outbox entries are now kept until their transaction is final; transactions left PENDING or DEBITED
+-- after their entries were removed get them back, so the recovery sweep sees them.
+INSERT INTO transaction_outbox (transaction_id, created_at)
+SELECT id, now() FROM transactions WHERE status IN ('PENDING', 'DEBITED')
+ON CONFLICT DO NOTHING;
@@ -0,0 +1,6 @@
+-- System accounts of the bank (e.g. ledger buckets) now take their number from the owner's account
+-- counter like every other account. The bank user was created with a counter of 0 although it owns
+-- the bank account number 1 and possibly buckets, so counters are moved past the numbers in use.
+UPDATE users u
+SET account_counter = (SELECT MAX(a.user_account_number) FROM accounts a WHERE a.owner_id = u.id)
+WHERE COALESCE(u.account_counter, 0) < (SELECT MAX(a.user_account_number) FROM accounts a WHERE a.owner_id = u.id);
@@ -0,0 +1,4 @@
+-- Hash of the canonical request an idempotency key was first used for. A request reusing the key
+-- with a different body is rejected instead of getting the response of the first one.
+-- Keys stored before this migration have no hash and are replayed as before until they expire.
+ALTER TABLE idempotency_keys ADD COLUMN IF NOT EXISTS request_hash varchar(64) NULL;
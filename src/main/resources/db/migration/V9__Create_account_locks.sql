@@ -0,0 +1,11 @@
+-- Cluster-wide account leases used by DatabaseLockingStrategy (app.locking.mode=database).
+-- A row is kept per account once it has been locked, so fencing tokens keep growing
+-- across lease lifetimes; a released lease has NULL owner and an expiry in the past.
+CREATE TABLE IF NOT EXISTS account_locks (
+    account_id    integer                     PRIMARY KEY,
+    owner         varchar(255)                NULL,
+    expires_at    timestamp(6) with time zone NOT NULL,
+    fencing_token bigint                      NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_account_locks_owner ON account_locks (owner);
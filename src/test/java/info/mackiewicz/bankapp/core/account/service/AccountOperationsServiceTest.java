@@ -1,18 +1,23 @@
 package info.mackiewicz.bankapp.core.account.service;
 
+import info.mackiewicz.bankapp.core.account.exception.AccountLockException;
+import info.mackiewicz.bankapp.core.account.exception.AccountNotFoundByIdException;
 import info.mackiewicz.bankapp.core.account.model.Account;
 import info.mackiewicz.bankapp.core.account.model.TestAccountBuilder;
+import info.mackiewicz.bankapp.core.account.model.dto.FencingToken;
 import info.mackiewicz.bankapp.core.account.repository.AccountRepository;
+import info.mackiewicz.bankapp.core.account.service.interfaces.AccountFencing;
+import info.mackiewicz.bankapp.core.transaction.exception.InsufficientFundsException;
 import info.mackiewicz.bankapp.core.user.model.User;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -28,6 +33,9 @@ class AccountOperationsServiceTest {
     @Mock
     private AccountValidationService validationService;
 
+    @Mock
+    private AccountFencing fencing;
+
     @InjectMocks
     private AccountOperationsService operationsService;
 
@@ -42,6 +50,7 @@ class AccountOperationsServiceTest {
         owner.setLastname("Kowalski");
         
         account = TestAccountBuilder.createTestAccountWithOwner(owner);
+        TestAccountBuilder.setField(account, "id", 1);
         TestAccountBuilder.setField(account, "balance", new BigDecimal("1000.00"));
     }
 
@@ -50,7 +59,8 @@ class AccountOperationsServiceTest {
         // given
         BigDecimal depositAmount = new BigDecimal("500.00");
         BigDecimal expectedBalance = new BigDecimal("1500.00");
-        when(accountRepository.save(any(Account.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(accountRepository.addToBalance(1, depositAmount)).thenReturn(1);
+        when(accountRepository.findBalanceById(1)).thenReturn(Optional.of(expectedBalance));
         doNothing().when(validationService).validateDeposit(depositAmount);
 
         // when
@@ -59,57 +69,61 @@ class AccountOperationsServiceTest {
         // then
         assertEquals(expectedBalance, updatedAccount.getBalance());
         verify(validationService).validateDeposit(depositAmount);
-        verify(accountRepository).save(account);
+        verify(accountRepository).addToBalance(1, depositAmount);
+        verify(accountRepository, never()).save(any());
     }
 
     @Test
     void withdraw_WithValidAmount_ShouldDecreaseBalance() {
         // given
-        BigDecimal initialBalance = account.getBalance(); // 1000.00
         BigDecimal withdrawalAmount = new BigDecimal("500.00");
         BigDecimal expectedBalance = new BigDecimal("500.00");
-        when(accountRepository.save(any(Account.class))).thenAnswer(invocation -> invocation.getArgument(0));
-        doNothing().when(validationService).validateWithdrawal(initialBalance, withdrawalAmount);
+        when(accountRepository.subtractFromBalance(1, withdrawalAmount)).thenReturn(1);
+        when(accountRepository.findBalanceById(1)).thenReturn(Optional.of(expectedBalance));
+        doNothing().when(validationService).validateWithdrawal(withdrawalAmount);
 
         // when
         Account updatedAccount = operationsService.withdraw(account, withdrawalAmount);
 
         // then
         assertEquals(expectedBalance, updatedAccount.getBalance());
-        verify(validationService).validateWithdrawal(initialBalance, withdrawalAmount);
-        verify(accountRepository).save(account);
+        verify(validationService).validateWithdrawal(withdrawalAmount);
+        verify(accountRepository).subtractFromBalance(1, withdrawalAmount);
+        verify(accountRepository, never()).save(any());
     }
 
     @Test
-    void deposit_ShouldSaveAccountWithCorrectBalance() {
+    void withdraw_WhenBalanceDoesNotCoverAmount_ShouldThrowInsufficientFunds() {
         // given
-        BigDecimal depositAmount = new BigDecimal("500.00");
-        ArgumentCaptor<Account> accountCaptor = ArgumentCaptor.forClass(Account.class);
-        when(accountRepository.save(accountCaptor.capture())).thenAnswer(invocation -> invocation.getArgument(0));
-        doNothing().when(validationService).validateDeposit(depositAmount);
-
-        // when
-        operationsService.deposit(account, depositAmount);
+        BigDecimal withdrawalAmount = new BigDecimal("2000.00");
+        when(accountRepository.subtractFromBalance(1, withdrawalAmount)).thenReturn(0);
+        when(accountRepository.findBalanceById(1)).thenReturn(Optional.of(new BigDecimal("1000.00")));
 
-        // then
-        Account savedAccount = accountCaptor.getValue();
-        assertEquals(new BigDecimal("1500.00"), savedAccount.getBalance());
+        // when & then
+        assertThrows(InsufficientFundsException.class, () -> operationsService.withdraw(account, withdrawalAmount));
+        assertEquals(new BigDecimal("1000.00"), account.getBalance());
     }
 
     @Test
-    void withdraw_ShouldSaveAccountWithCorrectBalance() {
+    void withdraw_WhenAccountDoesNotExist_ShouldThrowNotFound() {
         // given
-        BigDecimal withdrawalAmount = new BigDecimal("500.00");
-        ArgumentCaptor<Account> accountCaptor = ArgumentCaptor.forClass(Account.class);
-        when(accountRepository.save(accountCaptor.capture())).thenAnswer(invocation -> invocation.getArgument(0));
-        doNothing().when(validationService).validateWithdrawal(account.getBalance(), withdrawalAmount);
+        BigDecimal withdrawalAmount = new BigDecimal("100.00");
+        when(accountRepository.subtractFromBalance(1, withdrawalAmount)).thenReturn(0);
+        when(accountRepository.findBalanceById(1)).thenReturn(Optional.empty());
 
-        // when
-        operationsService.withdraw(account, withdrawalAmount);
+        // when & then
+        assertThrows(AccountNotFoundByIdException.class, () -> operationsService.withdraw(account, withdrawalAmount));
+    }
 
-        // then
-        Account savedAccount = accountCaptor.getValue();
-        assertEquals(new BigDecimal("500.00"), savedAccount.getBalance());
+    @Test
+    void deposit_WhenAccountDoesNotExist_ShouldThrowNotFound() {
+        // given
+        BigDecimal depositAmount = new BigDecimal("100.00");
+        when(accountRepository.addToBalance(1, depositAmount)).thenReturn(0);
+
+        // when & then
+        assertThrows(AccountNotFoundByIdException.class, () -> operationsService.deposit(account, depositAmount));
+        verify(accountRepository, never()).findBalanceById(any());
     }
 
     @Test
@@ -120,18 +134,75 @@ class AccountOperationsServiceTest {
 
         // when & then
         assertThrows(IllegalArgumentException.class, () -> operationsService.deposit(account, depositAmount));
-        verify(accountRepository, never()).save(any());
+        verify(accountRepository, never()).addToBalance(any(), any());
     }
 
     @Test
     void withdraw_WhenValidationFails_ShouldThrowException() {
         // given
-        BigDecimal withdrawalAmount = new BigDecimal("2000.00");
-        doThrow(new IllegalArgumentException("Insufficient funds")).when(validationService)
-            .validateWithdrawal(account.getBalance(), withdrawalAmount);
+        BigDecimal withdrawalAmount = new BigDecimal("-100.00");
+        doThrow(new IllegalArgumentException("Invalid amount")).when(validationService)
+            .validateWithdrawal(withdrawalAmount);
 
         // when & then
         assertThrows(IllegalArgumentException.class, () -> operationsService.withdraw(account, withdrawalAmount));
-        verify(accountRepository, never()).save(any());
+        verify(accountRepository, never()).subtractFromBalance(any(), any());
+    }
+
+    @Test
+    void withdraw_ShouldUseCurrentBalanceInsteadOfStaleInstance() {
+        // given
+        BigDecimal withdrawalAmount = new BigDecimal("500.00");
+        when(accountRepository.subtractFromBalance(1, withdrawalAmount)).thenReturn(1);
+        when(accountRepository.findBalanceById(1)).thenReturn(Optional.of(new BigDecimal("200.00")));
+
+        // when
+        Account updatedAccount = operationsService.withdraw(account, withdrawalAmount);
+
+        // then
+        assertEquals(new BigDecimal("200.00"), updatedAccount.getBalance());
+        assertEquals(new BigDecimal("200.00"), account.getBalance());
+    }
+
+    @Test
+    void deposit_WhenLeaseHeld_ShouldFenceBalanceWrite() {
+        // given
+        BigDecimal depositAmount = new BigDecimal("500.00");
+        when(fencing.fencingToken(1)).thenReturn(Optional.of(new FencingToken("node-a", 7L)));
+        when(accountRepository.addToBalance(1, depositAmount, "node-a", 7L)).thenReturn(1);
+        when(accountRepository.findBalanceById(1)).thenReturn(Optional.of(new BigDecimal("1500.00")));
+
+        // when
+        operationsService.deposit(account, depositAmount);
+
+        // then
+        verify(accountRepository).addToBalance(1, depositAmount, "node-a", 7L);
+        verify(accountRepository, never()).addToBalance(1, depositAmount);
+    }
+
+    @Test
+    void withdraw_WhenLeaseLost_ShouldRejectBalanceWrite() {
+        // given
+        BigDecimal withdrawalAmount = new BigDecimal("500.00");
+        when(fencing.fencingToken(1)).thenReturn(Optional.of(new FencingToken("node-a", 7L)));
+        when(accountRepository.subtractFromBalance(1, withdrawalAmount, "node-a", 7L)).thenReturn(0);
+        when(accountRepository.holdsLease(1, "node-a", 7L)).thenReturn(false);
+
+        // when/then
+        assertThrows(AccountLockException.class, () -> operationsService.withdraw(account, withdrawalAmount));
+        verify(accountRepository, never()).subtractFromBalance(1, withdrawalAmount);
+    }
+
+    @Test
+    void withdraw_WhenLeaseHeldButFundsInsufficient_ShouldThrowInsufficientFunds() {
+        // given
+        BigDecimal withdrawalAmount = new BigDecimal("5000.00");
+        when(fencing.fencingToken(1)).thenReturn(Optional.of(new FencingToken("node-a", 7L)));
+        when(accountRepository.subtractFromBalance(1, withdrawalAmount, "node-a", 7L)).thenReturn(0);
+        when(accountRepository.holdsLease(1, "node-a", 7L)).thenReturn(true);
+        when(accountRepository.findBalanceById(1)).thenReturn(Optional.of(new BigDecimal("1000.00")));
+
+        // when/then
+        assertThrows(InsufficientFundsException.class, () -> operationsService.withdraw(account, withdrawalAmount));
     }
-}
\ No newline at end of file
+}
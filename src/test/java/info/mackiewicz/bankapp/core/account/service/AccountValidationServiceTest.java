@@ -129,6 +129,18 @@ class AccountValidationServiceTest {
         assertEquals("Amount must be positive", exception.getMessage());
     }
 
+    @ParameterizedTest
+    @ValueSource(strings = {"-100", "0", "-0.01"})
+    void validateWithdrawalAmount_WithInvalidAmount_ShouldThrowException(String amount) {
+        // given
+        BigDecimal withdrawalAmount = new BigDecimal(amount);
+
+        // when & then
+        Exception exception = assertThrows(AccountValidationException.class, 
+            () -> validationService.validateWithdrawal(withdrawalAmount));
+        assertEquals("Amount must be positive", exception.getMessage());
+    }
+
     @Test
     void validateDeposit_WithValidAmount_ShouldNotThrowException() {
         // given
@@ -0,0 +1,81 @@
+package info.mackiewicz.bankapp.core.account.service;
+
+import info.mackiewicz.bankapp.core.account.model.dto.BalanceOnHoldDrift;
+import info.mackiewicz.bankapp.core.account.repository.AccountRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceOnHoldReconcilerTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private BalanceOnHoldReconciler reconciler;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        reconciler = new BalanceOnHoldReconciler(accountRepository, meterRegistry);
+    }
+
+    @Test
+    void reconcile_WhenNoDrift_RepairsNothing() {
+        // given
+        when(accountRepository.findBalanceOnHoldDrifts()).thenReturn(List.of());
+
+        // when
+        List<BalanceOnHoldDrift> drifts = reconciler.reconcile();
+
+        // then
+        assertThat(drifts).isEmpty();
+        verify(accountRepository, never()).resetBalanceOnHold(any(), any(), any());
+        assertThat(meterRegistry.get("bankapp.account.hold.drift").counter().count()).isZero();
+    }
+
+    @Test
+    void reconcile_WhenDrifted_ReportsAndResetsToExpectedAmount() {
+        // given
+        BalanceOnHoldDrift first = new BalanceOnHoldDrift(1, new BigDecimal("150.00"), new BigDecimal("100.00"));
+        BalanceOnHoldDrift second = new BalanceOnHoldDrift(2, new BigDecimal("0.00"), new BigDecimal("20.00"));
+        when(accountRepository.findBalanceOnHoldDrifts()).thenReturn(List.of(first, second));
+        when(accountRepository.resetBalanceOnHold(any(), any(), any())).thenReturn(1);
+
+        // when
+        List<BalanceOnHoldDrift> drifts = reconciler.reconcile();
+
+        // then
+        assertThat(drifts).containsExactly(first, second);
+        assertThat(first.drift()).isEqualByComparingTo("50.00");
+        verify(accountRepository).resetBalanceOnHold(1, new BigDecimal("150.00"), new BigDecimal("100.00"));
+        verify(accountRepository).resetBalanceOnHold(2, new BigDecimal("0.00"), new BigDecimal("20.00"));
+        assertThat(meterRegistry.get("bankapp.account.hold.drift").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void reconcile_WhenHoldChangedMeanwhile_StillReportsDrift() {
+        // given
+        BalanceOnHoldDrift drift = new BalanceOnHoldDrift(1, new BigDecimal("150.00"), new BigDecimal("100.00"));
+        when(accountRepository.findBalanceOnHoldDrifts()).thenReturn(List.of(drift));
+        when(accountRepository.resetBalanceOnHold(any(), any(), any())).thenReturn(0);
+
+        // when
+        List<BalanceOnHoldDrift> drifts = reconciler.reconcile();
+
+        // then
+        assertThat(drifts).containsExactly(drift);
+        assertThat(meterRegistry.get("bankapp.account.hold.drift").counter().count()).isEqualTo(1);
+    }
+}
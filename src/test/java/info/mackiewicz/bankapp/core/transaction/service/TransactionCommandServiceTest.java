@@ -1,5 +1,10 @@
 package info.mackiewicz.bankapp.core.transaction.service;
 
+import info.mackiewicz.bankapp.core.account.model.Account;
+import info.mackiewicz.bankapp.core.account.repository.AccountRepository;
+import info.mackiewicz.bankapp.testutils.TestAccountBuilder;
+import info.mackiewicz.bankapp.testutils.TestUserBuilder;
+import info.mackiewicz.bankapp.core.transaction.event.TransactionRegisteredEvent;
 import info.mackiewicz.bankapp.core.transaction.exception.TransactionDeletionForbiddenException;
 import info.mackiewicz.bankapp.core.transaction.exception.TransactionNotFoundException;
 import info.mackiewicz.bankapp.core.transaction.model.Transaction;
@@ -13,6 +18,9 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -35,6 +43,12 @@ class TransactionCommandServiceTest {
     @Mock
     private TransactionQueryService queryService;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private AccountRepository accountRepository;
+
     @InjectMocks
     private TransactionCommandService commandService;
 
@@ -75,6 +89,57 @@ class TransactionCommandServiceTest {
         assertEquals(transaction, result);
     }
 
+    @Test
+    void createTransaction_ShouldPublishRegisteredEvent() {
+        // given
+        Transaction transaction = new Transaction();
+        transaction.setType(TransactionType.TRANSFER_INTERNAL);
+        Transaction savedTransaction = new Transaction();
+        savedTransaction.setId(7);
+        savedTransaction.setType(TransactionType.TRANSFER_INTERNAL);
+        when(repository.save(transaction)).thenReturn(savedTransaction);
+
+        // when
+        commandService.registerTransaction(transaction);
+
+        // then
+        verify(eventPublisher).publishEvent(new TransactionRegisteredEvent(7, TransactionType.TRANSFER_INTERNAL));
+    }
+
+    @Test
+    void createTransaction_WhenNewOutgoingTransaction_ShouldPutAmountOnHold() {
+        // given
+        Account source = TestAccountBuilder.createTestAccount(3, new BigDecimal("100.00"), TestUserBuilder.createTestUser());
+        Transaction transaction = new Transaction();
+        transaction.setType(TransactionType.TRANSFER_INTERNAL);
+        transaction.setStatus(TransactionStatus.NEW);
+        transaction.setSourceAccount(source);
+        transaction.setAmount(new BigDecimal("40.00"));
+        when(repository.save(transaction)).thenReturn(transaction);
+
+        // when
+        commandService.registerTransaction(transaction);
+
+        // then
+        verify(accountRepository).addToBalanceOnHold(3, new BigDecimal("40.00"));
+    }
+
+    @Test
+    void createTransaction_WhenNoSourceAccount_ShouldNotPutAnythingOnHold() {
+        // given
+        Transaction transaction = new Transaction();
+        transaction.setType(TransactionType.DEPOSIT);
+        transaction.setStatus(TransactionStatus.NEW);
+        transaction.setAmount(new BigDecimal("40.00"));
+        when(repository.save(transaction)).thenReturn(transaction);
+
+        // when
+        commandService.registerTransaction(transaction);
+
+        // then
+        verifyNoInteractions(accountRepository);
+    }
+
     @Test
     void createTransaction_WhenValidationFails_ShouldThrowException() {
         // given
@@ -84,6 +149,7 @@ class TransactionCommandServiceTest {
         // when/then
         assertThrows(IllegalArgumentException.class, () -> commandService.registerTransaction(transaction));
         verify(repository, never()).save(any());
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
@@ -117,6 +183,25 @@ class TransactionCommandServiceTest {
         verify(repository).delete(transaction);
     }
 
+    @Test
+    void deleteTransactionById_WhenStatusNEW_ShouldReleaseAmountOnHold() {
+        // given
+        int transactionId = 1;
+        Account source = TestAccountBuilder.createTestAccount(3, new BigDecimal("100.00"), TestUserBuilder.createTestUser());
+        Transaction transaction = new Transaction();
+        transaction.setStatus(TransactionStatus.NEW);
+        transaction.setSourceAccount(source);
+        transaction.setAmount(new BigDecimal("40.00"));
+        when(queryService.getTransactionById(transactionId)).thenReturn(transaction);
+
+        // when
+        commandService.deleteTransactionById(transactionId);
+
+        // then
+        verify(repository).delete(transaction);
+        verify(accountRepository).subtractFromBalanceOnHold(3, new BigDecimal("40.00"));
+    }
+
     @Test
     void deleteTransactionById_WhenTransactionExistsAndStatusDONE_ShouldThrowException() {
         // given
@@ -8,6 +8,8 @@ import info.mackiewicz.bankapp.core.transaction.model.TransactionStatus;
 import info.mackiewicz.bankapp.system.transaction.processing.error.TransactionErrorHandler;
 import info.mackiewicz.bankapp.system.transaction.processing.error.TransactionErrorNotifier;
 import info.mackiewicz.bankapp.system.transaction.processing.helpers.TransactionStatusManager;
+import info.mackiewicz.bankapp.system.transaction.processing.metrics.TransactionPipelineMetrics;
+import info.mackiewicz.bankapp.system.transaction.processing.metrics.TransactionPipelineMetrics.ErrorOutcome;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -31,6 +33,9 @@ class TransactionErrorHandlerTest {
     @Mock
     private TransactionErrorNotifier errorNotifier;
 
+    @Mock
+    private TransactionPipelineMetrics metrics;
+
     @InjectMocks
     private TransactionErrorHandler errorHandler;
 
@@ -55,6 +60,7 @@ class TransactionErrorHandlerTest {
         // then
         verify(statusManager).setTransactionStatus(transaction, TransactionStatus.INSUFFICIENT_FUNDS);
         verify(errorNotifier).notifyError(transaction, exception);
+        verify(metrics).recordError(ErrorOutcome.INSUFFICIENT_FUNDS);
     }
 
     @Test
@@ -69,6 +75,7 @@ class TransactionErrorHandlerTest {
         // then
         verify(statusManager).setTransactionStatus(transaction, TransactionStatus.VALIDATION_ERROR);
         verify(errorNotifier).notifyError(transaction, exception);
+        verify(metrics).recordError(ErrorOutcome.VALIDATION);
     }
 
     @Test
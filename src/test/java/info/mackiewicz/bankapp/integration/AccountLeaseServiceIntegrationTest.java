@@ -0,0 +1,129 @@
+package info.mackiewicz.bankapp.integration;
+
+import info.mackiewicz.bankapp.core.account.model.Account;
+import info.mackiewicz.bankapp.core.account.repository.AccountRepository;
+import info.mackiewicz.bankapp.integration.utils.IntegrationTestAccountService;
+import info.mackiewicz.bankapp.integration.utils.IntegrationTestConfig;
+import info.mackiewicz.bankapp.integration.utils.IntegrationTestUserService;
+import info.mackiewicz.bankapp.system.transaction.processing.locking.AccountLeaseService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.OptionalLong;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(IntegrationTestConfig.class)
+@DisplayName("Account lease integration tests")
+class AccountLeaseServiceIntegrationTest {
+
+    private static final String NODE_A = "node-a";
+    private static final String NODE_B = "node-b";
+    private static final Duration LEASE = Duration.ofSeconds(10);
+
+    @Autowired
+    private AccountLeaseService leaseService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private IntegrationTestUserService testUserService;
+
+    @Autowired
+    private IntegrationTestAccountService testAccountService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final Integer accountId = ThreadLocalRandom.current().nextInt(1_000_000, 2_000_000);
+
+    @Test
+    @DisplayName("Should not grant a held lease to another node")
+    void shouldNotGrantHeldLeaseToAnotherNode() {
+        Instant now = Instant.now();
+
+        OptionalLong first = leaseService.tryAcquire(accountId, NODE_A, now, now.plus(LEASE));
+        OptionalLong second = leaseService.tryAcquire(accountId, NODE_B, now, now.plus(LEASE));
+
+        assertThat(first).hasValue(1L);
+        assertThat(second).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should grant released lease with a higher fencing token")
+    void shouldGrantReleasedLeaseWithHigherFencingToken() {
+        Instant now = Instant.now();
+        long token = leaseService.tryAcquire(accountId, NODE_A, now, now.plus(LEASE)).orElseThrow();
+
+        assertThat(leaseService.release(accountId, NODE_A, token, now)).isTrue();
+        OptionalLong next = leaseService.tryAcquire(accountId, NODE_B, now, now.plus(LEASE));
+
+        assertThat(next).hasValue(token + 1);
+    }
+
+    @Test
+    @DisplayName("Should let another node take over lease of a crashed node once it expires")
+    void shouldTakeOverExpiredLease() {
+        Instant now = Instant.now();
+        long crashedToken = leaseService.tryAcquire(accountId, NODE_A, now, now.plus(LEASE)).orElseThrow();
+
+        Instant afterExpiry = now.plus(LEASE).plusMillis(1);
+        OptionalLong takenOver = leaseService.tryAcquire(accountId, NODE_B, afterExpiry, afterExpiry.plus(LEASE));
+
+        assertThat(takenOver).hasValue(crashedToken + 1);
+        // the stale holder must not be able to release the lease of its successor
+        assertThat(leaseService.release(accountId, NODE_A, crashedToken, afterExpiry)).isFalse();
+        assertThat(leaseService.tryAcquire(accountId, NODE_A, afterExpiry, afterExpiry.plus(LEASE))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should reject balance writes fenced with the token of a lease taken over by another node")
+    void shouldRejectBalanceWritesWithStaleFencingToken() {
+        Account account = testAccountService.createTestAccountWithBalance(
+                testUserService.createRandomTestUser().getId(), new BigDecimal("100.00"));
+        Integer id = account.getId();
+        Instant now = Instant.now();
+        long staleToken = leaseService.tryAcquire(id, NODE_A, now, now.plus(LEASE)).orElseThrow();
+        Instant afterExpiry = now.plus(LEASE).plusMillis(1);
+        long token = leaseService.tryAcquire(id, NODE_B, afterExpiry, afterExpiry.plus(LEASE)).orElseThrow();
+
+        Integer staleDebit = transactionTemplate.execute(status ->
+                accountRepository.subtractFromBalance(id, BigDecimal.TEN, NODE_A, staleToken));
+        Integer staleCredit = transactionTemplate.execute(status ->
+                accountRepository.addToBalance(id, BigDecimal.TEN, NODE_A, staleToken));
+        Integer credit = transactionTemplate.execute(status ->
+                accountRepository.addToBalance(id, BigDecimal.TEN, NODE_B, token));
+
+        assertThat(staleDebit).isZero();
+        assertThat(staleCredit).isZero();
+        assertThat(credit).isOne();
+        assertThat(accountRepository.holdsLease(id, NODE_A, staleToken)).isFalse();
+        assertThat(accountRepository.findBalanceById(id).orElseThrow()).isEqualByComparingTo("110.00");
+    }
+
+    @Test
+    @DisplayName("Should keep renewed lease alive past its original expiry")
+    void shouldKeepRenewedLeaseAlive() {
+        Instant now = Instant.now();
+        leaseService.tryAcquire(accountId, NODE_A, now, now.plus(LEASE)).orElseThrow();
+
+        Instant beforeExpiry = now.plus(LEASE).minusSeconds(1);
+        assertThat(leaseService.renew(NODE_A, beforeExpiry, beforeExpiry.plus(LEASE))).isPositive();
+
+        Instant afterOriginalExpiry = now.plus(LEASE).plusSeconds(1);
+        assertThat(leaseService.tryAcquire(accountId, NODE_B, afterOriginalExpiry, afterOriginalExpiry.plus(LEASE)))
+                .isEmpty();
+    }
+}
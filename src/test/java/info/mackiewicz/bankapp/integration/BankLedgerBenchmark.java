@@ -0,0 +1,126 @@
+package info.mackiewicz.bankapp.integration;
+
+import info.mackiewicz.bankapp.core.account.model.Account;
+import info.mackiewicz.bankapp.core.account.repository.AccountRepository;
+import info.mackiewicz.bankapp.core.user.model.User;
+import info.mackiewicz.bankapp.integration.utils.IntegrationTestAccountService;
+import info.mackiewicz.bankapp.integration.utils.IntegrationTestConfig;
+import info.mackiewicz.bankapp.integration.utils.IntegrationTestUserService;
+import info.mackiewicz.bankapp.presentation.auth.registration.service.BonusGrantingService;
+import info.mackiewicz.bankapp.system.banking.ledger.BankLedger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Compares concurrent welcome bonus registrations paid from the bank account alone and
+ * spread over the bank account buckets of {@link BankLedger}. Every bonus is registered,
+ * dispatched after commit and processed; a run ends when all recipients are credited.
+ * <p>
+ * Not part of the regular build, run with:
+ * {@code mvn test -Dtest=BankLedgerBenchmark -Dbenchmark=true}
+ * Optional: {@code -Dbenchmark.bonuses=500 -Dbenchmark.recipients=32 -Dbenchmark.threads=32}
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(IntegrationTestConfig.class)
+@TestPropertySource(properties = {"app.bank.ledger.buckets=8", "app.bank.ledger.bucket-float=100000"})
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Bank ledger benchmark")
+class BankLedgerBenchmark {
+
+    // bonuses of a run stay below the admission limit, so none is left to the recovery sweep
+    private static final int BONUSES = Integer.getInteger("benchmark.bonuses", 500);
+    private static final int RECIPIENTS = Integer.getInteger("benchmark.recipients", 32);
+    private static final int THREADS = Integer.getInteger("benchmark.threads", 32);
+    private static final BigDecimal BONUS = BigDecimal.ONE;
+    private static final BigDecimal BANK_BALANCE = new BigDecimal("100000000.00");
+
+    @Autowired
+    private IntegrationTestUserService testUserService;
+
+    @Autowired
+    private IntegrationTestAccountService testAccountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private BonusGrantingService bonusGrantingService;
+
+    @Autowired
+    private BankLedger bankLedger;
+
+    @Test
+    @DisplayName("Should compare bonus registrations with and without bank account buckets")
+    void compareBucketing() {
+        // the test database has no bank account, it is created here, after the ledger started without buckets
+        User bank = testUserService.createRandomTestUser();
+        Account bankAccount = Account.factory().createSystemAccount(bank, 0);
+        bankAccount.setBalance(BANK_BALANCE);
+        accountRepository.save(bankAccount);
+        List<Account> recipients = IntStream.range(0, RECIPIENTS)
+                .mapToObj(i -> testAccountService.createTestAccount(testUserService.createRandomTestUser().getId()))
+                .toList();
+        BigDecimal bankTotal = bankLedger.getTotalBalance();
+
+        // warm-up
+        run("warm-up", recipients, BONUSES / 5);
+        Result single = run("bank account", recipients, BONUSES);
+
+        bankLedger.provisionBuckets();
+        bankLedger.consolidate();
+        Result bucketed = run(bankLedger.getBucketIds().size() + " buckets", recipients, BONUSES);
+        bankLedger.consolidate();
+
+        System.out.printf("%n%-16s %12s %12s%n", "ledger", "bonuses/s", "total ms");
+        for (Result result : new Result[]{single, bucketed}) {
+            System.out.printf("%-16s %12.0f %12.0f%n", result.name(), result.throughput(), result.millis());
+        }
+        BigDecimal paid = BONUS.multiply(BigDecimal.valueOf(BONUSES / 5 + 2L * BONUSES));
+        assertThat(bankLedger.getTotalBalance()).isEqualByComparingTo(bankTotal.subtract(paid));
+    }
+
+    private Result run(String name, List<Account> recipients, int bonuses) {
+        BigDecimal expected = recipientsBalance(recipients).add(BONUS.multiply(BigDecimal.valueOf(bonuses)));
+
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+            CompletableFuture.allOf(IntStream.range(0, bonuses)
+                    .mapToObj(i -> recipients.get(i % recipients.size()))
+                    .map(recipient -> CompletableFuture.runAsync(
+                            () -> bonusGrantingService.grantWelcomeBonus(recipient.getIban(), BONUS), executor))
+                    .toArray(CompletableFuture[]::new)).join();
+        }
+        await().atMost(Duration.ofMinutes(5)).pollInterval(Duration.ofMillis(20))
+                .until(() -> recipientsBalance(recipients).compareTo(expected) == 0);
+        double millis = (System.nanoTime() - start) / 1_000_000.0;
+
+        return new Result(name, bonuses / (millis / 1000.0), millis);
+    }
+
+    private BigDecimal recipientsBalance(List<Account> recipients) {
+        return recipients.stream()
+                .map(recipient -> accountRepository.findBalanceById(recipient.getId()).orElseThrow())
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    private record Result(String name, double throughput, double millis) {
+    }
+}
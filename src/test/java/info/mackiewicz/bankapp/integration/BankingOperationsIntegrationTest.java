@@ -14,8 +14,11 @@ import info.mackiewicz.bankapp.core.user.repository.UserRepository;
 import info.mackiewicz.bankapp.integration.utils.IntegrationTestAccountService;
 import info.mackiewicz.bankapp.integration.utils.IntegrationTestConfig;
 import info.mackiewicz.bankapp.integration.utils.IntegrationTestUserService;
+import info.mackiewicz.bankapp.shared.config.ApiConstants;
 import info.mackiewicz.bankapp.system.banking.operations.controller.dto.EmailTransferRequest;
 import info.mackiewicz.bankapp.system.banking.operations.controller.dto.IbanTransferRequest;
+import info.mackiewicz.bankapp.system.transaction.processing.TransactionProcessingService;
+import info.mackiewicz.bankapp.system.transaction.processing.dispatch.repository.TransactionOutboxRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.iban4j.Iban;
 import org.jetbrains.annotations.NotNull;
@@ -30,11 +33,14 @@ import org.springframework.http.MediaType;
 import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
 import static org.awaitility.Awaitility.await;
@@ -82,6 +88,15 @@ public class BankingOperationsIntegrationTest {
     @Autowired
     private TransactionRepository transactionRepository;
 
+    @Autowired
+    private TransactionOutboxRepository outboxRepository;
+
+    @Autowired
+    private TransactionProcessingService processingService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     private Account sourceAccount;
     private Account sameOwnerDestinationAccount;
     private Account destinationAccount;
@@ -160,6 +175,39 @@ public class BankingOperationsIntegrationTest {
                 .orElseThrow();
     }
 
+    @Test
+    @DisplayName("Should process again a transaction whose claim was abandoned, but never under the old claim")
+    void staleClaim_shouldBeReleasedAndProcessedAgain() {
+        // Given - a transfer claimed an hour ago by a node that crashed before completing it
+        Transaction transfer = transactionRepository.save(Transaction.buildTransfer()
+                .from(sourceAccount)
+                .to(destinationAccount)
+                .withAmount(DEFAULT_TRANSFER_VALUE)
+                .withTitle(DEFAULT_TRANSFER_TITLE)
+                .build());
+        LocalDateTime staleClaim = LocalDateTime.now().minusHours(1).withNano(0);
+        transactionTemplate.executeWithoutResult(status -> transactionRepository.claimForProcessing(transfer.getId(), staleClaim));
+
+        // When
+        int released = transactionTemplate.execute(status -> processingService.releaseStaleClaims(LocalDateTime.now().minusMinutes(10)));
+
+        // Then - the former owner can no longer complete it, processing it again does
+        assertEquals(1, released);
+        assertEquals(TransactionStatus.NEW, transactionRepository.findById(transfer.getId()).orElseThrow().getStatus());
+        assertEquals(0, (int) transactionTemplate.execute(status ->
+                transactionRepository.updateClaimedTransactionStatus(transfer.getId(), staleClaim, TransactionStatus.DONE)));
+
+        processingService.processTransactionById(transfer.getId()).join();
+
+        assertEquals(TransactionStatus.DONE, transactionRepository.findById(transfer.getId()).orElseThrow().getStatus());
+        checkBalancesPostTransfer(
+                sourceAccount,
+                DEFAULT_BALANCE.subtract(DEFAULT_TRANSFER_VALUE),
+                destinationAccount,
+                DEFAULT_BALANCE.add(DEFAULT_TRANSFER_VALUE)
+        );
+    }
+
     @Test
     @DisplayName("Should successfully transfer funds between accounts using IBAN")
     void ibanTransfer_shouldSuccessfullyTransferFunds() throws Exception {
@@ -189,24 +237,107 @@ public class BankingOperationsIntegrationTest {
 
         //recover transaction id from response
         Integer transactionId = JsonPath.read(responseBody, "$.transactionInfo.id");
+        awaitTransactionCompletion(transactionId);
+
         Transaction savedTransaction = transactionRepository.findById(transactionId).orElseThrow();
 
-        assertEquals(TransactionStatus.NEW, savedTransaction.getStatus());
+        assertEquals(TransactionStatus.DONE, savedTransaction.getStatus());
         assertEquals(TransactionType.TRANSFER_INTERNAL, savedTransaction.getType());
-        assertEquals(sourceAccount, savedTransaction.getSourceAccount());
-        assertEquals(destinationAccount, savedTransaction.getDestinationAccount());
+        assertEquals(sourceAccount.getId(), savedTransaction.getSourceAccount().getId());
+        assertEquals(destinationAccount.getId(), savedTransaction.getDestinationAccount().getId());
         assertEquals(DEFAULT_TRANSFER_VALUE.setScale(2, RoundingMode.HALF_UP), savedTransaction.getAmount().setScale(2, RoundingMode.HALF_UP));
         assertEquals(DEFAULT_TRANSFER_TITLE, savedTransaction.getTitle());
 
-        //accounts balance doesn't change, because it's not same owner of account
+        //transfers to other owners are dispatched to processing right after registration as well
+        checkBalancesPostTransfer(
+                sourceAccount,
+                DEFAULT_BALANCE.subtract(DEFAULT_TRANSFER_VALUE),
+                destinationAccount,
+                DEFAULT_BALANCE.add(DEFAULT_TRANSFER_VALUE)
+        );
+        await().atMost(2, TimeUnit.SECONDS)
+                .until(() -> outboxRepository.findById(transactionId).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should register a transfer retried with the same idempotency key only once")
+    void ibanTransfer_withSameIdempotencyKey_shouldRegisterOneTransaction() throws Exception {
+        // Preparing IBAN transfer request
+        IbanTransferRequest request = new IbanTransferRequest();
+        request.setSourceIban(sourceAccount.getIban());
+        request.setRecipientIban(destinationAccount.getIban());
+        request.setAmount(DEFAULT_TRANSFER_VALUE);
+        request.setTitle(DEFAULT_TRANSFER_TITLE);
+        String idempotencyKey = UUID.randomUUID().toString();
+
+        // Sending the request and its retry
+        Integer firstTransactionId = null;
+        for (int attempt = 0; attempt < 2; attempt++) {
+            String responseBody = mockMvc.perform(post(BANKING_TRANSFER_IBAN_ENDPOINT)
+                            .with(SecurityMockMvcRequestPostProcessors.user(testUser))
+                            .with(SecurityMockMvcRequestPostProcessors.csrf())
+                            .header(ApiConstants.IDEMPOTENCY_KEY_HEADER, idempotencyKey)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isOk())
+                    .andReturn()
+                    .getResponse()
+                    .getContentAsString();
+            Integer transactionId = JsonPath.read(responseBody, "$.transactionInfo.id");
+            if (firstTransactionId == null) {
+                firstTransactionId = transactionId;
+            }
+            assertEquals(firstTransactionId, transactionId);
+        }
+        awaitTransactionCompletion(firstTransactionId);
+
+        // Money moved once
+        assertEquals(1, transactionRepository.findByAccountId(sourceAccount.getId()).orElseThrow().size());
         checkBalancesPostTransfer(
                 sourceAccount,
-                DEFAULT_BALANCE,
+                DEFAULT_BALANCE.subtract(DEFAULT_TRANSFER_VALUE),
                 destinationAccount,
-                DEFAULT_BALANCE
+                DEFAULT_BALANCE.add(DEFAULT_TRANSFER_VALUE)
         );
     }
 
+    @Test
+    @DisplayName("Should reject an idempotency key reused for a different transfer")
+    void ibanTransfer_withIdempotencyKeyReusedForDifferentBody_shouldReturnUnprocessableEntity() throws Exception {
+        // Preparing IBAN transfer request
+        IbanTransferRequest request = new IbanTransferRequest();
+        request.setSourceIban(sourceAccount.getIban());
+        request.setRecipientIban(destinationAccount.getIban());
+        request.setAmount(DEFAULT_TRANSFER_VALUE);
+        request.setTitle(DEFAULT_TRANSFER_TITLE);
+        String idempotencyKey = UUID.randomUUID().toString();
+        String responseBody = mockMvc.perform(post(BANKING_TRANSFER_IBAN_ENDPOINT)
+                        .with(SecurityMockMvcRequestPostProcessors.user(testUser))
+                        .with(SecurityMockMvcRequestPostProcessors.csrf())
+                        .header(ApiConstants.IDEMPOTENCY_KEY_HEADER, idempotencyKey)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        awaitTransactionCompletion(JsonPath.read(responseBody, "$.transactionInfo.id"));
+
+        // Reusing the key with another amount
+        request.setAmount(DEFAULT_TRANSFER_VALUE.add(BigDecimal.ONE));
+        mockMvc.perform(post(BANKING_TRANSFER_IBAN_ENDPOINT)
+                        .with(SecurityMockMvcRequestPostProcessors.user(testUser))
+                        .with(SecurityMockMvcRequestPostProcessors.csrf())
+                        .header(ApiConstants.IDEMPOTENCY_KEY_HEADER, idempotencyKey)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.title").value("IDEMPOTENCY_KEY_REUSED"));
+
+        // Only the first transfer was registered
+        assertEquals(1, transactionRepository.findByAccountId(sourceAccount.getId()).orElseThrow().size());
+    }
+
     @Test
     @DisplayName("Should immediately transfer funds in OWN_TRANSFER using IBAN")
     void iban_OWN_TRANSFER_shouldImmediatelyTransferFunds() throws Exception {
@@ -285,22 +416,24 @@ public class BankingOperationsIntegrationTest {
 
         //recover transaction id from response
         Integer transactionId = JsonPath.read(responseBody, "$.transactionInfo.id");
+        awaitTransactionCompletion(transactionId);
+
         Transaction savedTransaction = transactionRepository.findById(transactionId).orElseThrow();
 
-        assertEquals(TransactionStatus.NEW, savedTransaction.getStatus());
+        assertEquals(TransactionStatus.DONE, savedTransaction.getStatus());
         assertEquals(TransactionType.TRANSFER_INTERNAL, savedTransaction.getType());
-        assertEquals(sourceAccount, savedTransaction.getSourceAccount());
-        assertEquals(destinationAccount, savedTransaction.getDestinationAccount());
+        assertEquals(sourceAccount.getId(), savedTransaction.getSourceAccount().getId());
+        assertEquals(destinationAccount.getId(), savedTransaction.getDestinationAccount().getId());
         assertEquals(DEFAULT_TRANSFER_VALUE.setScale(2, RoundingMode.HALF_UP), savedTransaction.getAmount().setScale(2, RoundingMode.HALF_UP));
         assertEquals(DEFAULT_TRANSFER_TITLE, savedTransaction.getTitle());
 
 
-        //accounts balance don't change, because it's not same owner of account
+        //transfers to other owners are dispatched to processing right after registration as well
         checkBalancesPostTransfer(
                 sourceAccount,
-                DEFAULT_BALANCE,
+                DEFAULT_BALANCE.subtract(DEFAULT_TRANSFER_VALUE),
                 destinationAccount,
-                DEFAULT_BALANCE
+                DEFAULT_BALANCE.add(DEFAULT_TRANSFER_VALUE)
         );
     }
 
@@ -23,6 +23,7 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -38,6 +39,8 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 @ActiveProfiles("test")
 @Import(IntegrationTestConfig.class)
 @EnableConfigurationProperties(LockingConfig.class)
+// transactions are processed together by processAllNewTransactions, not dispatched one by one on registration
+@TestPropertySource(properties = "app.transaction.dispatch.enabled=false")
 @DisplayName("Concurrent Transactions Integration Tests")
 class ConcurrentTransactionIntegrationTest {
 
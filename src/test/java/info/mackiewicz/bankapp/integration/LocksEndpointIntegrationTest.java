@@ -0,0 +1,60 @@
+package info.mackiewicz.bankapp.integration;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Locks actuator endpoint integration tests")
+class LocksEndpointIntegrationTest {
+
+    private static final String LOCKS_ENDPOINT = "/actuator/locks";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @DisplayName("Should report locking state to administrators")
+    void shouldReportLockingState() throws Exception {
+        mockMvc.perform(get(LOCKS_ENDPOINT).param("limit", "5").with(user("operator").roles("ADMIN")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.lockedAccounts").isNumber())
+                .andExpect(jsonPath("$.acquired").isNumber())
+                .andExpect(jsonPath("$.released").isNumber())
+                .andExpect(jsonPath("$.hotAccounts").isArray());
+    }
+
+    @Test
+    @DisplayName("Should forbid locks and metrics to bank customers")
+    void shouldForbidCustomers() throws Exception {
+        mockMvc.perform(get(LOCKS_ENDPOINT).with(user("customer").roles("USER")))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post(LOCKS_ENDPOINT).with(user("customer").roles("USER")))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/metrics").with(user("customer").roles("USER")))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @DisplayName("Should require authentication for locks but not for health")
+    void shouldRequireAuthentication() throws Exception {
+        mockMvc.perform(get(LOCKS_ENDPOINT))
+                .andExpect(status().isUnauthorized());
+        // health stays public; its status depends on external services (e.g. mail) in tests
+        mockMvc.perform(get("/actuator/health"))
+                .andExpect(result -> assertThat(result.getResponse().getStatus()).isNotEqualTo(401));
+    }
+}
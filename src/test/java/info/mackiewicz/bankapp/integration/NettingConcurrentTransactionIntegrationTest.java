@@ -0,0 +1,17 @@
+package info.mackiewicz.bankapp.integration;
+
+import org.junit.jupiter.api.DisplayName;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Runs the concurrent transaction scenarios with batch netting, so every chunk of new
+ * transactions is written as one balance update per account. A small chunk size makes
+ * the scenarios span several chunks.
+ */
+@TestPropertySource(properties = {
+        "app.transaction.batch.netting=true",
+        "app.transaction.batch.chunk-size=7"
+})
+@DisplayName("Concurrent Transactions Integration Tests (batch netting)")
+class NettingConcurrentTransactionIntegrationTest extends ConcurrentTransactionIntegrationTest {
+}
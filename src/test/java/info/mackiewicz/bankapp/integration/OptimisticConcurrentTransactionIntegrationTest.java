@@ -0,0 +1,17 @@
+package info.mackiewicz.bankapp.integration;
+
+import org.junit.jupiter.api.DisplayName;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Runs the concurrent transaction scenarios without account locks, relying on
+ * optimistic locking of account balances. The retry budget is raised because these
+ * scenarios deliberately concentrate many transactions on a few accounts.
+ */
+@TestPropertySource(properties = {
+        "app.transaction.execution.mode=optimistic",
+        "app.transaction.execution.max-retries=50"
+})
+@DisplayName("Concurrent Transactions Integration Tests (optimistic mode)")
+class OptimisticConcurrentTransactionIntegrationTest extends ConcurrentTransactionIntegrationTest {
+}
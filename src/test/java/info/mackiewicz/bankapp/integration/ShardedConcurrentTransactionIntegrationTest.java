@@ -0,0 +1,16 @@
+package info.mackiewicz.bankapp.integration;
+
+import org.junit.jupiter.api.DisplayName;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Runs the concurrent transaction scenarios on account shards instead of account locks;
+ * most transfers cross shards and are completed through the debit/credit hand-over.
+ */
+@TestPropertySource(properties = {
+        "app.transaction.execution.mode=sharded",
+        "app.transaction.execution.shards=4"
+})
+@DisplayName("Concurrent Transactions Integration Tests (sharded mode)")
+class ShardedConcurrentTransactionIntegrationTest extends ConcurrentTransactionIntegrationTest {
+}
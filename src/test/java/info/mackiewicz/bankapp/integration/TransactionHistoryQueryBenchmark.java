@@ -0,0 +1,253 @@
+package info.mackiewicz.bankapp.integration;
+
+import info.mackiewicz.bankapp.core.account.model.Account;
+import info.mackiewicz.bankapp.core.account.repository.AccountRepository;
+import info.mackiewicz.bankapp.core.transaction.model.Transaction;
+import info.mackiewicz.bankapp.core.transaction.model.TransactionStatus;
+import info.mackiewicz.bankapp.core.transaction.model.TransactionType;
+import info.mackiewicz.bankapp.core.transaction.repository.TransactionRepository;
+import info.mackiewicz.bankapp.core.user.model.User;
+import info.mackiewicz.bankapp.integration.utils.IntegrationTestConfig;
+import info.mackiewicz.bankapp.integration.utils.IntegrationTestUserService;
+import info.mackiewicz.bankapp.system.transaction.processing.dispatch.TransactionDispatcher;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the account history queries before and after the indexes of
+ * {@code V16__Index_transactions.sql}: the former {@code source_id = :id OR destination_id = :id}
+ * queries without indexes, the same queries with the indexes, and the UNION ALL queries of
+ * {@link TransactionRepository} with the indexes. The page of NEW transactions read by the batch
+ * processor is measured as well. Prints the latency percentiles of every query.
+ * <p>
+ * Not part of the regular build, run with:
+ * {@code mvn test -Dtest=TransactionHistoryQueryBenchmark -Dbenchmark=true -DargLine=-Xmx4g}
+ * Optional: {@code -Dbenchmark.transactions=10000000 -Dbenchmark.accounts=5000 -Dbenchmark.samples=20
+ * -Dbenchmark.warmup=3}
+ * <p>
+ * Runs against a dedicated in-memory H2 database, which does not support partial indexes, so the index
+ * of NEW and PENDING transactions covers all rows there. To run against PostgreSQL, point
+ * {@code benchmark.datasource.url}, {@code .username}, {@code .password}, {@code .driver} and
+ * {@code benchmark.dialect} to an empty scratch database; the schema is created and dropped by Hibernate.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(IntegrationTestConfig.class)
+@TestPropertySource(properties = {
+        "spring.datasource.url=${benchmark.datasource.url:jdbc:h2:mem:history-benchmark;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=DATE}",
+        "spring.datasource.username=${benchmark.datasource.username:sa}",
+        "spring.datasource.password=${benchmark.datasource.password:}",
+        "spring.datasource.driver-class-name=${benchmark.datasource.driver:org.h2.Driver}",
+        "spring.jpa.properties.hibernate.dialect=${benchmark.dialect:org.hibernate.dialect.H2Dialect}"
+})
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Transaction history query benchmark")
+class TransactionHistoryQueryBenchmark {
+
+    private static final int TRANSACTIONS = Integer.getInteger("benchmark.transactions", 10_000_000);
+    private static final int ACCOUNTS = Integer.getInteger("benchmark.accounts", 5_000);
+    private static final int SAMPLES = Integer.getInteger("benchmark.samples", 20);
+    private static final int WARMUP = Integer.getInteger("benchmark.warmup", 3);
+    // TransactionHistoryService reads this many recent transactions
+    private static final int RECENT = 100;
+    private static final int NEW_PAGE = 500;
+    private static final int BATCH_SIZE = 10_000;
+    // one transaction in a thousand is still waiting for processing
+    private static final int NEW_EVERY = 1_000;
+    private static final String INDEX_MIGRATION = "db/migration/V16__Index_transactions.sql";
+    private static final double[] PERCENTILES = {50, 90, 99};
+
+    // the account history queries before V16
+    private static final String OR_HISTORY = """
+            SELECT t FROM Transaction t
+                WHERE t.sourceAccount.id = :accountId OR t.destinationAccount.id = :accountId
+                ORDER BY t.date DESC
+            """;
+
+    @Autowired
+    private IntegrationTestUserService testUserService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // the seeded NEW transactions must not be processed during the run
+    @MockitoBean
+    private TransactionDispatcher transactionDispatcher;
+
+    @Test
+    @DisplayName("Should report the latency of the history queries with and without indexes")
+    void compareQueries() throws IOException {
+        List<Integer> accountIds = seedAccounts();
+        long seedStart = System.nanoTime();
+        seedTransactions(accountIds);
+        System.out.printf("%nSeeded %d transactions between %d accounts in %.0f s%n",
+                TRANSACTIONS, accountIds.size(), (System.nanoTime() - seedStart) / 1_000_000_000.0);
+        Random random = new Random(7);
+        int[] sampled = random.ints(SAMPLES + WARMUP, 0, accountIds.size()).map(accountIds::get).toArray();
+
+        List<Result> results = new ArrayList<>();
+        results.add(measure("history, OR", "no indexes", sampled, this::orHistory));
+        results.add(measure("recent " + RECENT + ", OR", "no indexes", sampled, this::orRecent));
+        results.add(measure("NEW page", "no indexes", sampled, accountId -> newPage()));
+
+        long indexStart = System.nanoTime();
+        createIndexes();
+        String indexed = String.format("V16 (%.0f s)", (System.nanoTime() - indexStart) / 1_000_000_000.0);
+        results.add(measure("history, OR", indexed, sampled, this::orHistory));
+        results.add(measure("history, UNION ALL", indexed, sampled,
+                accountId -> transactionRepository.findByAccountId(accountId).orElseThrow()));
+        results.add(measure("recent " + RECENT + ", OR", indexed, sampled, this::orRecent));
+        results.add(measure("recent " + RECENT + ", UNION ALL", indexed, sampled,
+                accountId -> transactionRepository.findTopNByAccountIdOrderByCreatedDesc(accountId, RECENT).orElseThrow()));
+        results.add(measure("NEW page", indexed, sampled, accountId -> newPage()));
+
+        printReport(results);
+        int accountId = sampled[0];
+        assertThat(transactionRepository.findByAccountId(accountId).orElseThrow())
+                .extracting(Transaction::getId)
+                .containsExactlyInAnyOrderElementsOf(orHistory(accountId).stream().map(Transaction::getId).toList());
+    }
+
+    private List<Integer> seedAccounts() {
+        User owner = testUserService.createRandomTestUser();
+        List<Account> accounts = IntStream.range(0, ACCOUNTS)
+                .mapToObj(i -> Account.factory().createAccount(owner))
+                .toList();
+        return accountRepository.saveAll(accounts).stream().map(Account::getId).toList();
+    }
+
+    private void seedTransactions(List<Integer> accountIds) {
+        Random random = new Random(42);
+        LocalDateTime start = LocalDateTime.now().minusYears(1);
+        long secondsPerTransaction = Math.max(1, 365L * 24 * 3600 / TRANSACTIONS);
+        String insert = """
+                INSERT INTO "transactions" ("amount", "date", "status", "title", "type", "source_id", "destination_id")
+                VALUES (?, ?, ?, ?, ?, ?, ?)
+                """;
+        for (int first = 0; first < TRANSACTIONS; first += BATCH_SIZE) {
+            List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+            for (int i = first; i < Math.min(first + BATCH_SIZE, TRANSACTIONS); i++) {
+                int source = accountIds.get(random.nextInt(accountIds.size()));
+                int destination = accountIds.get(random.nextInt(accountIds.size()));
+                TransactionStatus status = i % NEW_EVERY == 0 ? TransactionStatus.NEW : TransactionStatus.DONE;
+                batch.add(new Object[]{
+                        BigDecimal.valueOf(1 + random.nextInt(100_000), 2),
+                        Timestamp.valueOf(start.plusSeconds(i * secondsPerTransaction)),
+                        status.name(),
+                        "Benchmark transfer",
+                        TransactionType.TRANSFER_INTERNAL.name(),
+                        source,
+                        destination});
+            }
+            jdbcTemplate.batchUpdate(insert, batch);
+        }
+    }
+
+    /**
+     * Creates the indexes of the migration; H2 has no partial indexes, so their condition is left out there.
+     */
+    private void createIndexes() throws IOException {
+        String migration = new ClassPathResource(INDEX_MIGRATION).getContentAsString(StandardCharsets.UTF_8);
+        String database = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        boolean partialIndexes = !"H2".equals(database);
+        Arrays.stream(migration.replaceAll("(?m)^--.*$", "").split(";"))
+                .map(String::trim)
+                .filter(statement -> !statement.isEmpty())
+                .map(statement -> partialIndexes ? statement : statement.replaceAll("(?s)\\s+WHERE .*$", ""))
+                .forEach(jdbcTemplate::execute);
+    }
+
+    private List<Transaction> orHistory(int accountId) {
+        return entityManager.createQuery(OR_HISTORY, Transaction.class)
+                .setParameter("accountId", accountId)
+                .getResultList();
+    }
+
+    private List<Transaction> orRecent(int accountId) {
+        return entityManager.createQuery(OR_HISTORY, Transaction.class)
+                .setParameter("accountId", accountId)
+                .setMaxResults(RECENT)
+                .getResultList();
+    }
+
+    private List<Transaction> newPage() {
+        return transactionRepository.findByStatusAndIdGreaterThanOrderByIdAsc(TransactionStatus.NEW, 0, Limit.of(NEW_PAGE));
+    }
+
+    private Result measure(String query, String indexes, int[] accountIds, IntFunction<List<Transaction>> execution) {
+        long[] nanos = new long[SAMPLES];
+        long rows = 0;
+        for (int i = 0; i < accountIds.length; i++) {
+            long start = System.nanoTime();
+            int size = execution.apply(accountIds[i]).size();
+            long elapsed = System.nanoTime() - start;
+            if (i >= WARMUP) {
+                nanos[i - WARMUP] = elapsed;
+                rows += size;
+            }
+        }
+        Arrays.sort(nanos);
+        return new Result(query, indexes, nanos, (double) rows / SAMPLES);
+    }
+
+    private void printReport(List<Result> results) {
+        System.out.printf("%n%-22s %-14s %8s %10s %10s %10s %10s%n",
+                "query", "indexes", "rows", "p50 ms", "p90 ms", "p99 ms", "mean ms");
+        for (Result result : results) {
+            System.out.printf("%-22s %-14s %8.0f", result.query(), result.indexes(), result.rows());
+            for (double percentile : PERCENTILES) {
+                System.out.printf(" %10.2f", result.percentileMillis(percentile));
+            }
+            System.out.printf(" %10.2f%n", result.meanMillis());
+        }
+    }
+
+    private record Result(String query, String indexes, long[] sortedNanos, double rows) {
+
+        double percentileMillis(double percentile) {
+            int index = (int) Math.ceil(percentile / 100 * sortedNanos.length) - 1;
+            return sortedNanos[Math.max(0, index)] / 1_000_000.0;
+        }
+
+        double meanMillis() {
+            return Arrays.stream(sortedNanos).average().orElse(0) / 1_000_000.0;
+        }
+    }
+}
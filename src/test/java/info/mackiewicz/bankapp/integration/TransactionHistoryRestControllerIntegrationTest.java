@@ -1,5 +1,6 @@
 package info.mackiewicz.bankapp.integration;
 
+import com.jayway.jsonpath.JsonPath;
 import info.mackiewicz.bankapp.core.account.model.Account;
 import info.mackiewicz.bankapp.core.transaction.model.Transaction;
 import info.mackiewicz.bankapp.core.transaction.service.TransactionService;
@@ -9,6 +10,7 @@ import info.mackiewicz.bankapp.integration.utils.IntegrationTestAccountService;
 import info.mackiewicz.bankapp.integration.utils.IntegrationTestConfig;
 import info.mackiewicz.bankapp.integration.utils.IntegrationTestUserService;
 import info.mackiewicz.bankapp.shared.util.Util;
+import info.mackiewicz.bankapp.system.banking.history.export.ExportConfig;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -20,15 +22,21 @@ import org.springframework.http.MediaType;
 import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import java.math.BigDecimal;
 import java.util.NoSuchElementException;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -57,6 +65,9 @@ class TransactionHistoryRestControllerIntegrationTest {
     @Autowired
     private TransactionService transactionService;
 
+    @Autowired
+    private ExportConfig exportConfig;
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -167,13 +178,43 @@ class TransactionHistoryRestControllerIntegrationTest {
 
         registerDefaultTransferTransaction(testAccount, destinationAccount);
 
-        // When & Then
-        mockMvc.perform(MockMvcRequestBuilders.get(API_HISTORY_EXPORT_PATH)
+        // When
+        MvcResult export = mockMvc.perform(MockMvcRequestBuilders.get(API_HISTORY_EXPORT_PATH)
+                        .param("accountId", String.valueOf(getAccountId(testUser)))
+                        .param("format", "csv")
+                        .param("query", DEFAULT_TRANSACTION_TITLE.toLowerCase())
+                        .with(SecurityMockMvcRequestPostProcessors.user(testUser))
+                        .with(SecurityMockMvcRequestPostProcessors.csrf())
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then - the file is streamed asynchronously
+        mockMvc.perform(asyncDispatch(export))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv"))
+                .andExpect(content().string(containsString(",100.00,TRANSFER_INTERNAL," + testAccount.getId() + ","
+                        + destinationAccount.getId() + ",\"" + DEFAULT_TRANSACTION_TITLE + "\",")));
+    }
+
+    @Test
+    void exportTransactions_ShouldStreamWithExportTimeout() throws Exception {
+        // Given
+        User testUser = createTestUserWithAccount();
+
+        // When
+        MvcResult export = mockMvc.perform(MockMvcRequestBuilders.get(API_HISTORY_EXPORT_PATH)
                         .param("accountId", String.valueOf(getAccountId(testUser)))
                         .param("format", "csv")
                         .with(SecurityMockMvcRequestPostProcessors.user(testUser))
                         .with(SecurityMockMvcRequestPostProcessors.csrf())
                         .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        assertEquals(exportConfig.timeout(), export.getRequest().getAsyncContext().getTimeout());
+        mockMvc.perform(asyncDispatch(export))
                 .andExpect(status().isOk());
     }
 
@@ -330,28 +371,97 @@ class TransactionHistoryRestControllerIntegrationTest {
             registerTransaction(testAccount, destinationAccount, new BigDecimal(i * 10), "Trans " + i);
         }
 
-        // When & Then - Request page 1 (second page, size 10)
-        mockMvc.perform(MockMvcRequestBuilders.get(API_HISTORY_PATH)
+        MvcResult firstPage = mockMvc.perform(MockMvcRequestBuilders.get(API_HISTORY_PATH)
                         .param("accountId", String.valueOf(accountId))
-                        .param("page", "1") // 0-indexed, so this is the second page
                         .param("size", "10")
                         .param("sortBy", "amount") // Sort consistently for predictable results
                         .param("sortDirection", "ASCENDING")
                         .with(SecurityMockMvcRequestPostProcessors.user(testUser))
                         .with(SecurityMockMvcRequestPostProcessors.csrf())
                         .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(10))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andReturn();
+        String cursor = JsonPath.read(firstPage.getResponse().getContentAsString(), "$.nextCursor");
+
+        // When & Then - Request the second page with the cursor of the first one
+        mockMvc.perform(MockMvcRequestBuilders.get(API_HISTORY_PATH)
+                        .param("accountId", String.valueOf(accountId))
+                        .param("cursor", cursor)
+                        .param("size", "10")
+                        .param("sortBy", "amount")
+                        .param("sortDirection", "ASCENDING")
+                        .with(SecurityMockMvcRequestPostProcessors.user(testUser))
+                        .with(SecurityMockMvcRequestPostProcessors.csrf())
+                        .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.content").isArray())
                 .andExpect(jsonPath("$.content.length()").value(5)) // 5 transactions on the second page
-                .andExpect(jsonPath("$.pageable.pageNumber").value(1))
-                .andExpect(jsonPath("$.pageable.pageSize").value(10))
-                .andExpect(jsonPath("$.totalElements").value(15))
-                .andExpect(jsonPath("$.totalPages").value(2))
-                // Check the first element on page 1 (which is the 11th overall transaction by amount)
+                .andExpect(jsonPath("$.size").value(10))
+                .andExpect(jsonPath("$.hasNext").value(false))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist())
+                // Check the first element on the second page (which is the 11th overall transaction by amount)
                 .andExpect(jsonPath("$.content[0].transactionInfo.title").value("Trans 11"));
     }
 
+    @Test
+    void getTransactions_ShouldReachTransactionsBeyondTheMostRecentHundred() throws Exception {
+        // Given
+        User testUser = createTestUserWithAccount();
+        Account testAccount = getAccount(testUser);
+        Integer accountId = getAccountId(testUser);
+        User destinationUser = createTestUserWithAccount();
+        Account destinationAccount = getAccount(destinationUser);
+
+        registerTransaction(testAccount, destinationAccount, new BigDecimal("1.00"), "Oldest");
+        for (int i = 1; i <= 100; i++) {
+            registerTransaction(testAccount, destinationAccount, new BigDecimal("1.00"), "Trans " + i);
+        }
+
+        // When & Then
+        mockMvc.perform(MockMvcRequestBuilders.get(API_HISTORY_PATH)
+                        .param("accountId", String.valueOf(accountId))
+                        .param("size", "1")
+                        .param("sortBy", "date")
+                        .param("sortDirection", "ASCENDING")
+                        .with(SecurityMockMvcRequestPostProcessors.user(testUser))
+                        .with(SecurityMockMvcRequestPostProcessors.csrf())
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].transactionInfo.title").value("Oldest"))
+                .andExpect(jsonPath("$.hasNext").value(true));
+    }
+
+    @Test
+    void getTransactions_ShouldFilterByOwnerNameAndAmount() throws Exception {
+        // Given
+        User testUser = createTestUserWithAccount();
+        Account testAccount = getAccount(testUser);
+        Integer accountId = getAccountId(testUser);
+        User destinationUser = createTestUserWithAccount();
+        Account destinationAccount = getAccount(destinationUser);
+
+        registerTransaction(testAccount, destinationAccount, new BigDecimal("10.00"), "First");
+        Transaction expected = registerTransaction(testAccount, destinationAccount, new BigDecimal("20.00"), "Second");
+
+        // When & Then
+        mockMvc.perform(MockMvcRequestBuilders.get(API_HISTORY_PATH)
+                        .param("accountId", String.valueOf(accountId))
+                        // the titles do not contain the name, so only the owner name can match
+                        .param("query", destinationUser.getLastname().toUpperCase())
+                        .param("amountFrom", "15.00")
+                        .with(SecurityMockMvcRequestPostProcessors.user(testUser))
+                        .with(SecurityMockMvcRequestPostProcessors.csrf())
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].transactionInfo.title").value(expected.getTitle()));
+    }
+
     @Test
     void getTransactions_ShouldReturnBadRequestForInvalidFilterParams() throws Exception {
         // Given
@@ -381,13 +491,18 @@ class TransactionHistoryRestControllerIntegrationTest {
         Account destinationAccount = getAccount(destinationUser);
         registerTransaction(testAccount, destinationAccount, new BigDecimal("100.00"), "PDF Export Test");
 
-        // When & Then
-        mockMvc.perform(MockMvcRequestBuilders.get(API_HISTORY_EXPORT_PATH)
+        // When
+        MvcResult export = mockMvc.perform(MockMvcRequestBuilders.get(API_HISTORY_EXPORT_PATH)
                         .param("accountId", String.valueOf(accountId))
                         .param("format", "pdf") // Request PDF format
                         .with(SecurityMockMvcRequestPostProcessors.user(testUser))
                         .with(SecurityMockMvcRequestPostProcessors.csrf())
                         .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(export))
                 .andDo(print())
                 .andExpect(status().isOk())
                 // Verify content type for PDF
@@ -444,38 +559,24 @@ class TransactionHistoryRestControllerIntegrationTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.content").isArray())
                 .andExpect(jsonPath("$.content.length()").value(0)) // Expect empty array
-                .andExpect(jsonPath("$.totalElements").value(0));
+                .andExpect(jsonPath("$.hasNext").value(false));
     }
 
     @Test
-    void getTransactions_ShouldReturnEmptyListForPageOutOfBounds() throws Exception {
+    void getTransactions_ShouldReturnBadRequestForInvalidCursor() throws Exception {
         // Given
         User testUser = createTestUserWithAccount();
-        Account testAccount = getAccount(testUser);
         Integer accountId = getAccountId(testUser);
-        User destinationUser = createTestUserWithAccount();
-        Account destinationAccount = getAccount(destinationUser);
-
-        // Create only 2 transactions
-        registerTransaction(testAccount, destinationAccount, new BigDecimal("10.00"), "Trans 1");
-        registerTransaction(testAccount, destinationAccount, new BigDecimal("20.00"), "Trans 2");
 
-
-        // When & Then - Request page 10 (far beyond available data)
+        // When & Then
         mockMvc.perform(MockMvcRequestBuilders.get(API_HISTORY_PATH)
                         .param("accountId", String.valueOf(accountId))
-                        .param("page", "10")
-                        .param("size", "10")
+                        .param("cursor", "not-a-cursor")
                         .with(SecurityMockMvcRequestPostProcessors.user(testUser))
                         .with(SecurityMockMvcRequestPostProcessors.csrf())
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
-                .andExpect(status().isOk())
-                .andExpect(jsonPath("$.content").isArray())
-                .andExpect(jsonPath("$.content.length()").value(0)) // Expect empty content
-                .andExpect(jsonPath("$.pageable.pageNumber").value(10))
-                .andExpect(jsonPath("$.totalElements").value(2)) // Total elements should still be correct
-                .andExpect(jsonPath("$.totalPages").value(1)); // Only 1 page exists
+                .andExpect(status().isBadRequest());
     }
 
     @Test
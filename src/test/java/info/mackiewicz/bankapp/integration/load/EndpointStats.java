@@ -0,0 +1,70 @@
+package info.mackiewicz.bankapp.integration.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and outcomes of the requests sent to one endpoint during a load run.
+ * <p>
+ * Latencies are kept in microseconds with three significant digits. Responses with status
+ * 429 are counted as rejected by backpressure, other non-2xx responses and I/O failures as errors.
+ */
+class EndpointStats {
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Histogram latencies = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    /**
+     * Records a completed request.
+     *
+     * @param intendedStartNanos time at which the request was meant to be sent, so that in the open
+     *                           model a request delayed by a stalled client still counts the delay
+     * @param status             HTTP status of the response, or {@code -1} if no response was received
+     */
+    void record(long intendedStartNanos, int status) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedStartNanos);
+        latencies.recordValue(Math.max(micros, 0));
+        if (status >= 200 && status < 300) {
+            succeeded.increment();
+        } else if (status == 429) {
+            rejected.increment();
+        } else {
+            failed.increment();
+        }
+    }
+
+    long count() {
+        return latencies.getTotalCount();
+    }
+
+    long succeeded() {
+        return succeeded.sum();
+    }
+
+    long rejected() {
+        return rejected.sum();
+    }
+
+    long failed() {
+        return failed.sum();
+    }
+
+    /**
+     * @param percentile percentile between 0 and 100
+     * @return latency at the percentile in milliseconds
+     */
+    double percentileMillis(double percentile) {
+        return latencies.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    double maxMillis() {
+        return latencies.getMaxValue() / 1000.0;
+    }
+}
@@ -0,0 +1,141 @@
+package info.mackiewicz.bankapp.integration.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import info.mackiewicz.bankapp.core.account.model.Account;
+import info.mackiewicz.bankapp.core.account.repository.AccountRepository;
+import info.mackiewicz.bankapp.core.user.model.User;
+import info.mackiewicz.bankapp.integration.load.LoadGenerator.Endpoint;
+import info.mackiewicz.bankapp.integration.load.LoadGenerator.Model;
+import info.mackiewicz.bankapp.integration.load.LoadGenerator.SeededUser;
+import info.mackiewicz.bankapp.integration.utils.IntegrationTestAccountService;
+import info.mackiewicz.bankapp.integration.utils.IntegrationTestConfig;
+import info.mackiewicz.bankapp.integration.utils.IntegrationTestUserService;
+import info.mackiewicz.bankapp.system.notification.email.EmailService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * End-to-end load test of the REST API over loopback HTTP, against the H2 test configuration.
+ * <p>
+ * Seeds users with funded accounts, warms up, then sends a weighted mix of transfers, history
+ * queries, exports and registrations, and prints the throughput and latency percentiles of every
+ * endpoint. Requests authenticate with HTTP Basic, so their latency includes the password check.
+ * <p>
+ * Not part of the regular build, run with:
+ * {@code mvn test -Dtest=HttpLoadBenchmark -Dbenchmark=true}
+ * Optional: {@code -Dbenchmark.users=50 -Dbenchmark.model=closed -Dbenchmark.concurrency=16
+ * -Dbenchmark.rate=200 -Dbenchmark.duration=30 -Dbenchmark.warmup=10
+ * -Dbenchmark.mix=transfer:50,history:30,export:10,registration:10}
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@Import(IntegrationTestConfig.class)
+@TestPropertySource(properties = "server.address=127.0.0.1")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("HTTP load benchmark")
+class HttpLoadBenchmark {
+
+    private static final int USERS = Integer.getInteger("benchmark.users", 50);
+    private static final Model MODEL = Model.valueOf(System.getProperty("benchmark.model", "closed").toUpperCase());
+    private static final int CONCURRENCY = Integer.getInteger("benchmark.concurrency", 16);
+    private static final double RATE = Double.parseDouble(System.getProperty("benchmark.rate", "200"));
+    private static final Duration DURATION = Duration.ofSeconds(Integer.getInteger("benchmark.duration", 30));
+    private static final Duration WARMUP = Duration.ofSeconds(Integer.getInteger("benchmark.warmup", 10));
+    private static final Map<Endpoint, Integer> MIX = LoadGenerator.parseMix(
+            System.getProperty("benchmark.mix", "transfer:50,history:30,export:10,registration:10"));
+    private static final String USER_PASSWORD = "Password123!";
+    private static final BigDecimal USER_BALANCE = new BigDecimal("1000000.00");
+    private static final BigDecimal BANK_BALANCE = new BigDecimal("100000000.00");
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private IntegrationTestUserService testUserService;
+
+    @Autowired
+    private IntegrationTestAccountService testAccountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockitoBean
+    private EmailService emailService;
+
+    @Test
+    @DisplayName("Should report throughput and latency of every endpoint under load")
+    void runLoad() {
+        // the test database has no bank account, registrations pay their welcome bonus from this one
+        Account bankAccount = Account.factory().createSystemAccount(testUserService.createRandomTestUser(), 0);
+        bankAccount.setBalance(BANK_BALANCE);
+        accountRepository.save(bankAccount);
+        List<SeededUser> users = IntStream.range(0, USERS)
+                .mapToObj(i -> seedUser())
+                .toList();
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        LoadGenerator generator = new LoadGenerator(
+                client, URI.create("http://127.0.0.1:" + port), objectMapper, users, MIX);
+
+        run(generator, WARMUP);
+        long start = System.nanoTime();
+        Map<Endpoint, EndpointStats> stats = run(generator, DURATION);
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        printReport(stats, seconds);
+        assertThat(stats.values()).allSatisfy(endpoint -> assertThat(endpoint.succeeded()).isPositive());
+    }
+
+    private SeededUser seedUser() {
+        User user = testUserService.createRandomTestUser();
+        Account account = testAccountService.createTestAccountWithBalance(user.getId(), USER_BALANCE);
+        return new SeededUser(user.getUsername(), USER_PASSWORD, account.getId(), account.getIban().toString());
+    }
+
+    private Map<Endpoint, EndpointStats> run(LoadGenerator generator, Duration duration) {
+        return switch (MODEL) {
+            case OPEN -> generator.runOpen(RATE, duration);
+            case CLOSED -> generator.runClosed(CONCURRENCY, duration);
+        };
+    }
+
+    private void printReport(Map<Endpoint, EndpointStats> stats, double seconds) {
+        String load = MODEL == Model.OPEN ? RATE + " req/s offered" : CONCURRENCY + " clients";
+        System.out.printf("%n%s model, %s, %d users, %.0f s%n", MODEL.name().toLowerCase(), load, USERS, seconds);
+        System.out.printf("%-30s %8s %8s %8s %8s %9s %9s %9s %9s %9s %9s%n", "endpoint", "requests", "ok", "429",
+                "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        stats.forEach((endpoint, result) -> {
+            System.out.printf("%-30s %8d %8d %8d %8d %9.1f", endpoint.label(), result.count(), result.succeeded(),
+                    result.rejected(), result.failed(), result.count() / seconds);
+            for (double percentile : PERCENTILES) {
+                System.out.printf(" %9.2f", result.percentileMillis(percentile));
+            }
+            System.out.printf(" %9.2f%n", result.maxMillis());
+        });
+    }
+}
@@ -0,0 +1,259 @@
+package info.mackiewicz.bankapp.integration.load;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends a weighted mix of requests to a running application with the JDK {@link HttpClient}.
+ * <p>
+ * In the {@link Model#OPEN open} model requests are sent at a fixed rate whether or not earlier
+ * ones completed, and latency is measured from the time a request was scheduled. In the
+ * {@link Model#CLOSED closed} model a fixed number of clients each send the next request as soon
+ * as the previous one completes.
+ */
+class LoadGenerator {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final String PASSWORD = "StrongP@ss123";
+    private static final String TRANSFER_AMOUNT = "1.00";
+    private static final int HISTORY_PAGE_SIZE = 20;
+
+    /**
+     * Requests sent by the generator.
+     */
+    enum Endpoint {
+        TRANSFER("POST /api/transfers/iban"),
+        HISTORY("GET /api/transactions"),
+        EXPORT("GET /api/transactions/export"),
+        REGISTRATION("POST /api/public/users");
+
+        private final String label;
+
+        Endpoint(String label) {
+            this.label = label;
+        }
+
+        String label() {
+            return label;
+        }
+    }
+
+    /**
+     * Workload model of a run.
+     */
+    enum Model {
+        /** requests arrive at a fixed rate, independent of response times */
+        OPEN,
+        /** a fixed number of clients, each waiting for its response before the next request */
+        CLOSED
+    }
+
+    /**
+     * User seeded before the run, sending transfers and reading the history of its account.
+     */
+    record SeededUser(String username, String password, int accountId, String iban) {
+    }
+
+    private final HttpClient client;
+    private final URI baseUri;
+    private final ObjectMapper objectMapper;
+    private final List<SeededUser> users;
+    private final Map<Endpoint, Integer> mix;
+    private final int totalWeight;
+    private final String runId = Long.toString(System.nanoTime(), 36);
+    private final AtomicInteger registrations = new AtomicInteger();
+
+    LoadGenerator(HttpClient client, URI baseUri, ObjectMapper objectMapper, List<SeededUser> users,
+                  Map<Endpoint, Integer> mix) {
+        this.client = client;
+        this.baseUri = baseUri;
+        this.objectMapper = objectMapper;
+        this.users = List.copyOf(users);
+        this.mix = new EnumMap<>(mix);
+        this.totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        if (totalWeight <= 0) {
+            throw new IllegalArgumentException("Request mix must have a positive weight: " + mix);
+        }
+    }
+
+    /**
+     * Parses a request mix like {@code transfer:60,history:30,export:10}.
+     */
+    static Map<Endpoint, Integer> parseMix(String mix) {
+        Map<Endpoint, Integer> weights = new EnumMap<>(Endpoint.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            weights.put(Endpoint.valueOf(parts[0].trim().toUpperCase()), Integer.parseInt(parts[1].trim()));
+        }
+        return weights;
+    }
+
+    /**
+     * Sends requests at a fixed rate for the given duration and waits for all of them to complete.
+     *
+     * @param rate requests per second
+     */
+    Map<Endpoint, EndpointStats> runOpen(double rate, Duration duration) {
+        Map<Endpoint, EndpointStats> stats = newStats();
+        Queue<CompletableFuture<?>> pending = new ConcurrentLinkedQueue<>();
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+
+        for (long intendedStart = start; intendedStart < end; intendedStart += interval) {
+            long delay = intendedStart - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            Endpoint endpoint = nextEndpoint();
+            EndpointStats endpointStats = stats.get(endpoint);
+            long scheduledAt = intendedStart;
+            pending.add(client.sendAsync(request(endpoint), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) ->
+                            endpointStats.record(scheduledAt, response != null ? response.statusCode() : -1)));
+        }
+        CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new))
+                .exceptionally(error -> null)
+                .join();
+        return stats;
+    }
+
+    /**
+     * Sends requests from the given number of clients for the given duration.
+     */
+    Map<Endpoint, EndpointStats> runClosed(int concurrency, Duration duration) {
+        Map<Endpoint, EndpointStats> stats = newStats();
+        long end = System.nanoTime() + duration.toNanos();
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                clients.execute(() -> {
+                    while (System.nanoTime() < end) {
+                        Endpoint endpoint = nextEndpoint();
+                        long start = System.nanoTime();
+                        stats.get(endpoint).record(start, send(request(endpoint)));
+                    }
+                });
+            }
+        }
+        return stats;
+    }
+
+    private int send(HttpRequest request) {
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private Map<Endpoint, EndpointStats> newStats() {
+        Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : mix.keySet()) {
+            stats.put(endpoint, new EndpointStats());
+        }
+        return stats;
+    }
+
+    private Endpoint nextEndpoint() {
+        int drawn = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Map.Entry<Endpoint, Integer> entry : mix.entrySet()) {
+            drawn -= entry.getValue();
+            if (drawn < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("No endpoint drawn from " + mix);
+    }
+
+    private HttpRequest request(Endpoint endpoint) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int userIndex = random.nextInt(users.size());
+        SeededUser user = users.get(userIndex);
+        return switch (endpoint) {
+            case TRANSFER -> {
+                SeededUser recipient = users.get(otherThan(userIndex, random.nextInt(users.size() - 1)));
+                Map<String, Object> body = new LinkedHashMap<>();
+                body.put("sourceIban", user.iban());
+                body.put("recipientIban", recipient.iban());
+                body.put("amount", TRANSFER_AMOUNT);
+                body.put("title", "Load test transfer");
+                yield authorized(builder("/api/transfers/iban"), user)
+                        .header("Content-Type", "application/json")
+                        .POST(json(body))
+                        .build();
+            }
+            case HISTORY -> authorized(builder("/api/transactions?accountId=" + user.accountId()
+                    + "&size=" + HISTORY_PAGE_SIZE), user).GET().build();
+            case EXPORT -> authorized(builder("/api/transactions/export?accountId=" + user.accountId()
+                    + "&format=csv"), user).GET().build();
+            case REGISTRATION -> builder("/api/public/users")
+                    .header("Content-Type", "application/json")
+                    .POST(json(registration()))
+                    .build();
+        };
+    }
+
+    private Map<String, Object> registration() {
+        int number = registrations.incrementAndGet();
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("firstname", "Load");
+        body.put("lastname", "Tester");
+        body.put("dateOfBirth", LocalDate.of(1990, 1, 1).toString());
+        body.put("pesel", String.format("8%010d", number));
+        body.put("email", "load." + runId + "." + number + "@test.com");
+        body.put("phoneNumber", String.format("+4850%07d", number));
+        body.put("password", PASSWORD);
+        body.put("confirmPassword", PASSWORD);
+        return body;
+    }
+
+    private HttpRequest.Builder builder(String path) {
+        return HttpRequest.newBuilder(baseUri.resolve(path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Accept", "*/*");
+    }
+
+    private HttpRequest.Builder authorized(HttpRequest.Builder builder, SeededUser user) {
+        String credentials = user.username() + ":" + user.password();
+        return builder.header("Authorization",
+                "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private HttpRequest.BodyPublisher json(Map<String, Object> body) {
+        try {
+            return HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize request body " + body, e);
+        }
+    }
+
+    private static int otherThan(int index, int drawn) {
+        return drawn >= index ? drawn + 1 : drawn;
+    }
+}
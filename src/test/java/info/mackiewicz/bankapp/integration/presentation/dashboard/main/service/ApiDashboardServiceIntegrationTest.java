@@ -3,8 +3,10 @@ package info.mackiewicz.bankapp.integration.presentation.dashboard.main.service;
 import info.mackiewicz.bankapp.core.account.exception.AccountNotFoundByIdException;
 import info.mackiewicz.bankapp.core.account.model.Account;
 import info.mackiewicz.bankapp.core.account.model.TestAccountBuilder;
+import info.mackiewicz.bankapp.core.account.model.dto.BalanceOnHoldDrift;
 import info.mackiewicz.bankapp.core.account.model.interfaces.DashboardAccountInfo;
 import info.mackiewicz.bankapp.core.account.repository.AccountRepository;
+import info.mackiewicz.bankapp.core.account.service.BalanceOnHoldReconciler;
 import info.mackiewicz.bankapp.core.transaction.model.Transaction;
 import info.mackiewicz.bankapp.core.transaction.model.TransactionStatus;
 import info.mackiewicz.bankapp.core.transaction.model.TransactionType;
@@ -15,6 +17,7 @@ import info.mackiewicz.bankapp.integration.utils.IntegrationTestConfig;
 import info.mackiewicz.bankapp.integration.utils.IntegrationTestUserService;
 import info.mackiewicz.bankapp.presentation.dashboard.main.controller.dto.UserAccountsInfoResponse;
 import info.mackiewicz.bankapp.presentation.dashboard.main.service.ApiDashboardService;
+import info.mackiewicz.bankapp.system.transaction.processing.helpers.TransactionStatusManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -29,6 +32,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -52,6 +56,12 @@ class ApiDashboardServiceIntegrationTest {
     @Autowired
     private TransactionRepository transactionRepository;
 
+    @Autowired
+    private TransactionStatusManager transactionStatusManager;
+
+    @Autowired
+    private BalanceOnHoldReconciler balanceOnHoldReconciler;
+
     @Autowired
     private IntegrationTestUserService testUserService;
 
@@ -85,7 +95,12 @@ class ApiDashboardServiceIntegrationTest {
         transaction.setTitle("Test Transaction");
         transaction.setDate(LocalDateTime.now());
 
-        return transactionRepository.save(transaction);
+        Transaction savedTransaction = transactionRepository.save(transaction);
+        // puts the amount on hold, as registering the transaction does
+        if (status.isProcessing()) {
+            accountRepository.addToBalanceOnHold(sourceAccount.getId(), amount);
+        }
+        return savedTransaction;
     }
 
     @BeforeEach
@@ -388,8 +403,7 @@ class ApiDashboardServiceIntegrationTest {
         BigDecimal workingBalanceBefore = apiDashboardService.getWorkingBalance(testAccount.getId());
 
         // Update the transaction status to DONE
-        pendingTransaction.setStatus(TransactionStatus.DONE);
-        transactionRepository.save(pendingTransaction);
+        transactionStatusManager.setTransactionStatus(pendingTransaction, TransactionStatus.DONE);
 
         // when
         BigDecimal workingBalanceAfter = apiDashboardService.getWorkingBalance(testAccount.getId());
@@ -416,4 +430,32 @@ class ApiDashboardServiceIntegrationTest {
         // then
         assertThat(workingBalance).isEqualByComparingTo(expectedWorkingBalance);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("getWorkingBalance(): Should reflect the amount on hold repaired by the reconciliation")
+    void shouldRepairDriftedBalanceOnHold() {
+        // given
+        updateAccountBalance(testAccount, DEFAULT_INITIAL_BALANCE);
+        createAndSaveTransaction(testAccount, otherTestAccount, new BigDecimal("200.00"), TransactionStatus.PENDING);
+        // a hold that was never released
+        accountRepository.addToBalanceOnHold(testAccount.getId(), new BigDecimal("50.00"));
+
+        // when
+        BigDecimal workingBalanceBefore = apiDashboardService.getWorkingBalance(testAccount.getId());
+        List<BalanceOnHoldDrift> drifts = balanceOnHoldReconciler.reconcile();
+        BigDecimal workingBalanceAfter = apiDashboardService.getWorkingBalance(testAccount.getId());
+
+        // then
+        assertThat(drifts)
+                .filteredOn(drift -> drift.accountId().equals(testAccount.getId()))
+                .singleElement()
+                .satisfies(drift -> {
+                    assertThat(drift.recorded()).isEqualByComparingTo("250.00");
+                    assertThat(drift.expected()).isEqualByComparingTo("200.00");
+                });
+        assertThat(workingBalanceBefore).isEqualByComparingTo("750.00");
+        assertThat(workingBalanceAfter).isEqualByComparingTo("800.00");
+        assertThat(transactionRepository.findBalanceOnHoldBySourceAccount_Id(testAccount.getId()))
+                .isEqualByComparingTo("200.00");
+    }
+}
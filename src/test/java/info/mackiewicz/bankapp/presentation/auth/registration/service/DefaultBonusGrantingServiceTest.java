@@ -4,8 +4,7 @@ import info.mackiewicz.bankapp.core.account.model.Account;
 import info.mackiewicz.bankapp.core.account.service.AccountService;
 import info.mackiewicz.bankapp.core.transaction.model.Transaction;
 import info.mackiewicz.bankapp.core.transaction.service.TransactionService;
-import info.mackiewicz.bankapp.shared.util.BankAccountProvider;
-import info.mackiewicz.bankapp.system.transaction.processing.TransactionProcessingService;
+import info.mackiewicz.bankapp.system.banking.ledger.BankLedger;
 import info.mackiewicz.bankapp.testutils.TestAccountBuilder;
 import info.mackiewicz.bankapp.testutils.TestIbanProvider;
 import info.mackiewicz.bankapp.testutils.TestUserBuilder;
@@ -36,7 +35,7 @@ class DefaultBonusGrantingServiceTest {
     private static final BigDecimal ZERO_BALANCE = BigDecimal.ZERO;
 
     @Mock
-    private BankAccountProvider bankAccountProvider;
+    private BankLedger bankLedger;
 
     @Mock
     private AccountService accountService;
@@ -44,9 +43,6 @@ class DefaultBonusGrantingServiceTest {
     @Mock
     private TransactionService transactionService;
 
-    @Mock
-    TransactionProcessingService transactionProcessingService;
-
     @InjectMocks
     private DefaultBonusGrantingService defaultBonusGrantingService;
 
@@ -75,7 +71,7 @@ class DefaultBonusGrantingServiceTest {
                 .build();
         registeredTransaction.setId(REGISTERED_TRANSACTION_ID);
 
-        when(bankAccountProvider.getBankAccount()).thenReturn(bankAccount);
+        when(bankLedger.getWithdrawalAccount(recipientIban, amount)).thenReturn(bankAccount);
         when(accountService.getAccountByIban(eq(recipientIban))).thenReturn(recipientAccount);
         when(transactionService.registerTransaction(any(Transaction.class))).thenReturn(registeredTransaction);
 
@@ -83,10 +79,9 @@ class DefaultBonusGrantingServiceTest {
         defaultBonusGrantingService.grantWelcomeBonus(recipientIban, amount);
 
         // Assert
-        verify(bankAccountProvider).getBankAccount();
+        verify(bankLedger).getWithdrawalAccount(recipientIban, amount);
         verify(accountService).getAccountByIban(eq(recipientIban));
         verify(transactionService).registerTransaction(eq(createdTransaction));
-        verify(transactionProcessingService).processTransactionById(eq(REGISTERED_TRANSACTION_ID));
     }
 
     @Test
@@ -97,7 +92,7 @@ class DefaultBonusGrantingServiceTest {
 
         Account bankAccount = TestAccountBuilder.createBankAccount();
 
-        when(bankAccountProvider.getBankAccount()).thenReturn(bankAccount);
+        when(bankLedger.getWithdrawalAccount(recipientIban, DEFAULT_BONUS_AMOUNT)).thenReturn(bankAccount);
         when(accountService.getAccountByIban(eq(recipientIban)))
                 .thenThrow(new IllegalArgumentException(RECIPIENT_NOT_FOUND_MESSAGE));
 
@@ -105,10 +100,9 @@ class DefaultBonusGrantingServiceTest {
         assertThrows(IllegalArgumentException.class, () ->
                 defaultBonusGrantingService.grantWelcomeBonus(recipientIban, DEFAULT_BONUS_AMOUNT));
 
-        verify(bankAccountProvider).getBankAccount();
+        verify(bankLedger).getWithdrawalAccount(recipientIban, DEFAULT_BONUS_AMOUNT);
         verify(accountService).getAccountByIban(eq(recipientIban));
         verifyNoInteractions(transactionService);
-        verifyNoInteractions(transactionProcessingService);
     }
 
     @Test
@@ -128,7 +122,7 @@ class DefaultBonusGrantingServiceTest {
                 .withTitle(DefaultBonusGrantingService.DEFAULT_TITLE)
                 .build();
 
-        when(bankAccountProvider.getBankAccount()).thenReturn(bankAccount);
+        when(bankLedger.getWithdrawalAccount(recipientIban, amount)).thenReturn(bankAccount);
         when(accountService.getAccountByIban(eq(recipientIban))).thenReturn(recipientAccount);
         when(transactionService.registerTransaction(eq(createdTransaction)))
                 .thenThrow(new IllegalStateException(TRANSACTION_REGISTRATION_FAILED_MESSAGE));
@@ -137,10 +131,9 @@ class DefaultBonusGrantingServiceTest {
         assertThrows(IllegalStateException.class, () ->
                 defaultBonusGrantingService.grantWelcomeBonus(recipientIban, amount));
 
-        verify(bankAccountProvider).getBankAccount();
+        verify(bankLedger).getWithdrawalAccount(recipientIban, amount);
         verify(accountService).getAccountByIban(eq(recipientIban));
         verify(transactionService).registerTransaction(eq(createdTransaction));
         verifyNoMoreInteractions(transactionService);
-        verifyNoInteractions(transactionProcessingService);
     }
 }
\ No newline at end of file
@@ -0,0 +1,117 @@
+package info.mackiewicz.bankapp.shared.config;
+
+import info.mackiewicz.bankapp.system.transaction.processing.locking.AccountLockingStrategy;
+import info.mackiewicz.bankapp.system.transaction.processing.locking.LockingConfig;
+import info.mackiewicz.bankapp.system.transaction.processing.locking.metrics.LockMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares throughput and latency of the platform thread pool and the virtual thread executor
+ * of {@link AsyncConfiguration} under a transaction-like workload: two contended account locks
+ * and a few blocking round trips standing in for JDBC calls.
+ * <p>
+ * Not part of the regular build, run with:
+ * {@code mvn test -Dtest=TaskExecutorBenchmark -Dbenchmark=true}
+ * Optional: {@code -Dbenchmark.tasks=5000 -Dbenchmark.accounts=200 -Dbenchmark.io-millis=5}
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Task executor benchmark")
+class TaskExecutorBenchmark {
+
+    private static final int TASKS = Integer.getInteger("benchmark.tasks", 5000);
+    private static final int ACCOUNTS = Integer.getInteger("benchmark.accounts", 200);
+    private static final int IO_MILLIS = Integer.getInteger("benchmark.io-millis", 5);
+    private static final int ROUND_TRIPS = 3;
+
+    private final AsyncConfiguration configuration = new AsyncConfiguration();
+
+    @Test
+    @DisplayName("Should compare platform and virtual thread executors")
+    void compareExecutors() throws Exception {
+        // warm-up, so both runs see a JIT-compiled lock path
+        run("warm-up", configuration.virtualThreadTaskExecutor(), TASKS / 5);
+
+        Result platform = run("platform pool", configuration.taskExecutor(), TASKS);
+        Result virtual = run("virtual threads", configuration.virtualThreadTaskExecutor(), TASKS);
+
+        System.out.printf("%n%-16s %12s %10s %10s %10s%n", "executor", "tasks/s", "p50 ms", "p99 ms", "max ms");
+        for (Result result : new Result[]{platform, virtual}) {
+            System.out.printf("%-16s %12.0f %10.1f %10.1f %10.1f%n", result.name(), result.throughput(),
+                    result.percentile(0.50), result.percentile(0.99), result.percentile(1.0));
+        }
+        assertThat(platform.latenciesMillis()).hasSize(TASKS);
+        assertThat(virtual.latenciesMillis()).hasSize(TASKS);
+    }
+
+    private Result run(String name, Executor executor, int tasks) throws Exception {
+        AccountLockingStrategy lockingStrategy = new AccountLockingStrategy(
+                new LockingConfig(1000, 10, 100, 1000, 10000), new LockMetrics(new SimpleMeterRegistry()));
+        double[] latencies = new double[tasks];
+        CompletableFuture<?>[] futures = new CompletableFuture[tasks];
+
+        long start = System.nanoTime();
+        for (int i = 0; i < tasks; i++) {
+            int task = i;
+            long submitted = System.nanoTime();
+            futures[i] = CompletableFuture.runAsync(() -> {
+                transfer(lockingStrategy);
+                latencies[task] = (System.nanoTime() - submitted) / 1_000_000.0;
+            }, executor);
+        }
+        CompletableFuture.allOf(futures).join();
+        long elapsed = System.nanoTime() - start;
+
+        if (executor instanceof DisposableBean disposable) {
+            disposable.destroy();
+        }
+        Arrays.sort(latencies);
+        return new Result(name, tasks / (elapsed / 1_000_000_000.0), latencies);
+    }
+
+    private void transfer(AccountLockingStrategy lockingStrategy) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(ACCOUNTS);
+        int second = (first + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+        int lower = Math.min(first, second);
+        int higher = Math.max(first, second);
+
+        lockingStrategy.lock(lower);
+        lockingStrategy.lock(higher);
+        try {
+            for (int i = 0; i < ROUND_TRIPS; i++) {
+                blockingRoundTrip();
+            }
+        } finally {
+            lockingStrategy.unlock(higher);
+            lockingStrategy.unlock(lower);
+        }
+    }
+
+    private void blockingRoundTrip() {
+        try {
+            TimeUnit.MILLISECONDS.sleep(IO_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record Result(String name, double throughput, double[] latenciesMillis) {
+
+        double percentile(double percentile) {
+            int index = (int) Math.ceil(percentile * latenciesMillis.length) - 1;
+            return latenciesMillis[Math.max(0, index)];
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package info.mackiewicz.bankapp.shared.service;
 
+import info.mackiewicz.bankapp.core.user.model.AdminUser;
 import info.mackiewicz.bankapp.core.user.model.User;
+import info.mackiewicz.bankapp.core.user.repository.AdminUserRepository;
 import info.mackiewicz.bankapp.core.user.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -10,6 +12,8 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
+import java.util.Optional;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -18,6 +22,9 @@ class CustomUserDetailsServiceTest {
     @Mock
     private UserService userService;
 
+    @Mock
+    private AdminUserRepository adminUserRepository;
+
     @InjectMocks
     private CustomUserDetailsService customUserDetailsService;
 
@@ -53,4 +60,30 @@ class CustomUserDetailsServiceTest {
         assertThrows(UsernameNotFoundException.class, () -> customUserDetailsService.loadUserByUsername(username));
         verify(userService, times(1)).getUserByUsername(username);
     }
-}
\ No newline at end of file
+
+    @Test
+    void loadAdminByUsername_AdminExists_ReturnsAdminDetails() {
+        // Arrange
+        AdminUser admin = new AdminUser("operator", "secret");
+        when(adminUserRepository.findByUsername("operator")).thenReturn(Optional.of(admin));
+
+        // Act
+        UserDetails userDetails = customUserDetailsService.loadAdminByUsername("operator");
+
+        // Assert
+        assertEquals("operator", userDetails.getUsername());
+        assertTrue(userDetails.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority())));
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    void loadAdminByUsername_OnlyCustomerExists_ThrowsUsernameNotFoundException() {
+        // Arrange
+        when(adminUserRepository.findByUsername("customer")).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(UsernameNotFoundException.class, () -> customUserDetailsService.loadAdminByUsername("customer"));
+        verifyNoInteractions(userService);
+    }
+}
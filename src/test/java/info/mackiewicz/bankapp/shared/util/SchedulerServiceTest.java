@@ -1,6 +1,9 @@
 package info.mackiewicz.bankapp.shared.util;
 
-import info.mackiewicz.bankapp.system.transaction.processing.TransactionProcessingService;
+import info.mackiewicz.bankapp.core.account.service.BalanceOnHoldReconciler;
+import info.mackiewicz.bankapp.system.banking.ledger.BankLedger;
+import info.mackiewicz.bankapp.system.banking.operations.idempotency.IdempotencyService;
+import info.mackiewicz.bankapp.system.transaction.processing.dispatch.TransactionDispatcher;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -13,7 +16,16 @@ import static org.mockito.Mockito.verify;
 class SchedulerServiceTest {
 
     @Mock
-    private TransactionProcessingService transactionProcessingService;
+    private TransactionDispatcher transactionDispatcher;
+
+    @Mock
+    private IdempotencyService idempotencyService;
+
+    @Mock
+    private BankLedger bankLedger;
+
+    @Mock
+    private BalanceOnHoldReconciler balanceOnHoldReconciler;
 
     @InjectMocks
     private SchedulerService schedulerService;
@@ -24,11 +36,38 @@ class SchedulerServiceTest {
     }
 
     @Test
-    void scheduleProcessAllNewTransactions_CallsTransactionService() {
+    void scheduleRedispatchOrphanedTransactions_CallsTransactionDispatcher() {
+        // Act
+        schedulerService.scheduleRedispatchOrphanedTransactions();
+
+        // Assert
+        verify(transactionDispatcher, times(1)).redispatchOrphanedTransactions();
+    }
+
+    @Test
+    void scheduleCleanupExpiredIdempotencyKeys_CallsIdempotencyService() {
+        // Act
+        schedulerService.scheduleCleanupExpiredIdempotencyKeys();
+
+        // Assert
+        verify(idempotencyService, times(1)).cleanupExpiredKeys();
+    }
+
+    @Test
+    void scheduleConsolidateBankLedger_CallsBankLedger() {
+        // Act
+        schedulerService.scheduleConsolidateBankLedger();
+
+        // Assert
+        verify(bankLedger, times(1)).consolidate();
+    }
+
+    @Test
+    void scheduleReconcileBalancesOnHold_CallsBalanceOnHoldReconciler() {
         // Act
-        schedulerService.scheduleProcessAllNewTransactions();
+        schedulerService.scheduleReconcileBalancesOnHold();
 
         // Assert
-        verify(transactionProcessingService, times(1)).processAllNewTransactions();
+        verify(balanceOnHoldReconciler, times(1)).reconcile();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,118 @@
+package info.mackiewicz.bankapp.system.banking.history.export;
+
+import info.mackiewicz.bankapp.core.account.model.Account;
+import info.mackiewicz.bankapp.core.transaction.model.Transaction;
+import info.mackiewicz.bankapp.core.transaction.model.TransactionStatus;
+import info.mackiewicz.bankapp.core.transaction.model.TransactionType;
+import info.mackiewicz.bankapp.core.transaction.model.dto.TransactionHistoryRow;
+import info.mackiewicz.bankapp.testutils.TestAccountBuilder;
+import info.mackiewicz.bankapp.testutils.TestUserBuilder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("CsvTransactionExporter Tests")
+class CsvTransactionExporterTest {
+
+    private final CsvTransactionExporter exporter = new CsvTransactionExporter(new ExportConfig(0, 16, 0));
+
+    @Test
+    @DisplayName("Should write one line per transaction in the CSV format")
+    void shouldWriteRows() throws IOException {
+        // Given
+        List<TransactionHistoryRow> rows = List.of(
+                new TransactionHistoryRow(1, LocalDateTime.of(2025, 3, 7, 9, 5, 59), new BigDecimal("100.50"),
+                        TransactionType.TRANSFER_INTERNAL, 12, 3456, "Rent \"March\"", TransactionStatus.DONE),
+                new TransactionHistoryRow(2, LocalDateTime.of(987, 12, 31, 23, 0), new BigDecimal("20.00"),
+                        TransactionType.DEPOSIT, null, 7, "Zażółć, gęślą", TransactionStatus.NEW));
+
+        // When
+        String csv = write(rows);
+
+        // Then
+        assertThat(csv).isEqualTo(CsvTransactionWriter.HEADER
+                + "2025-03-07 09:05,100.50,TRANSFER_INTERNAL,12,3456,\"Rent \"\"March\"\"\",DONE\n"
+                + "0987-12-31 23:00,20.00,DEPOSIT,,7,\"Zażółć, gęślą\",NEW\n");
+    }
+
+    @Test
+    @DisplayName("Should write the same file from a list of transactions")
+    void shouldExportList() {
+        // Given
+        Account source = TestAccountBuilder.createTestAccount(5, BigDecimal.TEN, TestUserBuilder.createTestUser());
+        Transaction transaction = Transaction.buildWithdrawal()
+                .from(source)
+                .withAmount(new BigDecimal("9.99"))
+                .withTitle("Cash")
+                .build();
+        transaction.setDate(LocalDateTime.of(2025, 1, 2, 3, 4));
+
+        // When
+        ResponseEntity<byte[]> response = exporter.exportTransactions(List.of(transaction));
+
+        // Then
+        assertThat(new String(response.getBody(), StandardCharsets.UTF_8)).isEqualTo(CsvTransactionWriter.HEADER
+                + "2025-01-02 03:04,9.99,WITHDRAWAL,5,,\"Cash\"," + transaction.getStatus() + "\n");
+        assertThat(response.getHeaders().getContentType()).isEqualTo(exporter.getMediaType());
+    }
+
+    @Test
+    @DisplayName("Should write the rows while they are read rather than at the end")
+    void shouldWriteWhileReading() throws IOException {
+        // Given
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        int[] writtenBeforeLastRow = new int[1];
+        TransactionRowSource rows = action -> IntStream.range(0, 1000).forEach(i -> {
+            writtenBeforeLastRow[0] = output.size();
+            action.accept(new TransactionHistoryRow(i, LocalDateTime.of(2025, 1, 1, 0, 0), BigDecimal.ONE,
+                    TransactionType.FEE, 1, 2, "Fee", TransactionStatus.DONE));
+        });
+
+        // When
+        exporter.writeTransactions(rows, output);
+
+        // Then
+        // the writer buffers only a few kilobytes, far less than the 1000 rows
+        assertThat(writtenBeforeLastRow[0]).isGreaterThan(output.size() / 2);
+        assertThat(output.toString(StandardCharsets.UTF_8).lines()).hasSize(1001);
+    }
+
+    @Test
+    @DisplayName("Should propagate a failure to write to the response")
+    void shouldPropagateWriteFailure() {
+        // Given
+        OutputStream failing = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Connection reset");
+            }
+        };
+        // enough rows to fill the buffers while they are read
+        TransactionRowSource rows = action -> IntStream.range(0, 1000).forEach(i -> action.accept(
+                new TransactionHistoryRow(i, LocalDateTime.now(), BigDecimal.ONE, TransactionType.FEE, 1, 2, "Fee",
+                        TransactionStatus.DONE)));
+
+        // When/Then
+        assertThatThrownBy(() -> exporter.writeTransactions(rows, failing))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Connection reset");
+    }
+
+    private String write(List<TransactionHistoryRow> rows) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        exporter.writeTransactions(rows::forEach, output);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+}
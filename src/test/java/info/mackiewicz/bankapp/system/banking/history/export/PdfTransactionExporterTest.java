@@ -0,0 +1,177 @@
+package info.mackiewicz.bankapp.system.banking.history.export;
+
+import info.mackiewicz.bankapp.core.account.model.Account;
+import info.mackiewicz.bankapp.core.transaction.model.Transaction;
+import info.mackiewicz.bankapp.core.transaction.model.TransactionStatus;
+import info.mackiewicz.bankapp.core.transaction.model.TransactionType;
+import info.mackiewicz.bankapp.core.transaction.model.dto.TransactionHistoryRow;
+import info.mackiewicz.bankapp.testutils.TestAccountBuilder;
+import info.mackiewicz.bankapp.testutils.TestUserBuilder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("PdfTransactionExporter Tests")
+class PdfTransactionExporterTest {
+
+    private static final long HEAP_BUDGET = 64L * 1024 * 1024;
+    private static final long HEAP_GROWTH_MARGIN = 8L * 1024 * 1024;
+
+    private final PdfTransactionExporter exporter = new PdfTransactionExporter();
+
+    @Test
+    @DisplayName("Should write a complete PDF from a list of transactions")
+    void shouldExportList() {
+        // Given
+        Account source = TestAccountBuilder.createTestAccount(5, BigDecimal.TEN, TestUserBuilder.createTestUser());
+        Transaction transaction = Transaction.buildWithdrawal()
+                .from(source)
+                .withAmount(new BigDecimal("9.99"))
+                .withTitle("Cash")
+                .build();
+        transaction.setDate(LocalDateTime.of(2025, 1, 2, 3, 4));
+
+        // When
+        ResponseEntity<byte[]> response = exporter.exportTransactions(List.of(transaction));
+
+        // Then
+        String pdf = new String(response.getBody(), StandardCharsets.ISO_8859_1);
+        assertThat(pdf).startsWith("%PDF-").contains("%%EOF");
+        assertThat(response.getHeaders().getContentType()).isEqualTo(exporter.getMediaType());
+    }
+
+    @Test
+    @DisplayName("Should write the pages while the rows are read rather than at the end")
+    void shouldWriteWhileReading() throws IOException {
+        // Given
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        int[] writtenBeforeLastRow = new int[1];
+        TransactionRowSource rows = action -> IntStream.range(0, 2000).forEach(i -> {
+            writtenBeforeLastRow[0] = output.size();
+            action.accept(row(i));
+        });
+
+        // When
+        exporter.writeTransactions(rows, output);
+
+        // Then
+        assertThat(writtenBeforeLastRow[0]).isGreaterThan(output.size() / 2);
+        assertThat(output.toString(StandardCharsets.ISO_8859_1)).startsWith("%PDF-").contains("%%EOF");
+    }
+
+    @Test
+    @DisplayName("Should keep the peak heap within a fixed budget, not growing with the number of transactions")
+    void shouldExportHistoryWithinHeapBudget() throws IOException {
+        // Given
+        long smallExportPeak = peakHeapOfExport(2_000);
+
+        // When
+        long largeExportPeak = peakHeapOfExport(20_000);
+
+        // Then
+        assertThat(largeExportPeak).isLessThan(HEAP_BUDGET);
+        assertThat(largeExportPeak).isLessThan(smallExportPeak + HEAP_GROWTH_MARGIN);
+    }
+
+    /**
+     * Lays out about 12,000 pages, which takes minutes. Not part of the regular build, run with:
+     * {@code mvn test -Dtest=PdfTransactionExporterTest -Dbenchmark=true}
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    @DisplayName("Should keep the heap within a fixed budget while exporting 500k transactions")
+    void shouldExportLargeHistoryWithinHeapBudget() throws IOException {
+        assertThat(peakHeapOfExport(500_000)).isLessThan(HEAP_BUDGET);
+    }
+
+    @Test
+    @DisplayName("Should propagate a failure to write to the response")
+    void shouldPropagateWriteFailure() {
+        // Given
+        OutputStream failing = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Connection reset");
+            }
+        };
+        // enough rows to fill several pages while they are read
+        TransactionRowSource rows = action -> IntStream.range(0, 1000).forEach(i -> action.accept(row(i)));
+
+        // When/Then
+        assertThatThrownBy(() -> exporter.writeTransactions(rows, failing))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Connection reset");
+    }
+
+    /**
+     * Exports the given number of rows and returns the highest heap use reached meanwhile above the use before
+     * the export. The peak of every pool is recorded by the JVM, so memory collected before the export ends counts too.
+     */
+    private long peakHeapOfExport(int rowCount) throws IOException {
+        List<MemoryPoolMXBean> pools = retainingHeapPools();
+        System.gc();
+        long baseline = usedHeap(pools, MemoryPoolMXBean::getUsage);
+        pools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        CountingOutputStream output = new CountingOutputStream();
+        TransactionRowSource rows = action -> IntStream.range(0, rowCount).forEach(i -> action.accept(row(i)));
+
+        exporter.writeTransactions(rows, output);
+
+        assertThat(output.count).isGreaterThan(rowCount * 100L);
+        return usedHeap(pools, MemoryPoolMXBean::getPeakUsage) - baseline;
+    }
+
+    private static TransactionHistoryRow row(int id) {
+        return new TransactionHistoryRow(id, LocalDateTime.of(2025, 1, 1, 0, 0).plusMinutes(id), new BigDecimal("12.34"),
+                id % 2 == 0 ? TransactionType.DEPOSIT : TransactionType.FEE, 1, 2, "Transaction " + id,
+                TransactionStatus.DONE);
+    }
+
+    /**
+     * Heap pools objects stay in once they survive a collection. The eden space is left out: it fills up
+     * with short-lived objects to its own size before every young collection, whatever the exporter retains.
+     */
+    private static List<MemoryPoolMXBean> retainingHeapPools() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .filter(pool -> !pool.getName().contains("Eden"))
+                .toList();
+    }
+
+    private static long usedHeap(List<MemoryPoolMXBean> pools, Function<MemoryPoolMXBean, MemoryUsage> usage) {
+        return pools.stream().mapToLong(pool -> usage.apply(pool).getUsed()).sum();
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -2,11 +2,21 @@ package info.mackiewicz.bankapp.system.banking.history.service;
 
 import info.mackiewicz.bankapp.core.account.model.Account;
 import info.mackiewicz.bankapp.core.transaction.model.Transaction;
+import info.mackiewicz.bankapp.core.transaction.model.TransactionStatus;
+import info.mackiewicz.bankapp.core.transaction.model.TransactionType;
+import info.mackiewicz.bankapp.core.transaction.model.dto.TransactionHistoryCriteria;
+import info.mackiewicz.bankapp.core.transaction.model.dto.TransactionHistoryCriteria.Position;
+import info.mackiewicz.bankapp.core.transaction.model.dto.TransactionHistoryCriteria.SortField;
 import info.mackiewicz.bankapp.core.transaction.service.TransactionService;
 import info.mackiewicz.bankapp.core.user.model.User;
 import info.mackiewicz.bankapp.system.banking.history.controller.dto.TransactionFilterRequest;
+import info.mackiewicz.bankapp.system.banking.history.controller.dto.TransactionHistoryPage;
+import info.mackiewicz.bankapp.system.banking.history.exception.InvalidHistoryCursorException;
 import info.mackiewicz.bankapp.system.banking.history.exception.UnsupportedExporterException;
+import info.mackiewicz.bankapp.system.banking.history.export.ExportConfig;
+import info.mackiewicz.bankapp.system.banking.history.export.StreamingTransactionExporter;
 import info.mackiewicz.bankapp.system.banking.history.export.TransactionExporter;
+import info.mackiewicz.bankapp.system.banking.history.export.TransactionRowSource;
 import info.mackiewicz.bankapp.system.banking.shared.dto.TransactionResponse;
 import info.mackiewicz.bankapp.testutils.TestAccountBuilder;
 import info.mackiewicz.bankapp.testutils.TestUserBuilder;
@@ -14,21 +24,27 @@ import org.hibernate.query.SortDirection;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class TransactionHistoryServiceTest {
@@ -36,9 +52,6 @@ class TransactionHistoryServiceTest {
     @Mock
     private TransactionService transactionService;
     
-    @Mock
-    private TransactionFilterService filterService;
-    
     @Mock
     private TransactionExporter csvExporter;
 
@@ -60,7 +73,6 @@ class TransactionHistoryServiceTest {
 
         filter = TransactionFilterRequest.builder()
                 .accountId(testAccount.getId())
-                .page(0)
                 .size(20)
                 .sortBy("date")
                 .sortDirection(SortDirection.DESCENDING)
@@ -82,6 +94,11 @@ class TransactionHistoryServiceTest {
                 .build()
         );
 
+        transactions.get(0).setId(2);
+        transactions.get(0).setDate(LocalDateTime.of(2025, 3, 2, 12, 0));
+        transactions.get(1).setId(1);
+        transactions.get(1).setDate(LocalDateTime.of(2025, 3, 1, 12, 0));
+
         responses = transactions.stream()
                 .map(t -> new TransactionResponse(
                             t.getSourceAccount(),
@@ -92,94 +109,163 @@ class TransactionHistoryServiceTest {
         // Initialize exporters list
         List<TransactionExporter> exporters = Collections.singletonList(csvExporter);
         ReflectionTestUtils.setField(transactionHistoryService, "exporters", exporters);
+        ReflectionTestUtils.setField(transactionHistoryService, "exportConfig", new ExportConfig(0, 0, 0));
     }
 
     @Test
-    void getTransactionHistory_ReturnsFilteredAndPaginatedTransactions() {
+    void getTransactionHistory_WhenAllTransactionsFit_ReturnsLastPage() {
         // Given
-        when(transactionService.getRecentTransactions(eq(testAccount.getId()), anyInt())).thenReturn(transactions);
-        when(filterService.filterTransactions(eq(transactions), any(), any(), any(), any(), any(), any(), any()))
-                .thenReturn(transactions);
+        when(transactionService.getTransactionHistory(any(), eq(Limit.of(21)))).thenReturn(transactions);
 
         // When
-        Page<TransactionResponse> result = transactionHistoryService.getTransactionHistory(filter);
+        TransactionHistoryPage result = transactionHistoryService.getTransactionHistory(filter);
 
         // Then
         assertNotNull(result);
-        assertEquals(2, result.getTotalElements());
-        assertEquals(responses, result.getContent());
+        assertEquals(responses, result.content());
+        assertFalse(result.hasNext());
+        assertNull(result.nextCursor());
     }
 
     @Test
     void getTransactionHistory_WhenNoTransactions_ReturnsEmptyPage() {
         // Given
-        when(transactionService.getRecentTransactions(eq(testAccount.getId()), anyInt()))
-                .thenReturn(Collections.emptyList());
-        when(filterService.filterTransactions(eq(Collections.emptyList()), any(), any(), any(), any(), any(), any(), any()))
-                .thenReturn(Collections.emptyList());
+        when(transactionService.getTransactionHistory(any(), any())).thenReturn(Collections.emptyList());
 
         // When
-        Page<TransactionResponse> result = transactionHistoryService.getTransactionHistory(filter);
+        TransactionHistoryPage result = transactionHistoryService.getTransactionHistory(filter);
 
         // Then
         assertNotNull(result);
-        assertEquals(0, result.getTotalElements());
-        assertTrue(result.getContent().isEmpty());
+        assertTrue(result.content().isEmpty());
+        assertFalse(result.hasNext());
     }
 
     @Test
-    void getTransactionHistory_WhenPageBeyondAvailableData_ReturnsEmptyPage() {
+    void getTransactionHistory_TranslatesFilterIntoCriteria() {
         // Given
-        when(transactionService.getRecentTransactions(eq(testAccount.getId()), anyInt())).thenReturn(transactions);
-        when(filterService.filterTransactions(eq(transactions), any(), any(), any(), any(), any(), any(), any()))
-                .thenReturn(transactions);
-        
-        TransactionFilterRequest pageOutOfBoundsFilter = TransactionFilterRequest.builder()
+        TransactionFilterRequest fullFilter = TransactionFilterRequest.builder()
                 .accountId(testAccount.getId())
-                .page(10) // Far beyond available data
-                .size(20)
-                .sortBy("date")
-                .sortDirection(SortDirection.DESCENDING)
+                .dateFrom(LocalDateTime.of(2025, 1, 1, 0, 0))
+                .dateTo(LocalDateTime.of(2025, 3, 31, 23, 59))
+                .type(TransactionType.TRANSFER_INTERNAL)
+                .status(TransactionStatus.DONE)
+                .amountFrom(BigDecimal.ONE)
+                .amountTo(BigDecimal.TEN)
+                .query("Store")
+                .sortBy("amount")
+                .sortDirection(SortDirection.ASCENDING)
                 .build();
+        ArgumentCaptor<TransactionHistoryCriteria> criteria = ArgumentCaptor.forClass(TransactionHistoryCriteria.class);
+        when(transactionService.getTransactionHistory(criteria.capture(), any())).thenReturn(Collections.emptyList());
 
         // When
-        Page<TransactionResponse> result = transactionHistoryService.getTransactionHistory(pageOutOfBoundsFilter);
+        transactionHistoryService.getTransactionHistory(fullFilter);
 
         // Then
-        assertNotNull(result);
-        assertEquals(2, result.getTotalElements()); // The total size should still be correct
-        assertTrue(result.getContent().isEmpty()); // But content should be empty
+        TransactionHistoryCriteria expected = new TransactionHistoryCriteria(testAccount.getId(),
+                fullFilter.getDateFrom(), fullFilter.getDateTo(), TransactionType.TRANSFER_INTERNAL,
+                TransactionStatus.DONE, BigDecimal.ONE, BigDecimal.TEN, "Store", SortField.AMOUNT, true, null);
+        assertEquals(expected, criteria.getValue());
+    }
+
+    @Test
+    void getTransactionHistory_WhenMoreTransactionsMatch_ReturnsCursorOfLastTransaction() {
+        // Given
+        filter.setSize(1);
+        when(transactionService.getTransactionHistory(any(), eq(Limit.of(2)))).thenReturn(transactions);
+        ArgumentCaptor<TransactionHistoryCriteria> criteria = ArgumentCaptor.forClass(TransactionHistoryCriteria.class);
+
+        // When
+        TransactionHistoryPage firstPage = transactionHistoryService.getTransactionHistory(filter);
+        filter.setCursor(firstPage.nextCursor());
+        transactionHistoryService.getTransactionHistory(filter);
+
+        // Then
+        assertEquals(List.of(responses.getFirst()), firstPage.content());
+        assertTrue(firstPage.hasNext());
+        verify(transactionService, times(2)).getTransactionHistory(criteria.capture(), any());
+        assertNull(criteria.getAllValues().getFirst().after());
+        assertEquals(new Position(transactions.getFirst().getDate(), transactions.getFirst().getId()),
+                criteria.getAllValues().getLast().after());
     }
 
     @Test
-    void exportTransactions_WhenValidFormat_ReturnsExportedData() {
+    void getTransactionHistory_WhenCursorIssuedForDifferentOrder_ThrowsException() {
         // Given
-        when(transactionService.getRecentTransactions(eq(testAccount.getId()), anyInt())).thenReturn(transactions);
-        when(filterService.filterTransactions(eq(transactions), any(), any(), any(), any(), any(), any(), any()))
-                .thenReturn(transactions);
+        filter.setSize(1);
+        when(transactionService.getTransactionHistory(any(), any())).thenReturn(transactions);
+        String cursor = transactionHistoryService.getTransactionHistory(filter).nextCursor();
+        filter.setCursor(cursor);
+        filter.setSortDirection(SortDirection.ASCENDING);
+
+        // When/Then
+        assertThrows(InvalidHistoryCursorException.class,
+                () -> transactionHistoryService.getTransactionHistory(filter));
+    }
+
+    @Test
+    void getTransactionHistory_WhenCursorMalformed_ThrowsException() {
+        // Given
+        filter.setCursor("not a cursor");
+
+        // When/Then
+        assertThrows(InvalidHistoryCursorException.class,
+                () -> transactionHistoryService.getTransactionHistory(filter));
+        verifyNoInteractions(transactionService);
+    }
+
+    @Test
+    void exportTransactions_WhenValidFormat_ReturnsExportedData() throws IOException {
+        // Given
+        when(transactionService.getTransactionHistory(any(), eq(Limit.unlimited()))).thenReturn(transactions);
         when(csvExporter.getFormat()).thenReturn("csv");
         when(csvExporter.exportTransactions(transactions))
                 .thenReturn(ResponseEntity.ok("test".getBytes()));
 
         // When
-        ResponseEntity<byte[]> result = transactionHistoryService.exportTransactions(filter, "csv");
+        ResponseEntity<StreamingResponseBody> result = transactionHistoryService.exportTransactions(filter, "csv");
 
         // Then
         assertNotNull(result);
-        assertNotNull(result.getBody());
         assertTrue(result.getStatusCode().is2xxSuccessful());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        result.getBody().writeTo(output);
+        assertEquals("test", output.toString());
+    }
+
+    @Test
+    void exportTransactions_WhenStreamingExporter_StreamsRowsFromDatabaseCursor() throws IOException {
+        // Given
+        StreamingTransactionExporter streamingExporter = mock(StreamingTransactionExporter.class);
+        when(streamingExporter.getFormat()).thenReturn("csv");
+        when(streamingExporter.getMediaType()).thenReturn(MediaType.TEXT_PLAIN);
+        when(streamingExporter.getFileName()).thenReturn("transactions.csv");
+        ReflectionTestUtils.setField(transactionHistoryService, "exporters", List.of(streamingExporter));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        doAnswer(invocation -> {
+            invocation.<TransactionRowSource>getArgument(0).forEach(row -> { });
+            return null;
+        }).when(streamingExporter).writeTransactions(any(), eq(output));
+
+        // When
+        ResponseEntity<StreamingResponseBody> result = transactionHistoryService.exportTransactions(filter, "csv");
+        // the rows are only read once the body is written
+        verifyNoInteractions(transactionService);
+        result.getBody().writeTo(output);
+
+        // Then
+        assertEquals(MediaType.TEXT_PLAIN, result.getHeaders().getContentType());
+        verify(transactionService).forEachHistoryRow(any(), eq(new ExportConfig(0, 0, 0).fetchSize()), any());
     }
 
     @Test
     void exportTransactions_WhenInvalidFormat_ThrowsException() {
         // Given
-        when(transactionService.getRecentTransactions(eq(testAccount.getId()), anyInt())).thenReturn(transactions);
-        when(filterService.filterTransactions(eq(transactions), any(), any(), any(), any(), any(), any(), any()))
-                .thenReturn(transactions);
         when(csvExporter.getFormat()).thenReturn("csv");
 
         // When/Then
         assertThrows(UnsupportedExporterException.class,
             () -> transactionHistoryService.exportTransactions(filter, "invalid"));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,221 @@
+package info.mackiewicz.bankapp.system.banking.ledger;
+
+import info.mackiewicz.bankapp.core.account.model.Account;
+import info.mackiewicz.bankapp.core.account.repository.AccountRepository;
+import info.mackiewicz.bankapp.core.transaction.model.Transaction;
+import info.mackiewicz.bankapp.core.transaction.model.TransactionStatus;
+import info.mackiewicz.bankapp.core.transaction.repository.TransactionRepository;
+import info.mackiewicz.bankapp.core.user.model.User;
+import info.mackiewicz.bankapp.core.user.service.UserService;
+import info.mackiewicz.bankapp.shared.util.BankAccountProvider;
+import info.mackiewicz.bankapp.testutils.TestAccountBuilder;
+import info.mackiewicz.bankapp.testutils.TestUserBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DisplayName("BankLedger Tests")
+class BankLedgerTest {
+
+    private static final BigDecimal FLOAT = new BigDecimal("100.00");
+
+    private AccountRepository accountRepository;
+    private TransactionRepository transactionRepository;
+    private BankAccountProvider bankAccountProvider;
+    private UserService userService;
+    private User bank;
+    private Account bankAccount;
+
+    @BeforeEach
+    void setUp() {
+        accountRepository = mock(AccountRepository.class);
+        transactionRepository = mock(TransactionRepository.class);
+        bankAccountProvider = mock(BankAccountProvider.class);
+        userService = mock(UserService.class);
+        bank = TestUserBuilder.createSystemUser();
+        bankAccount = TestAccountBuilder.createTestAccount(-1, new BigDecimal("1000000.00"), bank);
+        when(userService.getUserByIdWithPessimisticLock(bank.getId())).thenReturn(bank);
+        when(bankAccountProvider.getBankAccount()).thenReturn(bankAccount);
+        when(accountRepository.findById(-1)).thenReturn(Optional.of(bankAccount));
+    }
+
+    @Test
+    @DisplayName("Should route every operation to the bank account when bucketing is disabled")
+    void shouldUseBankAccountWhenDisabled() {
+        // Given
+        BankLedger ledger = createLedger(0);
+
+        // When
+        ledger.init();
+
+        // Then
+        assertThat(ledger.getBucketIds()).isEmpty();
+        assertThat(ledger.getWithdrawalAccount("recipient", BigDecimal.TEN)).isSameAs(bankAccount);
+        assertThat(ledger.getDepositAccountId(5)).isEqualTo(BankLedger.BANK_ACCOUNT_ID);
+        verify(accountRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Should create the missing buckets and keep the existing ones")
+    void shouldProvisionMissingBuckets() {
+        // Given
+        BankLedger ledger = createLedger(3);
+        Account existing = bucket(10, FLOAT);
+        // the bank account and the existing bucket took numbers 1 and 2
+        bank.setAccountCounter(2);
+        when(accountRepository.findAccountsByOwner_id(bank.getId()))
+                .thenReturn(List.of(bankAccount, existing));
+        AtomicInteger nextId = new AtomicInteger(11);
+        // the saved copies belong to another user instance, so they do not advance the bank's counter
+        when(accountRepository.save(any(Account.class))).thenAnswer(invocation -> TestAccountBuilder.createTestAccount(
+                nextId.getAndIncrement(), BigDecimal.ZERO, TestUserBuilder.createSystemUser()));
+
+        // When
+        List<Integer> bucketIds = ledger.provisionBuckets();
+
+        // Then
+        assertThat(bucketIds).containsExactly(10, 11, 12);
+        ArgumentCaptor<Account> created = ArgumentCaptor.forClass(Account.class);
+        verify(accountRepository, times(2)).save(created.capture());
+        assertThat(created.getAllValues()).extracting(Account::getUserAccountNumber).containsExactly(3, 4);
+        assertThat(bank.getAccountCounter()).isEqualTo(4);
+        assertThat(ledger.getDepositAccountId(3)).isEqualTo(10);
+        assertThat(ledger.getDepositAccountId(4)).isEqualTo(11);
+        assertThat(ledger.getDepositAccountId(5)).isEqualTo(12);
+    }
+
+    @Test
+    @DisplayName("Should not fail the startup when the bank account does not exist")
+    void shouldKeepBankAccountWhenProvisioningFails() {
+        // Given
+        BankLedger ledger = createLedger(2);
+        when(bankAccountProvider.getBankAccount()).thenThrow(new IllegalStateException("No bank account"));
+
+        // When
+        ledger.init();
+
+        // Then
+        assertThat(ledger.getBucketIds()).isEmpty();
+        assertThat(ledger.getDepositAccountId(5)).isEqualTo(BankLedger.BANK_ACCOUNT_ID);
+    }
+
+    @Test
+    @DisplayName("Should pay from the bucket if it covers the amount and from the bank account otherwise")
+    void shouldFallBackToBankAccountForWithdrawals() {
+        // Given
+        BankLedger ledger = provisionedLedger(bucket(10, new BigDecimal("50.00")));
+        when(accountRepository.findWorkingBalanceById(10)).thenReturn(Optional.of(new BigDecimal("50.00")));
+
+        // When / Then
+        assertThat(ledger.getWithdrawalAccount("recipient", new BigDecimal("50.00")).getId()).isEqualTo(10);
+        assertThat(ledger.getWithdrawalAccount("recipient", new BigDecimal("50.01"))).isSameAs(bankAccount);
+    }
+
+    @Test
+    @DisplayName("Should not pay from a bucket whose balance is held by registered bonuses")
+    void shouldSelectBucketByWorkingBalance() {
+        // Given
+        BankLedger ledger = provisionedLedger(bucket(10, new BigDecimal("50.00")));
+        when(accountRepository.findWorkingBalanceById(10)).thenReturn(Optional.of(new BigDecimal("20.00")));
+
+        // When / Then
+        assertThat(ledger.getWithdrawalAccount("recipient", new BigDecimal("20.00")).getId()).isEqualTo(10);
+        assertThat(ledger.getWithdrawalAccount("recipient", new BigDecimal("30.00"))).isSameAs(bankAccount);
+    }
+
+    @Test
+    @DisplayName("Should move the surplus of a bucket to the bank account and refill a short bucket")
+    void shouldConsolidateBuckets() {
+        // Given
+        BankLedger ledger = provisionedLedger(bucket(10, FLOAT), bucket(11, FLOAT), bucket(12, FLOAT));
+        when(accountRepository.findBalanceById(10)).thenReturn(Optional.of(new BigDecimal("130.00")));
+        when(accountRepository.findBalanceById(11)).thenReturn(Optional.of(new BigDecimal("40.00")));
+        when(accountRepository.findBalanceById(12)).thenReturn(Optional.of(FLOAT));
+        when(accountRepository.subtractFromBalance(anyInt(), any())).thenReturn(1);
+
+        // When
+        int consolidated = ledger.consolidate();
+
+        // Then
+        assertThat(consolidated).isEqualTo(2);
+        verify(accountRepository).subtractFromBalance(10, new BigDecimal("30.00"));
+        verify(accountRepository).addToBalance(-1, new BigDecimal("30.00"));
+        verify(accountRepository).subtractFromBalance(-1, new BigDecimal("60.00"));
+        verify(accountRepository).addToBalance(11, new BigDecimal("60.00"));
+        verify(accountRepository, never()).subtractFromBalance(eq(12), any());
+        ArgumentCaptor<Transaction> transfers = ArgumentCaptor.forClass(Transaction.class);
+        verify(transactionRepository, times(2)).save(transfers.capture());
+        assertThat(transfers.getAllValues())
+                .extracting(t -> t.getSourceAccount().getId(), t -> t.getDestinationAccount().getId(),
+                        Transaction::getAmount, Transaction::getStatus, Transaction::getTitle)
+                .containsExactly(
+                        tuple(10, -1, new BigDecimal("30.00"), TransactionStatus.DONE, BankLedger.CONSOLIDATION_TITLE),
+                        tuple(-1, 11, new BigDecimal("60.00"), TransactionStatus.DONE, BankLedger.CONSOLIDATION_TITLE));
+    }
+
+    @Test
+    @DisplayName("Should leave a bucket for the next run when its surplus was spent in the meantime")
+    void shouldSkipBucketSpentConcurrently() {
+        // Given
+        BankLedger ledger = provisionedLedger(bucket(10, FLOAT));
+        when(accountRepository.findBalanceById(10)).thenReturn(Optional.of(new BigDecimal("130.00")));
+        when(accountRepository.subtractFromBalance(10, new BigDecimal("30.00"))).thenReturn(0);
+
+        // When
+        int consolidated = ledger.consolidate();
+
+        // Then
+        assertThat(consolidated).isZero();
+        verify(accountRepository, never()).addToBalance(anyInt(), any());
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    @DisplayName("Should report the balance of the bank account and all its buckets")
+    void shouldSumBalancesOfBankAccounts() {
+        // Given
+        BankLedger ledger = provisionedLedger(bucket(10, FLOAT));
+        when(accountRepository.sumBalanceByOwnerId(bank.getId()))
+                .thenReturn(new BigDecimal("1000100.00"));
+
+        // When / Then
+        assertThat(ledger.getTotalBalance()).isEqualByComparingTo("1000100.00");
+    }
+
+    private BankLedger provisionedLedger(Account... buckets) {
+        BankLedger ledger = createLedger(buckets.length);
+        List<Account> accounts = new ArrayList<>(List.of(buckets));
+        accounts.add(bankAccount);
+        when(accountRepository.findAccountsByOwner_id(bank.getId())).thenReturn(accounts);
+        for (Account bucket : buckets) {
+            when(accountRepository.findById(bucket.getId())).thenReturn(Optional.of(bucket));
+        }
+        ledger.provisionBuckets();
+        return ledger;
+    }
+
+    private Account bucket(int id, BigDecimal balance) {
+        return TestAccountBuilder.createTestAccount(id, balance, bank);
+    }
+
+    private BankLedger createLedger(int buckets) {
+        return new BankLedger(new BankLedgerConfig(buckets, FLOAT), bankAccountProvider, accountRepository,
+                transactionRepository, userService, new TransactionTemplate(mock(PlatformTransactionManager.class)));
+    }
+}
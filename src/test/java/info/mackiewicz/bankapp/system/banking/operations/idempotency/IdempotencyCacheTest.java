@@ -0,0 +1,82 @@
+package info.mackiewicz.bankapp.system.banking.operations.idempotency;
+
+import info.mackiewicz.bankapp.system.banking.operations.idempotency.model.IdempotencyKey;
+import info.mackiewicz.bankapp.system.banking.shared.dto.TransactionResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("IdempotencyCache Tests")
+class IdempotencyCacheTest {
+
+    private static final Instant NOW = Instant.parse("2025-04-04T12:00:00Z");
+
+    private Clock clock;
+    private IdempotencyCache cache;
+
+    @BeforeEach
+    void setUp() {
+        clock = mock(Clock.class);
+        when(clock.instant()).thenReturn(NOW);
+        cache = new IdempotencyCache(2, 1000, clock);
+    }
+
+    @Test
+    @DisplayName("Should return a cached response until it expires")
+    void shouldExpireEntriesAfterTtl() {
+        // Given
+        IdempotencyKey key = new IdempotencyKey(1, "key");
+        HandledRequest request = handled();
+        cache.put(key, request);
+
+        // When/Then
+        when(clock.instant()).thenReturn(NOW.plusMillis(999));
+        assertThat(cache.get(key)).containsSame(request);
+
+        when(clock.instant()).thenReturn(NOW.plusMillis(1000));
+        assertThat(cache.get(key)).isEmpty();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently used entry when full")
+    void shouldEvictLeastRecentlyUsedEntry() {
+        // Given
+        IdempotencyKey first = new IdempotencyKey(1, "first");
+        IdempotencyKey second = new IdempotencyKey(1, "second");
+        IdempotencyKey third = new IdempotencyKey(1, "third");
+        cache.put(first, handled());
+        cache.put(second, handled());
+        cache.get(first);
+
+        // When
+        cache.put(third, handled());
+
+        // Then
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get(first)).isPresent();
+        assertThat(cache.get(second)).isEmpty();
+        assertThat(cache.get(third)).isPresent();
+    }
+
+    @Test
+    @DisplayName("Should keep keys of different users apart")
+    void shouldScopeKeysToUser() {
+        // Given
+        cache.put(new IdempotencyKey(1, "key"), handled());
+
+        // When/Then
+        assertThat(cache.get(new IdempotencyKey(2, "key"))).isEmpty();
+    }
+
+    private static HandledRequest handled() {
+        return new HandledRequest("hash", mock(TransactionResponse.class));
+    }
+}
@@ -0,0 +1,288 @@
+package info.mackiewicz.bankapp.system.banking.operations.idempotency;
+
+import info.mackiewicz.bankapp.core.account.model.Account;
+import info.mackiewicz.bankapp.core.transaction.exception.InsufficientFundsException;
+import info.mackiewicz.bankapp.core.transaction.model.Transaction;
+import info.mackiewicz.bankapp.core.transaction.service.TransactionService;
+import info.mackiewicz.bankapp.system.banking.operations.idempotency.exception.IdempotencyKeyReusedException;
+import info.mackiewicz.bankapp.system.banking.operations.idempotency.exception.InvalidIdempotencyKeyException;
+import info.mackiewicz.bankapp.system.banking.operations.idempotency.model.IdempotencyRecord;
+import info.mackiewicz.bankapp.system.banking.operations.idempotency.repository.IdempotencyRecordRepository;
+import info.mackiewicz.bankapp.system.banking.shared.dto.TransactionResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DisplayName("IdempotencyService Tests")
+class IdempotencyServiceTest {
+
+    private static final Instant NOW = Instant.parse("2025-04-04T12:00:00Z");
+    private static final long TTL = 60000;
+    private static final String KEY = "3f1c9a52-8d4e-4b1a-9c61-2f7e5d0b8a11";
+    private static final int USER_ID = 3;
+    private static final String REQUEST = "IbanTransferRequest\nPL11485112340000123400000077\n100\nRent\nPL99485112340000123400000099";
+    private static final String OTHER_REQUEST = "IbanTransferRequest\nPL11485112340000123400000077\n200\nRent\nPL99485112340000123400000099";
+    private static final String REQUEST_HASH = hash(REQUEST);
+
+    private IdempotencyRecordRepository repository;
+    private TransactionService transactionService;
+    private IdempotencyService idempotencyService;
+    private Transaction transaction;
+    private TransactionResponse response;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(IdempotencyRecordRepository.class);
+        transactionService = mock(TransactionService.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(repository.findByUserIdAndIdempotencyKeyAndCreatedAtAfter(anyInt(), anyString(), any()))
+                .thenReturn(Optional.empty());
+
+        idempotencyService = new IdempotencyService(repository, transactionService, transactionTemplate,
+                new IdempotencyConfig(100, TTL), Clock.fixed(NOW, ZoneOffset.UTC));
+
+        transaction = new Transaction();
+        transaction.setId(7);
+        transaction.setSourceAccount(mock(Account.class));
+        transaction.setDestinationAccount(mock(Account.class));
+        response = new TransactionResponse(transaction.getSourceAccount(), transaction.getDestinationAccount(), transaction);
+    }
+
+    @Test
+    @DisplayName("Should handle every request without an idempotency key")
+    void shouldNotDeduplicateWithoutKey() {
+        // Given
+        AtomicInteger transfers = new AtomicInteger();
+
+        // When
+        idempotencyService.execute(USER_ID, null, REQUEST, () -> countingTransfer(transfers));
+        idempotencyService.execute(USER_ID, " ", REQUEST, () -> countingTransfer(transfers));
+
+        // Then
+        assertThat(transfers).hasValue(2);
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    @DisplayName("Should reject keys that do not fit the key column")
+    void shouldRejectTooLongKey() {
+        // When/Then
+        assertThatThrownBy(() -> idempotencyService.execute(USER_ID, "k".repeat(256), REQUEST, () -> response))
+                .isInstanceOf(InvalidIdempotencyKeyException.class);
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    @DisplayName("Should store the key with the transaction and replay the response to a retry")
+    void shouldReplayCachedResponse() {
+        // Given
+        AtomicInteger transfers = new AtomicInteger();
+
+        // When
+        TransactionResponse first = idempotencyService.execute(USER_ID, KEY, REQUEST, () -> countingTransfer(transfers));
+        TransactionResponse retry = idempotencyService.execute(USER_ID, KEY, REQUEST, () -> countingTransfer(transfers));
+
+        // Then
+        assertThat(transfers).hasValue(1);
+        assertThat(retry).isSameAs(first);
+        verify(repository).deleteRecordCreatedBefore(USER_ID, KEY, NOW.minusMillis(TTL));
+        verify(repository).insertRecord(USER_ID, KEY, 7, REQUEST_HASH, NOW);
+    }
+
+    @Test
+    @DisplayName("Should rebuild the response from the stored transaction when it is not cached")
+    void shouldReplayStoredResponse() {
+        // Given
+        IdempotencyRecord record = mock(IdempotencyRecord.class);
+        when(record.getTransactionId()).thenReturn(7);
+        when(record.getRequestHash()).thenReturn(REQUEST_HASH);
+        when(repository.findByUserIdAndIdempotencyKeyAndCreatedAtAfter(USER_ID, KEY, NOW.minusMillis(TTL)))
+                .thenReturn(Optional.of(record));
+        when(transactionService.getTransactionById(7)).thenReturn(transaction);
+        AtomicInteger transfers = new AtomicInteger();
+
+        // When
+        TransactionResponse replayed = idempotencyService.execute(USER_ID, KEY, REQUEST, () -> countingTransfer(transfers));
+
+        // Then
+        assertThat(transfers).hasValue(0);
+        assertThat(replayed).isEqualTo(response);
+        verify(repository, never()).insertRecord(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should reject a key reused for a different request")
+    void shouldRejectKeyReusedForDifferentRequest() {
+        // Given
+        AtomicInteger transfers = new AtomicInteger();
+        idempotencyService.execute(USER_ID, KEY, REQUEST, () -> countingTransfer(transfers));
+
+        // When/Then
+        assertThatThrownBy(() -> idempotencyService.execute(USER_ID, KEY, OTHER_REQUEST, () -> countingTransfer(transfers)))
+                .isInstanceOf(IdempotencyKeyReusedException.class);
+        assertThat(transfers).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Should reject a key whose stored record belongs to a different request")
+    void shouldRejectKeyStoredForDifferentRequest() {
+        // Given
+        IdempotencyRecord record = mock(IdempotencyRecord.class);
+        when(record.getTransactionId()).thenReturn(7);
+        when(record.getRequestHash()).thenReturn(hash(OTHER_REQUEST));
+        when(repository.findByUserIdAndIdempotencyKeyAndCreatedAtAfter(USER_ID, KEY, NOW.minusMillis(TTL)))
+                .thenReturn(Optional.of(record));
+        when(transactionService.getTransactionById(7)).thenReturn(transaction);
+        AtomicInteger transfers = new AtomicInteger();
+
+        // When/Then
+        assertThatThrownBy(() -> idempotencyService.execute(USER_ID, KEY, REQUEST, () -> countingTransfer(transfers)))
+                .isInstanceOf(IdempotencyKeyReusedException.class);
+        assertThat(transfers).hasValue(0);
+    }
+
+    @Test
+    @DisplayName("Should replay keys stored before request hashes were")
+    void shouldReplayKeyStoredWithoutHash() {
+        // Given
+        IdempotencyRecord record = mock(IdempotencyRecord.class);
+        when(record.getTransactionId()).thenReturn(7);
+        when(repository.findByUserIdAndIdempotencyKeyAndCreatedAtAfter(USER_ID, KEY, NOW.minusMillis(TTL)))
+                .thenReturn(Optional.of(record));
+        when(transactionService.getTransactionById(7)).thenReturn(transaction);
+
+        // When
+        TransactionResponse replayed = idempotencyService.execute(USER_ID, KEY, OTHER_REQUEST, () -> response);
+
+        // Then
+        assertThat(replayed).isEqualTo(response);
+    }
+
+    @Test
+    @DisplayName("Should return the response stored concurrently by another node")
+    void shouldReturnResponseStoredConcurrently() {
+        // Given
+        IdempotencyRecord record = mock(IdempotencyRecord.class);
+        when(record.getTransactionId()).thenReturn(7);
+        when(record.getRequestHash()).thenReturn(REQUEST_HASH);
+        when(repository.insertRecord(eq(USER_ID), eq(KEY), any(), any(), any()))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+        when(repository.findByUserIdAndIdempotencyKeyAndCreatedAtAfter(USER_ID, KEY, NOW.minusMillis(TTL)))
+                .thenReturn(Optional.empty(), Optional.of(record));
+        when(transactionService.getTransactionById(7)).thenReturn(transaction);
+
+        // When
+        TransactionResponse result = idempotencyService.execute(USER_ID, KEY, REQUEST, () -> response);
+
+        // Then
+        assertThat(result).isEqualTo(response);
+    }
+
+    @Test
+    @DisplayName("Should coalesce concurrent duplicates onto the first request")
+    void shouldCoalesceConcurrentDuplicates() throws Exception {
+        // Given
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        AtomicInteger transfers = new AtomicInteger();
+        Supplier<TransactionResponse> slowTransfer = () -> {
+            transfers.incrementAndGet();
+            firstStarted.countDown();
+            await(releaseFirst);
+            return response;
+        };
+
+        // When
+        CompletableFuture<TransactionResponse> first =
+                CompletableFuture.supplyAsync(() -> idempotencyService.execute(USER_ID, KEY, REQUEST, slowTransfer));
+        await(firstStarted);
+        CompletableFuture<TransactionResponse> duplicate =
+                CompletableFuture.supplyAsync(() -> idempotencyService.execute(USER_ID, KEY, REQUEST, slowTransfer));
+        // give the duplicate time to find the first request in progress
+        TimeUnit.MILLISECONDS.sleep(100);
+        releaseFirst.countDown();
+
+        // Then
+        assertThat(first.get(5, TimeUnit.SECONDS)).isSameAs(response);
+        assertThat(duplicate.get(5, TimeUnit.SECONDS)).isSameAs(response);
+        assertThat(transfers).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Should not remember a key whose request failed")
+    void shouldNotRememberFailedRequest() {
+        // Given
+        AtomicInteger transfers = new AtomicInteger();
+
+        // When
+        assertThatThrownBy(() -> idempotencyService.execute(USER_ID, KEY, REQUEST, () -> {
+            throw new InsufficientFundsException("Insufficient funds");
+        })).isInstanceOf(InsufficientFundsException.class);
+        idempotencyService.execute(USER_ID, KEY, REQUEST, () -> countingTransfer(transfers));
+
+        // Then
+        assertThat(transfers).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Should remove keys older than the TTL")
+    void shouldCleanupExpiredKeys() {
+        // Given
+        when(repository.deleteAllCreatedBefore(NOW.minusMillis(TTL))).thenReturn(4);
+
+        // When
+        int removed = idempotencyService.cleanupExpiredKeys();
+
+        // Then
+        assertThat(removed).isEqualTo(4);
+    }
+
+    private TransactionResponse countingTransfer(AtomicInteger transfers) {
+        transfers.incrementAndGet();
+        return response;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String hash(String request) {
+        try {
+            return Base64.getEncoder().encodeToString(
+                    MessageDigest.getInstance("SHA-256").digest(request.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package info.mackiewicz.bankapp.system.error.handling.core;
 
+import info.mackiewicz.bankapp.core.transaction.exception.TransactionAdmissionRejectedException;
 import info.mackiewicz.bankapp.core.user.exception.UserNotFoundException;
 import info.mackiewicz.bankapp.presentation.auth.recovery.password.exception.ExpiredTokenException;
 import info.mackiewicz.bankapp.presentation.auth.recovery.password.exception.TokenNotFoundException;
@@ -20,6 +21,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -213,6 +215,29 @@ class ApiExceptionHandlerTest {
             verify(errorLogger).logError(eq(ErrorCode.TOO_MANY_PASSWORD_RESET_ATTEMPTS), eq(ex), eq(TEST_PATH));
         }
 
+        @Test
+        @DisplayName("Should handle TransactionAdmissionRejectedException with Retry-After header")
+        void shouldHandleTransactionAdmissionRejectedException() {
+            // Arrange
+            TransactionAdmissionRejectedException ex = new TransactionAdmissionRejectedException(TEST_ERROR_MESSAGE, 5);
+            when(exceptionMapper.map(ex)).thenReturn(ErrorCode.TRANSACTION_ADMISSION_REJECTED);
+
+            // Act
+            ResponseEntity<BaseApiError> response = exceptionHandler.handleTransactionAdmissionRejectedException(ex, webRequest);
+
+            // Assert
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+            assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("5");
+            assertThat(response.getBody())
+                .isNotNull()
+                .satisfies(body -> {
+                    assertThat(body.getTitle()).isEqualTo(ErrorCode.TRANSACTION_ADMISSION_REJECTED.name());
+                    assertThat(body.getPath()).isEqualTo(TEST_PATH);
+                });
+
+            verify(errorLogger).logError(eq(ErrorCode.TRANSACTION_ADMISSION_REJECTED), eq(ex), eq(TEST_PATH));
+        }
+
         @Test
         @DisplayName("Should handle UsedTokenException")
         void shouldHandleUsedTokenException() {
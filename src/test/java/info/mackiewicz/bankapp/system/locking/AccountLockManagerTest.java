@@ -0,0 +1,265 @@
+package info.mackiewicz.bankapp.system.locking;
+
+import info.mackiewicz.bankapp.core.account.exception.AccountLockException;
+import info.mackiewicz.bankapp.core.account.model.Account;
+import info.mackiewicz.bankapp.system.transaction.processing.locking.AccountLockManager;
+import info.mackiewicz.bankapp.system.transaction.processing.locking.LockHandle;
+import info.mackiewicz.bankapp.system.transaction.processing.locking.LockingStrategy;
+import info.mackiewicz.bankapp.system.transaction.processing.locking.metrics.LockMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@DisplayName("AccountLockManager Tests")
+class AccountLockManagerTest {
+
+    private LockingStrategy lockingStrategy;
+    private SimpleMeterRegistry meterRegistry;
+    private AccountLockManager lockManager;
+
+    private Account lowerAccount;
+    private Account higherAccount;
+
+    @BeforeEach
+    void setUp() {
+        lockingStrategy = mock(LockingStrategy.class);
+        meterRegistry = new SimpleMeterRegistry();
+        lockManager = new AccountLockManager(lockingStrategy, new LockMetrics(meterRegistry));
+
+        lowerAccount = mock(Account.class);
+        higherAccount = mock(Account.class);
+        when(lowerAccount.getId()).thenReturn(1);
+        when(higherAccount.getId()).thenReturn(2);
+    }
+
+    @Nested
+    @DisplayName("Blocking Locking")
+    class BlockingLocking {
+
+        @Test
+        @DisplayName("Should lock deduplicated IDs in ascending order and release in reverse order")
+        void shouldLockSortedDistinctIdsAndReleaseInReverse() {
+            // When
+            try (LockHandle ignored = lockManager.lockAll(List.of(3, 1, 2, 3, 1))) {
+                verify(lockingStrategy, never()).unlock(any());
+            }
+
+            // Then
+            InOrder order = inOrder(lockingStrategy);
+            order.verify(lockingStrategy).lock(1);
+            order.verify(lockingStrategy).lock(2);
+            order.verify(lockingStrategy).lock(3);
+            order.verify(lockingStrategy).unlock(3);
+            order.verify(lockingStrategy).unlock(2);
+            order.verify(lockingStrategy).unlock(1);
+            verify(lockingStrategy, times(3)).lock(any());
+            assertThat(meterRegistry.get("bankapp.lock.accounts.hold").timer().count()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should skip null IDs")
+        void shouldSkipNullIds() {
+            // When
+            lockManager.lockAll(Arrays.asList(null, 2, null)).release();
+
+            // Then
+            verify(lockingStrategy, times(1)).lock(any());
+            verify(lockingStrategy).lock(2);
+            verify(lockingStrategy).unlock(2);
+        }
+
+        @Test
+        @DisplayName("Should release handle only once")
+        void shouldReleaseOnlyOnce() {
+            // Given
+            LockHandle handle = lockManager.lockAll(List.of(1, 2));
+
+            // When
+            handle.release();
+            handle.close();
+
+            // Then
+            verify(lockingStrategy, times(1)).unlock(1);
+            verify(lockingStrategy, times(1)).unlock(2);
+        }
+
+        @Test
+        @DisplayName("Should release acquired locks in reverse order when a later lock fails")
+        void shouldRollBackOnFailure() {
+            // Given
+            AccountLockException exception = new AccountLockException("Failed", 3, 1, 100, false);
+            doThrow(exception).when(lockingStrategy).lock(3);
+
+            // When & Then
+            assertThatThrownBy(() -> lockManager.lockAll(List.of(1, 2, 3)))
+                    .isSameAs(exception);
+            InOrder order = inOrder(lockingStrategy);
+            order.verify(lockingStrategy).unlock(2);
+            order.verify(lockingStrategy).unlock(1);
+            verify(lockingStrategy, never()).unlock(3);
+            assertThat(meterRegistry.get("bankapp.lock.accounts.wait").tag("outcome", "timeout").timer().count())
+                    .isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should release remaining locks when unlocking one of them fails")
+        void shouldUnlockAllDespiteFailures() {
+            // Given
+            IllegalMonitorStateException first = new IllegalMonitorStateException("3");
+            IllegalMonitorStateException second = new IllegalMonitorStateException("1");
+            doThrow(first).when(lockingStrategy).unlock(3);
+            doThrow(second).when(lockingStrategy).unlock(1);
+
+            // When & Then
+            assertThatThrownBy(() -> lockManager.unlockAll(List.of(1, 2, 3)))
+                    .isSameAs(first)
+                    .hasSuppressedException(second);
+            verify(lockingStrategy).unlock(2);
+        }
+
+        @Test
+        @DisplayName("Should lock the two accounts of a transaction through lockAll")
+        void shouldLockAccountPair() {
+            // When
+            lockManager.lockAccounts(higherAccount, null);
+            lockManager.unlockAccounts(higherAccount, null);
+            lockManager.lockAccounts(higherAccount, lowerAccount);
+            lockManager.unlockAccounts(higherAccount, lowerAccount);
+
+            // Then
+            InOrder order = inOrder(lockingStrategy);
+            order.verify(lockingStrategy).lock(2);
+            order.verify(lockingStrategy).unlock(2);
+            order.verify(lockingStrategy).lock(1);
+            order.verify(lockingStrategy).lock(2);
+            order.verify(lockingStrategy).unlock(2);
+            order.verify(lockingStrategy).unlock(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("Asynchronous Locking")
+    class AsynchronousLocking {
+
+        private LockHandle lowerHandle;
+        private LockHandle higherHandle;
+
+        @BeforeEach
+        void setUp() {
+            lowerHandle = mock(LockHandle.class);
+            higherHandle = mock(LockHandle.class);
+        }
+
+        @Test
+        @DisplayName("Should lock in order of account IDs and release in reverse order")
+        void shouldLockInIdOrderAndReleaseInReverse() {
+            // Given
+            when(lockingStrategy.lockAsync(1)).thenReturn(CompletableFuture.completedFuture(lowerHandle));
+            when(lockingStrategy.lockAsync(2)).thenReturn(CompletableFuture.completedFuture(higherHandle));
+
+            // When
+            LockHandle handle = lockManager.lockAccountsAsync(higherAccount, lowerAccount).join();
+            handle.release();
+
+            // Then
+            InOrder order = inOrder(lockingStrategy, lowerHandle, higherHandle);
+            order.verify(lockingStrategy).lockAsync(1);
+            order.verify(lockingStrategy).lockAsync(2);
+            order.verify(higherHandle).release();
+            order.verify(lowerHandle).release();
+            assertThat(meterRegistry.get("bankapp.lock.accounts.wait").tag("outcome", "acquired").timer().count())
+                    .isEqualTo(1);
+            assertThat(meterRegistry.get("bankapp.lock.accounts.hold").timer().count()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should request next lock only after previous one is granted")
+        void shouldWaitForPreviousLock() {
+            // Given
+            CompletableFuture<LockHandle> lowerLock = new CompletableFuture<>();
+            when(lockingStrategy.lockAsync(1)).thenReturn(lowerLock);
+            when(lockingStrategy.lockAsync(2)).thenReturn(CompletableFuture.completedFuture(higherHandle));
+
+            // When
+            CompletableFuture<LockHandle> handle = lockManager.lockAccountsAsync(lowerAccount, higherAccount);
+
+            // Then
+            assertThat(handle).isNotDone();
+            verify(lockingStrategy, never()).lockAsync(2);
+
+            // When
+            lowerLock.complete(lowerHandle);
+
+            // Then
+            assertThat(handle).isCompleted();
+            verify(lockingStrategy).lockAsync(2);
+        }
+
+        @Test
+        @DisplayName("Should lock single account when the other one is null")
+        void shouldLockSingleAccount() {
+            // Given
+            when(lockingStrategy.lockAsync(1)).thenReturn(CompletableFuture.completedFuture(lowerHandle));
+
+            // When
+            lockManager.lockAccountsAsync(null, lowerAccount).join().release();
+
+            // Then
+            verify(lockingStrategy, times(1)).lockAsync(any());
+            verify(lowerHandle).release();
+        }
+
+        @Test
+        @DisplayName("Should release acquired locks when a later lock fails")
+        void shouldReleaseAcquiredLocksOnFailure() {
+            // Given
+            AccountLockException exception = new AccountLockException("Failed", 2, 1, 100, false);
+            when(lockingStrategy.lockAsync(1)).thenReturn(CompletableFuture.completedFuture(lowerHandle));
+            when(lockingStrategy.lockAsync(2)).thenReturn(CompletableFuture.failedFuture(exception));
+
+            // When & Then
+            assertThatThrownBy(() -> lockManager.lockAccountsAsync(lowerAccount, higherAccount).join())
+                    .isInstanceOf(CompletionException.class)
+                    .hasCause(exception);
+            verify(lowerHandle).release();
+            assertThat(meterRegistry.get("bankapp.lock.accounts.wait").tag("outcome", "timeout").timer().count())
+                    .isEqualTo(1);
+            assertThat(meterRegistry.find("bankapp.lock.accounts.hold").timer()).isNull();
+        }
+
+        @Test
+        @DisplayName("Should lock any number of accounts in ascending order")
+        void shouldLockAllInOrder() {
+            // Given
+            LockHandle thirdHandle = mock(LockHandle.class);
+            when(lockingStrategy.lockAsync(1)).thenReturn(CompletableFuture.completedFuture(lowerHandle));
+            when(lockingStrategy.lockAsync(2)).thenReturn(CompletableFuture.completedFuture(higherHandle));
+            when(lockingStrategy.lockAsync(3)).thenReturn(CompletableFuture.completedFuture(thirdHandle));
+
+            // When
+            lockManager.lockAllAsync(List.of(3, 2, 1, 2)).join().release();
+
+            // Then
+            InOrder order = inOrder(lockingStrategy, lowerHandle, higherHandle, thirdHandle);
+            order.verify(lockingStrategy).lockAsync(1);
+            order.verify(lockingStrategy).lockAsync(2);
+            order.verify(lockingStrategy).lockAsync(3);
+            order.verify(thirdHandle).release();
+            order.verify(higherHandle).release();
+            order.verify(lowerHandle).release();
+        }
+    }
+}
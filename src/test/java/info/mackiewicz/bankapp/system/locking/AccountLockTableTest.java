@@ -0,0 +1,117 @@
+package info.mackiewicz.bankapp.system.locking;
+
+import info.mackiewicz.bankapp.system.transaction.processing.locking.AccountLock;
+import info.mackiewicz.bankapp.system.transaction.processing.locking.AccountLockTable;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("AccountLockTable Tests")
+class AccountLockTableTest {
+
+    private static final int DISTINCT_ACCOUNTS = 10_000_000;
+    private static final int THREAD_COUNT = 8;
+
+    private final AccountLockTable lockTable = new AccountLockTable();
+
+    @Test
+    @DisplayName("Should return the same lock while account is referenced")
+    void shouldReturnSameLockWhileReferenced() {
+        // When
+        AccountLock first = lockTable.retain(1);
+        AccountLock second = lockTable.retain(1);
+
+        // Then
+        assertThat(second).isSameAs(first);
+        assertThat(lockTable.get(1)).isSameAs(first);
+
+        // When
+        lockTable.release(1);
+
+        // Then
+        assertThat(lockTable.get(1)).isSameAs(first);
+
+        // When
+        lockTable.release(1);
+
+        // Then
+        assertThat(lockTable.get(1)).isNull();
+        assertThat(lockTable.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should ignore release of unknown account")
+    void shouldIgnoreReleaseOfUnknownAccount() {
+        lockTable.release(42);
+
+        assertThat(lockTable.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should stay empty after locking 10M distinct accounts")
+    void shouldStayEmptyAfterLockingManyDistinctAccounts() {
+        // Given
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long usedBefore = runtime.totalMemory() - runtime.freeMemory();
+
+        // When
+        for (int accountId = 0; accountId < DISTINCT_ACCOUNTS; accountId++) {
+            AccountLock lock = lockTable.retain(accountId);
+            lock.acquire(Thread.currentThread()).join();
+            lock.release(Thread.currentThread());
+            lockTable.release(accountId);
+        }
+
+        // Then
+        System.gc();
+        long usedAfter = runtime.totalMemory() - runtime.freeMemory();
+        assertThat(lockTable.size()).isZero();
+        // a retained entry costs well over 50 bytes, so 10M leaked entries would be hundreds of MB
+        assertThat(usedAfter - usedBefore).isLessThan(64L * 1024 * 1024);
+    }
+
+    @Test
+    @DisplayName("Should drain table after concurrent use of shared accounts")
+    void shouldDrainTableAfterConcurrentUse() throws Exception {
+        // Given
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        try {
+            // When
+            for (int i = 0; i < THREAD_COUNT; i++) {
+                futures.add(CompletableFuture.runAsync(() -> {
+                    for (int j = 0; j < 100_000; j++) {
+                        int accountId = j % 16;
+                        AccountLock lock = lockTable.retain(accountId);
+                        lock.acquire(Thread.currentThread()).join();
+                        try {
+                            assertThat(lockTable.get(accountId)).isSameAs(lock);
+                        } finally {
+                            lock.release(Thread.currentThread());
+                            lockTable.release(accountId);
+                        }
+                    }
+                }, executor));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                    .orTimeout(30, TimeUnit.SECONDS)
+                    .join();
+
+            // Then
+            assertThat(lockTable.size()).isZero();
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package info.mackiewicz.bankapp.system.locking;
 
 import info.mackiewicz.bankapp.core.account.exception.AccountLockException;
+import info.mackiewicz.bankapp.system.transaction.processing.locking.AccountLock;
 import info.mackiewicz.bankapp.system.transaction.processing.locking.AccountLockingStrategy;
+import info.mackiewicz.bankapp.system.transaction.processing.locking.LockHandle;
 import info.mackiewicz.bankapp.system.transaction.processing.locking.LockingConfig;
-import info.mackiewicz.bankapp.system.transaction.processing.locking.LockingUtils;
+import info.mackiewicz.bankapp.system.transaction.processing.locking.metrics.LockMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -15,7 +18,6 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.locks.ReentrantLock;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -32,13 +34,16 @@ class AccountLockingStrategyTest {
     private static final int MAX_ATTEMPTS = 3;
     private static final int BASE_DELAY = 25;
     private static final int MAX_DELAY = 500; 
+    private static final int ASYNC_TIMEOUT = 300;
     
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LockMetrics lockMetrics = new LockMetrics(meterRegistry);
     private final AccountLockingStrategy lockingStrategy;
     
     AccountLockingStrategyTest() {
         // Constructor injection for the locking strategy
         // With `-1` for default values for the LockingConfig (check LockingConfig class for details)
-        this.lockingStrategy = new AccountLockingStrategy(new LockingConfig(MAX_ATTEMPTS, BASE_DELAY, MAX_DELAY, TIMEOUT));
+        this.lockingStrategy = new AccountLockingStrategy(new LockingConfig(MAX_ATTEMPTS, BASE_DELAY, MAX_DELAY, TIMEOUT, ASYNC_TIMEOUT), lockMetrics);
     }
 
     @Nested
@@ -72,6 +77,29 @@ class AccountLockingStrategyTest {
             assertThat(lockingStrategy.getUnlockCounter().get()).isEqualTo(1);
         }
 
+        @Test
+        @DisplayName("Should remove lock from table once it is released")
+        void shouldRemoveLockFromTableOnceReleased() {
+            // When
+            lockingStrategy.lock(testResourceId);
+            lockingStrategy.lock(testResourceId);
+
+            // Then
+            assertThat(lockingStrategy.getLockTable().get(testResourceId)).isNotNull();
+
+            // When
+            lockingStrategy.unlock(testResourceId);
+
+            // Then - still held reentrantly
+            assertThat(lockingStrategy.getLockTable().get(testResourceId)).isNotNull();
+
+            // When
+            lockingStrategy.unlock(testResourceId);
+
+            // Then
+            assertThat(lockingStrategy.getLockTable().get(testResourceId)).isNull();
+        }
+
         @Test
         @DisplayName("Should throw exception when unlocking non-held lock")
         void shouldThrowExceptionWhenUnlockingNonHeldLock() {
@@ -140,6 +168,22 @@ class AccountLockingStrategyTest {
             }
         }
 
+        @Test
+        @DisplayName("Should not keep lock in table after failed acquisition")
+        void shouldNotKeepLockInTableAfterFailedAcquisition() {
+            // Given
+            lockingStrategy.lock(testResourceId);
+
+            // When
+            CompletableFuture<Void> future = CompletableFuture.runAsync(() -> lockingStrategy.lock(testResourceId));
+            assertThatThrownBy(() -> future.get(DEFAULT_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(AccountLockException.class);
+            lockingStrategy.unlock(testResourceId);
+
+            // Then
+            assertThat(lockingStrategy.getLockTable().get(testResourceId)).isNull();
+        }
+
         @Test
         @DisplayName("Should increment counters correctly during retry attempts")
         void shouldIncrementCountersCorrectlyDuringRetryAttempts() {
@@ -304,6 +348,192 @@ class AccountLockingStrategyTest {
         }
     }
 
+    @Nested
+    @DisplayName("Asynchronous Locking")
+    class AsynchronousLocking {
+        private Integer testResourceId;
+
+        @BeforeEach
+        void setUp() {
+            testResourceId = ThreadLocalRandom.current().nextInt(500000, 599999);
+            cleanupLock(testResourceId);
+            lockingStrategy.getLockCounter().set(0);
+            lockingStrategy.getUnlockCounter().set(0);
+        }
+
+        @Test
+        @DisplayName("Should grant free lock immediately and release it from another thread")
+        void shouldGrantFreeLockImmediately() throws Exception {
+            // When
+            CompletableFuture<LockHandle> handle = lockingStrategy.lockAsync(testResourceId);
+
+            // Then
+            assertThat(handle).isCompleted();
+            assertThat(lockingStrategy.getLockCounter().get()).isEqualTo(1);
+
+            // When
+            CompletableFuture.runAsync(handle.join()::release).get(DEFAULT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+            // Then
+            assertThat(lockingStrategy.getUnlockCounter().get()).isEqualTo(1);
+            assertThat(lockingStrategy.getLockTable().get(testResourceId)).isNull();
+        }
+
+        @Test
+        @DisplayName("Should queue behind blocking holder and be granted on unlock")
+        void shouldBeGrantedWhenBlockingHolderUnlocks() {
+            // Given
+            lockingStrategy.lock(testResourceId);
+
+            // When
+            CompletableFuture<LockHandle> handle = lockingStrategy.lockAsync(testResourceId);
+
+            // Then
+            assertThat(handle).isNotDone();
+
+            // When
+            lockingStrategy.unlock(testResourceId);
+
+            // Then
+            assertThat(handle).isCompleted();
+            handle.join().release();
+            assertThat(lockingStrategy.getLockTable().get(testResourceId)).isNull();
+        }
+
+        @Test
+        @DisplayName("Should grant waiting handles in FIFO order")
+        void shouldGrantWaitersInFifoOrder() {
+            // Given
+            LockHandle holder = lockingStrategy.lockAsync(testResourceId).join();
+            List<Integer> grantOrder = new CopyOnWriteArrayList<>();
+            List<CompletableFuture<LockHandle>> waiters = new ArrayList<>();
+            for (int i = 0; i < DEFAULT_THREAD_COUNT; i++) {
+                int position = i;
+                waiters.add(lockingStrategy.lockAsync(testResourceId)
+                        .whenComplete((handle, error) -> grantOrder.add(position)));
+            }
+
+            // When
+            holder.release();
+            for (CompletableFuture<LockHandle> waiter : waiters) {
+                waiter.join().release();
+            }
+
+            // Then
+            assertThat(grantOrder).containsExactly(0, 1, 2, 3, 4);
+            assertThat(lockingStrategy.getLockTable().get(testResourceId)).isNull();
+        }
+
+        @Test
+        @DisplayName("Should keep blocking callers out while handle is held")
+        void shouldExcludeBlockingCallersWhileHandleHeld() throws Exception {
+            // Given
+            LockHandle handle = lockingStrategy.lockAsync(testResourceId).join();
+
+            // When & Then
+            CompletableFuture<Void> blocked = CompletableFuture.runAsync(() -> lockingStrategy.lock(testResourceId));
+            assertThatThrownBy(() -> blocked.get(LONG_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(AccountLockException.class);
+
+            handle.release();
+            assertThat(lockingStrategy.getLockTable().get(testResourceId)).isNull();
+        }
+
+        @Test
+        @DisplayName("Should fail with AccountLockException after asynchronous timeout")
+        void shouldFailAfterAsyncTimeout() {
+            // Given
+            LockHandle holder = lockingStrategy.lockAsync(testResourceId).join();
+
+            // When
+            CompletableFuture<LockHandle> waiter = lockingStrategy.lockAsync(testResourceId);
+
+            // Then
+            assertThatThrownBy(() -> waiter.get(LONG_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(AccountLockException.class);
+
+            // When
+            holder.release();
+
+            // Then
+            assertThat(lockingStrategy.getLockTable().get(testResourceId)).isNull();
+        }
+
+        @Test
+        @DisplayName("Should ignore repeated release of a handle")
+        void shouldIgnoreRepeatedRelease() {
+            // Given
+            LockHandle handle = lockingStrategy.lockAsync(testResourceId).join();
+
+            // When
+            handle.release();
+            handle.release();
+
+            // Then
+            assertThat(lockingStrategy.getUnlockCounter().get()).isEqualTo(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("Metrics")
+    class Metrics {
+        private Integer testResourceId;
+
+        @BeforeEach
+        void setUp() {
+            testResourceId = ThreadLocalRandom.current().nextInt(600000, 699999);
+            cleanupLock(testResourceId);
+            meterRegistry.clear();
+            lockMetrics.getHotAccounts().reset();
+        }
+
+        @Test
+        @DisplayName("Should record wait time, attempts and hold time of blocking lock")
+        void shouldRecordBlockingLockMetrics() {
+            // When
+            lockingStrategy.lock(testResourceId);
+            lockingStrategy.unlock(testResourceId);
+
+            // Then
+            assertThat(meterRegistry.get("bankapp.lock.wait").tags("mode", "sync", "outcome", "acquired")
+                    .timer().count()).isEqualTo(1);
+            assertThat(meterRegistry.get("bankapp.lock.attempts").tag("outcome", "acquired")
+                    .summary().totalAmount()).isEqualTo(1);
+            assertThat(meterRegistry.get("bankapp.lock.hold").tag("mode", "sync").timer().count()).isEqualTo(1);
+            assertThat(lockMetrics.getHotAccounts().top(10)).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should record contended account and failed asynchronous request")
+        void shouldRecordContentionAndFailure() {
+            // Given
+            LockHandle holder = lockingStrategy.lockAsync(testResourceId).join();
+
+            // When
+            CompletableFuture<LockHandle> waiter = lockingStrategy.lockAsync(testResourceId);
+
+            // Then
+            assertThatThrownBy(waiter::join).hasCauseInstanceOf(AccountLockException.class);
+            assertThat(lockMetrics.getHotAccounts().top(10))
+                    .singleElement()
+                    .satisfies(hot -> {
+                        assertThat(hot.accountId()).isEqualTo(testResourceId);
+                        assertThat(hot.contentions()).isEqualTo(1);
+                    });
+            assertThat(meterRegistry.get("bankapp.lock.failures").tags("mode", "async", "outcome", "timeout")
+                    .counter().count()).isEqualTo(1);
+            assertThat(lockMetrics.lockedAccounts()).isEqualTo(1);
+
+            // When
+            holder.release();
+
+            // Then
+            assertThat(meterRegistry.get("bankapp.lock.hold").tag("mode", "async").timer().count()).isEqualTo(1);
+            assertThat(lockMetrics.lockedAccounts()).isZero();
+        }
+    }
+
     @Nested
     @DisplayName("Interruption Handling")
     class InterruptionHandling {
@@ -342,8 +572,8 @@ class AccountLockingStrategyTest {
      * Helper method for cleaning up lock for a specific resource ID
      */
     private void cleanupLock(Integer resourceId) {
-        ReentrantLock lock = LockingUtils.getOrCreateLock(resourceId);
-        if (lock.isHeldByCurrentThread()) {
+        AccountLock lock = lockingStrategy.getLockTable().get(resourceId);
+        if (lock != null && lock.isHeldBy(Thread.currentThread())) {
             lockingStrategy.unlock(resourceId);
         }
     }
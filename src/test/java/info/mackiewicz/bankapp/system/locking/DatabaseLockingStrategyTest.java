@@ -0,0 +1,238 @@
+package info.mackiewicz.bankapp.system.locking;
+
+import info.mackiewicz.bankapp.core.account.exception.AccountLockException;
+import info.mackiewicz.bankapp.core.account.model.dto.FencingToken;
+import info.mackiewicz.bankapp.system.transaction.processing.locking.AccountLeaseService;
+import info.mackiewicz.bankapp.system.transaction.processing.locking.DatabaseLockingConfig;
+import info.mackiewicz.bankapp.system.transaction.processing.locking.DatabaseLockingStrategy;
+import info.mackiewicz.bankapp.system.transaction.processing.locking.LockHandle;
+import info.mackiewicz.bankapp.system.transaction.processing.locking.LockingConfig;
+import info.mackiewicz.bankapp.system.transaction.processing.locking.metrics.LockMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Instant;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DisplayName("DatabaseLockingStrategy Tests")
+class DatabaseLockingStrategyTest {
+
+    private static final String NODE_ID = "test-node";
+    private static final Integer ACCOUNT_ID = 42;
+
+    private AccountLeaseService leaseService;
+    private TaskScheduler taskScheduler;
+    private DatabaseLockingStrategy lockingStrategy;
+
+    @BeforeEach
+    void setUp() {
+        leaseService = mock(AccountLeaseService.class);
+        taskScheduler = mock(TaskScheduler.class);
+        // run lease retries right away instead of after their backoff
+        when(taskScheduler.schedule(any(Runnable.class), any(Instant.class))).thenAnswer(invocation -> {
+            invocation.getArgument(0, Runnable.class).run();
+            return null;
+        });
+        lockingStrategy = new DatabaseLockingStrategy(
+                new LockingConfig(3, 10, 50, 50, 2000),
+                new DatabaseLockingConfig(10000, 3000, NODE_ID),
+                leaseService,
+                taskScheduler,
+                Runnable::run,
+                new LockMetrics(new SimpleMeterRegistry()));
+    }
+
+    @Test
+    @DisplayName("Should acquire lease on lock and release it on unlock")
+    void shouldAcquireAndReleaseLease() {
+        // Given
+        when(leaseService.tryAcquire(eq(ACCOUNT_ID), eq(NODE_ID), any(), any())).thenReturn(OptionalLong.of(7L));
+        when(leaseService.release(eq(ACCOUNT_ID), eq(NODE_ID), eq(7L), any())).thenReturn(true);
+
+        // When
+        lockingStrategy.lock(ACCOUNT_ID);
+        lockingStrategy.unlock(ACCOUNT_ID);
+
+        // Then
+        verify(leaseService).tryAcquire(eq(ACCOUNT_ID), eq(NODE_ID), any(), any());
+        verify(leaseService).release(eq(ACCOUNT_ID), eq(NODE_ID), eq(7L), any());
+        assertThat(lockingStrategy.getLockCounter().get()).isEqualTo(1);
+        assertThat(lockingStrategy.getUnlockCounter().get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should reuse held lease on reentrant lock")
+    void shouldReuseLeaseOnReentrantLock() {
+        // Given
+        when(leaseService.tryAcquire(eq(ACCOUNT_ID), eq(NODE_ID), any(), any())).thenReturn(OptionalLong.of(1L));
+
+        // When
+        lockingStrategy.lock(ACCOUNT_ID);
+        lockingStrategy.lock(ACCOUNT_ID);
+        lockingStrategy.unlock(ACCOUNT_ID);
+
+        // Then
+        verify(leaseService, times(1)).tryAcquire(any(), any(), any(), any());
+        verify(leaseService, never()).release(any(), any(), anyLong(), any());
+
+        // When
+        lockingStrategy.unlock(ACCOUNT_ID);
+
+        // Then
+        verify(leaseService).release(eq(ACCOUNT_ID), eq(NODE_ID), eq(1L), any());
+    }
+
+    @Test
+    @DisplayName("Should retry when lease is held or created concurrently by another node")
+    void shouldRetryWhenLeaseIsBusy() {
+        // Given
+        when(leaseService.tryAcquire(eq(ACCOUNT_ID), eq(NODE_ID), any(), any()))
+                .thenReturn(OptionalLong.empty())
+                .thenThrow(new DataIntegrityViolationException("duplicate key"))
+                .thenReturn(OptionalLong.of(3L));
+
+        // When
+        lockingStrategy.lock(ACCOUNT_ID);
+
+        // Then
+        verify(leaseService, times(3)).tryAcquire(eq(ACCOUNT_ID), eq(NODE_ID), any(), any());
+        lockingStrategy.unlock(ACCOUNT_ID);
+    }
+
+    @Test
+    @DisplayName("Should release local lock when lease cannot be acquired")
+    void shouldReleaseLocalLockWhenLeaseNotAcquired() throws Exception {
+        // Given
+        when(leaseService.tryAcquire(eq(ACCOUNT_ID), eq(NODE_ID), any(), any())).thenReturn(OptionalLong.empty());
+
+        // When & Then
+        assertThatThrownBy(() -> lockingStrategy.lock(ACCOUNT_ID))
+                .isInstanceOf(AccountLockException.class)
+                .hasMessageContaining("Failed to acquire database lease after maximum attempts");
+
+        // Local lock must be free for other threads
+        when(leaseService.tryAcquire(eq(ACCOUNT_ID), eq(NODE_ID), any(), any())).thenReturn(OptionalLong.of(1L));
+        CompletableFuture.runAsync(() -> {
+            lockingStrategy.lock(ACCOUNT_ID);
+            lockingStrategy.unlock(ACCOUNT_ID);
+        }).get(2, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("Should expose the fencing token of a held lease for balance writes")
+    void shouldExposeFencingTokenOfHeldLease() {
+        // Given
+        when(leaseService.tryAcquire(eq(ACCOUNT_ID), eq(NODE_ID), any(), any())).thenReturn(OptionalLong.of(9L));
+
+        // When
+        LockHandle handle = lockingStrategy.lockAsync(ACCOUNT_ID).join();
+
+        // Then
+        assertThat(lockingStrategy.fencingToken(ACCOUNT_ID)).contains(new FencingToken(NODE_ID, 9L));
+        handle.release();
+        assertThat(lockingStrategy.fencingToken(ACCOUNT_ID)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should throw exception when unlocking non-held lock")
+    void shouldThrowExceptionWhenUnlockingNonHeldLock() {
+        assertThatThrownBy(() -> lockingStrategy.unlock(ACCOUNT_ID))
+                .isInstanceOf(IllegalStateException.class);
+        verify(leaseService, never()).release(any(), any(), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("Should acquire lease asynchronously and give it back when handle is released")
+    void shouldAcquireLeaseAsynchronously() {
+        // Given
+        when(leaseService.tryAcquire(eq(ACCOUNT_ID), eq(NODE_ID), any(), any())).thenReturn(OptionalLong.of(5L));
+        when(leaseService.release(eq(ACCOUNT_ID), eq(NODE_ID), eq(5L), any())).thenReturn(true);
+
+        // When
+        LockHandle handle = lockingStrategy.lockAsync(ACCOUNT_ID).join();
+        handle.release();
+        handle.release();
+
+        // Then
+        verify(leaseService).tryAcquire(eq(ACCOUNT_ID), eq(NODE_ID), any(), any());
+        verify(leaseService, times(1)).release(eq(ACCOUNT_ID), eq(NODE_ID), eq(5L), any());
+        assertThat(lockingStrategy.getUnlockCounter().get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should complete exceptionally and free local lock when lease cannot be acquired asynchronously")
+    void shouldFailAsyncLockWhenLeaseNotAcquired() {
+        // Given
+        when(leaseService.tryAcquire(eq(ACCOUNT_ID), eq(NODE_ID), any(), any())).thenReturn(OptionalLong.empty());
+
+        // When & Then
+        assertThat(lockingStrategy.lockAsync(ACCOUNT_ID))
+                .failsWithin(2, TimeUnit.SECONDS)
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(AccountLockException.class);
+
+        // retried after a scheduled backoff rather than by sleeping
+        verify(taskScheduler, times(2)).schedule(any(Runnable.class), any(Instant.class));
+
+        when(leaseService.tryAcquire(eq(ACCOUNT_ID), eq(NODE_ID), any(), any())).thenReturn(OptionalLong.of(1L));
+        lockingStrategy.lockAsync(ACCOUNT_ID).join().release();
+    }
+
+    @Test
+    @DisplayName("Should retry a busy lease asynchronously with a scheduled backoff")
+    void shouldRetryBusyLeaseAsynchronously() {
+        // Given
+        when(leaseService.tryAcquire(eq(ACCOUNT_ID), eq(NODE_ID), any(), any()))
+                .thenReturn(OptionalLong.empty())
+                .thenReturn(OptionalLong.of(4L));
+
+        // When
+        LockHandle handle = lockingStrategy.lockAsync(ACCOUNT_ID).join();
+
+        // Then
+        verify(leaseService, times(2)).tryAcquire(eq(ACCOUNT_ID), eq(NODE_ID), any(), any());
+        verify(taskScheduler).schedule(any(Runnable.class), any(Instant.class));
+        handle.release();
+        verify(leaseService).release(eq(ACCOUNT_ID), eq(NODE_ID), eq(4L), any());
+    }
+
+    @Test
+    @DisplayName("Should free the local lock when the lease attempt cannot be queued")
+    void shouldFreeLocalLockWhenLeaseAttemptRejected() {
+        // Given
+        DatabaseLockingStrategy rejecting = new DatabaseLockingStrategy(
+                new LockingConfig(3, 10, 50, 50, 2000),
+                new DatabaseLockingConfig(10000, 3000, NODE_ID),
+                leaseService,
+                taskScheduler,
+                command -> {
+                    throw new RejectedExecutionException("Shutting down");
+                },
+                new LockMetrics(new SimpleMeterRegistry()));
+
+        // When & Then
+        assertThat(rejecting.lockAsync(ACCOUNT_ID))
+                .failsWithin(2, TimeUnit.SECONDS)
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(RejectedExecutionException.class);
+
+        when(leaseService.tryAcquire(eq(ACCOUNT_ID), eq(NODE_ID), any(), any())).thenReturn(OptionalLong.of(1L));
+        rejecting.lock(ACCOUNT_ID);
+        rejecting.unlock(ACCOUNT_ID);
+    }
+}
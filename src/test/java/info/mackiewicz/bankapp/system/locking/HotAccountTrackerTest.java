@@ -0,0 +1,91 @@
+package info.mackiewicz.bankapp.system.locking;
+
+import info.mackiewicz.bankapp.system.transaction.processing.locking.metrics.HotAccountTracker;
+import info.mackiewicz.bankapp.system.transaction.processing.locking.metrics.HotAccountTracker.HotAccount;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("HotAccountTracker Tests")
+class HotAccountTrackerTest {
+
+    @Test
+    @DisplayName("Should count exactly while below capacity")
+    void shouldCountExactlyBelowCapacity() {
+        // Given
+        HotAccountTracker tracker = new HotAccountTracker(4);
+
+        // When
+        tracker.record(1);
+        tracker.record(2);
+        tracker.record(2);
+        tracker.record(3);
+        tracker.record(2);
+        tracker.record(1);
+
+        // Then
+        assertThat(tracker.top(2)).containsExactly(
+                new HotAccount(2, 3, 0),
+                new HotAccount(1, 2, 0));
+    }
+
+    @Test
+    @DisplayName("Should keep heavy hitters among many rarely contended accounts")
+    void shouldKeepHeavyHitters() {
+        // Given
+        HotAccountTracker tracker = new HotAccountTracker(16);
+        Random random = new Random(42);
+
+        // When - two hot accounts get 20% of events each, the rest is spread over 100k accounts
+        for (int i = 0; i < 100_000; i++) {
+            int roll = random.nextInt(10);
+            if (roll < 2) {
+                tracker.record(-1);
+            } else if (roll < 4) {
+                tracker.record(-2);
+            } else {
+                tracker.record(random.nextInt(100_000));
+            }
+        }
+
+        // Then
+        assertThat(tracker.top(2))
+                .extracting(HotAccount::accountId)
+                .containsExactlyInAnyOrder(-1, -2);
+        assertThat(tracker.top(100)).hasSize(16);
+    }
+
+    @Test
+    @DisplayName("Should replace least contended account when full")
+    void shouldReplaceLeastContendedAccount() {
+        // Given
+        HotAccountTracker tracker = new HotAccountTracker(2);
+        tracker.record(1);
+        tracker.record(1);
+        tracker.record(2);
+
+        // When
+        tracker.record(3);
+
+        // Then - account 3 inherits the evicted count as possible overestimation
+        assertThat(tracker.top(10)).containsExactlyInAnyOrder(
+                new HotAccount(1, 2, 0),
+                new HotAccount(3, 2, 1));
+    }
+
+    @Test
+    @DisplayName("Should forget accounts on reset and reject invalid capacity")
+    void shouldResetAndValidateCapacity() {
+        HotAccountTracker tracker = new HotAccountTracker(2);
+        tracker.record(1);
+
+        tracker.reset();
+
+        assertThat(tracker.top(10)).isEmpty();
+        assertThatThrownBy(() -> new HotAccountTracker(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
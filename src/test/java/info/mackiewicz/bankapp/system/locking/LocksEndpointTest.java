@@ -0,0 +1,73 @@
+package info.mackiewicz.bankapp.system.locking;
+
+import info.mackiewicz.bankapp.system.transaction.processing.locking.AccountLockingStrategy;
+import info.mackiewicz.bankapp.system.transaction.processing.locking.LockingConfig;
+import info.mackiewicz.bankapp.system.transaction.processing.locking.metrics.LockMetrics;
+import info.mackiewicz.bankapp.system.transaction.processing.locking.metrics.LocksEndpoint;
+import info.mackiewicz.bankapp.system.transaction.processing.locking.metrics.LocksEndpoint.LocksReport;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("LocksEndpoint Tests")
+class LocksEndpointTest {
+
+    private LockMetrics lockMetrics;
+    private AccountLockingStrategy lockingStrategy;
+    private LocksEndpoint endpoint;
+
+    @BeforeEach
+    void setUp() {
+        lockMetrics = new LockMetrics(new SimpleMeterRegistry());
+        lockingStrategy = new AccountLockingStrategy(new LockingConfig(1, 10, 10, 10, 1000), lockMetrics);
+        endpoint = new LocksEndpoint(lockingStrategy, lockMetrics);
+    }
+
+    @Test
+    @DisplayName("Should report locked accounts, counters and hot accounts")
+    void shouldReportLockingState() {
+        // Given
+        lockingStrategy.lock(1);
+        lockingStrategy.lockAsync(1);
+        lockingStrategy.lock(2);
+        lockingStrategy.unlock(2);
+
+        // When
+        LocksReport report = endpoint.locks(null);
+
+        // Then
+        assertThat(report.lockedAccounts()).isEqualTo(1);
+        assertThat(report.acquired()).isEqualTo(2);
+        assertThat(report.released()).isEqualTo(1);
+        assertThat(report.hotAccounts()).singleElement()
+                .satisfies(hot -> assertThat(hot.accountId()).isEqualTo(1));
+
+        // When
+        lockingStrategy.unlock(1);
+
+        // Then - the queued request gets the lock
+        assertThat(endpoint.locks(null).acquired()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should limit and reset hot accounts")
+    void shouldLimitAndResetHotAccounts() {
+        // Given
+        for (int accountId = 0; accountId < 20; accountId++) {
+            lockMetrics.recordContention(accountId);
+        }
+
+        // Then
+        assertThat(endpoint.locks(null).hotAccounts()).hasSize(10);
+        assertThat(endpoint.locks(3).hotAccounts()).hasSize(3);
+
+        // When
+        endpoint.resetHotAccounts();
+
+        // Then
+        assertThat(endpoint.locks(null).hotAccounts()).isEmpty();
+    }
+}
@@ -0,0 +1,143 @@
+package info.mackiewicz.bankapp.system.locking;
+
+import info.mackiewicz.bankapp.system.transaction.processing.locking.AccountLock;
+import info.mackiewicz.bankapp.system.transaction.processing.locking.AccountLockingStrategy;
+import info.mackiewicz.bankapp.system.transaction.processing.locking.LockingConfig;
+import info.mackiewicz.bankapp.system.transaction.processing.locking.metrics.LockMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Pinning audit of the account locks: waiting for a lock must unmount a virtual thread
+ * instead of blocking its carrier. Pinned parks are detected with the JFR
+ * {@code jdk.VirtualThreadPinned} event.
+ */
+@DisplayName("Virtual Thread Pinning Audit")
+class VirtualThreadPinningTest {
+
+    private static final String THREAD_NAME_PREFIX = "pinning-audit-";
+    private static final int VIRTUAL_THREADS = 50;
+
+    @Test
+    @DisplayName("Should not pin virtual threads waiting for a blocking account lock")
+    void shouldNotPinWaitingForAccountLock() throws Exception {
+        // Given
+        AccountLockingStrategy lockingStrategy = new AccountLockingStrategy(
+                new LockingConfig(100, 1, 5, 1000, 1000), new LockMetrics(new SimpleMeterRegistry()));
+
+        // When
+        List<RecordedEvent> pinned = recordPinnedParks(() -> {
+            lockingStrategy.lock(1);
+            try (ExecutorService executor = virtualThreadExecutor()) {
+                for (int i = 0; i < VIRTUAL_THREADS; i++) {
+                    executor.submit(() -> {
+                        lockingStrategy.lock(1);
+                        lockingStrategy.unlock(1);
+                    });
+                }
+                sleep(50);
+                lockingStrategy.unlock(1);
+            }
+        });
+
+        // Then
+        assertThat(pinned).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should not pin virtual threads contending for the state of an account lock")
+    void shouldNotPinContendingForLockState() throws Exception {
+        // Given
+        AccountLock lock = new AccountLock();
+
+        // When
+        List<RecordedEvent> pinned = recordPinnedParks(() -> {
+            try (ExecutorService executor = virtualThreadExecutor()) {
+                for (int i = 0; i < VIRTUAL_THREADS; i++) {
+                    executor.submit(() -> {
+                        for (int j = 0; j < 1000; j++) {
+                            Object owner = new Object();
+                            lock.acquire(owner).join();
+                            lock.getQueueLength();
+                            lock.release(owner);
+                        }
+                    });
+                }
+            }
+        });
+
+        // Then
+        assertThat(pinned).isEmpty();
+        assertThat(lock.isLocked()).isFalse();
+    }
+
+    @Test
+    @EnabledForJreRange(max = JRE.JAVA_23)
+    @DisplayName("Should detect a virtual thread parked while holding a monitor")
+    void shouldDetectPinnedPark() throws Exception {
+        // Given
+        Object monitor = new Object();
+
+        // When
+        List<RecordedEvent> pinned = recordPinnedParks(() -> {
+            try (ExecutorService executor = virtualThreadExecutor()) {
+                executor.submit(() -> {
+                    synchronized (monitor) {
+                        sleep(20);
+                    }
+                });
+            }
+        });
+
+        // Then
+        assertThat(pinned).isNotEmpty();
+    }
+
+    private List<RecordedEvent> recordPinnedParks(ThrowingRunnable workload) throws Exception {
+        List<RecordedEvent> pinned = new CopyOnWriteArrayList<>();
+        try (RecordingStream recording = new RecordingStream()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.onEvent("jdk.VirtualThreadPinned", event -> {
+                // other tests may run concurrently, only our virtual threads are audited
+                if (event.getThread() != null && event.getThread().getJavaName().startsWith(THREAD_NAME_PREFIX)) {
+                    pinned.add(event);
+                }
+            });
+            recording.startAsync();
+            workload.run();
+            recording.stop();
+        }
+        return pinned;
+    }
+
+    private ExecutorService virtualThreadExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(THREAD_NAME_PREFIX, 0).factory());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+}
@@ -6,9 +6,11 @@ import info.mackiewicz.bankapp.core.transaction.model.Transaction;
 import info.mackiewicz.bankapp.core.transaction.model.TransactionStatus;
 import info.mackiewicz.bankapp.core.transaction.service.TransactionService;
 import info.mackiewicz.bankapp.core.transaction.validation.TransactionValidator;
+import info.mackiewicz.bankapp.system.transaction.processing.batch.TransactionBatchProcessor;
 import info.mackiewicz.bankapp.system.transaction.processing.core.TransactionProcessor;
 import info.mackiewicz.bankapp.system.transaction.processing.error.TransactionErrorHandler;
 import info.mackiewicz.bankapp.system.transaction.processing.helpers.TransactionStatusChecker;
+import info.mackiewicz.bankapp.system.transaction.processing.metrics.TransactionPipelineMetrics;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,8 +18,13 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -44,12 +51,19 @@ class TransactionProcessingServiceTest {
     @Mock
     private TransactionErrorHandler errorHandler;
 
+    @Mock
+    private TransactionBatchProcessor batchProcessor;
+
+    @Mock
+    private TransactionPipelineMetrics metrics;
+
     @InjectMocks
     private TransactionProcessingService processingService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        when(processor.processTransaction(any())).thenReturn(CompletableFuture.completedFuture(null));
     }
 
     @Test
@@ -102,6 +116,50 @@ class TransactionProcessingServiceTest {
         verify(processor, never()).processTransaction(any());
     }
 
+    @Test
+    void processTransactionById_WhenAlreadyInProgress_ShouldSkipWithoutTouchingStatus() {
+        // given
+        int transactionId = 1;
+        Transaction transaction = createTransaction(TransactionStatus.PENDING);
+        when(transactionService.getTransactionById(transactionId)).thenReturn(transaction);
+        when(statusChecker.isInProgress(transaction)).thenReturn(true);
+
+        // when
+        processingService.processTransactionById(transactionId);
+
+        // then
+        verifyNoInteractions(validator, errorHandler);
+        verify(processor, never()).processTransaction(any());
+    }
+
+    @Test
+    void resumeDebitedTransfers_ShouldResumeAllChunks() {
+        // given
+        LocalDateTime createdBefore = LocalDateTime.now();
+        List<Transaction> chunk = new ArrayList<>();
+        for (int id = 1; id <= 100; id++) {
+            Transaction transfer = createTransaction(TransactionStatus.DEBITED);
+            transfer.setId(id);
+            chunk.add(transfer);
+        }
+        Transaction last = createTransaction(TransactionStatus.DEBITED);
+        last.setId(101);
+        when(transactionService.getDebitedTransactionsAfter(0, createdBefore, 100)).thenReturn(chunk);
+        when(transactionService.getDebitedTransactionsAfter(100, createdBefore, 100)).thenReturn(List.of(last));
+        when(transactionService.getDebitedTransactionsAfter(101, createdBefore, 100)).thenReturn(List.of());
+        when(processor.resumeTransfer(any())).thenReturn(CompletableFuture.completedFuture(null));
+        // a refunded transfer completes exceptionally, the others are still resumed
+        when(processor.resumeTransfer(last)).thenReturn(CompletableFuture.failedFuture(new RuntimeException("Refunded")));
+
+        // when
+        int resumed = processingService.resumeDebitedTransfers(createdBefore);
+
+        // then
+        assertThat(resumed).isEqualTo(101);
+        verify(processor, times(101)).resumeTransfer(any());
+        verify(processor, never()).processTransaction(any());
+    }
+
     // W obecnej implementacji błędy wykonania transakcji są obsługiwane w TransactionProcessor
     // a nie w TransactionProcessingService, więc poniższe testy są niepoprawne
 
@@ -112,7 +170,7 @@ class TransactionProcessingServiceTest {
             createTransaction(TransactionStatus.NEW),
             createTransaction(TransactionStatus.NEW)
         );
-        when(transactionService.getAllNewTransactions()).thenReturn(transactions);
+        givenNewTransactions(transactions);
         
         // when
         processingService.processAllNewTransactions();
@@ -132,7 +190,7 @@ class TransactionProcessingServiceTest {
         transaction2.setId(2);
         List<Transaction> transactions = List.of(transaction1, transaction2);
 
-        when(transactionService.getAllNewTransactions()).thenReturn(transactions);
+        givenNewTransactions(transactions);
         doThrow(new TransactionValidationException("Validation error")).when(validator).validate(transaction1);
         
         // when
@@ -155,7 +213,7 @@ class TransactionProcessingServiceTest {
         transaction2.setId(2);
         List<Transaction> transactions = List.of(transaction1, transaction2);
 
-        when(transactionService.getAllNewTransactions()).thenReturn(transactions);
+        givenNewTransactions(transactions);
         doThrow(new TransactionAlreadyProcessedException("Already processed")).when(statusChecker)
             .validateForProcessing(transaction1);
         
@@ -179,7 +237,7 @@ class TransactionProcessingServiceTest {
         transaction2.setId(2);
         List<Transaction> transactions = List.of(transaction1, transaction2);
 
-        when(transactionService.getAllNewTransactions()).thenReturn(transactions);
+        givenNewTransactions(transactions);
         doThrow(new RuntimeException("Processor error")).when(processor).processTransaction(transaction1);
         
         // when
@@ -193,6 +251,37 @@ class TransactionProcessingServiceTest {
         verify(errorHandler).handleUnexpectedError(eq(transaction1), any(Exception.class));
     }
 
+    @Test
+    void processAllNewTransactions_ShouldReturnCompletedFutureForRejectedTransactions() {
+        // given
+        Transaction transaction = createTransaction(TransactionStatus.NEW);
+        CompletableFuture<Void> processing = new CompletableFuture<>();
+        when(processor.processTransaction(transaction)).thenReturn(processing);
+        List<CompletableFuture<Void>> results = new ArrayList<>();
+        when(batchProcessor.processNewTransactions(any())).thenAnswer(invocation -> {
+            Function<Transaction, CompletableFuture<Void>> handler = invocation.getArgument(0);
+            results.add(handler.apply(transaction));
+            doThrow(new TransactionValidationException("Validation error")).when(validator).validate(transaction);
+            results.add(handler.apply(transaction));
+            return 2;
+        });
+
+        // when
+        processingService.processAllNewTransactions();
+
+        // then
+        assertThat(results.get(0)).isSameAs(processing);
+        assertThat(results.get(1)).isCompleted();
+    }
+
+    private void givenNewTransactions(List<Transaction> transactions) {
+        when(batchProcessor.processNewTransactions(any())).thenAnswer(invocation -> {
+            Function<Transaction, CompletableFuture<Void>> handler = invocation.getArgument(0);
+            transactions.forEach(handler::apply);
+            return transactions.size();
+        });
+    }
+
     private Transaction createTransaction(TransactionStatus status) {
         Transaction transaction = new Transaction();
         transaction.setId(1);
@@ -0,0 +1,165 @@
+package info.mackiewicz.bankapp.system.transaction.processing.admission;
+
+import info.mackiewicz.bankapp.core.transaction.exception.TransactionAdmissionRejectedException;
+import info.mackiewicz.bankapp.core.transaction.model.TransactionType;
+import info.mackiewicz.bankapp.system.transaction.processing.admission.TransactionAdmissionControl.Permit;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatNoException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("TransactionAdmissionControl Tests")
+class TransactionAdmissionControlTest {
+
+    private MeterRegistry registry;
+    private TransactionAdmissionControl admissionControl;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        admissionControl = new TransactionAdmissionControl(
+                new AdmissionConfig(3, Map.of(TransactionType.TRANSFER_OWN, 1), 7), registry);
+    }
+
+    @Test
+    @DisplayName("Should reject transactions of a type whose limit is reached")
+    void shouldRejectWhenLimitReached() {
+        // Given
+        admissionControl.tryEnqueue(TransactionType.TRANSFER_OWN).orElseThrow();
+
+        // When/Then
+        assertThatThrownBy(() -> admissionControl.admit(TransactionType.TRANSFER_OWN))
+                .isInstanceOfSatisfying(TransactionAdmissionRejectedException.class,
+                        ex -> assertThat(ex.getRetryAfterSeconds()).isEqualTo(7));
+        assertThatNoException().isThrownBy(() -> admissionControl.admit(TransactionType.TRANSFER_INTERNAL));
+        admissionControl.cancelAdmission();
+        assertThat(registry.get("bankapp.transaction.admission.rejected")
+                .tag("type", "TRANSFER_OWN").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should apply the default limit to types without their own limit")
+    void shouldApplyDefaultLimit() {
+        // When
+        for (int i = 0; i < 3; i++) {
+            assertThat(admissionControl.tryEnqueue(TransactionType.TRANSFER_INTERNAL)).isPresent();
+        }
+
+        // Then
+        assertThat(admissionControl.tryEnqueue(TransactionType.TRANSFER_INTERNAL)).isEmpty();
+        assertThat(admissionControl.getQueueDepth(TransactionType.TRANSFER_INTERNAL)).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should move a permit from the queue to in flight and free it once released")
+    void shouldTrackPermitLifecycle() {
+        // Given
+        Permit permit = admissionControl.tryEnqueue(TransactionType.TRANSFER_OWN).orElseThrow();
+
+        // When
+        permit.start();
+
+        // Then
+        assertThat(admissionControl.getQueueDepth(TransactionType.TRANSFER_OWN)).isZero();
+        assertThat(admissionControl.getInFlight(TransactionType.TRANSFER_OWN)).isEqualTo(1);
+        assertThat(registry.get("bankapp.transaction.in.flight")
+                .tag("type", "TRANSFER_OWN").gauge().value()).isEqualTo(1);
+
+        // When
+        permit.release();
+        permit.release();
+
+        // Then
+        assertThat(admissionControl.getInFlight(TransactionType.TRANSFER_OWN)).isZero();
+        assertThat(admissionControl.getQueueDepth(TransactionType.TRANSFER_OWN)).isZero();
+        assertThatNoException().isThrownBy(() -> admissionControl.admit(TransactionType.TRANSFER_OWN));
+        admissionControl.cancelAdmission();
+    }
+
+    @Test
+    @DisplayName("Should reserve the place of an admitted transaction, so concurrent admissions cannot exceed the limit")
+    void shouldReservePlaceOnAdmission() throws Exception {
+        // Given
+        admissionControl.admit(TransactionType.TRANSFER_OWN);
+
+        // When
+        CompletableFuture<Void> concurrent = CompletableFuture.runAsync(
+                () -> admissionControl.admit(TransactionType.TRANSFER_OWN));
+
+        // Then
+        assertThatThrownBy(concurrent::join).hasCauseInstanceOf(TransactionAdmissionRejectedException.class);
+        assertThat(admissionControl.getQueueDepth(TransactionType.TRANSFER_OWN)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should hand the admitted place over to the registered transaction of the same type")
+    void shouldHandOverAdmittedPlace() {
+        // Given
+        admissionControl.admit(TransactionType.TRANSFER_OWN);
+
+        // When
+        Optional<Permit> otherType = admissionControl.takeAdmission(TransactionType.TRANSFER_INTERNAL);
+        Optional<Permit> permit = admissionControl.takeAdmission(TransactionType.TRANSFER_OWN);
+        admissionControl.cancelAdmission();
+
+        // Then
+        assertThat(otherType).isEmpty();
+        assertThat(permit).isPresent();
+        assertThat(admissionControl.takeAdmission(TransactionType.TRANSFER_OWN)).isEmpty();
+        assertThat(admissionControl.getQueueDepth(TransactionType.TRANSFER_OWN)).isEqualTo(1);
+
+        // When
+        permit.get().release();
+
+        // Then
+        assertThat(admissionControl.getQueueDepth(TransactionType.TRANSFER_OWN)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should free an admitted place that was not taken over")
+    void shouldFreeCancelledAdmission() {
+        // Given
+        admissionControl.admit(TransactionType.TRANSFER_OWN);
+
+        // When
+        admissionControl.cancelAdmission();
+
+        // Then
+        assertThat(admissionControl.getQueueDepth(TransactionType.TRANSFER_OWN)).isZero();
+        assertThat(admissionControl.takeAdmission(TransactionType.TRANSFER_OWN)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should free the queue place of a permit released before processing started")
+    void shouldReleaseQueuedPermit() {
+        // Given
+        Permit permit = admissionControl.tryEnqueue(TransactionType.TRANSFER_OWN).orElseThrow();
+
+        // When
+        permit.release();
+        permit.start();
+
+        // Then
+        assertThat(admissionControl.getQueueDepth(TransactionType.TRANSFER_OWN)).isZero();
+        assertThat(admissionControl.getInFlight(TransactionType.TRANSFER_OWN)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should not count transactions of unknown type")
+    void shouldNotCountUnknownType() {
+        // When
+        Optional<Permit> permit = admissionControl.tryEnqueue(null);
+
+        // Then
+        assertThat(permit).contains(Permit.UNCOUNTED);
+    }
+}
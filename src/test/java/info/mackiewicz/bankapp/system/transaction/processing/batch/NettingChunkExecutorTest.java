@@ -0,0 +1,184 @@
+package info.mackiewicz.bankapp.system.transaction.processing.batch;
+
+import info.mackiewicz.bankapp.core.account.model.Account;
+import info.mackiewicz.bankapp.core.account.repository.AccountRepository;
+import info.mackiewicz.bankapp.core.transaction.exception.InsufficientFundsException;
+import info.mackiewicz.bankapp.core.transaction.exception.TransactionValidationException;
+import info.mackiewicz.bankapp.core.transaction.model.Transaction;
+import info.mackiewicz.bankapp.core.transaction.model.TransactionStatus;
+import info.mackiewicz.bankapp.core.transaction.model.TransactionType;
+import info.mackiewicz.bankapp.core.transaction.repository.TransactionRepository;
+import info.mackiewicz.bankapp.core.transaction.validation.TransactionValidator;
+import info.mackiewicz.bankapp.shared.util.LoggingService;
+import info.mackiewicz.bankapp.system.banking.ledger.BankLedger;
+import info.mackiewicz.bankapp.system.transaction.processing.core.execution.ExecutionConfig;
+import info.mackiewicz.bankapp.system.transaction.processing.error.TransactionErrorNotifier;
+import info.mackiewicz.bankapp.system.transaction.processing.helpers.TransactionStatusChecker;
+import info.mackiewicz.bankapp.system.transaction.processing.locking.AccountLockManager;
+import info.mackiewicz.bankapp.system.transaction.processing.locking.LockHandle;
+import info.mackiewicz.bankapp.testutils.TestAccountBuilder;
+import info.mackiewicz.bankapp.testutils.TestUserBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DisplayName("NettingChunkExecutor Tests")
+class NettingChunkExecutorTest {
+
+    private AccountRepository accountRepository;
+    private TransactionRepository transactionRepository;
+    private TransactionValidator validator;
+    private AccountLockManager accountLockManager;
+    private LockHandle lockHandle;
+    private TransactionErrorNotifier errorNotifier;
+    private BankLedger bankLedger;
+
+    private Account first;
+    private Account second;
+    private Account bank;
+
+    @BeforeEach
+    void setUp() {
+        accountRepository = mock(AccountRepository.class);
+        transactionRepository = mock(TransactionRepository.class);
+        validator = mock(TransactionValidator.class);
+        accountLockManager = mock(AccountLockManager.class);
+        lockHandle = mock(LockHandle.class);
+        errorNotifier = mock(TransactionErrorNotifier.class);
+        bankLedger = mock(BankLedger.class);
+        when(bankLedger.getDepositAccountId(any())).thenReturn(BankLedger.BANK_ACCOUNT_ID);
+
+        first = TestAccountBuilder.createTestAccount(1, new BigDecimal("100.00"), TestUserBuilder.createTestUser());
+        second = TestAccountBuilder.createTestAccount(2, new BigDecimal("50.00"), TestUserBuilder.createTestUser());
+        bank = TestAccountBuilder.createBankAccount();
+        when(accountRepository.findAllById(any())).thenReturn(List.of(first, second, bank));
+        when(accountLockManager.lockAll(any())).thenReturn(lockHandle);
+        when(transactionRepository.updateTransactionStatuses(anyCollection(), eq(TransactionStatus.NEW), any()))
+                .thenAnswer(invocation -> invocation.<Collection<?>>getArgument(0).size());
+    }
+
+    @Test
+    @DisplayName("Should apply transactions in order against running balances and write net results")
+    void shouldNetTransactions() {
+        // Given
+        NettingChunkExecutor executor = createExecutor(ExecutionConfig.Mode.LOCKING);
+        Transaction transfer = transaction(1, TransactionType.TRANSFER_INTERNAL, first, second, "80.00");
+        Transaction tooLarge = transaction(2, TransactionType.WITHDRAWAL, first, null, "30.00");
+        Transaction refund = transaction(3, TransactionType.TRANSFER_INTERNAL, second, first, "40.00");
+        Transaction withdrawal = transaction(4, TransactionType.WITHDRAWAL, first, null, "30.00");
+        Transaction fee = transaction(5, TransactionType.FEE, first, null, "1.00");
+
+        // When
+        List<Transaction> remaining = executor.execute(List.of(transfer, tooLarge, refund, withdrawal, fee));
+
+        // Then
+        assertThat(remaining).isEmpty();
+        assertThat(first.getBalance()).isEqualByComparingTo("29.00");
+        assertThat(second.getBalance()).isEqualByComparingTo("90.00");
+        assertThat(bank.getBalance()).isEqualByComparingTo("1000001.00");
+        verify(transactionRepository).updateTransactionStatuses(
+                List.of(1, 3, 4, 5), TransactionStatus.NEW, TransactionStatus.DONE);
+        verify(transactionRepository).updateTransactionStatuses(
+                List.of(2), TransactionStatus.NEW, TransactionStatus.INSUFFICIENT_FUNDS);
+        verify(accountRepository).subtractFromBalanceOnHold(1, new BigDecimal("111.00"));
+        verify(accountRepository).subtractFromBalanceOnHold(2, new BigDecimal("40.00"));
+        verify(accountRepository).subtractFromBalanceOnHold(1, new BigDecimal("30.00"));
+        assertThat(tooLarge.getStatus()).isEqualTo(TransactionStatus.INSUFFICIENT_FUNDS);
+        assertThat(fee.getStatus()).isEqualTo(TransactionStatus.DONE);
+        verify(errorNotifier).notifyError(eq(tooLarge), any(InsufficientFundsException.class));
+        verify(accountLockManager).lockAll(argThat(ids -> ids.containsAll(List.of(1, 2, -1)) && ids.size() == 3));
+        verify(lockHandle).close();
+    }
+
+    @Test
+    @DisplayName("Should leave transactions failing validation for individual processing")
+    void shouldLeaveInvalidTransactions() {
+        // Given
+        NettingChunkExecutor executor = createExecutor(ExecutionConfig.Mode.LOCKING);
+        Transaction invalid = transaction(1, TransactionType.DEPOSIT, null, second, "10.00");
+        Transaction deposit = transaction(2, TransactionType.DEPOSIT, null, second, "10.00");
+        doThrow(new TransactionValidationException("Invalid")).when(validator).validate(invalid);
+
+        // When
+        List<Transaction> remaining = executor.execute(List.of(invalid, deposit));
+
+        // Then
+        assertThat(remaining).containsExactly(invalid);
+        assertThat(second.getBalance()).isEqualByComparingTo("60.00");
+        assertThat(invalid.getStatus()).isEqualTo(TransactionStatus.NEW);
+    }
+
+    @Test
+    @DisplayName("Should return the whole chunk when the net update conflicts with a concurrent change")
+    void shouldFallBackOnConflict() {
+        // Given
+        NettingChunkExecutor executor = createExecutor(ExecutionConfig.Mode.OPTIMISTIC);
+        Transaction deposit = transaction(1, TransactionType.DEPOSIT, null, first, "10.00");
+        Transaction withdrawal = transaction(2, TransactionType.WITHDRAWAL, second, null, "10.00");
+        when(transactionRepository.updateTransactionStatuses(anyCollection(), any(), any()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Account.class, 1));
+
+        // When
+        List<Transaction> remaining = executor.execute(List.of(deposit, withdrawal));
+
+        // Then
+        assertThat(remaining).containsExactly(deposit, withdrawal);
+        assertThat(deposit.getStatus()).isEqualTo(TransactionStatus.NEW);
+        verifyNoInteractions(accountLockManager, errorNotifier);
+    }
+
+    @Test
+    @DisplayName("Should return the whole chunk when a transaction was processed concurrently")
+    void shouldFallBackWhenStatusChanged() {
+        // Given
+        NettingChunkExecutor executor = createExecutor(ExecutionConfig.Mode.LOCKING);
+        Transaction deposit = transaction(1, TransactionType.DEPOSIT, null, first, "10.00");
+        Transaction other = transaction(2, TransactionType.DEPOSIT, null, first, "10.00");
+        when(transactionRepository.updateTransactionStatuses(anyCollection(), any(), any())).thenReturn(1);
+
+        // When
+        List<Transaction> remaining = executor.execute(List.of(deposit, other));
+
+        // Then
+        assertThat(remaining).containsExactly(deposit, other);
+        verify(lockHandle).close();
+    }
+
+    private NettingChunkExecutor createExecutor(ExecutionConfig.Mode mode) {
+        return new NettingChunkExecutor(
+                accountRepository,
+                transactionRepository,
+                validator,
+                mock(TransactionStatusChecker.class),
+                accountLockManager,
+                new ExecutionConfig(mode, 0, 0, 0, 0),
+                new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                errorNotifier,
+                mock(LoggingService.class),
+                bankLedger);
+    }
+
+    private Transaction transaction(int id, TransactionType type, Account source, Account destination, String amount) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setType(type);
+        transaction.setStatus(TransactionStatus.NEW);
+        transaction.setSourceAccount(source);
+        transaction.setDestinationAccount(destination);
+        transaction.setAmount(new BigDecimal(amount));
+        return transaction;
+    }
+}
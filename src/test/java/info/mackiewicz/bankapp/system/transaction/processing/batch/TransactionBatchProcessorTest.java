@@ -0,0 +1,208 @@
+package info.mackiewicz.bankapp.system.transaction.processing.batch;
+
+import info.mackiewicz.bankapp.core.transaction.model.Transaction;
+import info.mackiewicz.bankapp.core.transaction.service.TransactionService;
+import info.mackiewicz.bankapp.system.transaction.processing.batch.model.BatchCheckpoint;
+import info.mackiewicz.bankapp.system.transaction.processing.batch.repository.BatchCheckpointRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static info.mackiewicz.bankapp.system.transaction.processing.batch.TransactionBatchProcessor.NEW_TRANSACTIONS_BATCH;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@DisplayName("TransactionBatchProcessor Tests")
+class TransactionBatchProcessorTest {
+
+    private TransactionService transactionService;
+    private BatchCheckpointRepository checkpointRepository;
+    private NettingChunkExecutor nettingExecutor;
+
+    @BeforeEach
+    void setUp() {
+        transactionService = mock(TransactionService.class);
+        checkpointRepository = mock(BatchCheckpointRepository.class);
+        nettingExecutor = mock(NettingChunkExecutor.class);
+        when(checkpointRepository.findById(NEW_TRANSACTIONS_BATCH)).thenReturn(Optional.empty());
+        when(transactionService.getNewTransactionsAfter(anyInt(), anyInt())).thenReturn(List.of());
+    }
+
+    @Test
+    @DisplayName("Should read chunks after the last ID of the previous chunk and remove the checkpoint when done")
+    void shouldReadChunksWithKeysetPagination() {
+        // Given
+        TransactionBatchProcessor batchProcessor = createBatchProcessor(2, 10);
+        givenChunk(0, 2, transactions(1, 2));
+        givenChunk(2, 2, transactions(5));
+        List<Integer> handled = new ArrayList<>();
+
+        // When
+        int processed = batchProcessor.processNewTransactions(transaction -> {
+            handled.add(transaction.getId());
+            return CompletableFuture.completedFuture(null);
+        });
+
+        // Then
+        assertThat(processed).isEqualTo(3);
+        assertThat(handled).containsExactly(1, 2, 5);
+        verify(transactionService).getNewTransactionsAfter(5, 2);
+        verify(checkpointRepository).deleteById(NEW_TRANSACTIONS_BATCH);
+        verifyNoInteractions(nettingExecutor);
+    }
+
+    @Test
+    @DisplayName("Should resume after the saved checkpoint")
+    void shouldResumeFromCheckpoint() {
+        // Given
+        TransactionBatchProcessor batchProcessor = createBatchProcessor(2, 10);
+        when(checkpointRepository.findById(NEW_TRANSACTIONS_BATCH))
+                .thenReturn(Optional.of(new BatchCheckpoint(NEW_TRANSACTIONS_BATCH, 7)));
+        givenChunk(7, 2, transactions(8));
+
+        // When
+        int processed = batchProcessor.processNewTransactions(transaction -> CompletableFuture.completedFuture(null));
+
+        // Then
+        assertThat(processed).isEqualTo(1);
+        verify(transactionService, never()).getNewTransactionsAfter(eq(0), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should checkpoint only chunks preceded by fully processed chunks")
+    void shouldCheckpointContiguousChunks() {
+        // Given
+        TransactionBatchProcessor batchProcessor = createBatchProcessor(1, 10);
+        givenChunk(0, 1, transactions(1));
+        givenChunk(1, 1, transactions(2));
+        givenChunk(2, 1, transactions(3));
+        CompletableFuture<Void> first = new CompletableFuture<>();
+
+        // When
+        batchProcessor.processNewTransactions(transaction -> switch (transaction.getId()) {
+            case 1 -> first;
+            case 3 -> {
+                first.complete(null);
+                yield CompletableFuture.completedFuture(null);
+            }
+            default -> CompletableFuture.completedFuture(null);
+        });
+
+        // Then
+        ArgumentCaptor<BatchCheckpoint> checkpoints = ArgumentCaptor.forClass(BatchCheckpoint.class);
+        verify(checkpointRepository).save(checkpoints.capture());
+        assertThat(checkpoints.getValue().getLastTransactionId()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should not dispatch more transactions than allowed in flight")
+    void shouldLimitTransactionsInFlight() {
+        // Given
+        TransactionBatchProcessor batchProcessor = createBatchProcessor(10, 2);
+        givenChunk(0, 10, transactions(1, 2, 3));
+        Map<Integer, CompletableFuture<Void>> dispatched = new ConcurrentHashMap<>();
+        Function<Transaction, CompletableFuture<Void>> handler = transaction -> {
+            CompletableFuture<Void> processing = new CompletableFuture<>();
+            dispatched.put(transaction.getId(), processing);
+            return processing;
+        };
+
+        // When
+        CompletableFuture<Integer> batch = CompletableFuture.supplyAsync(() -> batchProcessor.processNewTransactions(handler));
+
+        // Then
+        await().atMost(5, TimeUnit.SECONDS).until(() -> dispatched.size() == 2);
+        assertThat(dispatched).doesNotContainKey(3);
+
+        // When
+        dispatched.get(1).complete(null);
+
+        // Then
+        await().atMost(5, TimeUnit.SECONDS).until(() -> dispatched.containsKey(3));
+        assertThat(batch).isNotDone();
+
+        // When
+        dispatched.get(2).completeExceptionally(new RuntimeException("Already handled"));
+        dispatched.get(3).complete(null);
+
+        // Then
+        assertThat(batch.join()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should keep the checkpoint when interrupted")
+    void shouldKeepCheckpointWhenInterrupted() {
+        // Given
+        TransactionBatchProcessor batchProcessor = createBatchProcessor(10, 1);
+        givenChunk(0, 10, transactions(1, 2));
+
+        // When
+        int processed = batchProcessor.processNewTransactions(transaction -> {
+            Thread.currentThread().interrupt();
+            return new CompletableFuture<>();
+        });
+
+        // Then
+        assertThat(processed).isZero();
+        assertThat(Thread.interrupted()).isTrue();
+        verify(checkpointRepository, never()).deleteById(any());
+    }
+
+    @Test
+    @DisplayName("Should dispatch only the transactions left over by netting")
+    void shouldDispatchTransactionsLeftOverByNetting() {
+        // Given
+        TransactionBatchProcessor batchProcessor = createBatchProcessor(10, 10, true);
+        List<Transaction> chunk = transactions(1, 2, 3);
+        givenChunk(0, 10, chunk);
+        when(nettingExecutor.execute(chunk)).thenReturn(List.of(chunk.get(1)));
+        List<Integer> handled = new ArrayList<>();
+
+        // When
+        int processed = batchProcessor.processNewTransactions(transaction -> {
+            handled.add(transaction.getId());
+            return CompletableFuture.completedFuture(null);
+        });
+
+        // Then
+        assertThat(processed).isEqualTo(3);
+        assertThat(handled).containsExactly(2);
+        verify(transactionService).getNewTransactionsAfter(3, 10);
+    }
+
+    private TransactionBatchProcessor createBatchProcessor(int chunkSize, int maxInFlight) {
+        return createBatchProcessor(chunkSize, maxInFlight, false);
+    }
+
+    private TransactionBatchProcessor createBatchProcessor(int chunkSize, int maxInFlight, boolean netting) {
+        return new TransactionBatchProcessor(transactionService, checkpointRepository,
+                new BatchConfig(chunkSize, maxInFlight, netting), nettingExecutor);
+    }
+
+    private void givenChunk(int afterId, int limit, List<Transaction> transactions) {
+        when(transactionService.getNewTransactionsAfter(afterId, limit)).thenReturn(transactions);
+    }
+
+    private List<Transaction> transactions(int... ids) {
+        List<Transaction> transactions = new ArrayList<>();
+        for (int id : ids) {
+            Transaction transaction = new Transaction();
+            transaction.setId(id);
+            transactions.add(transaction);
+        }
+        return transactions;
+    }
+}
@@ -10,21 +10,45 @@ import info.mackiewicz.bankapp.core.transaction.model.Transaction;
 import info.mackiewicz.bankapp.core.transaction.model.TransactionStatus;
 import info.mackiewicz.bankapp.core.transaction.model.TransactionType;
 import info.mackiewicz.bankapp.shared.util.LoggingService;
+import info.mackiewicz.bankapp.system.transaction.processing.core.execution.ExecutionConfig;
+import info.mackiewicz.bankapp.system.transaction.processing.core.execution.OptimisticExecutionRunner;
 import info.mackiewicz.bankapp.system.transaction.processing.core.execution.TransactionExecutor;
 import info.mackiewicz.bankapp.system.transaction.processing.core.execution.TransactionExecutorRegistry;
+import info.mackiewicz.bankapp.system.transaction.processing.core.execution.TransactionUnitOfWork;
+import info.mackiewicz.bankapp.system.transaction.processing.core.execution.TransferExecutor;
+import info.mackiewicz.bankapp.system.transaction.processing.core.sharding.AccountShardExecutor;
 import info.mackiewicz.bankapp.system.transaction.processing.error.TransactionErrorHandler;
 import info.mackiewicz.bankapp.system.transaction.processing.helpers.TransactionStatusManager;
 import info.mackiewicz.bankapp.system.transaction.processing.locking.AccountLockManager;
+import info.mackiewicz.bankapp.system.transaction.processing.locking.LockHandle;
+import info.mackiewicz.bankapp.system.transaction.processing.metrics.PipelineMetricsConfig;
+import info.mackiewicz.bankapp.system.transaction.processing.metrics.TransactionPipelineMetrics;
 import lombok.extern.slf4j.Slf4j;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InOrder;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @Slf4j
@@ -51,7 +75,19 @@ class TransactionProcessorTest {
     @Mock
     private LoggingService loggingService;
 
-    @InjectMocks
+    @Mock
+    private LockHandle lockHandle;
+
+    @Mock
+    private OptimisticExecutionRunner optimisticRunner;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private AccountShardExecutor accountShards;
+
+    private SimpleMeterRegistry meterRegistry;
+
     private TransactionProcessor processor;
 
     private Transaction transaction;
@@ -61,6 +97,12 @@ class TransactionProcessorTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        // two shards: odd account IDs belong to shard 1, even ones to shard 0
+        accountShards = new AccountShardExecutor(
+                new ExecutionConfig(ExecutionConfig.Mode.SHARDED, 0, 0, 0, 2), new SimpleMeterRegistry());
+        // run continuations inline, so processing has finished once processTransaction returns
+        processor = createProcessor(ExecutionConfig.Mode.LOCKING);
 
         sourceAccount = mock(Account.class);
         destinationAccount = mock(Account.class);
@@ -74,26 +116,64 @@ class TransactionProcessorTest {
 
         when(commandRegistry.getCommand(any(TransactionType.class)))
                 .thenReturn(executionCommand);
+        when(accountLockManager.lockAccountsAsync(any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(lockHandle));
+        when(statusManager.claimForProcessing(transaction)).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        accountShards.shutdown();
+    }
+
+    private TransactionProcessor createProcessor(ExecutionConfig.Mode mode) {
+        return createProcessor(mode, Runnable::run, Runnable::run);
+    }
+
+    private TransactionProcessor createProcessor(ExecutionConfig.Mode mode, Executor taskExecutor,
+                                                 Executor lockHolderExecutor) {
+        return new TransactionProcessor(accountService, accountLockManager, errorHandler,
+                statusManager, loggingService, commandRegistry, taskExecutor, lockHolderExecutor,
+                new ExecutionConfig(mode, 0, 0, 0, 0), optimisticRunner, accountShards,
+                new TransactionUnitOfWork(transactionManager),
+                new TransactionPipelineMetrics(meterRegistry, new PipelineMetricsConfig(true)));
     }
 
     @Test
     void processTransaction_WhenSuccessful_ShouldExecuteAllSteps() {
         // when
-        processor.processTransaction(transaction);
+        processor.processTransaction(transaction).join();
 
         // then
         verify(loggingService).logTransactionAttempt(transaction);
-        verify(accountLockManager).lockAccounts(sourceAccount, destinationAccount);
+        verify(accountLockManager).lockAccountsAsync(sourceAccount, destinationAccount);
         verify(loggingService).logLockingAccounts(transaction);
-        verify(statusManager).setTransactionStatus(transaction, TransactionStatus.PENDING);
+        verify(statusManager).claimForProcessing(transaction);
         verify(commandRegistry).getCommand(transaction.getType());
         verify(executionCommand).execute(transaction, accountService);
         verify(statusManager).setTransactionStatus(transaction, TransactionStatus.DONE);
+        verify(transactionManager).commit(any());
         verify(loggingService).logSuccessfulTransaction(transaction);
-        verify(accountLockManager).unlockAccounts(sourceAccount, destinationAccount);
+        verify(lockHandle).release();
         verify(loggingService).logUnlockingAccounts(transaction);
     }
 
+    @Test
+    void processTransaction_WhenSuccessful_ShouldTimeEveryStage() {
+        // when
+        processor.processTransaction(transaction).join();
+
+        // then
+        for (String stage : new String[]{"lock_acquisition", "status_pending", "execution", "status_done", "unlock"}) {
+            assertThat(meterRegistry.get("bankapp.transaction.stage")
+                    .tag("stage", stage)
+                    .tag("type", TransactionType.TRANSFER_INTERNAL.name())
+                    .timer().count())
+                    .as(stage)
+                    .isEqualTo(1);
+        }
+    }
+
     @Test
     void processTransaction_WhenInsufficientFunds_ShouldHandleError() {
         // given
@@ -102,20 +182,21 @@ class TransactionProcessorTest {
 
         // when/then
         try {
-            processor.processTransaction(transaction);
+            processor.processTransaction(transaction).join();
             fail("Expected InsufficientFundsException to be thrown");
-        } catch (InsufficientFundsException e) {
+        } catch (CompletionException e) {
+            assertThat(e).hasCauseInstanceOf(InsufficientFundsException.class);
             // Expected exception
             verify(loggingService).logTransactionAttempt(transaction);
-            verify(accountLockManager).lockAccounts(sourceAccount, destinationAccount);
+            verify(accountLockManager).lockAccountsAsync(sourceAccount, destinationAccount);
             verify(loggingService).logLockingAccounts(transaction);
-            verify(statusManager).setTransactionStatus(transaction, TransactionStatus.PENDING);
+            verify(statusManager).claimForProcessing(transaction);
             verify(commandRegistry).getCommand(transaction.getType());
             verify(executionCommand).execute(transaction, accountService);
             verify(errorHandler).handleInsufficientFundsError(transaction, exception);
             verify(statusManager, never()).setTransactionStatus(transaction, TransactionStatus.DONE);
             verify(loggingService, never()).logSuccessfulTransaction(transaction);
-            verify(accountLockManager).unlockAccounts(sourceAccount, destinationAccount);
+            verify(lockHandle).release();
             verify(loggingService).logUnlockingAccounts(transaction);
         }
     }
@@ -128,19 +209,20 @@ class TransactionProcessorTest {
 
         // when/then
         try {
-            processor.processTransaction(transaction);
+            processor.processTransaction(transaction).join();
             fail("Expected TransactionExecutionException to be thrown");
-        } catch (TransactionExecutionException e) {
+        } catch (CompletionException e) {
+            assertThat(e).hasCauseInstanceOf(TransactionExecutionException.class);
             // Oczekiwane rzucenie TransactionExecutionException
             verify(loggingService).logTransactionAttempt(transaction);
-            verify(accountLockManager).lockAccounts(sourceAccount, destinationAccount);
+            verify(accountLockManager).lockAccountsAsync(sourceAccount, destinationAccount);
             verify(loggingService).logLockingAccounts(transaction);
-            verify(statusManager).setTransactionStatus(transaction, TransactionStatus.PENDING);
+            verify(statusManager).claimForProcessing(transaction);
             verify(commandRegistry).getCommand(transaction.getType());
             verify(executionCommand).execute(transaction, accountService);
             verify(errorHandler).handleUnexpectedError(transaction, exception);
             verify(statusManager, never()).setTransactionStatus(transaction, TransactionStatus.DONE);
-            verify(accountLockManager).unlockAccounts(sourceAccount, destinationAccount);
+            verify(lockHandle).release();
             verify(loggingService).logUnlockingAccounts(transaction);
             verify(loggingService, never()).logSuccessfulTransaction(transaction);
         }
@@ -151,27 +233,48 @@ class TransactionProcessorTest {
         // given
         RuntimeException exception = new RuntimeException("Status update failed");
         doThrow(exception).when(statusManager).setTransactionStatus(transaction, TransactionStatus.DONE);
+        transaction.setStatus(TransactionStatus.PENDING);
 
         // when/then
         try {
-            processor.processTransaction(transaction);
+            processor.processTransaction(transaction).join();
             fail("Expected TransactionExecutionException to be thrown");
-        } catch (TransactionExecutionException e) {
+        } catch (CompletionException e) {
+            assertThat(e).hasCauseInstanceOf(TransactionExecutionException.class);
             // verify correct behavior
             verify(loggingService).logTransactionAttempt(transaction);
-            verify(accountLockManager).lockAccounts(sourceAccount, destinationAccount);
+            verify(accountLockManager).lockAccountsAsync(sourceAccount, destinationAccount);
             verify(loggingService).logLockingAccounts(transaction);
-            verify(statusManager).setTransactionStatus(transaction, TransactionStatus.PENDING);
+            verify(statusManager).claimForProcessing(transaction);
             verify(commandRegistry).getCommand(transaction.getType());
             verify(executionCommand).execute(transaction, accountService);
             verify(statusManager).setTransactionStatus(transaction, TransactionStatus.DONE); // verify called but throws exception
-            verify(errorHandler).handleTransactionStatusChangeError(transaction, exception);
+            // the balance changes are rolled back together with the status change
+            verify(transactionManager).rollback(any());
+            verify(transactionManager, never()).commit(any());
+            verify(errorHandler).handleUnexpectedError(transaction, exception);
+            verify(errorHandler, never()).handleTransactionStatusChangeError(any(), any());
+            assertThat(transaction.getStatus()).isEqualTo(TransactionStatus.PENDING);
             verify(loggingService, never()).logSuccessfulTransaction(transaction);
-            verify(accountLockManager).unlockAccounts(sourceAccount, destinationAccount);
+            verify(lockHandle).release();
             verify(loggingService).logUnlockingAccounts(transaction);
         }
     }
 
+    @Test
+    void processTransaction_WhenClaimedElsewhere_ShouldSkipTransaction() {
+        // given
+        when(statusManager.claimForProcessing(transaction)).thenReturn(false);
+
+        // when
+        processor.processTransaction(transaction).join();
+
+        // then
+        verify(statusManager).claimForProcessing(transaction);
+        verify(statusManager, never()).setTransactionStatus(any(), any());
+        verifyNoInteractions(accountLockManager, commandRegistry, errorHandler);
+    }
+
     @Test
     void processTransaction_WhenLockAcquisitionFails_ShouldHandleError() {
         // given
@@ -183,22 +286,78 @@ class TransactionProcessorTest {
                 true // wasInterrupted
         );
 
-        doThrow(exception).when(accountLockManager).lockAccounts(any(), any());
+        when(accountLockManager.lockAccountsAsync(any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(exception));
 
         // when
-        processor.processTransaction(transaction);
+        processor.processTransaction(transaction).join();
 
         // then
         verify(loggingService).logTransactionAttempt(transaction);
-        verify(accountLockManager).lockAccounts(sourceAccount, destinationAccount);
+        verify(accountLockManager).lockAccountsAsync(sourceAccount, destinationAccount);
         verify(errorHandler).handleLockError(transaction, exception);
         verify(statusManager, never()).setTransactionStatus(any(), any());
         verify(commandRegistry, never()).getCommand(any());
         verify(executionCommand, never()).execute(transaction, accountService);
         verify(loggingService, never()).logLockingAccounts(transaction);
         verify(loggingService, never()).logSuccessfulTransaction(transaction);
-        verify(accountLockManager).unlockAccounts(sourceAccount, destinationAccount);
-        verify(loggingService).logUnlockingAccounts(transaction);
+        verify(lockHandle, never()).release();
+        verify(loggingService, never()).logUnlockingAccounts(transaction);
+    }
+
+    @Test
+    void processTransaction_WhenLocksNotYetGranted_ShouldContinueOnceGranted() {
+        // given
+        CompletableFuture<LockHandle> locks = new CompletableFuture<>();
+        when(accountLockManager.lockAccountsAsync(any(), any())).thenReturn(locks);
+
+        // when
+        CompletableFuture<Void> processing = processor.processTransaction(transaction);
+
+        // then
+        assertThat(processing).isNotDone();
+        verify(executionCommand, never()).execute(any(), any());
+
+        locks.complete(lockHandle);
+
+        assertThat(processing).isCompleted();
+        verify(executionCommand).execute(transaction, accountService);
+        verify(lockHandle).release();
+    }
+
+    @Test
+    void processTransaction_WhenTaskExecutorIsFlooded_ShouldRunLockHolderWithoutQueueing() throws Exception {
+        // given
+        ThreadPoolTaskExecutor taskExecutor = threadPool("AsyncThread-", 1);
+        ThreadPoolTaskExecutor lockHolderExecutor = threadPool("LockHolder-", 1);
+        CountDownLatch admissionsBlocked = new CountDownLatch(1);
+        try {
+            // the only pool thread is busy and admitted transactions are queued behind it
+            taskExecutor.execute(() -> awaitQuietly(admissionsBlocked));
+            for (int i = 0; i < 100; i++) {
+                taskExecutor.execute(() -> {
+                });
+            }
+            processor = createProcessor(ExecutionConfig.Mode.LOCKING, taskExecutor, lockHolderExecutor);
+            CompletableFuture<LockHandle> locks = new CompletableFuture<>();
+            when(accountLockManager.lockAccountsAsync(any(), any())).thenReturn(locks);
+            Map<String, String> threads = recordThreads();
+            CompletableFuture<Void> processing = processor.processTransaction(transaction);
+
+            // when
+            // granted by the previous holder releasing the lock on its own thread
+            CompletableFuture.runAsync(() -> locks.complete(lockHandle));
+
+            // then
+            processing.get(5, TimeUnit.SECONDS);
+            assertThat(threads.get("execute")).startsWith("LockHolder-");
+            verify(lockHandle).release();
+            assertThat(taskExecutor.getQueueSize()).isEqualTo(100);
+        } finally {
+            admissionsBlocked.countDown();
+            taskExecutor.shutdown();
+            lockHolderExecutor.shutdown();
+        }
     }
 
     @Test
@@ -207,23 +366,24 @@ class TransactionProcessorTest {
         AccountUnlockException exception = new AccountUnlockException(
                 "Failed to unlock account",
                 sourceAccount.getId());
-        doThrow(exception).when(accountLockManager).unlockAccounts(any(), any());
+        doThrow(exception).when(lockHandle).release();
 
         // when/then
         try {
-            processor.processTransaction(transaction);
+            processor.processTransaction(transaction).join();
             fail("Expected AccountUnlockException to be thrown");
-        } catch (AccountUnlockException e) {
+        } catch (CompletionException e) {
+            assertThat(e).hasCauseInstanceOf(AccountUnlockException.class);
             // Wyjątek został ponownie rzucony, co jest oczekiwane
             verify(loggingService).logTransactionAttempt(transaction);
-            verify(accountLockManager).lockAccounts(sourceAccount, destinationAccount);
+            verify(accountLockManager).lockAccountsAsync(sourceAccount, destinationAccount);
             verify(loggingService).logLockingAccounts(transaction);
-            verify(statusManager).setTransactionStatus(transaction, TransactionStatus.PENDING);
+            verify(statusManager).claimForProcessing(transaction);
             verify(commandRegistry).getCommand(transaction.getType());
             verify(executionCommand).execute(transaction, accountService);
             verify(statusManager).setTransactionStatus(transaction, TransactionStatus.DONE);
             verify(loggingService).logSuccessfulTransaction(transaction);
-            verify(accountLockManager).unlockAccounts(sourceAccount, destinationAccount);
+            verify(lockHandle).release();
             verify(errorHandler).handleUnlockError(transaction, exception);
         }
     }
@@ -233,30 +393,247 @@ class TransactionProcessorTest {
         // Create ordered verifier for strict order checking
         InOrder orderVerifier = inOrder(
                 loggingService,
+                statusManager,
                 accountLockManager,
                 loggingService,
-                statusManager,
                 commandRegistry,
                 executionCommand,
                 statusManager,
                 loggingService,
-                accountLockManager,
+                lockHandle,
                 loggingService);
 
         // when
-        processor.processTransaction(transaction);
+        processor.processTransaction(transaction).join();
 
         // then
         orderVerifier.verify(loggingService).logTransactionAttempt(transaction);
-        orderVerifier.verify(accountLockManager).lockAccounts(sourceAccount, destinationAccount);
+        orderVerifier.verify(statusManager).claimForProcessing(transaction);
+        orderVerifier.verify(accountLockManager).lockAccountsAsync(sourceAccount, destinationAccount);
         orderVerifier.verify(loggingService).logLockingAccounts(transaction);
-        orderVerifier.verify(statusManager).setTransactionStatus(transaction, TransactionStatus.PENDING);
         orderVerifier.verify(commandRegistry).getCommand(transaction.getType());
         orderVerifier.verify(executionCommand).execute(transaction, accountService);
         orderVerifier.verify(statusManager).setTransactionStatus(transaction, TransactionStatus.DONE);
         orderVerifier.verify(loggingService).logSuccessfulTransaction(transaction);
-        orderVerifier.verify(accountLockManager).unlockAccounts(sourceAccount, destinationAccount);
+        orderVerifier.verify(lockHandle).release();
         orderVerifier.verify(loggingService).logUnlockingAccounts(transaction);
         verifyNoInteractions(errorHandler);
     }
-}
\ No newline at end of file
+
+    @Test
+    void processTransaction_WhenOptimistic_ShouldSkipLocksAndCompleteInRunnerTransaction() {
+        // given
+        processor = createProcessor(ExecutionConfig.Mode.OPTIMISTIC);
+        runOptimisticAttemptsInline();
+
+        // when
+        processor.processTransaction(transaction).join();
+
+        // then
+        InOrder order = inOrder(optimisticRunner, executionCommand, statusManager, loggingService);
+        order.verify(optimisticRunner).execute(eq(transaction), any());
+        // the status change is part of the attempt, so it is committed together with the balances
+        order.verify(executionCommand).execute(transaction, accountService);
+        order.verify(statusManager).setTransactionStatus(transaction, TransactionStatus.DONE);
+        order.verify(loggingService).logSuccessfulTransaction(transaction);
+        verifyNoInteractions(accountLockManager, lockHandle, transactionManager);
+    }
+
+    @Test
+    void processTransaction_WhenOptimisticRetriesExhausted_ShouldHandleError() {
+        // given
+        processor = createProcessor(ExecutionConfig.Mode.OPTIMISTIC);
+        ObjectOptimisticLockingFailureException exception =
+                new ObjectOptimisticLockingFailureException(Account.class, 1);
+        doThrow(exception).when(optimisticRunner).execute(eq(transaction), any());
+
+        // when/then
+        assertThatThrownBy(() -> processor.processTransaction(transaction).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(TransactionExecutionException.class);
+        verify(errorHandler).handleUnexpectedError(transaction, exception);
+        verify(statusManager, never()).setTransactionStatus(transaction, TransactionStatus.DONE);
+        verifyNoInteractions(accountLockManager);
+    }
+
+    @Test
+    void processTransaction_WhenSharded_ShouldExecuteSingleAccountTransactionOnOwningShard() {
+        // given
+        processor = createProcessor(ExecutionConfig.Mode.SHARDED);
+        transaction.setSourceAccount(null);
+        Map<String, String> threads = recordThreads();
+
+        // when
+        processor.processTransaction(transaction).join();
+
+        // then
+        assertThat(threads.get("execute")).startsWith("AccountShard-0-");
+        verify(statusManager).setTransactionStatus(transaction, TransactionStatus.DONE);
+        verifyNoInteractions(accountLockManager);
+    }
+
+    @Test
+    void processTransaction_WhenShardedTransferWithinShard_ShouldExecuteWholeTransfer() {
+        // given
+        processor = createProcessor(ExecutionConfig.Mode.SHARDED);
+        TransferExecutor transferCommand = mock(TransferExecutor.class);
+        when(commandRegistry.getCommand(any(TransactionType.class))).thenReturn(transferCommand);
+        when(destinationAccount.getId()).thenReturn(3);
+
+        // when
+        processor.processTransaction(transaction).join();
+
+        // then
+        verify(transferCommand).execute(transaction, accountService);
+        verify(transferCommand, never()).debit(any(), any());
+        verify(transferCommand, never()).credit(any(), any());
+        verify(statusManager).setTransactionStatus(transaction, TransactionStatus.DONE);
+    }
+
+    @Test
+    void processTransaction_WhenShardedTransferAcrossShards_ShouldHandOverCredit() {
+        // given
+        processor = createProcessor(ExecutionConfig.Mode.SHARDED);
+        TransferExecutor transferCommand = mock(TransferExecutor.class);
+        when(commandRegistry.getCommand(any(TransactionType.class))).thenReturn(transferCommand);
+        Map<String, String> threads = new ConcurrentHashMap<>();
+        doAnswer(invocation -> threads.put("debit", Thread.currentThread().getName()))
+                .when(transferCommand).debit(transaction, accountService);
+        doAnswer(invocation -> threads.put("credit", Thread.currentThread().getName()))
+                .when(transferCommand).credit(transaction, accountService);
+
+        // when
+        processor.processTransaction(transaction).join();
+
+        // then
+        assertThat(threads.get("debit")).startsWith("AccountShard-1-");
+        assertThat(threads.get("credit")).startsWith("AccountShard-0-");
+        InOrder order = inOrder(statusManager, transferCommand, loggingService);
+        order.verify(statusManager).claimForProcessing(transaction);
+        order.verify(transferCommand).debit(transaction, accountService);
+        order.verify(statusManager).setTransactionStatus(transaction, TransactionStatus.DEBITED);
+        order.verify(transferCommand).credit(transaction, accountService);
+        order.verify(statusManager).setTransactionStatus(transaction, TransactionStatus.DONE);
+        order.verify(loggingService).logSuccessfulTransaction(transaction);
+        verify(transferCommand, never()).execute(any(), any());
+    }
+
+    @Test
+    void processTransaction_WhenShardedCreditFails_ShouldRefundSourceAccount() {
+        // given
+        processor = createProcessor(ExecutionConfig.Mode.SHARDED);
+        transaction.setAmount(new BigDecimal("100.00"));
+        TransferExecutor transferCommand = mock(TransferExecutor.class);
+        when(commandRegistry.getCommand(any(TransactionType.class))).thenReturn(transferCommand);
+        RuntimeException exception = new RuntimeException("Credit failed");
+        doThrow(exception).when(transferCommand).credit(transaction, accountService);
+
+        // when/then
+        assertThatThrownBy(() -> processor.processTransaction(transaction).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(TransactionExecutionException.class);
+        // the refund has committed before the transfer is reported as failed
+        InOrder order = inOrder(accountService, errorHandler);
+        order.verify(accountService).deposit(sourceAccount, new BigDecimal("100.00"));
+        order.verify(errorHandler).handleUnexpectedError(transaction, exception);
+        verify(statusManager, never()).setTransactionStatus(transaction, TransactionStatus.DONE);
+    }
+
+    @Test
+    void processTransaction_WhenShardedRefundFails_ShouldLeaveTransferDebited() {
+        // given
+        processor = createProcessor(ExecutionConfig.Mode.SHARDED);
+        transaction.setAmount(new BigDecimal("100.00"));
+        TransferExecutor transferCommand = mock(TransferExecutor.class);
+        when(commandRegistry.getCommand(any(TransactionType.class))).thenReturn(transferCommand);
+        doThrow(new RuntimeException("Credit failed")).when(transferCommand).credit(transaction, accountService);
+        doThrow(new RuntimeException("Refund failed"))
+                .when(accountService).deposit(sourceAccount, new BigDecimal("100.00"));
+
+        // when/then
+        assertThatThrownBy(() -> processor.processTransaction(transaction).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(TransactionExecutionException.class)
+                .hasMessageContaining("Failed to refund");
+        // left for the recovery sweep to resume
+        assertThat(transaction.getStatus()).isEqualTo(TransactionStatus.DEBITED);
+        verifyNoInteractions(errorHandler);
+    }
+
+    @Test
+    void resumeTransfer_ShouldCreditDestinationOnItsShard() {
+        // given
+        processor = createProcessor(ExecutionConfig.Mode.SHARDED);
+        transaction.setStatus(TransactionStatus.DEBITED);
+        TransferExecutor transferCommand = mock(TransferExecutor.class);
+        when(commandRegistry.getCommand(any(TransactionType.class))).thenReturn(transferCommand);
+        Map<String, String> threads = new ConcurrentHashMap<>();
+        doAnswer(invocation -> threads.put("credit", Thread.currentThread().getName()))
+                .when(transferCommand).credit(transaction, accountService);
+
+        // when
+        processor.resumeTransfer(transaction).join();
+
+        // then
+        assertThat(threads.get("credit")).startsWith("AccountShard-0-");
+        verify(statusManager).setTransactionStatus(transaction, TransactionStatus.DONE);
+        verify(transferCommand, never()).debit(any(), any());
+        verify(statusManager, never()).claimForProcessing(any());
+        verifyNoInteractions(errorHandler);
+    }
+
+    @Test
+    void resumeTransfer_WhenFeeHasNoDestination_ShouldCreditOnShardOfBankAccount() {
+        // given
+        processor = createProcessor(ExecutionConfig.Mode.SHARDED);
+        transaction.setType(TransactionType.FEE);
+        transaction.setDestinationAccount(null);
+        transaction.setStatus(TransactionStatus.DEBITED);
+        TransferExecutor transferCommand = mock(TransferExecutor.class);
+        when(commandRegistry.getCommand(any(TransactionType.class))).thenReturn(transferCommand);
+        // the bank account -1 belongs to shard 1 like the source account, bucket 4 to shard 0
+        when(transferCommand.getCreditedAccountId(transaction)).thenReturn(4);
+        Map<String, String> threads = new ConcurrentHashMap<>();
+        doAnswer(invocation -> threads.put("credit", Thread.currentThread().getName()))
+                .when(transferCommand).credit(transaction, accountService);
+
+        // when
+        processor.resumeTransfer(transaction).join();
+
+        // then
+        assertThat(threads.get("credit")).startsWith("AccountShard-0-");
+        verify(statusManager).setTransactionStatus(transaction, TransactionStatus.DONE);
+        verifyNoInteractions(errorHandler);
+    }
+
+    private void runOptimisticAttemptsInline() {
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return null;
+        }).when(optimisticRunner).execute(any(Transaction.class), any(Runnable.class));
+    }
+
+    private static ThreadPoolTaskExecutor threadPool(String threadNamePrefix, int size) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(size);
+        executor.setMaxPoolSize(size);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.initialize();
+        return executor;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Map<String, String> recordThreads() {
+        Map<String, String> threads = new ConcurrentHashMap<>();
+        doAnswer(invocation -> threads.put("execute", Thread.currentThread().getName()))
+                .when(executionCommand).execute(transaction, accountService);
+        return threads;
+    }
+}
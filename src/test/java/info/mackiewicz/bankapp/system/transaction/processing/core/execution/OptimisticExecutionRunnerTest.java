@@ -0,0 +1,156 @@
+package info.mackiewicz.bankapp.system.transaction.processing.core.execution;
+
+import info.mackiewicz.bankapp.core.account.model.Account;
+import info.mackiewicz.bankapp.core.account.service.AccountService;
+import info.mackiewicz.bankapp.core.transaction.exception.InsufficientFundsException;
+import info.mackiewicz.bankapp.core.transaction.model.Transaction;
+import info.mackiewicz.bankapp.core.transaction.model.TransactionStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@DisplayName("OptimisticExecutionRunner Tests")
+class OptimisticExecutionRunnerTest {
+
+    private static final int MAX_RETRIES = 2;
+
+    private PlatformTransactionManager transactionManager;
+    private SimpleMeterRegistry meterRegistry;
+    private OptimisticExecutionRunner runner;
+
+    private TransactionExecutor command;
+    private Transaction transaction;
+    private AccountService accountService;
+
+    @BeforeEach
+    void setUp() {
+        transactionManager = mock(PlatformTransactionManager.class);
+        meterRegistry = new SimpleMeterRegistry();
+        runner = new OptimisticExecutionRunner(
+                new ExecutionConfig(ExecutionConfig.Mode.OPTIMISTIC, MAX_RETRIES, 1, 1, 0),
+                new TransactionTemplate(transactionManager),
+                meterRegistry);
+
+        command = mock(TransactionExecutor.class);
+        transaction = new Transaction();
+        accountService = mock(AccountService.class);
+    }
+
+    @Test
+    @DisplayName("Should execute the command once in a single database transaction")
+    void shouldExecuteInSingleTransaction() {
+        // When
+        runner.execute(transaction, () -> command.execute(transaction, accountService));
+
+        // Then
+        verify(command).execute(transaction, accountService);
+        verify(transactionManager).getTransaction(any());
+        verify(transactionManager).commit(any());
+        assertThat(meterRegistry.find("bankapp.transaction.optimistic.conflicts").counter()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should retry the command after an optimistic locking conflict")
+    void shouldRetryAfterConflict() {
+        // Given
+        doThrow(conflict())
+                .doNothing()
+                .when(command).execute(transaction, accountService);
+
+        // When
+        runner.execute(transaction, () -> command.execute(transaction, accountService));
+
+        // Then
+        verify(command, times(2)).execute(transaction, accountService);
+        verify(transactionManager).rollback(any());
+        verify(transactionManager).commit(any());
+        assertThat(meterRegistry.get("bankapp.transaction.optimistic.conflicts").tag("outcome", "retried")
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should restore the status of the transaction when an attempt is rolled back")
+    void shouldRestoreStatusOfRolledBackAttempt() {
+        // Given
+        transaction.setStatus(TransactionStatus.PENDING);
+        List<TransactionStatus> seenStatuses = new ArrayList<>();
+        doAnswer(invocation -> {
+            seenStatuses.add(transaction.getStatus());
+            transaction.setStatus(TransactionStatus.DONE);
+            if (seenStatuses.size() == 1) {
+                throw conflict();
+            }
+            return null;
+        }).when(command).execute(transaction, accountService);
+
+        // When
+        runner.execute(transaction, () -> command.execute(transaction, accountService));
+
+        // Then
+        assertThat(seenStatuses).containsExactly(TransactionStatus.PENDING, TransactionStatus.PENDING);
+        assertThat(transaction.getStatus()).isEqualTo(TransactionStatus.DONE);
+    }
+
+    @Test
+    @DisplayName("Should retry the command after a database deadlock")
+    void shouldRetryAfterDeadlock() {
+        // Given
+        doThrow(new CannotAcquireLockException("Deadlock detected"))
+                .doNothing()
+                .when(command).execute(transaction, accountService);
+
+        // When
+        runner.execute(transaction, () -> command.execute(transaction, accountService));
+
+        // Then
+        verify(command, times(2)).execute(transaction, accountService);
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    @DisplayName("Should give up once the retry budget is exhausted")
+    void shouldGiveUpAfterMaxRetries() {
+        // Given
+        ObjectOptimisticLockingFailureException conflict = conflict();
+        doThrow(conflict).when(command).execute(transaction, accountService);
+
+        // When & Then
+        assertThatThrownBy(() -> runner.execute(transaction, () -> command.execute(transaction, accountService)))
+                .isSameAs(conflict);
+        verify(command, times(MAX_RETRIES + 1)).execute(transaction, accountService);
+        verify(transactionManager, never()).commit(any());
+        assertThat(meterRegistry.get("bankapp.transaction.optimistic.conflicts").tag("outcome", "exhausted")
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should not retry other errors")
+    void shouldNotRetryOtherErrors() {
+        // Given
+        InsufficientFundsException exception = new InsufficientFundsException("Insufficient funds");
+        doThrow(exception).when(command).execute(transaction, accountService);
+
+        // When & Then
+        assertThatThrownBy(() -> runner.execute(transaction, () -> command.execute(transaction, accountService)))
+                .isSameAs(exception);
+        verify(command, times(1)).execute(transaction, accountService);
+        verify(transactionManager).rollback(any());
+    }
+
+    private static ObjectOptimisticLockingFailureException conflict() {
+        return new ObjectOptimisticLockingFailureException(Account.class, 1);
+    }
+}
@@ -4,6 +4,7 @@ import info.mackiewicz.bankapp.core.account.model.Account;
 import info.mackiewicz.bankapp.core.account.service.AccountService;
 import info.mackiewicz.bankapp.core.transaction.model.Transaction;
 import info.mackiewicz.bankapp.core.transaction.model.TransactionType;
+import info.mackiewicz.bankapp.system.banking.ledger.BankLedger;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -39,12 +40,15 @@ class FeeTransactionExecutorTest {
     @Mock
     private Transaction transaction;
 
+    @Mock
+    private BankLedger bankLedger;
+
     private FeeTransactionExecutor command;
     private BigDecimal amount;
 
     @BeforeEach
     void setUp() {
-        command = new FeeTransactionExecutor();
+        command = new FeeTransactionExecutor(bankLedger);
         amount = new BigDecimal("10.00");
     }
 
@@ -71,6 +75,7 @@ class FeeTransactionExecutorTest {
         when(transaction.getSourceAccount()).thenReturn(sourceAccount);
         when(transaction.getDestinationAccount()).thenReturn(null);
         when(transaction.getAmount()).thenReturn(amount);
+        when(bankLedger.getDepositAccountId(any())).thenReturn(BankLedger.BANK_ACCOUNT_ID);
         when(accountService.getAccountById(-1)).thenReturn(bankAccount);
         
         // Act
@@ -84,6 +89,73 @@ class FeeTransactionExecutorTest {
         inOrder.verify(accountService).deposit(bankAccount, amount);
     }
 
+    @Test
+    void debit_WithoutDestinationAccount_ShouldSetBankAccountAndOnlyWithdraw() {
+        // Arrange
+        when(transaction.getSourceAccount()).thenReturn(sourceAccount);
+        when(transaction.getDestinationAccount()).thenReturn(null);
+        when(transaction.getAmount()).thenReturn(amount);
+        when(bankLedger.getDepositAccountId(any())).thenReturn(BankLedger.BANK_ACCOUNT_ID);
+        when(accountService.getAccountById(-1)).thenReturn(bankAccount);
+
+        // Act
+        command.debit(transaction, accountService);
+
+        // Assert
+        InOrder inOrder = inOrder(accountService, transaction);
+        inOrder.verify(transaction).setDestinationAccount(bankAccount);
+        inOrder.verify(accountService).withdraw(sourceAccount, amount);
+        verify(accountService, never()).deposit(any(), any());
+    }
+
+    @Test
+    void getCreditedAccountId_WithoutDestinationAccount_ShouldReturnBucketOfTransaction() {
+        // Arrange
+        when(transaction.getId()).thenReturn(7);
+        when(transaction.getDestinationAccount()).thenReturn(null);
+        when(bankLedger.getDepositAccountId(7)).thenReturn(12);
+
+        // Act
+        Integer creditedAccountId = command.getCreditedAccountId(transaction);
+
+        // Assert
+        assertEquals(12, creditedAccountId);
+        verifyNoInteractions(accountService);
+    }
+
+    @Test
+    void execute_WithBucketedBankLedger_ShouldDepositToBucketOfTransaction() {
+        // Arrange
+        when(transaction.getId()).thenReturn(7);
+        when(transaction.getSourceAccount()).thenReturn(sourceAccount);
+        when(transaction.getDestinationAccount()).thenReturn(null);
+        when(transaction.getAmount()).thenReturn(amount);
+        when(bankLedger.getDepositAccountId(7)).thenReturn(12);
+        when(accountService.getAccountById(12)).thenReturn(destinationAccount);
+
+        // Act
+        command.execute(transaction, accountService);
+
+        // Assert
+        verify(transaction).setDestinationAccount(destinationAccount);
+        verify(accountService).deposit(destinationAccount, amount);
+        verify(accountService, never()).getAccountById(-1);
+    }
+
+    @Test
+    void credit_ShouldDepositToDestinationAccount() {
+        // Arrange
+        when(transaction.getDestinationAccount()).thenReturn(bankAccount);
+        when(transaction.getAmount()).thenReturn(amount);
+
+        // Act
+        command.credit(transaction, accountService);
+
+        // Assert
+        verify(accountService).deposit(bankAccount, amount);
+        verify(accountService, never()).withdraw(any(), any());
+    }
+
     @Test
     void getTransactionType_ShouldReturnFee() {
         // Act
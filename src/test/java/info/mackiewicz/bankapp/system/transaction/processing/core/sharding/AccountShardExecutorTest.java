@@ -0,0 +1,118 @@
+package info.mackiewicz.bankapp.system.transaction.processing.core.sharding;
+
+import info.mackiewicz.bankapp.system.transaction.processing.core.execution.ExecutionConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("AccountShardExecutor Tests")
+class AccountShardExecutorTest {
+
+    private static final int SHARDS = 4;
+
+    private SimpleMeterRegistry meterRegistry;
+    private AccountShardExecutor shardExecutor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        shardExecutor = new AccountShardExecutor(
+                new ExecutionConfig(ExecutionConfig.Mode.SHARDED, 0, 0, 0, SHARDS), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        shardExecutor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should map accounts to shards by ID")
+    void shouldMapAccountsToShards() {
+        assertThat(shardExecutor.getShardCount()).isEqualTo(SHARDS);
+        assertThat(shardExecutor.shardOf(5)).isEqualTo(1);
+        assertThat(shardExecutor.shardOf(-1)).isEqualTo(3);
+        assertThat(shardExecutor.sameShard(2, 6)).isTrue();
+        assertThat(shardExecutor.sameShard(2, 3)).isFalse();
+        assertThat(meterRegistry.find("bankapp.transaction.shard.queue").gauges()).hasSize(SHARDS);
+    }
+
+    @Test
+    @DisplayName("Should run all tasks of an account on one thread in submission order")
+    void shouldRunTasksOfAccountSequentially() {
+        // Given
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        List<CompletableFuture<Void>> tasks = new ArrayList<>();
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            int task = i;
+            tasks.add(shardExecutor.submit(7, () -> {
+                threads.add(Thread.currentThread().getName());
+                order.add(task);
+            }));
+        }
+        CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).join();
+
+        // Then
+        assertThat(threads).containsExactly("AccountShard-3-1");
+        assertThat(order).isSorted().hasSize(100);
+    }
+
+    @Test
+    @DisplayName("Should return the result of the task")
+    void shouldReturnResult() {
+        assertThat(shardExecutor.submit(1, () -> Thread.currentThread().getName()).join())
+                .isEqualTo("AccountShard-1-1");
+    }
+
+    @Test
+    @DisplayName("Should let pending hand-overs complete before shutting down")
+    void shouldCompleteHandOversBeforeShutdown() throws InterruptedException {
+        // Given
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        AtomicBoolean handedOver = new AtomicBoolean();
+        CompletableFuture<Void> transfer = shardExecutor.submit(1, () -> {
+                    started.countDown();
+                    await(proceed);
+                })
+                .thenCompose(ignored -> shardExecutor.submit(2, () -> handedOver.set(true)));
+        assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+
+        // When
+        CompletableFuture<Void> shutdown = CompletableFuture.runAsync(shardExecutor::shutdown);
+        proceed.countDown();
+        shutdown.join();
+
+        // Then
+        assertThat(transfer).isCompleted();
+        assertThat(handedOver).isTrue();
+        assertThatThrownBy(() -> shardExecutor.submit(2, () -> { }).join())
+                .isInstanceOf(RejectedExecutionException.class);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
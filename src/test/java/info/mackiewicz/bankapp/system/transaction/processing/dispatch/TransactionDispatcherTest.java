@@ -0,0 +1,356 @@
+package info.mackiewicz.bankapp.system.transaction.processing.dispatch;
+
+import info.mackiewicz.bankapp.core.transaction.event.TransactionRegisteredEvent;
+import info.mackiewicz.bankapp.core.transaction.exception.TransactionNotFoundException;
+import info.mackiewicz.bankapp.core.transaction.model.TransactionStatus;
+import info.mackiewicz.bankapp.core.transaction.model.TransactionType;
+import info.mackiewicz.bankapp.system.transaction.processing.TransactionProcessingService;
+import info.mackiewicz.bankapp.system.transaction.processing.admission.AdmissionConfig;
+import info.mackiewicz.bankapp.system.transaction.processing.admission.TransactionAdmissionControl;
+import info.mackiewicz.bankapp.system.transaction.processing.admission.TransactionAdmissionControl.Permit;
+import info.mackiewicz.bankapp.system.transaction.processing.dispatch.model.TransactionOutboxEntry;
+import info.mackiewicz.bankapp.system.transaction.processing.dispatch.repository.TransactionOutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DisplayName("TransactionDispatcher Tests")
+class TransactionDispatcherTest {
+
+    private static final Executor DIRECT_EXECUTOR = Runnable::run;
+    private static final Set<TransactionStatus> UNFINISHED_STATUSES =
+            Set.of(TransactionStatus.NEW, TransactionStatus.PENDING, TransactionStatus.DEBITED);
+
+    private TransactionOutboxRepository outboxRepository;
+    private TransactionProcessingService processingService;
+    private TransactionAdmissionControl admissionControl;
+
+    @BeforeEach
+    void setUp() {
+        outboxRepository = mock(TransactionOutboxRepository.class);
+        processingService = mock(TransactionProcessingService.class);
+        admissionControl = new TransactionAdmissionControl(
+                new AdmissionConfig(10, Map.of(TransactionType.TRANSFER_OWN, 1), 1), new SimpleMeterRegistry());
+        when(processingService.processTransactionById(anyInt())).thenReturn(CompletableFuture.completedFuture(null));
+        when(outboxRepository.findInStatusCreatedBefore(
+                anyInt(), any(), any(), any())).thenReturn(List.of());
+    }
+
+    @Test
+    @DisplayName("Should write the outbox entry of a registered transaction")
+    void shouldRecordRegisteredTransaction() {
+        // Given
+        TransactionDispatcher dispatcher = createDispatcher(true, DIRECT_EXECUTOR);
+
+        // When
+        dispatcher.recordRegisteredTransaction(new TransactionRegisteredEvent(5, TransactionType.TRANSFER_INTERNAL));
+
+        // Then
+        ArgumentCaptor<TransactionOutboxEntry> entry = ArgumentCaptor.forClass(TransactionOutboxEntry.class);
+        verify(outboxRepository).save(entry.capture());
+        assertThat(entry.getValue().getTransactionId()).isEqualTo(5);
+        verifyNoInteractions(processingService);
+    }
+
+    @Test
+    @DisplayName("Should process a committed transaction and remove its outbox entry")
+    void shouldDispatchCommittedTransaction() {
+        // Given
+        TransactionDispatcher dispatcher = createDispatcher(true, DIRECT_EXECUTOR);
+
+        // When
+        dispatcher.dispatchRegisteredTransaction(new TransactionRegisteredEvent(5, TransactionType.TRANSFER_INTERNAL));
+
+        // Then
+        verify(processingService).processTransactionById(5);
+        verify(outboxRepository).deleteUnlessInStatus(5, UNFINISHED_STATUSES);
+    }
+
+    @Test
+    @DisplayName("Should leave committed transactions to the recovery sweep when disabled")
+    void shouldNotDispatchWhenDisabled() {
+        // Given
+        TransactionDispatcher dispatcher = createDispatcher(false, DIRECT_EXECUTOR);
+
+        // When
+        dispatcher.dispatchRegisteredTransaction(new TransactionRegisteredEvent(5, TransactionType.TRANSFER_INTERNAL));
+
+        // Then
+        verifyNoInteractions(processingService, outboxRepository);
+    }
+
+    @Test
+    @DisplayName("Should dispatch an admitted transaction with its admitted place once the registration commits")
+    void shouldDispatchWithAdmittedPlace() {
+        // Given
+        TransactionDispatcher dispatcher = createDispatcher(true, DIRECT_EXECUTOR);
+        CompletableFuture<Void> processing = new CompletableFuture<>();
+        when(processingService.processTransactionById(5)).thenReturn(processing);
+        TransactionRegisteredEvent event = new TransactionRegisteredEvent(5, TransactionType.TRANSFER_OWN);
+        admissionControl.admit(TransactionType.TRANSFER_OWN);
+
+        // When
+        List<TransactionSynchronization> synchronizations = inRegisteringTransaction(
+                () -> dispatcher.recordRegisteredTransaction(event));
+        admissionControl.cancelAdmission();
+        dispatcher.dispatchRegisteredTransaction(event);
+        synchronizations.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        // Then - the admitted place is the only one of the type, a second one would have been refused
+        verify(processingService).processTransactionById(5);
+        assertThat(admissionControl.getInFlight(TransactionType.TRANSFER_OWN)).isEqualTo(1);
+
+        // When
+        processing.complete(null);
+
+        // Then
+        assertThat(admissionControl.getInFlight(TransactionType.TRANSFER_OWN)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should free the admitted place when the registration rolls back")
+    void shouldFreeAdmittedPlaceOnRollback() {
+        // Given
+        TransactionDispatcher dispatcher = createDispatcher(true, DIRECT_EXECUTOR);
+        admissionControl.admit(TransactionType.TRANSFER_OWN);
+
+        // When
+        List<TransactionSynchronization> synchronizations = inRegisteringTransaction(() -> dispatcher.recordRegisteredTransaction(
+                new TransactionRegisteredEvent(5, TransactionType.TRANSFER_OWN)));
+        admissionControl.cancelAdmission();
+
+        // Then
+        assertThat(admissionControl.getQueueDepth(TransactionType.TRANSFER_OWN)).isEqualTo(1);
+
+        // When
+        synchronizations.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        // Then
+        assertThat(admissionControl.getQueueDepth(TransactionType.TRANSFER_OWN)).isZero();
+        verifyNoInteractions(processingService);
+    }
+
+    @Test
+    @DisplayName("Should hold a place in the processing queue until processing finishes")
+    void shouldReleaseAdmissionWhenProcessed() {
+        // Given
+        TransactionDispatcher dispatcher = createDispatcher(true, DIRECT_EXECUTOR);
+        CompletableFuture<Void> processing = new CompletableFuture<>();
+        when(processingService.processTransactionById(5)).thenReturn(processing);
+
+        // When
+        dispatcher.dispatchRegisteredTransaction(new TransactionRegisteredEvent(5, TransactionType.TRANSFER_OWN));
+
+        // Then
+        assertThat(admissionControl.getInFlight(TransactionType.TRANSFER_OWN)).isEqualTo(1);
+        assertThat(admissionControl.getQueueDepth(TransactionType.TRANSFER_OWN)).isZero();
+
+        // When
+        processing.complete(null);
+
+        // Then
+        assertThat(admissionControl.getInFlight(TransactionType.TRANSFER_OWN)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should leave a transaction to the recovery sweep when its processing queue is full")
+    void shouldNotDispatchWhenQueueIsFull() {
+        // Given
+        TransactionDispatcher dispatcher = createDispatcher(true, DIRECT_EXECUTOR);
+        when(processingService.processTransactionById(5)).thenReturn(new CompletableFuture<>());
+        dispatcher.dispatchRegisteredTransaction(new TransactionRegisteredEvent(5, TransactionType.TRANSFER_OWN));
+
+        // When
+        dispatcher.dispatchRegisteredTransaction(new TransactionRegisteredEvent(6, TransactionType.TRANSFER_OWN));
+
+        // Then
+        verify(processingService, never()).processTransactionById(6);
+        verify(outboxRepository, never()).deleteUnlessInStatus(eq(6), any());
+    }
+
+    @Test
+    @DisplayName("Should not dispatch a transaction again while it is being processed")
+    void shouldNotDispatchTwiceAtTheSameTime() {
+        // Given
+        TransactionDispatcher dispatcher = createDispatcher(true, DIRECT_EXECUTOR);
+        CompletableFuture<Void> processing = new CompletableFuture<>();
+        when(processingService.processTransactionById(5)).thenReturn(processing);
+
+        // When
+        CompletableFuture<Void> first = dispatcher.dispatch(5, Permit.UNCOUNTED);
+        CompletableFuture<Void> second = dispatcher.dispatch(5, Permit.UNCOUNTED);
+
+        // Then
+        assertThat(first).isNotDone();
+        assertThat(second).isCompleted();
+        verify(processingService, times(1)).processTransactionById(5);
+
+        // When
+        processing.complete(null);
+        dispatcher.dispatch(5, Permit.UNCOUNTED);
+
+        // Then
+        assertThat(first).isCompleted();
+        verify(processingService, times(2)).processTransactionById(5);
+    }
+
+    @Test
+    @DisplayName("Should handle the outbox entry when processing fails")
+    void shouldHandleEntryWhenProcessingFails() {
+        // Given
+        TransactionDispatcher dispatcher = createDispatcher(true, DIRECT_EXECUTOR);
+        when(processingService.processTransactionById(5)).thenThrow(new TransactionNotFoundException("Not found"));
+
+        // When
+        CompletableFuture<Void> dispatched = dispatcher.dispatch(5, Permit.UNCOUNTED);
+
+        // Then
+        assertThat(dispatched).isCompleted();
+        verify(outboxRepository).deleteUnlessInStatus(5, UNFINISHED_STATUSES);
+    }
+
+    @Test
+    @DisplayName("Should keep the outbox entry when the transaction cannot be queued")
+    void shouldKeepEntryWhenRejected() {
+        // Given
+        TransactionDispatcher dispatcher = createDispatcher(true, command -> {
+            throw new RejectedExecutionException("Shutting down");
+        });
+
+        // When
+        CompletableFuture<Void> dispatched = dispatcher.dispatch(5, Permit.UNCOUNTED);
+
+        // Then
+        assertThat(dispatched).isCompleted();
+        verify(outboxRepository, never()).deleteUnlessInStatus(any(), any());
+        verifyNoInteractions(processingService);
+    }
+
+    @Test
+    @DisplayName("Should work off the backlog of new transactions when orphaned ones are found")
+    void shouldProcessBacklogWhenOrphansFound() {
+        // Given
+        TransactionDispatcher dispatcher = createDispatcher(true, DIRECT_EXECUTOR);
+        when(outboxRepository.findInStatusCreatedBefore(eq(0), any(), eq(TransactionStatus.NEW), eq(Limit.of(1))))
+                .thenReturn(entries(1));
+        when(processingService.processAllNewTransactions()).thenReturn(3);
+
+        // When
+        int processed = dispatcher.redispatchOrphanedTransactions();
+
+        // Then
+        assertThat(processed).isEqualTo(3);
+        verify(processingService).processAllNewTransactions();
+        verify(outboxRepository, times(2)).deleteAllNotInStatus(UNFINISHED_STATUSES);
+        verify(processingService, never()).processTransactionById(anyInt());
+    }
+
+    @Test
+    @DisplayName("Should only remove entries of finished transactions when there are no orphans")
+    void shouldNotProcessBacklogWithoutOrphans() {
+        // Given
+        TransactionDispatcher dispatcher = createDispatcher(true, DIRECT_EXECUTOR);
+
+        // When
+        int processed = dispatcher.redispatchOrphanedTransactions();
+
+        // Then
+        assertThat(processed).isZero();
+        verify(outboxRepository).deleteAllNotInStatus(UNFINISHED_STATUSES);
+        verify(processingService, never()).processAllNewTransactions();
+    }
+
+    @Test
+    @DisplayName("Should resume transfers left debited even when there are no orphans")
+    void shouldResumeDebitedTransfers() {
+        // Given
+        TransactionDispatcher dispatcher = createDispatcher(true, DIRECT_EXECUTOR);
+        when(processingService.resumeDebitedTransfers(any())).thenReturn(2);
+
+        // When
+        int processed = dispatcher.redispatchOrphanedTransactions();
+
+        // Then
+        assertThat(processed).isEqualTo(2);
+        verify(processingService).resumeDebitedTransfers(argThat(createdBefore -> createdBefore.isBefore(LocalDateTime.now())));
+        verify(processingService, never()).processAllNewTransactions();
+    }
+
+    @Test
+    @DisplayName("Should move transactions claimed longer than the claim timeout ago back to NEW before the backlog")
+    void shouldReleaseStaleClaims() {
+        // Given
+        TransactionDispatcher dispatcher = createDispatcher(true, DIRECT_EXECUTOR);
+        when(outboxRepository.findInStatusCreatedBefore(eq(0), any(), eq(TransactionStatus.NEW), eq(Limit.of(1))))
+                .thenReturn(entries(1));
+        LocalDateTime before = LocalDateTime.now();
+
+        // When
+        dispatcher.redispatchOrphanedTransactions();
+
+        // Then
+        ArgumentCaptor<LocalDateTime> claimedBefore = ArgumentCaptor.forClass(LocalDateTime.class);
+        var inOrder = inOrder(processingService);
+        inOrder.verify(processingService).releaseStaleClaims(claimedBefore.capture());
+        inOrder.verify(processingService).processAllNewTransactions();
+        assertThat(claimedBefore.getValue()).isBetween(before.minusMinutes(10), before.minusMinutes(10).plusSeconds(1));
+    }
+
+    @Test
+    @DisplayName("Should consider only entries older than the grace period orphaned")
+    void shouldApplyGracePeriod() {
+        // Given
+        TransactionDispatcher dispatcher = createDispatcher(true, DIRECT_EXECUTOR);
+        Instant before = Instant.now();
+
+        // When
+        dispatcher.redispatchOrphanedTransactions();
+
+        // Then
+        ArgumentCaptor<Instant> createdBefore = ArgumentCaptor.forClass(Instant.class);
+        verify(outboxRepository).findInStatusCreatedBefore(
+                eq(0), createdBefore.capture(), eq(TransactionStatus.NEW), any());
+        assertThat(createdBefore.getValue()).isBeforeOrEqualTo(before.minusSeconds(30).plusMillis(1000));
+        assertThat(createdBefore.getValue()).isAfterOrEqualTo(before.minusSeconds(30));
+    }
+
+    private List<TransactionSynchronization> inRegisteringTransaction(Runnable registration) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            registration.run();
+            return TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private TransactionDispatcher createDispatcher(boolean enabled, Executor executor) {
+        return new TransactionDispatcher(outboxRepository, processingService,
+                new DispatchConfig(enabled, 30000, 600000), admissionControl, executor);
+    }
+
+    private List<TransactionOutboxEntry> entries(Integer... transactionIds) {
+        return Arrays.stream(transactionIds).map(TransactionOutboxEntry::new).toList();
+    }
+}
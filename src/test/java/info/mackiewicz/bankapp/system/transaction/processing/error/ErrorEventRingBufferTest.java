@@ -0,0 +1,81 @@
+package info.mackiewicz.bankapp.system.transaction.processing.error;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ErrorEventRingBuffer Tests")
+class ErrorEventRingBufferTest {
+
+    @Test
+    @DisplayName("Should round the capacity up to a power of two of at least two")
+    void shouldRoundCapacity() {
+        assertThat(new ErrorEventRingBuffer<Integer>(1000).capacity()).isEqualTo(1024);
+        assertThat(new ErrorEventRingBuffer<Integer>(8).capacity()).isEqualTo(8);
+        assertThat(new ErrorEventRingBuffer<Integer>(1).capacity()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should return elements in insertion order and reject them when full")
+    void shouldRejectWhenFull() {
+        // Given
+        ErrorEventRingBuffer<Integer> buffer = new ErrorEventRingBuffer<>(4);
+
+        // When
+        List<Boolean> offered = IntStream.range(0, 5).mapToObj(buffer::offer).toList();
+
+        // Then
+        assertThat(offered).containsExactly(true, true, true, true, false);
+        assertThat(buffer.size()).isEqualTo(4);
+        assertThat(buffer.poll()).isZero();
+        assertThat(buffer.offer(5)).isTrue();
+        assertThat(List.of(buffer.poll(), buffer.poll(), buffer.poll(), buffer.poll())).containsExactly(1, 2, 3, 5);
+        assertThat(buffer.poll()).isNull();
+        assertThat(buffer.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should hand every element to exactly one consumer under concurrent producers")
+    void shouldNotLoseElementsConcurrently() {
+        // Given
+        ErrorEventRingBuffer<Integer> buffer = new ErrorEventRingBuffer<>(64);
+        int producers = 4;
+        int perProducer = 10_000;
+        List<Integer> consumed = new ArrayList<>();
+
+        // When
+        try (ExecutorService executor = Executors.newFixedThreadPool(producers)) {
+            CompletableFuture<?>[] producing = IntStream.range(0, producers)
+                    .mapToObj(p -> CompletableFuture.runAsync(() -> {
+                        for (int i = 0; i < perProducer; i++) {
+                            while (!buffer.offer(p * perProducer + i)) {
+                                Thread.onSpinWait();
+                            }
+                        }
+                    }, executor))
+                    .toArray(CompletableFuture[]::new);
+            while (consumed.size() < producers * perProducer) {
+                Integer element = buffer.poll();
+                if (element != null) {
+                    consumed.add(element);
+                }
+            }
+            CompletableFuture.allOf(producing).join();
+        }
+
+        // Then
+        Set<Integer> distinct = new HashSet<>(consumed);
+        assertThat(distinct).hasSize(producers * perProducer);
+        assertThat(buffer.poll()).isNull();
+    }
+}
@@ -0,0 +1,226 @@
+package info.mackiewicz.bankapp.system.transaction.processing.error;
+
+import info.mackiewicz.bankapp.core.transaction.model.Transaction;
+import info.mackiewicz.bankapp.system.transaction.processing.error.ErrorNotificationConfig.OverflowPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@DisplayName("TransactionErrorNotifier Tests")
+class TransactionErrorNotifierTest {
+
+    private SimpleMeterRegistry registry;
+    private TransactionErrorNotifier notifier;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (notifier != null) {
+            notifier.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should deliver errors to every observer on its own thread")
+    void shouldDeliverErrorsAsynchronously() {
+        // Given
+        notifier = createNotifier(16, OverflowPolicy.DROP);
+        RecordingObserver first = new RecordingObserver();
+        RecordingObserver second = new RecordingObserver();
+        notifier.addObserver(first);
+        notifier.addObserver(second);
+        notifier.addObserver(first);
+        Exception error = new IllegalStateException("failed");
+
+        // When
+        notifier.notifyError(transaction(1), error);
+        notifier.notifyError(transaction(2), error);
+
+        // Then
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+            assertThat(first.transactionIds()).containsExactly(1, 2);
+            assertThat(second.transactionIds()).containsExactly(1, 2);
+        });
+        assertThat(first.threads).allSatisfy(thread -> assertThat(thread).startsWith("ErrorObserver-"));
+        assertThat(registry.get("bankapp.transaction.error.observer.delay").tag("observer", "RecordingObserver")
+                .timer().count()).isEqualTo(2);
+        assertThat(registry.get("bankapp.transaction.error.observer.delay").tag("observer", "RecordingObserver-2")
+                .timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should drop errors not fitting into the buffer of a slow observer without waiting")
+    void shouldDropWhenFull() throws InterruptedException {
+        // Given
+        notifier = createNotifier(2, OverflowPolicy.DROP);
+        BlockedObserver observer = new BlockedObserver();
+        notifier.addObserver(observer);
+        notifier.notifyError(transaction(0), new IllegalStateException());
+        assertThat(observer.started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When
+        for (int i = 1; i <= 5; i++) {
+            notifier.notifyError(transaction(i), new IllegalStateException());
+        }
+
+        // Then
+        assertThat(registry.get("bankapp.transaction.error.observer.dropped").counter().count()).isEqualTo(3);
+        assertThat(registry.get("bankapp.transaction.error.observer.lag").gauge().value()).isEqualTo(2);
+        observer.release.countDown();
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                assertThat(observer.transactionIds()).containsExactly(0, 1, 2));
+    }
+
+    @Test
+    @DisplayName("Should keep only a sample of the errors once the buffer is half full")
+    void shouldSampleWhenHalfFull() throws InterruptedException {
+        // Given
+        notifier = new TransactionErrorNotifier(new ErrorNotificationConfig(8, OverflowPolicy.SAMPLE, 3), registry);
+        BlockedObserver observer = new BlockedObserver();
+        notifier.addObserver(observer);
+        notifier.notifyError(transaction(0), new IllegalStateException());
+        assertThat(observer.started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When
+        for (int i = 1; i <= 10; i++) {
+            notifier.notifyError(transaction(i), new IllegalStateException());
+        }
+
+        // Then
+        observer.release.countDown();
+        // 4 errors fill half of the buffer, then one in 3 of the remaining 6 is kept
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                assertThat(observer.transactionIds()).containsExactly(0, 1, 2, 3, 4, 5, 8));
+        assertThat(registry.get("bankapp.transaction.error.observer.dropped").counter().count()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Should make the publisher wait for space with the block policy")
+    void shouldBlockWhenFull() throws InterruptedException {
+        // Given
+        notifier = createNotifier(2, OverflowPolicy.BLOCK);
+        BlockedObserver observer = new BlockedObserver();
+        notifier.addObserver(observer);
+        notifier.notifyError(transaction(0), new IllegalStateException());
+        assertThat(observer.started.await(5, TimeUnit.SECONDS)).isTrue();
+        notifier.notifyError(transaction(1), new IllegalStateException());
+        notifier.notifyError(transaction(2), new IllegalStateException());
+
+        // When
+        Thread publisher = new Thread(() -> notifier.notifyError(transaction(3), new IllegalStateException()));
+        publisher.start();
+        publisher.join(200);
+
+        // Then
+        assertThat(publisher.isAlive()).isTrue();
+        observer.release.countDown();
+        publisher.join(5000);
+        assertThat(publisher.isAlive()).isFalse();
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                assertThat(observer.transactionIds()).containsExactly(0, 1, 2, 3));
+    }
+
+    @Test
+    @DisplayName("Should keep delivering after an observer throws and stop after it is removed")
+    void shouldSurviveFailingObserverAndRemove() {
+        // Given
+        notifier = createNotifier(16, OverflowPolicy.DROP);
+        RecordingObserver observer = new RecordingObserver();
+        TransactionErrorObserver failing = (transaction, error) -> {
+            observer.onTransactionError(transaction, error);
+            throw new IllegalStateException("observer failed");
+        };
+        notifier.addObserver(failing);
+
+        // When
+        notifier.notifyError(transaction(1), new IllegalStateException());
+        notifier.notifyError(transaction(2), new IllegalStateException());
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                assertThat(observer.transactionIds()).containsExactly(1, 2));
+        notifier.removeObserver(failing);
+        notifier.notifyError(transaction(3), new IllegalStateException());
+
+        // Then
+        assertThat(observer.transactionIds()).containsExactly(1, 2);
+        assertThat(registry.find("bankapp.transaction.error.observer.lag").gauge()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should deliver the buffered errors on shutdown")
+    void shouldDrainOnShutdown() {
+        // Given
+        notifier = createNotifier(1024, OverflowPolicy.DROP);
+        RecordingObserver observer = new RecordingObserver();
+        notifier.addObserver(observer);
+
+        // When
+        for (int i = 0; i < 500; i++) {
+            notifier.notifyError(transaction(i), new IllegalStateException());
+        }
+        notifier.shutdown();
+
+        // Then
+        assertThat(observer.transactionIds()).hasSize(500);
+    }
+
+    private TransactionErrorNotifier createNotifier(int capacity, OverflowPolicy policy) {
+        return new TransactionErrorNotifier(new ErrorNotificationConfig(capacity, policy, 0), registry);
+    }
+
+    private static Transaction transaction(int id) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        return transaction;
+    }
+
+    private static class RecordingObserver implements TransactionErrorObserver {
+
+        final List<Transaction> transactions = new CopyOnWriteArrayList<>();
+        final List<String> threads = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void onTransactionError(Transaction transaction, Exception error) {
+            transactions.add(transaction);
+            threads.add(Thread.currentThread().getName());
+        }
+
+        List<Integer> transactionIds() {
+            return transactions.stream().map(Transaction::getId).toList();
+        }
+    }
+
+    /**
+     * Waits in its first notification until released.
+     */
+    private static class BlockedObserver extends RecordingObserver {
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public void onTransactionError(Transaction transaction, Exception error) {
+            super.onTransactionError(transaction, error);
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package info.mackiewicz.bankapp.system.transaction.processing.helpers;
+
+import info.mackiewicz.bankapp.core.account.repository.AccountRepository;
+import info.mackiewicz.bankapp.core.transaction.exception.TransactionNotFoundException;
+import info.mackiewicz.bankapp.core.transaction.model.Transaction;
+import info.mackiewicz.bankapp.core.transaction.model.TransactionStatus;
+import info.mackiewicz.bankapp.core.transaction.repository.TransactionRepository;
+import info.mackiewicz.bankapp.testutils.TestAccountBuilder;
+import info.mackiewicz.bankapp.testutils.TestUserBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for TransactionStatusManager.
+ * Tests focus on status transitions and the release of the amounts on hold.
+ */
+class TransactionStatusManagerTest {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("25.00");
+    private static final LocalDateTime CLAIMED_AT = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    @Mock
+    private TransactionRepository repository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    private TransactionStatusManager statusManager;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        statusManager = new TransactionStatusManager(repository, accountRepository);
+        when(repository.updateTransactionStatus(anyInt(), any(), any())).thenReturn(1);
+    }
+
+    @Test
+    void setTransactionStatus_WhenPendingBecomesDone_ReleasesAmountOnHold() {
+        // given
+        Transaction transaction = createTransaction(TransactionStatus.PENDING);
+
+        // when
+        statusManager.setTransactionStatus(transaction, TransactionStatus.DONE);
+
+        // then
+        verify(repository).updateTransactionStatus(1, TransactionStatus.PENDING, TransactionStatus.DONE);
+        verify(accountRepository).subtractFromBalanceOnHold(5, AMOUNT);
+        assertEquals(TransactionStatus.DONE, transaction.getStatus());
+    }
+
+    @Test
+    void setTransactionStatus_WhenNewFails_ReleasesAmountOnHold() {
+        // given
+        Transaction transaction = createTransaction(TransactionStatus.NEW);
+
+        // when
+        statusManager.setTransactionStatus(transaction, TransactionStatus.INSUFFICIENT_FUNDS);
+
+        // then
+        verify(accountRepository).subtractFromBalanceOnHold(5, AMOUNT);
+    }
+
+    @Test
+    void setTransactionStatus_WhenNewBecomesPending_KeepsAmountOnHold() {
+        // given
+        Transaction transaction = createTransaction(TransactionStatus.NEW);
+
+        // when
+        statusManager.setTransactionStatus(transaction, TransactionStatus.PENDING);
+
+        // then
+        verifyNoInteractions(accountRepository);
+        assertEquals(TransactionStatus.PENDING, transaction.getStatus());
+    }
+
+    @Test
+    void setTransactionStatus_WhenPendingBecomesDebited_ReleasesAmountOnHold() {
+        // given
+        Transaction transaction = createTransaction(TransactionStatus.PENDING);
+
+        // when
+        statusManager.setTransactionStatus(transaction, TransactionStatus.DEBITED);
+
+        // then
+        verify(accountRepository).subtractFromBalanceOnHold(5, AMOUNT);
+        assertEquals(TransactionStatus.DEBITED, transaction.getStatus());
+    }
+
+    @Test
+    void setTransactionStatus_WhenDebitedBecomesDone_ReleasesNothing() {
+        // given
+        Transaction transaction = createTransaction(TransactionStatus.DEBITED);
+
+        // when
+        statusManager.setTransactionStatus(transaction, TransactionStatus.DONE);
+
+        // then
+        verify(repository).updateTransactionStatus(1, TransactionStatus.DEBITED, TransactionStatus.DONE);
+        verifyNoInteractions(accountRepository);
+    }
+
+    @Test
+    void setTransactionStatus_WhenNoSourceAccount_ReleasesNothing() {
+        // given
+        Transaction transaction = createTransaction(TransactionStatus.PENDING);
+        transaction.setSourceAccount(null);
+
+        // when
+        statusManager.setTransactionStatus(transaction, TransactionStatus.DONE);
+
+        // then
+        verifyNoInteractions(accountRepository);
+    }
+
+    @Test
+    void setTransactionStatus_WhenTransactionNotFound_ReleasesNothing() {
+        // given
+        Transaction transaction = createTransaction(TransactionStatus.PENDING);
+        when(repository.updateTransactionStatus(1, TransactionStatus.PENDING, TransactionStatus.DONE)).thenReturn(0);
+
+        // when/then
+        assertThrows(TransactionNotFoundException.class,
+                () -> statusManager.setTransactionStatus(transaction, TransactionStatus.DONE));
+        verifyNoInteractions(accountRepository);
+    }
+
+    @Test
+    void setTransactionStatus_WhenChangedConcurrently_ThrowsAndReleasesNothing() {
+        // given
+        Transaction transaction = createTransaction(TransactionStatus.PENDING);
+        when(repository.updateTransactionStatus(1, TransactionStatus.PENDING, TransactionStatus.SYSTEM_ERROR)).thenReturn(0);
+        when(repository.existsById(1)).thenReturn(true);
+
+        // when/then
+        assertThrows(IllegalStateException.class,
+                () -> statusManager.setTransactionStatus(transaction, TransactionStatus.SYSTEM_ERROR));
+        verifyNoInteractions(accountRepository);
+        assertEquals(TransactionStatus.PENDING, transaction.getStatus());
+    }
+
+    @Test
+    void setTransactionStatus_WhenStatusFinal_ThrowsAndReleasesNothing() {
+        // given
+        Transaction transaction = createTransaction(TransactionStatus.DONE);
+
+        // when/then
+        assertThrows(IllegalStateException.class,
+                () -> statusManager.setTransactionStatus(transaction, TransactionStatus.SYSTEM_ERROR));
+        verifyNoInteractions(accountRepository);
+    }
+
+    @Test
+    void claimForProcessing_WhenStillNew_MovesToPendingAndKeepsAmountOnHold() {
+        // given
+        Transaction transaction = createTransaction(TransactionStatus.NEW);
+        when(repository.claimForProcessing(eq(1), any())).thenReturn(1);
+
+        // when
+        boolean claimed = statusManager.claimForProcessing(transaction);
+
+        // then
+        assertTrue(claimed);
+        assertEquals(TransactionStatus.PENDING, transaction.getStatus());
+        verify(repository).claimForProcessing(1, transaction.getClaimedAt());
+        verifyNoInteractions(accountRepository);
+    }
+
+    @Test
+    void claimForProcessing_WhenClaimedElsewhere_LeavesTransactionUntouched() {
+        // given
+        Transaction transaction = createTransaction(TransactionStatus.NEW);
+        when(repository.claimForProcessing(eq(1), any())).thenReturn(0);
+
+        // when
+        boolean claimed = statusManager.claimForProcessing(transaction);
+
+        // then
+        assertFalse(claimed);
+        assertEquals(TransactionStatus.NEW, transaction.getStatus());
+        assertNull(transaction.getClaimedAt());
+        verifyNoInteractions(accountRepository);
+    }
+
+    @Test
+    void setTransactionStatus_WhenClaimed_CompletesOnlyUnderTheClaim() {
+        // given
+        Transaction transaction = createTransaction(TransactionStatus.PENDING);
+        transaction.setClaimedAt(CLAIMED_AT);
+        when(repository.updateClaimedTransactionStatus(1, CLAIMED_AT, TransactionStatus.DONE)).thenReturn(1);
+
+        // when
+        statusManager.setTransactionStatus(transaction, TransactionStatus.DONE);
+
+        // then
+        assertEquals(TransactionStatus.DONE, transaction.getStatus());
+        verify(repository, never()).updateTransactionStatus(anyInt(), any(), any());
+        verify(accountRepository).subtractFromBalanceOnHold(5, AMOUNT);
+    }
+
+    @Test
+    void setTransactionStatus_WhenClaimReleased_ThrowsAndReleasesNothing() {
+        // given
+        Transaction transaction = createTransaction(TransactionStatus.PENDING);
+        transaction.setClaimedAt(CLAIMED_AT);
+        when(repository.updateClaimedTransactionStatus(1, CLAIMED_AT, TransactionStatus.DONE)).thenReturn(0);
+        when(repository.existsById(1)).thenReturn(true);
+
+        // when/then
+        assertThrows(IllegalStateException.class,
+                () -> statusManager.setTransactionStatus(transaction, TransactionStatus.DONE));
+        assertEquals(TransactionStatus.PENDING, transaction.getStatus());
+        verifyNoInteractions(accountRepository);
+    }
+
+    @Test
+    void releaseStaleClaims_ReturnsNumberOfReleasedTransactions() {
+        // given
+        when(repository.releaseStaleClaims(CLAIMED_AT)).thenReturn(2);
+
+        // when
+        int released = statusManager.releaseStaleClaims(CLAIMED_AT);
+
+        // then
+        assertEquals(2, released);
+    }
+
+    private Transaction createTransaction(TransactionStatus status) {
+        Transaction transaction = new Transaction();
+        transaction.setId(1);
+        transaction.setStatus(status);
+        transaction.setAmount(AMOUNT);
+        transaction.setSourceAccount(TestAccountBuilder.createTestAccount(5, new BigDecimal("100.00"), TestUserBuilder.createTestUser()));
+        return transaction;
+    }
+}
@@ -0,0 +1,99 @@
+package info.mackiewicz.bankapp.system.transaction.processing.metrics;
+
+import info.mackiewicz.bankapp.core.transaction.model.Transaction;
+import info.mackiewicz.bankapp.core.transaction.model.TransactionType;
+import info.mackiewicz.bankapp.system.transaction.processing.metrics.TransactionPipelineMetrics.ErrorOutcome;
+import info.mackiewicz.bankapp.system.transaction.processing.metrics.TransactionPipelineMetrics.Stage;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("TransactionPipelineMetrics Tests")
+class TransactionPipelineMetricsTest {
+
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    @DisplayName("Should time a stage by transaction type")
+    void shouldRecordStageByType() {
+        // Given
+        TransactionPipelineMetrics metrics = new TransactionPipelineMetrics(registry, new PipelineMetricsConfig(true));
+
+        // When
+        long start = metrics.start() - TimeUnit.MILLISECONDS.toNanos(5);
+        metrics.record(Stage.EXECUTION, transaction(TransactionType.DEPOSIT), start);
+        metrics.record(Stage.EXECUTION, transaction(TransactionType.DEPOSIT), metrics.start());
+        metrics.record(Stage.EXECUTION, transaction(TransactionType.WITHDRAWAL), metrics.start());
+
+        // Then
+        Timer deposits = registry.get("bankapp.transaction.stage").tag("stage", "execution").tag("type", "DEPOSIT").timer();
+        assertThat(deposits.count()).isEqualTo(2);
+        assertThat(deposits.max(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(5);
+        assertThat(registry.get("bankapp.transaction.stage").tag("type", "WITHDRAWAL").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should time a transaction without type as unknown")
+    void shouldRecordUnknownType() {
+        // Given
+        TransactionPipelineMetrics metrics = new TransactionPipelineMetrics(registry, new PipelineMetricsConfig(true));
+
+        // When
+        metrics.record(Stage.VALIDATION, transaction(null), metrics.start());
+
+        // Then
+        assertThat(registry.get("bankapp.transaction.stage").tag("stage", "validation").tag("type", "unknown")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should count errors by outcome")
+    void shouldCountErrors() {
+        // Given
+        TransactionPipelineMetrics metrics = new TransactionPipelineMetrics(registry, new PipelineMetricsConfig(true));
+
+        // When
+        metrics.recordError(ErrorOutcome.INSUFFICIENT_FUNDS);
+        metrics.recordError(ErrorOutcome.INSUFFICIENT_FUNDS);
+        metrics.recordError(ErrorOutcome.LOCK);
+
+        // Then
+        assertThat(registry.get("bankapp.transaction.errors").tag("outcome", "insufficient_funds").counter().count())
+                .isEqualTo(2);
+        assertThat(registry.get("bankapp.transaction.errors").tag("outcome", "lock").counter().count()).isEqualTo(1);
+        assertThat(registry.get("bankapp.transaction.errors").tag("outcome", "unlock").counter().count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should neither read the clock nor register meters when disabled")
+    void shouldDoNothingWhenDisabled() {
+        // Given
+        TransactionPipelineMetrics metrics = new TransactionPipelineMetrics(registry, new PipelineMetricsConfig(false));
+
+        // When
+        long start = metrics.start();
+        metrics.record(Stage.EXECUTION, transaction(TransactionType.DEPOSIT), start);
+        metrics.recordError(ErrorOutcome.UNEXPECTED);
+
+        // Then
+        assertThat(start).isZero();
+        assertThat(registry.getMeters()).isEmpty();
+    }
+
+    private Transaction transaction(TransactionType type) {
+        Transaction transaction = new Transaction();
+        transaction.setType(type);
+        return transaction;
+    }
+}